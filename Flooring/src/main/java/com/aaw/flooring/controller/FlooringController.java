@@ -49,11 +49,19 @@ public class FlooringController {
             view.displayErrorMessageAndWait(ex.getMessage());
             return;
         }
+        view.displayLoadReport(service.getOrderLoadReport());
         
         // Main Menu
         boolean continueMainMenu = true;
         int mainMenuSelection;
         while (continueMainMenu){
+            
+            // Report edits and removals that failed to save in the background
+            try{
+                service.checkPendingSaves();
+            } catch (OrderPersistenceException ex){
+                view.displayErrorMessageAndWait(ex.getMessage());
+            }
             mainMenuSelection = view.displayMainMenuAndGetSelection();
             switch (mainMenuSelection){
                 case 1:
@@ -69,6 +77,15 @@ public class FlooringController {
                     removeOrder();
                     break;
                 case 5:
+                    repriceFutureOrders();
+                    break;
+                case 6:
+                    importOrders();
+                    break;
+                case 7:
+                    exportOrders();
+                    break;
+                case 8:
                     saveAddedOrders();
                     continueMainMenu = false;
                     break;
@@ -77,6 +94,19 @@ public class FlooringController {
             }
         }
         
+        // Wait for background saves, then snapshot saved orders so the next
+        // start doesn't parse every file
+        try{
+            service.flushPendingSaves();
+        } catch (OrderPersistenceException ex){
+            view.displayErrorMessageAndWait(ex.getMessage());
+        }
+        try{
+            service.saveOrderSnapshot();
+        } catch (OrderPersistenceException ex){
+            view.displayErrorMessageAndWait(ex.getMessage());
+        }
+        
         // Exit
         view.displayExitMessage();
     }
@@ -171,29 +201,33 @@ public class FlooringController {
         }
         
         // Return early if no changes
-        if (service.editOrder(order, newCustomerName, newStateTax, newProduct, newArea) == null){
+        if (newCustomerName.equals(oldCustomerName) && newStateTax.equals(oldStateTax) &&
+                newProduct.equals(oldProduct) && newArea.equals(oldArea)){
             view.displayCancelEditOrderSuccessMessage();
             return;
         }
         
-        // Display Summary
-        service.calculateOrder(order);
-        view.displayOrderSummary(order);
+        // Display Summary of the edits on a copy, so the stored order is 
+        // unchanged until confirmed and a background save can't write it
+        Order editedOrder = new Order(order.getOrderDate(), order.getOrderNumber(), 
+                newCustomerName, newStateTax, newProduct, newArea);
+        service.calculateOrder(editedOrder);
+        view.displayOrderSummary(editedOrder);
         
-        // Confirm Edits and Save
+        // Confirm Edits, then apply and save them
         if (view.confirmEditOrder()){
+            service.editOrder(order, editedOrder);
             try{
                 service.saveOrder(order.getOrderDate());
                 view.displayEditOrderSuccessMessage();
             } catch(NoOrdersOnDateException | OrderPersistenceException ex){
-                service.editOrder(order, oldCustomerName, oldStateTax, oldProduct, oldArea);
+                // Put back the fields and costs the order was read with
+                service.editOrder(editedOrder, order);
                 view.displayErrorMessageAndWait(ex.getMessage());
             }
         }
-        // Otherwise, revert changes
+        // Otherwise, leave the order as it was
         else{
-            service.editOrder(order, oldCustomerName, oldStateTax, oldProduct, oldArea);
-            service.calculateOrder(order);
             view.displayCancelEditOrderSuccessMessage();
         }
     }
@@ -234,6 +268,50 @@ public class FlooringController {
         }
     }
     
+    /**
+     * Reloads products and state taxes and reprices future orders whose 
+     * costs or tax rate have changed, if user provides confirmation.
+     */
+    private void repriceFutureOrders(){
+        view.displayRepriceOrdersBanner();
+        if (!view.confirmRepriceOrders()){
+            view.displayCancelRepriceOrdersMessage();
+            return;
+        }
+        try{
+            view.displayRepricingReport(service.repriceFutureOrders());
+        } catch (NoOrdersOnDateException | OrderPersistenceException ex){
+            view.displayErrorMessageAndWait(ex.getMessage());
+        }
+    }
+    
+    /**
+     * Prompts user for a comma-separated export file and imports its orders
+     */
+    private void importOrders(){
+        view.displayImportOrdersBanner();
+        String importFilePath = view.promptImportFilePath();
+        try{
+            view.displayImportReport(service.importOrders(importFilePath));
+        } catch (OrderPersistenceException ex){
+            view.displayErrorMessageAndWait(ex.getMessage());
+        }
+    }
+    
+    /**
+     * Prompts user for a file and writes every order to it as a 
+     * comma-separated backup
+     */
+    private void exportOrders(){
+        view.displayExportOrdersBanner();
+        String exportFilePath = view.promptExportFilePath();
+        try{
+            view.displayExportReport(service.exportOrders(exportFilePath));
+        } catch (OrderPersistenceException ex){
+            view.displayErrorMessageAndWait(ex.getMessage());
+        }
+    }
+    
     /**
      * Saves added orders to file if user provides confirmation.
      */
@@ -0,0 +1,88 @@
+/*
+ * @author Austin Wong
+ * email: austinwongdev@gmail.com
+ * date: Oct 18, 2026
+ * purpose:
+ */
+
+package com.aaw.flooring.dao;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Replaces files by writing their full contents to a temp file in the same
+ * folder and moving the temp file over the original, so a crash mid-write
+ * leaves either the old file or the new one, never a truncated file. Unless
+ * the syncer's durability mode is NO_SYNC, the temp file is synced before
+ * the move and the folder after it, so a power loss also leaves a whole file.
+ * @author Austin Wong
+ */
+class AtomicFileWriter {
+
+    private final FileSyncer fileSyncer;
+
+    AtomicFileWriter(){
+        this(new FileSyncer());
+    }
+
+    AtomicFileWriter(FileSyncer fileSyncer){
+        this.fileSyncer = fileSyncer;
+    }
+
+    /**
+     * Writes contents to target in one pass, replacing target if it exists
+     * @param target - Path of file to replace
+     * @param contents - ByteBuffer holding the complete new file contents
+     * @throws IOException
+     */
+    void write(Path target, ByteBuffer contents) throws IOException{
+        Path folder = target.toAbsolutePath().getParent();
+        Path tempFile = Files.createTempFile(folder, target.getFileName().toString(), ".tmp");
+        try{
+            try (FileChannel channel = FileChannel.open(tempFile, StandardOpenOption.WRITE)){
+                while (contents.hasRemaining()){
+                    channel.write(contents);
+                }
+            }
+            fileSyncer.sync(tempFile);
+            move(tempFile, target);
+            fileSyncer.sync(folder);
+        } catch (IOException e){
+            Files.deleteIfExists(tempFile);
+            throw e;
+        }
+    }
+
+    /**
+     * Moves a finished file over target, then syncs the folder as the 
+     * durability mode requires
+     * @param source - Path of finished file, already synced
+     * @param target - Path of file to replace
+     * @throws IOException
+     */
+    void replace(Path source, Path target) throws IOException{
+        move(source, target);
+        fileSyncer.sync(target.toAbsolutePath().getParent());
+    }
+
+    /**
+     * Moves source over target atomically when the file system supports it
+     * @param source - Path of finished temp file
+     * @param target - Path of file to replace
+     * @throws IOException
+     */
+    private void move(Path source, Path target) throws IOException{
+        try{
+            Files.move(source, target, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e){
+            Files.move(source, target, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+}
@@ -0,0 +1,105 @@
+/*
+ * @author Austin Wong
+ * email: austinwongdev@gmail.com
+ * date: Oct 18, 2026
+ * purpose:
+ */
+
+package com.aaw.flooring.dao;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.TreeSet;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Fixed set of locks shared out by order date. Consecutive dates map to
+ * different locks, so writers working on nearby dates rarely wait on each
+ * other, while the number of locks stays bounded however many dates exist.
+ * @author Austin Wong
+ */
+class DateLockStripes {
+
+    private final ReentrantLock[] locks;
+
+    /**
+     * @param stripeCount - Integer number of locks, rounded up to a power of 2.
+     * A count of 1 makes every date share a single lock.
+     */
+    DateLockStripes(int stripeCount){
+        if (stripeCount < 1){
+            throw new IllegalArgumentException("Stripe count must be at least 1");
+        }
+        int size = Integer.highestOneBit(stripeCount);
+        if (size < stripeCount){
+            size <<= 1;
+        }
+        locks = new ReentrantLock[size];
+        for (int i = 0; i < size; i++){
+            locks[i] = new ReentrantLock();
+        }
+    }
+
+    /**
+     * Returns the lock guarding a date
+     * @param orderDate - LocalDate of orders
+     * @return - ReentrantLock for that date
+     */
+    ReentrantLock lockFor(LocalDate orderDate){
+        return locks[(int) (orderDate.toEpochDay() & (locks.length - 1))];
+    }
+
+    /**
+     * Acquires every lock, always in the same order so two callers can't
+     * deadlock each other
+     */
+    void lockAll(){
+        for (ReentrantLock lock : locks){
+            lock.lock();
+        }
+    }
+
+    /**
+     * Acquires the locks guarding several dates, in the same order lockAll
+     * uses, so callers holding more than one date can't deadlock each other
+     * @param orderDates - Collection of dates to lock
+     * @return - List of locks taken, to be passed to unlock
+     */
+    List<ReentrantLock> lockDates(Collection<LocalDate> orderDates){
+        TreeSet<Integer> stripes = new TreeSet<>();
+        for (LocalDate orderDate : orderDates){
+            stripes.add((int) (orderDate.toEpochDay() & (locks.length - 1)));
+        }
+        List<ReentrantLock> lockedLocks = new ArrayList<>(stripes.size());
+        for (int stripe : stripes){
+            locks[stripe].lock();
+            lockedLocks.add(locks[stripe]);
+        }
+        return lockedLocks;
+    }
+
+    /**
+     * Releases locks taken by lockDates
+     * @param lockedLocks - List of locks returned by lockDates
+     */
+    void unlock(List<ReentrantLock> lockedLocks){
+        for (int i = lockedLocks.size() - 1; i >= 0; i--){
+            lockedLocks.get(i).unlock();
+        }
+    }
+
+    /**
+     * Releases every lock taken by lockAll
+     */
+    void unlockAll(){
+        for (int i = locks.length - 1; i >= 0; i--){
+            locks[i].unlock();
+        }
+    }
+
+    int size(){
+        return locks.length;
+    }
+}
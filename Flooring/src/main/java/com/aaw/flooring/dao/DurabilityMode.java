@@ -0,0 +1,35 @@
+/*
+ * @author Austin Wong
+ * email: austinwongdev@gmail.com
+ * date: Oct 18, 2026
+ * purpose:
+ */
+
+package com.aaw.flooring.dao;
+
+/**
+ * How far saved order data is pushed to disk before a save returns
+ * @author Austin Wong
+ */
+public enum DurabilityMode {
+    
+    /**
+     * Leave writes in the operating system's cache. Saves survive the 
+     * program crashing but not the machine losing power.
+     */
+    NO_SYNC,
+    
+    /**
+     * Force every written file, and the folder it was moved into, to disk 
+     * before the save returns
+     */
+    FSYNC,
+    
+    /**
+     * Like FSYNC, but saves running at the same time share one force per 
+     * file or folder instead of each forcing on its own. With the journal 
+     * on, a save forces only the journal, so concurrent saves share a 
+     * single force.
+     */
+    GROUP_COMMIT
+}
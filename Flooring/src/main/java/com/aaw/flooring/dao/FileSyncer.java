@@ -0,0 +1,161 @@
+/*
+ * @author Austin Wong
+ * email: austinwongdev@gmail.com
+ * date: Oct 18, 2026
+ * purpose:
+ */
+
+package com.aaw.flooring.dao;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.LinkedHashSet;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Forces files and folders to disk according to a DurabilityMode. In group
+ * commit mode, the first caller to ask for a sync leads a group: it waits
+ * the group commit window, if any, for others to ask too, then forces every
+ * path the group asked for once. Callers that arrive while a group is being
+ * forced form the next group, so even without a window, saves that queue up
+ * behind a slow force share the next one.
+ * @author Austin Wong
+ */
+class FileSyncer {
+
+    private volatile DurabilityMode durabilityMode = DurabilityMode.NO_SYNC;
+    private volatile long groupCommitWindowNanos = 0;
+    private final LongAdder forces = new LongAdder();
+    private Group openGroup;
+    private boolean groupSyncing = false;
+
+    /**
+     * The paths one group of callers asked to sync, and how the sync went
+     */
+    private static class Group {
+        private final Set<Path> paths = new LinkedHashSet<>();
+        private boolean done = false;
+        private IOException failure;
+    }
+
+    void setDurabilityMode(DurabilityMode durabilityMode){
+        this.durabilityMode = durabilityMode;
+    }
+
+    DurabilityMode getDurabilityMode(){
+        return durabilityMode;
+    }
+
+    void setGroupCommitWindowMillis(long groupCommitWindowMillis){
+        this.groupCommitWindowNanos = TimeUnit.MILLISECONDS.toNanos(groupCommitWindowMillis);
+    }
+
+    /**
+     * Returns how many times a file or folder has been forced to disk
+     * @return - long number of forces
+     */
+    long getForceCount(){
+        return forces.sum();
+    }
+
+    /**
+     * Makes a file's contents, or a folder's entries, durable as the 
+     * durability mode requires. Does nothing in NO_SYNC mode.
+     * @param path - Path of file or folder
+     * @throws IOException if the path can't be forced
+     */
+    void sync(Path path) throws IOException{
+        switch (durabilityMode){
+            case FSYNC:
+                force(path);
+                break;
+            case GROUP_COMMIT:
+                syncWithGroup(path);
+                break;
+            default:
+                break;
+        }
+    }
+
+    private void syncWithGroup(Path path) throws IOException{
+        Group group;
+        synchronized (this){
+            if (openGroup == null){
+                openGroup = new Group();
+            }
+            group = openGroup;
+            group.paths.add(path);
+            try{
+                while (!group.done && groupSyncing){
+                    wait();
+                }
+            } catch (InterruptedException e){
+                Thread.currentThread().interrupt();
+                throw new IOException("Interrupted while waiting to sync " + path, e);
+            }
+            if (!group.done){
+                groupSyncing = true;
+            }
+        }
+        if (group.done){
+            if (group.failure != null){
+                throw new IOException("Could not sync " + path, group.failure);
+            }
+            return;
+        }
+        
+        // This caller leads its group: let others join, then force everything they asked for
+        if (groupCommitWindowNanos > 0){
+            LockSupport.parkNanos(groupCommitWindowNanos);
+        }
+        Set<Path> paths;
+        synchronized (this){
+            openGroup = null;
+            paths = new LinkedHashSet<>(group.paths);
+        }
+        IOException failure = null;
+        for (Path groupPath : paths){
+            try{
+                force(groupPath);
+            } catch (IOException e){
+                failure = e;
+            }
+        }
+        synchronized (this){
+            group.done = true;
+            group.failure = failure;
+            groupSyncing = false;
+            notifyAll();
+        }
+        if (failure != null){
+            throw failure;
+        }
+    }
+
+    /**
+     * Forces a file or folder to disk. A file deleted before it could be 
+     * forced is skipped, and so is a folder on file systems that can't open
+     * folders.
+     */
+    private void force(Path path) throws IOException{
+        boolean isFolder = Files.isDirectory(path);
+        try (FileChannel channel = FileChannel.open(path, 
+                isFolder ? StandardOpenOption.READ : StandardOpenOption.WRITE)){
+            channel.force(true);
+            forces.increment();
+        } catch (NoSuchFileException e){
+            // Nothing left to sync
+        } catch (IOException e){
+            if (!isFolder){
+                throw e;
+            }
+        }
+    }
+}
@@ -0,0 +1,316 @@
+/*
+ * @author Austin Wong
+ * email: austinwongdev@gmail.com
+ * date: Oct 18, 2026
+ * purpose:
+ */
+
+package com.aaw.flooring.dao;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.time.format.DateTimeFormatter;
+import java.util.Collections;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.NavigableSet;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.zip.CRC32;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * Compressed storage for order files of past dates, one archive file per
+ * month such as Archive/Orders_202109.dat. Each date's order file is
+ * deflated on its own and the archive starts with an index of where each
+ * date is, so one date can be read without inflating the rest of the month:
+ *
+ *   magic, version, date count
+ *   per date: epoch day, offset, compressed length, length, CRC32
+ *   compressed order files
+ *
+ * Only the indexes are read at load.
+ * @author Austin Wong
+ */
+class OrderArchive {
+
+    private static final int FILE_MAGIC = 0x464C4F41; // "FLOA"
+    private static final int FILE_VERSION = 1;
+    private static final int HEADER_BYTES = 12;
+    private static final int INDEX_ENTRY_BYTES = 24;
+
+    private final Path ARCHIVE_FOLDER;
+    private final DateTimeFormatter MONTH_FORMAT = DateTimeFormatter.ofPattern("yyyyMM");
+    private final AtomicFileWriter fileWriter;
+    private final NavigableMap<LocalDate, Entry> entries = new ConcurrentSkipListMap<>();
+    private volatile boolean loaded = false;
+
+    OrderArchive(Path archiveFolder, AtomicFileWriter fileWriter){
+        this.ARCHIVE_FOLDER = archiveFolder;
+        this.fileWriter = fileWriter;
+    }
+
+    /**
+     * Where one date's order file is in its month's archive
+     */
+    private static class Entry {
+        private final long offset;
+        private final int compressedLength;
+        private final int length;
+        private final int checksum;
+
+        Entry(long offset, int compressedLength, int length, int checksum){
+            this.offset = offset;
+            this.compressedLength = compressedLength;
+            this.length = length;
+            this.checksum = checksum;
+        }
+    }
+
+    /**
+     * Reads the index of every archive file in the archive folder
+     * @throws IOException if an archive can't be read or its index is damaged
+     */
+    synchronized void load() throws IOException{
+        entries.clear();
+        if (Files.isDirectory(ARCHIVE_FOLDER)){
+            try (DirectoryStream<Path> archiveFiles = Files.newDirectoryStream(ARCHIVE_FOLDER, "Orders_*.dat")){
+                for (Path archiveFile : archiveFiles){
+                    entries.putAll(readIndex(archiveFile));
+                }
+            }
+        }
+        loaded = true;
+    }
+
+    /**
+     * Reads the index of every archive file unless it has already been read
+     * @throws IOException
+     */
+    void ensureLoaded() throws IOException{
+        if (!loaded){
+            synchronized (this){
+                if (!loaded){
+                    load();
+                }
+            }
+        }
+    }
+
+    boolean contains(LocalDate orderDate){
+        return entries.containsKey(orderDate);
+    }
+
+    /**
+     * Returns every archived date in date order
+     * @return - Unmodifiable view of the archived dates
+     */
+    NavigableSet<LocalDate> dates(){
+        return Collections.unmodifiableNavigableSet(entries.navigableKeySet());
+    }
+
+    /**
+     * Inflates one date's order file
+     * @param orderDate - LocalDate of orders
+     * @return - Bytes of the order file, or null if the date isn't archived
+     * @throws IOException if the archive can't be read or the date fails its checksum
+     */
+    synchronized byte[] read(LocalDate orderDate) throws IOException{
+        Entry entry = entries.get(orderDate);
+        if (entry == null){
+            return null;
+        }
+        byte[] compressed = readCompressed(archiveFileFor(YearMonth.from(orderDate)), entry);
+        Inflater inflater = new Inflater();
+        try{
+            inflater.setInput(compressed);
+            byte[] fileContents = new byte[entry.length];
+            int inflatedLength = 0;
+            while (inflatedLength < fileContents.length && !inflater.finished()){
+                int count = inflater.inflate(fileContents, inflatedLength, fileContents.length - inflatedLength);
+                if (count == 0 && (inflater.needsInput() || inflater.needsDictionary())){
+                    break;
+                }
+                inflatedLength += count;
+            }
+            if (inflatedLength != fileContents.length || checksumOf(fileContents) != entry.checksum){
+                throw new IOException("Archived orders for " + orderDate + " failed their checksum");
+            }
+            return fileContents;
+        } catch (DataFormatException e){
+            throw new IOException("Archived orders for " + orderDate + " are damaged", e);
+        } finally{
+            inflater.end();
+        }
+    }
+
+    /**
+     * Adds order files to their months' archives, replacing any copy of the
+     * same date already archived. Each month's archive is rewritten once;
+     * dates already in it are copied over without being inflated.
+     * @param orderFiles - Map from order date to bytes of its order file
+     * @throws IOException
+     */
+    synchronized void put(Map<LocalDate, byte[]> orderFiles) throws IOException{
+        Map<YearMonth, Map<LocalDate, byte[]>> filesByMonth = new TreeMap<>();
+        for (Map.Entry<LocalDate, byte[]> orderFile : orderFiles.entrySet()){
+            filesByMonth.computeIfAbsent(YearMonth.from(orderFile.getKey()),
+                    (month) -> new TreeMap<>()).put(orderFile.getKey(), orderFile.getValue());
+        }
+        for (Map.Entry<YearMonth, Map<LocalDate, byte[]>> month : filesByMonth.entrySet()){
+            rewriteMonth(month.getKey(), month.getValue(), null);
+        }
+    }
+
+    /**
+     * Drops a date from its month's archive, deleting the archive if it was
+     * the last date in it
+     * @param orderDate - LocalDate of orders
+     * @throws IOException
+     */
+    synchronized void remove(LocalDate orderDate) throws IOException{
+        if (entries.containsKey(orderDate)){
+            rewriteMonth(YearMonth.from(orderDate), Collections.emptyMap(), orderDate);
+        }
+    }
+
+    /**
+     * Writes a month's archive holding its current dates, minus removedDate,
+     * plus the given order files
+     */
+    private void rewriteMonth(YearMonth month, Map<LocalDate, byte[]> addedFiles,
+            LocalDate removedDate) throws IOException{
+        Path archiveFile = archiveFileFor(month);
+        NavigableMap<LocalDate, Entry> oldEntries = new TreeMap<>(
+                entries.subMap(month.atDay(1), true, month.atEndOfMonth(), true));
+
+        // Compressed order files by date, either copied from the old archive or newly deflated
+        NavigableMap<LocalDate, byte[]> compressedFiles = new TreeMap<>();
+        NavigableMap<LocalDate, Entry> newEntries = new TreeMap<>();
+        for (Map.Entry<LocalDate, Entry> oldEntry : oldEntries.entrySet()){
+            if (!oldEntry.getKey().equals(removedDate) && !addedFiles.containsKey(oldEntry.getKey())){
+                compressedFiles.put(oldEntry.getKey(), readCompressed(archiveFile, oldEntry.getValue()));
+                newEntries.put(oldEntry.getKey(), oldEntry.getValue());
+            }
+        }
+        for (Map.Entry<LocalDate, byte[]> addedFile : addedFiles.entrySet()){
+            byte[] fileContents = addedFile.getValue();
+            compressedFiles.put(addedFile.getKey(), deflate(fileContents));
+            newEntries.put(addedFile.getKey(), new Entry(0, 0, fileContents.length, checksumOf(fileContents)));
+        }
+        if (compressedFiles.isEmpty()){
+            Files.deleteIfExists(archiveFile);
+            entries.keySet().removeAll(oldEntries.keySet());
+            return;
+        }
+
+        // Index first, then the compressed files in the same order
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeInt(FILE_MAGIC);
+        out.writeInt(FILE_VERSION);
+        out.writeInt(compressedFiles.size());
+        long offset = HEADER_BYTES + (long) compressedFiles.size() * INDEX_ENTRY_BYTES;
+        for (Map.Entry<LocalDate, byte[]> compressedFile : compressedFiles.entrySet()){
+            Entry entry = newEntries.get(compressedFile.getKey());
+            entry = new Entry(offset, compressedFile.getValue().length, entry.length, entry.checksum);
+            newEntries.put(compressedFile.getKey(), entry);
+            out.writeInt(Math.toIntExact(compressedFile.getKey().toEpochDay()));
+            out.writeLong(entry.offset);
+            out.writeInt(entry.compressedLength);
+            out.writeInt(entry.length);
+            out.writeInt(entry.checksum);
+            offset += entry.compressedLength;
+        }
+        for (byte[] compressed : compressedFiles.values()){
+            out.write(compressed);
+        }
+        out.flush();
+        Files.createDirectories(ARCHIVE_FOLDER);
+        fileWriter.write(archiveFile, ByteBuffer.wrap(bytes.toByteArray()));
+        entries.keySet().removeAll(oldEntries.keySet());
+        entries.putAll(newEntries);
+    }
+
+    /**
+     * Reads the index at the start of an archive file
+     */
+    private Map<LocalDate, Entry> readIndex(Path archiveFile) throws IOException{
+        Map<LocalDate, Entry> index = new TreeMap<>();
+        try (FileChannel channel = FileChannel.open(archiveFile, StandardOpenOption.READ)){
+            ByteBuffer header = readFully(channel, 0, HEADER_BYTES);
+            if (header.getInt() != FILE_MAGIC || header.getInt() != FILE_VERSION){
+                throw new IOException("Unrecognized archive file: " + archiveFile);
+            }
+            int dateCount = header.getInt();
+            if (dateCount < 0 || HEADER_BYTES + (long) dateCount * INDEX_ENTRY_BYTES > channel.size()){
+                throw new IOException("Malformed archive file: " + archiveFile);
+            }
+            ByteBuffer in = readFully(channel, HEADER_BYTES, dateCount * INDEX_ENTRY_BYTES);
+            for (int i = 0; i < dateCount; i++){
+                LocalDate orderDate = LocalDate.ofEpochDay(in.getInt());
+                Entry entry = new Entry(in.getLong(), in.getInt(), in.getInt(), in.getInt());
+                if (entry.compressedLength < 0 || entry.length < 0
+                        || entry.offset + entry.compressedLength > channel.size()){
+                    throw new IOException("Malformed archive file: " + archiveFile);
+                }
+                index.put(orderDate, entry);
+            }
+        }
+        return index;
+    }
+
+    private byte[] readCompressed(Path archiveFile, Entry entry) throws IOException{
+        try (FileChannel channel = FileChannel.open(archiveFile, StandardOpenOption.READ)){
+            return readFully(channel, entry.offset, entry.compressedLength).array();
+        }
+    }
+
+    private static ByteBuffer readFully(FileChannel channel, long position, int length) throws IOException{
+        ByteBuffer buffer = ByteBuffer.allocate(length);
+        while (buffer.hasRemaining()){
+            if (channel.read(buffer, position + buffer.position()) < 0){
+                throw new IOException("Archive file ended early");
+            }
+        }
+        buffer.flip();
+        return buffer;
+    }
+
+    private static byte[] deflate(byte[] fileContents){
+        Deflater deflater = new Deflater(Deflater.BEST_COMPRESSION);
+        try{
+            deflater.setInput(fileContents);
+            deflater.finish();
+            ByteArrayOutputStream compressed = new ByteArrayOutputStream(fileContents.length / 4 + 64);
+            byte[] chunk = new byte[8192];
+            while (!deflater.finished()){
+                compressed.write(chunk, 0, deflater.deflate(chunk));
+            }
+            return compressed.toByteArray();
+        } finally{
+            deflater.end();
+        }
+    }
+
+    private static int checksumOf(byte[] fileContents){
+        CRC32 crc = new CRC32();
+        crc.update(fileContents);
+        return (int) crc.getValue();
+    }
+
+    private Path archiveFileFor(YearMonth month){
+        return ARCHIVE_FOLDER.resolve("Orders_" + month.format(MONTH_FORMAT) + ".dat");
+    }
+}
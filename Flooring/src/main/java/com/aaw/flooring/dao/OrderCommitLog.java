@@ -0,0 +1,209 @@
+/*
+ * @author Austin Wong
+ * email: austinwongdev@gmail.com
+ * date: Oct 18, 2026
+ * purpose:
+ */
+
+package com.aaw.flooring.dao;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Record of a save that replaces several order files at once, so a crash
+ * partway through leaves either every file replaced or none of them. Each
+ * new file is first written next to the file it replaces as a staged file.
+ * The commit log names every staged file before any is written:
+ *
+ *   PREPARED
+ *   MOVE::2013/06/Orders_06012013.txt.staged::2013/06/Orders_06012013.txt
+ *   DELETE::2013/06/Orders_06012013.rec
+ *   UNARCHIVE::2013-06-02
+ *
+ * Once every staged file is written, the first line is rewritten as
+ * COMMITTED in one atomic write, which is the point where the save takes
+ * effect. The staged files are then moved into place and the log deleted.
+ * On the next load, a PREPARED log is rolled back by deleting its staged
+ * files and a COMMITTED log is rolled forward by finishing its steps.
+ * @author Austin Wong
+ */
+class OrderCommitLog {
+
+    static final String STAGED_EXTENSION = ".staged";
+
+    private final String FIELD_DELIMITER = "::";
+    private final String PREPARED = "PREPARED";
+    private final String COMMITTED = "COMMITTED";
+    private final String MOVE = "MOVE";
+    private final String DELETE = "DELETE";
+    private final String UNARCHIVE = "UNARCHIVE";
+    private final Path ORDER_FOLDER;
+    private final Path LOG_FILE;
+    private final AtomicFileWriter fileWriter;
+
+    OrderCommitLog(Path orderFolder, Path logFile, AtomicFileWriter fileWriter){
+        this.ORDER_FOLDER = orderFolder;
+        this.LOG_FILE = logFile;
+        this.fileWriter = fileWriter;
+    }
+
+    /**
+     * The steps of one multi-file save
+     */
+    static class Commit {
+        private final List<Path[]> moves = new ArrayList<>();
+        private final List<Path> deletes = new ArrayList<>();
+        private final List<LocalDate> unarchivedDates = new ArrayList<>();
+
+        /**
+         * Adds a file to be replaced, returning the staged file to write its
+         * new contents to
+         * @param target - Path of file to replace
+         * @return - Path of staged file
+         */
+        Path stage(Path target){
+            Path stagedFile = target.resolveSibling(target.getFileName() + STAGED_EXTENSION);
+            moves.add(new Path[]{stagedFile, target});
+            return stagedFile;
+        }
+
+        void delete(Path file){
+            deletes.add(file);
+        }
+
+        void unarchive(LocalDate orderDate){
+            unarchivedDates.add(orderDate);
+        }
+
+        List<LocalDate> getUnarchivedDates(){
+            return unarchivedDates;
+        }
+    }
+
+    /**
+     * Saves the log as PREPARED, before any staged file is written
+     * @param commit - Commit to prepare
+     * @throws IOException
+     */
+    void prepare(Commit commit) throws IOException{
+        write(PREPARED, commit);
+    }
+
+    /**
+     * Saves the log as COMMITTED. Once this returns, the next load finishes
+     * the commit if it is cut short.
+     * @param commit - Commit whose staged files are all written
+     * @throws IOException
+     */
+    void commit(Commit commit) throws IOException{
+        write(COMMITTED, commit);
+    }
+
+    /**
+     * Moves every staged file into place and deletes the files the commit
+     * replaces with nothing. Steps already done by an earlier attempt are
+     * skipped, so this can be run again after a crash.
+     * @param commit - Committed commit
+     * @param onMove - Called with each file after it is moved into place
+     * @throws IOException
+     */
+    void apply(Commit commit, Consumer<Path> onMove) throws IOException{
+        for (Path[] move : commit.moves){
+            if (Files.isRegularFile(move[0])){
+                fileWriter.replace(move[0], move[1]);
+                onMove.accept(move[1]);
+            }
+        }
+        for (Path deletedFile : commit.deletes){
+            Files.deleteIfExists(deletedFile);
+        }
+    }
+
+    /**
+     * Deletes every staged file of a commit that won't be applied. Anything
+     * other than a file found where a staged file goes is left alone.
+     * @param commit - Prepared commit
+     * @throws IOException
+     */
+    void rollBack(Commit commit) throws IOException{
+        for (Path[] move : commit.moves){
+            if (Files.isRegularFile(move[0])){
+                Files.delete(move[0]);
+            }
+        }
+    }
+
+    /**
+     * Deletes the log once its commit is applied or rolled back
+     * @throws IOException
+     */
+    void clear() throws IOException{
+        Files.deleteIfExists(LOG_FILE);
+    }
+
+    /**
+     * Finishes or undoes a commit left behind by a crash. The caller clears
+     * the log once it has finished the commit's other steps.
+     * @return - Commit that was rolled forward, whose unarchived dates still 
+     * need to be dropped from the archive, or null if there was nothing to 
+     * roll forward
+     * @throws IOException if the log can't be read or a step fails
+     */
+    Commit recover() throws IOException{
+        if (!Files.exists(LOG_FILE)){
+            return null;
+        }
+        List<String> lines = Files.readAllLines(LOG_FILE, StandardCharsets.UTF_8);
+        Commit commit = new Commit();
+        for (String line : lines.subList(Math.min(1, lines.size()), lines.size())){
+            String[] fields = line.split(FIELD_DELIMITER);
+            if (MOVE.equals(fields[0]) && fields.length == 3){
+                commit.moves.add(new Path[]{ORDER_FOLDER.resolve(fields[1]), ORDER_FOLDER.resolve(fields[2])});
+            }
+            else if (DELETE.equals(fields[0]) && fields.length == 2){
+                commit.deletes.add(ORDER_FOLDER.resolve(fields[1]));
+            }
+            else if (UNARCHIVE.equals(fields[0]) && fields.length == 2){
+                commit.unarchivedDates.add(LocalDate.parse(fields[1]));
+            }
+            else{
+                throw new IOException("Malformed commit log line: " + line);
+            }
+        }
+        boolean committed = !lines.isEmpty() && COMMITTED.equals(lines.get(0));
+        if (committed){
+            apply(commit, (movedFile) -> { });
+        }
+        else{
+            rollBack(commit);
+        }
+        return committed ? commit : null;
+    }
+
+    private void write(String status, Commit commit) throws IOException{
+        StringBuilder contents = new StringBuilder(status).append('\n');
+        for (Path[] move : commit.moves){
+            contents.append(MOVE).append(FIELD_DELIMITER).append(relativePath(move[0]))
+                    .append(FIELD_DELIMITER).append(relativePath(move[1])).append('\n');
+        }
+        for (Path deletedFile : commit.deletes){
+            contents.append(DELETE).append(FIELD_DELIMITER).append(relativePath(deletedFile)).append('\n');
+        }
+        for (LocalDate orderDate : commit.unarchivedDates){
+            contents.append(UNARCHIVE).append(FIELD_DELIMITER).append(orderDate).append('\n');
+        }
+        fileWriter.write(LOG_FILE, ByteBuffer.wrap(contents.toString().getBytes(StandardCharsets.UTF_8)));
+    }
+
+    private String relativePath(Path file){
+        return ORDER_FOLDER.toAbsolutePath().relativize(file.toAbsolutePath()).toString().replace('\\', '/');
+    }
+}
@@ -12,7 +12,9 @@ import com.aaw.flooring.model.Product;
 import com.aaw.flooring.model.StateTax;
 import java.math.BigDecimal;
 import java.time.LocalDate;
+import java.util.Collection;
 import java.util.List;
+import java.util.stream.Stream;
 
 /**
  *
@@ -21,7 +23,10 @@ import java.util.List;
 public interface OrderDao {
 
     Order getOrder(int orderNumber, LocalDate orderDate) throws NoOrdersOnDateException, OrderNotFoundException;
+    Order getOrder(int orderNumber) throws OrderNotFoundException;
     List<Order> getAllOrdersOnDate(LocalDate orderDate) throws NoOrdersOnDateException;
+    List<Order> getOrdersBetween(LocalDate fromDate, LocalDate toDate) throws OrderPersistenceException;
+    Stream<Order> streamOrdersBetween(LocalDate fromDate, LocalDate toDate) throws OrderPersistenceException;
     
     Order addOrder(Order order);
     Order createOrder(LocalDate orderDate, String customerName, StateTax stateTax, Product product,
@@ -32,12 +37,22 @@ public interface OrderDao {
     
     Order editOrder(Order order, String newCustomerName,
                     StateTax newStateTax, Product newProduct, BigDecimal newArea);
+    Order editOrder(Order order, String newCustomerName,
+                    StateTax newStateTax, Product newProduct, BigDecimal newArea,
+                    BigDecimal newMaterialCost, BigDecimal newLaborCost, 
+                    BigDecimal newTax, BigDecimal newTotal);
     
     Order removeOrder(int orderNumber, LocalDate orderDate) throws NoOrdersOnDateException, OrderNotFoundException;
     
     void loadAllOrders() throws OrderPersistenceException;
+    void loadOrdersBetween(LocalDate fromDate, LocalDate toDate) throws OrderPersistenceException;
+    String getLoadReport();
     void saveOrder(LocalDate orderDate) throws NoOrdersOnDateException, OrderPersistenceException;
     void saveAllOrders() throws NoOrdersOnDateException, OrderPersistenceException;
+    void saveOrders(Collection<LocalDate> orderDates) throws NoOrdersOnDateException, OrderPersistenceException;
+    void saveSnapshot() throws OrderPersistenceException;
+    long exportOrders(String exportFilePath) throws OrderPersistenceException;
     
     int getNextAvailableOrderNumber();
+    int allocateOrderNumbers(int count);
 }
@@ -11,36 +11,134 @@ import com.aaw.flooring.model.Order;
 import com.aaw.flooring.model.Product;
 import com.aaw.flooring.model.StateTax;
 import java.io.BufferedReader;
+import java.io.BufferedWriter;
 import java.io.File;
 import java.io.FileNotFoundException;
 import java.io.FileReader;
-import java.io.FileWriter;
-import java.io.FilenameFilter;
 import java.io.IOException;
-import java.io.PrintWriter;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
 import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.time.DateTimeException;
 import java.time.LocalDate;
+import java.time.YearMonth;
 import java.time.format.DateTimeFormatter;
-import java.util.Comparator;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.NavigableMap;
+import java.util.NavigableSet;
+import java.util.Objects;
 import java.util.Scanner;
 import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
 
 /**
- *
+ * Order DAO backed by one text file per date, either all in the Orders folder
+ * or sharded into year and month folders such as Orders/2021/09/. Safe to 
+ * share between threads:
+ * reads go straight to concurrent maps without locking, while changes to a
+ * date and saves of that date hold that date's lock from a set of striped
+ * locks. Loading all orders holds every lock. With a cache budget set, the
+ * least recently used past dates are flushed and dropped from memory once
+ * the budget is exceeded, and read back from their files on next use. Dates
+ * older than a set age can be moved into compressed per-month archives,
+ * which are read in place of the order file when it doesn't exist. Dates can
+ * also be stored as fixed-width record files, where saving an edit or removal
+ * rewrites only the changed records.
  * @author Austin Wong
  */
 public class OrderDaoFileImpl implements OrderDao {
     
-    private final Map<LocalDate, Map<Integer, Order>> orderStore = new HashMap<>();
+    private final NavigableMap<LocalDate, NavigableMap<Integer, Order>> orderStore = new ConcurrentSkipListMap<>();
     private final String FIELD_DELIMITER = "::";
+    private final String LINE_SEPARATOR = System.lineSeparator();
+    private final String ORDER_FILE_HEADER = "OrderNumber"+FIELD_DELIMITER+
+                "CustomerName"+FIELD_DELIMITER+
+                "State"+FIELD_DELIMITER+
+                "TaxRate"+FIELD_DELIMITER+
+                "ProductType"+FIELD_DELIMITER+
+                "Area"+FIELD_DELIMITER+
+                "CostPerSquareFoot"+FIELD_DELIMITER+
+                "LaborCostPerSquareFoot"+FIELD_DELIMITER+
+                "MaterialCost"+FIELD_DELIMITER+
+                "LaborCost"+FIELD_DELIMITER+
+                "Tax"+FIELD_DELIMITER+
+                "Total";
+    private final String EXPORT_DELIMITER = ",";
+    private final String EXPORT_FILE_HEADER = ORDER_FILE_HEADER.replace(FIELD_DELIMITER, EXPORT_DELIMITER)
+                + EXPORT_DELIMITER + "OrderDate";
+    private final DateTimeFormatter EXPORT_DATE_FORMAT = DateTimeFormatter.ofPattern("MM-dd-yyyy");
+    private final int EXPORT_BUFFER_SIZE = 1024 * 1024;
+    private final int ESTIMATED_LINE_LENGTH = 100;
+    private final String ORDER_FILE_GLOB = "Orders_*.{txt,rec}";
+    private final FileSyncer fileSyncer = new FileSyncer();
+    private final AtomicFileWriter fileWriter = new AtomicFileWriter(fileSyncer);
     private final String ORDER_FOLDER_PATH;
+    private final NavigableSet<LocalDate> unloadedOrderDates = new ConcurrentSkipListSet<>();
+    private final Map<LocalDate, Set<Integer>> dirtyOrderNumbers = new ConcurrentHashMap<>();
+    private final NavigableMap<LocalDate, List<OrderJournal.Entry>> unreplayedJournalEntries = new ConcurrentSkipListMap<>();
+    private final OrderJournal journal;
+    private final Map<LocalDate, List<OrderJournal.Entry>> journaledEntries = new ConcurrentHashMap<>();
+    private ScheduledExecutorService journalCompactor;
+    private final OrderNumberSequence orderNumberSequence;
+    private final OrderNumberIndex orderNumberIndex;
+    private volatile boolean indexNeedsRebuild = false;
+    private final DateLockStripes dateLocks;
+    private final OrderSnapshot orderSnapshot;
+    private final OrderManifest orderManifest;
+    private final OrderArchive orderArchive;
+    private final OrderCommitLog commitLog;
+    private volatile Consumer<String> commitStepListener;
+    private ScheduledExecutorService orderArchiver;
+    private int archiveAfterDays = 0;
+    private final long ARCHIVE_CHECK_INTERVAL_HOURS = 6;
+    private volatile boolean manifestLoaded = false;
+    private final Map<LocalDate, OrderSnapshot.Section> snapshotSections = new ConcurrentHashMap<>();
+    private final ResidentDates residentDates = new ResidentDates();
+    private long cacheBudgetBytes = 0;
+    private int cacheResidentDays = 30;
+    private int loadParallelism = 1;
+    private int saveParallelism = 1;
+    private boolean lazyLoad = false;
+    private boolean shardedLayout = false;
+    private boolean fixedWidthRecords = false;
+    private final Map<LocalDate, OrderRecordFile> recordFiles = new ConcurrentHashMap<>();
+    private final AtomicInteger damagedRecordCount = new AtomicInteger();
+    private boolean journalEnabled = false;
+    private long journalCompactionBytes = 64 * 1024;
+    private long journalCompactionAgeSeconds = 300;
+    private volatile String loadReport;
 
     public OrderDaoFileImpl(){
-        this.ORDER_FOLDER_PATH = "src/main/resources/Orders/";
+        this("src/main/resources/Orders/");
     }
     
     /**
@@ -49,7 +147,31 @@ public class OrderDaoFileImpl implements OrderDao {
      * @param orderFolderPath - Path to folder containing Orders files
      */
     public OrderDaoFileImpl(String orderFolderPath) {
+        this(orderFolderPath, 64);
+    }
+    
+    /**
+     * Constructs OrderDaoFileImpl object that uses the given order folder path
+     * and shares the given number of locks out among order dates
+     * @param orderFolderPath - Path to folder containing Orders files
+     * @param lockStripes - Integer number of locks, rounded up to a power of 2;
+     * 1 makes every date share a single lock
+     */
+    public OrderDaoFileImpl(String orderFolderPath, int lockStripes) {
         this.ORDER_FOLDER_PATH = orderFolderPath;
+        this.dateLocks = new DateLockStripes(lockStripes);
+        this.journal = new OrderJournal(Paths.get(ORDER_FOLDER_PATH, "OrderJournal.txt"), fileSyncer);
+        this.orderNumberSequence = new OrderNumberSequence(
+                Paths.get(ORDER_FOLDER_PATH, "OrderNumberSequence.txt"), fileWriter);
+        this.orderNumberIndex = new OrderNumberIndex(
+                Paths.get(ORDER_FOLDER_PATH, "OrderNumberIndex.dat"), fileWriter, fileSyncer);
+        this.orderSnapshot = new OrderSnapshot(
+                Paths.get(ORDER_FOLDER_PATH, "OrderSnapshot.dat"), fileWriter);
+        this.orderManifest = new OrderManifest(
+                Paths.get(ORDER_FOLDER_PATH, "OrderManifest.txt"), fileWriter, fileSyncer);
+        this.orderArchive = new OrderArchive(Paths.get(ORDER_FOLDER_PATH, "Archive"), fileWriter);
+        this.commitLog = new OrderCommitLog(Paths.get(ORDER_FOLDER_PATH), 
+                Paths.get(ORDER_FOLDER_PATH, "OrderCommit.txt"), fileWriter);
     }
     
     /**
@@ -65,7 +187,12 @@ public class OrderDaoFileImpl implements OrderDao {
     @Override
     public Order getOrder(int orderNumber, LocalDate orderDate) 
             throws NoOrdersOnDateException, OrderNotFoundException {
-        Map<Integer, Order> ordersOnDate = orderStore.get(orderDate);
+        Order unloadedOrder = readUnloadedRecord(orderNumber, orderDate);
+        if (unloadedOrder != null){
+            return unloadedOrder;
+        }
+        NavigableMap<Integer, Order> ordersOnDate = getResidentOrders(orderDate);
+        evictColdDatesIfNeeded();
         if (ordersOnDate == null || ordersOnDate.isEmpty()){
             throw new NoOrdersOnDateException(generateNoOrdersOnDateExceptionMessage(orderDate));
         }
@@ -75,6 +202,34 @@ public class OrderDaoFileImpl implements OrderDao {
         }
         return order;
     }
+    
+    /**
+     * Takes in an order number and returns that order, looking up its date
+     * in the order number index. An index entry left behind by a crash, 
+     * whose date no longer has the order, is dropped.
+     * @param orderNumber - Integer representing the unique order number
+     * @return - Order object
+     * @throws com.aaw.flooring.dao.OrderNotFoundException 
+     */
+    @Override
+    public Order getOrder(int orderNumber) throws OrderNotFoundException {
+        rebuildOrderNumberIndexIfNeeded();
+        LocalDate orderDate = orderNumberIndex.get(orderNumber);
+        if (orderDate == null){
+            throw new OrderNotFoundException("Order not found.");
+        }
+        try{
+            return getOrder(orderNumber, orderDate);
+        } catch (NoOrdersOnDateException | OrderNotFoundException e){
+            // Keep the entry if the date couldn't be read or the order's removal isn't saved yet
+            Set<Integer> changedOrderNumbers = dirtyOrderNumbers.get(orderDate);
+            if (e.getCause() == null 
+                    && (changedOrderNumbers == null || !changedOrderNumbers.contains(orderNumber))){
+                orderNumberIndex.remove(orderNumber);
+            }
+            throw new OrderNotFoundException("Order not found.", e);
+        }
+    }
 
     /**
      * Takes in a date and returns all orders that will be fulfilled on that date
@@ -85,13 +240,60 @@ public class OrderDaoFileImpl implements OrderDao {
      */
     @Override
     public List<Order> getAllOrdersOnDate(LocalDate orderDate) throws NoOrdersOnDateException {
-        Map<Integer, Order> ordersOnDate = orderStore.get(orderDate);
+        NavigableMap<Integer, Order> ordersOnDate = getResidentOrders(orderDate);
+        evictColdDatesIfNeeded();
         if (ordersOnDate == null || ordersOnDate.isEmpty()){
             throw new NoOrdersOnDateException(generateNoOrdersOnDateExceptionMessage(orderDate));
         }
-        return ordersOnDate.values().stream()
-                .sorted(Comparator.comparingInt(Order::getOrderNumber))
-                .collect(Collectors.toList());
+        return new ArrayList<>(ordersOnDate.values());
+    }
+    
+    /**
+     * Returns every order fulfilled from one date to another, both inclusive,
+     * sorted by date and then by order number
+     * @param fromDate - LocalDate of first day in range
+     * @param toDate - LocalDate of last day in range
+     * @return - List of Order objects, empty if there are no orders in range
+     * @throws OrderPersistenceException if an order file in range can't be read
+     */
+    @Override
+    public List<Order> getOrdersBetween(LocalDate fromDate, LocalDate toDate) 
+            throws OrderPersistenceException {
+        return streamOrdersBetween(fromDate, toDate).collect(Collectors.toList());
+    }
+    
+    /**
+     * Streams every order fulfilled from one date to another, both inclusive,
+     * sorted by date and then by order number. Dates in range that haven't 
+     * been read yet are loaded first; the stream then walks each date's map
+     * directly without copying its orders, so dates evicted from the cache
+     * while the stream is open are still streamed.
+     * @param fromDate - LocalDate of first day in range
+     * @param toDate - LocalDate of last day in range
+     * @return - Stream of Order objects
+     * @throws OrderPersistenceException if an order file in range can't be read
+     */
+    @Override
+    public Stream<Order> streamOrdersBetween(LocalDate fromDate, LocalDate toDate) 
+            throws OrderPersistenceException {
+        if (fromDate.isAfter(toDate)){
+            throw new IllegalArgumentException("Range starts after it ends: " 
+                    + fromDate + " to " + toDate);
+        }
+        Set<LocalDate> unloadedDates = new TreeSet<>(
+                unloadedOrderDates.subSet(fromDate, true, toDate, true));
+        unloadedDates.addAll(unreplayedJournalEntries.subMap(fromDate, true, toDate, true).keySet());
+        for (LocalDate orderDate : unloadedDates){
+            ensureOrdersLoaded(orderDate);
+        }
+        List<NavigableMap<Integer, Order>> ordersInRange = new ArrayList<>();
+        for (Map.Entry<LocalDate, NavigableMap<Integer, Order>> entry : orderStore.subMap(fromDate, true, toDate, true).entrySet()){
+            ordersInRange.add(entry.getValue());
+            touchResidentDate(entry.getKey(), entry.getValue());
+        }
+        evictColdDatesIfNeeded();
+        return ordersInRange.stream()
+                .flatMap((ordersOnDate) -> ordersOnDate.values().stream());
     }
 
     /**
@@ -103,18 +305,24 @@ public class OrderDaoFileImpl implements OrderDao {
     @Override
     public Order addOrder(Order order) {
         LocalDate orderDate = order.getOrderDate();
-        
-        // Retrieve map from orderId to order for given date, if non-existent create one
-        Map<Integer, Order> ordersOnDate = orderStore.get(orderDate);
-        if (ordersOnDate == null){
-            ordersOnDate = new HashMap<>();
+        ReentrantLock lock = dateLocks.lockFor(orderDate);
+        lock.lock();
+        try{
+            // Retrieve map from orderId to order for given date, if non-existent create one
+            NavigableMap<Integer, Order> ordersOnDate = orderStore.computeIfAbsent(orderDate, 
+                    (date) -> new ConcurrentSkipListMap<>());
+            
+            // Put order in map
+            markDirty(orderDate, order.getOrderNumber());
+            orderNumberSequence.observe(order.getOrderNumber());
+            orderNumberIndex.put(order.getOrderNumber(), orderDate);
+            Order previousOrder = ordersOnDate.put(order.getOrderNumber(), order);
+            touchResidentDate(orderDate, ordersOnDate);
+            return previousOrder;
+        } finally{
+            lock.unlock();
+            evictColdDatesIfNeeded();
         }
-        
-        // Put order in map and put map in orderStore
-        order = ordersOnDate.put(order.getOrderNumber(), order);
-        orderStore.put(orderDate, ordersOnDate);
-        
-        return order;
     }
     
     /**
@@ -130,7 +338,7 @@ public class OrderDaoFileImpl implements OrderDao {
     @Override
     public Order createOrder(LocalDate orderDate, String customerName, StateTax stateTax,
             Product product, BigDecimal area){
-        return new Order(orderDate, getNextAvailableOrderNumber(), customerName, stateTax, product, area);
+        return new Order(orderDate, allocateOrderNumbers(1), customerName, stateTax, product, area);
     }
     
     /**
@@ -151,7 +359,7 @@ public class OrderDaoFileImpl implements OrderDao {
     public Order createOrder(LocalDate orderDate, String customerName, StateTax stateTax, Product product, 
             BigDecimal area, BigDecimal materialCost, BigDecimal laborCost, 
             BigDecimal tax, BigDecimal total){
-        return new Order(orderDate, getNextAvailableOrderNumber(), customerName, stateTax, 
+        return new Order(orderDate, allocateOrderNumbers(1), customerName, stateTax, 
                 product, area, materialCost, laborCost, tax, total);
     }
 
@@ -167,26 +375,86 @@ public class OrderDaoFileImpl implements OrderDao {
      */
     @Override
     public Order editOrder(Order orderToEdit, String newCustomerName, StateTax newStateTax, Product newProduct, BigDecimal newArea) {
-        
-        // Check if edited fields are different
-        if (newCustomerName.equals(orderToEdit.getCustomerName()) &&
-                newStateTax.equals(orderToEdit.getStateTax()) &&
-                newProduct.equals(orderToEdit.getProduct()) &&
-                newArea.equals(orderToEdit.getArea())){
-            return null;
+        return editOrder(orderToEdit, newCustomerName, newStateTax, newProduct, newArea, 
+                null, null, null, null);
+    }
+    
+    /**
+     * Edits order information and costs together, so no save or reader sees
+     * the new fields with the old costs
+     * @param orderToEdit - Order object to be edited
+     * @param newCustomerName - String of new customer name value
+     * @param newStateTax - New StateTax object
+     * @param newProduct - New Product object
+     * @param newArea - BigDecimal of new flooring area in square feet
+     * @param newMaterialCost - BigDecimal of new material cost
+     * @param newLaborCost - BigDecimal of new labor cost
+     * @param newTax - BigDecimal of new tax
+     * @param newTotal - BigDecimal of new total
+     * @return - New order object if edits were made, null if input was the same
+     * as object in memory
+     */
+    @Override
+    public Order editOrder(Order orderToEdit, String newCustomerName, StateTax newStateTax, 
+            Product newProduct, BigDecimal newArea, BigDecimal newMaterialCost, 
+            BigDecimal newLaborCost, BigDecimal newTax, BigDecimal newTotal) {
+        ReentrantLock lock = dateLocks.lockFor(orderToEdit.getOrderDate());
+        lock.lock();
+        try{
+            // Edit the order as it is now, which another thread may have 
+            // replaced since the caller read it
+            NavigableMap<Integer, Order> ordersOnDate = orderStore.get(orderToEdit.getOrderDate());
+            Order currentOrder = ordersOnDate == null ? null : ordersOnDate.get(orderToEdit.getOrderNumber());
+            if (currentOrder == null){
+                currentOrder = orderToEdit;
+            }
+            
+            // Costs that aren't given stay as they are
+            if (newMaterialCost == null){
+                newMaterialCost = currentOrder.getMaterialCost();
+                newLaborCost = currentOrder.getLaborCost();
+                newTax = currentOrder.getTax();
+                newTotal = currentOrder.getTotal();
+            }
+            
+            // Check if edited fields are different
+            if (newCustomerName.equals(currentOrder.getCustomerName()) &&
+                    newStateTax.equals(currentOrder.getStateTax()) &&
+                    newProduct.equals(currentOrder.getProduct()) &&
+                    newArea.equals(currentOrder.getArea()) &&
+                    Objects.equals(newMaterialCost, currentOrder.getMaterialCost()) &&
+                    Objects.equals(newLaborCost, currentOrder.getLaborCost()) &&
+                    Objects.equals(newTax, currentOrder.getTax()) &&
+                    Objects.equals(newTotal, currentOrder.getTotal())){
+                return null;
+            }
+            
+            // Publish an edited copy so readers never see a half-edited order
+            Order editedOrder = new Order(currentOrder.getOrderDate(), currentOrder.getOrderNumber(), 
+                    newCustomerName, newStateTax, newProduct, newArea, newMaterialCost, 
+                    newLaborCost, newTax, newTotal);
+            markDirty(editedOrder.getOrderDate(), editedOrder.getOrderNumber());
+            
+            // If the date was evicted or the order was read on its own, keep
+            // the edited order in memory so it takes priority over the file 
+            // when the date is read. If the date was read since, replace the
+            // copy read from the file.
+            if (unloadedOrderDates.contains(editedOrder.getOrderDate())){
+                orderStore.computeIfAbsent(editedOrder.getOrderDate(), (date) -> new ConcurrentSkipListMap<>())
+                        .put(editedOrder.getOrderNumber(), editedOrder);
+            }
+            else if (ordersOnDate != null && ordersOnDate.containsKey(editedOrder.getOrderNumber())){
+                ordersOnDate.put(editedOrder.getOrderNumber(), editedOrder);
+            }
+            return editedOrder;
+        } finally{
+            lock.unlock();
         }
-        
-        // Edit fields to reflect changes
-        orderToEdit.setCustomerName(newCustomerName);
-        orderToEdit.setStateTax(newStateTax);
-        orderToEdit.setProduct(newProduct);
-        orderToEdit.setArea(newArea);
-
-        return orderToEdit;
     }
 
     /**
-     * Removes an order based on order number and date
+     * Removes an order based on order number and date. The order number stays
+     * in the order number index until the removal is saved.
      * @param orderNumber - Integer representing order number
      * @param orderDate - LocalDate representing order fulfillment date
      * @return - Removed Order object if found, null otherwise
@@ -196,243 +464,2204 @@ public class OrderDaoFileImpl implements OrderDao {
     @Override
     public Order removeOrder(int orderNumber, LocalDate orderDate) 
             throws NoOrdersOnDateException, OrderNotFoundException{
-        Map<Integer, Order> ordersOnDate = orderStore.get(orderDate);
         
-        // If order doesn't exist, getOrder will throw an exception
-        this.getOrder(orderNumber, orderDate);
-        
-        // Remove order
-        Order removedOrder = ordersOnDate.remove(orderNumber);
-        
-        // Remove map if there are no more orders on that date
-        if (ordersOnDate.isEmpty()){
-            orderStore.remove(orderDate);
+        ReentrantLock lock = dateLocks.lockFor(orderDate);
+        lock.lock();
+        try{
+            // Read the whole date, then if order doesn't exist, getOrder 
+            // will throw an exception
+            getResidentOrders(orderDate);
+            this.getOrder(orderNumber, orderDate);
+            NavigableMap<Integer, Order> ordersOnDate = orderStore.get(orderDate);
+            
+            // Remove order
+            Order removedOrder = ordersOnDate.remove(orderNumber);
+            
+            // Remove map if there are no more orders on that date
+            if (ordersOnDate.isEmpty()){
+                orderStore.remove(orderDate);
+                residentDates.forget(orderDate);
+            }
+            markDirty(orderDate, orderNumber);
+            
+            return removedOrder;
+        } finally{
+            lock.unlock();
         }
-        
-        return removedOrder;
     }
     
     /**
-     * Takes a filename and loads order data into memory
-     * @param orderFileName - String of ".txt" filename containing orders on a given date
+     * Takes a date and reads its order file into a new map. Does not touch
+     * orderStore, so several files may be read at the same time. If the
+     * snapshot holds an up-to-date copy of the file, the copy is decoded 
+     * instead of the file. Dates stored as record files are read from their
+     * records, and dates without an order file are read from the archive.
+     * @param orderDate - LocalDate of orders to read
+     * @return - Map from order number to Order object, empty if file has no data
      * @throws OrderPersistenceException 
      */
-    private void loadOrder(String orderFileName) throws OrderPersistenceException{
-        Scanner scanner;
-        
-        try{
-            scanner = new Scanner(new BufferedReader(new FileReader(ORDER_FOLDER_PATH + orderFileName)));
+    private NavigableMap<Integer, Order> loadOrder(LocalDate orderDate) throws OrderPersistenceException{
+        return readOrderFile(orderDate, snapshotSections.remove(orderDate));
+    }
+    
+    /**
+     * Reads one date's orders from its snapshot section if given, otherwise 
+     * from its order file or the archive, without adding them to memory
+     * @param orderDate - LocalDate of orders to read
+     * @param snapshotSection - OrderSnapshot.Section of date, or null
+     * @return - Map from order number to Order object, empty if file has no data
+     * @throws OrderPersistenceException 
+     */
+    private NavigableMap<Integer, Order> readOrderFile(LocalDate orderDate, OrderSnapshot.Section snapshotSection) 
+            throws OrderPersistenceException{
+        if (snapshotSection != null){
+            try{
+                return snapshotSection.decode();
+            } catch (IOException e){
+                // Damaged section, read the order file instead
+            }
         }
-        catch (FileNotFoundException e){
+        try{
+            Path orderFile = findOrderFile(orderDate);
+            if (orderFile == null && orderArchive.contains(orderDate)){
+                return new OrderFileDecoder().decode(orderArchive.read(orderDate), orderDate);
+            }
+            if (orderFile == null){
+                orderFile = Paths.get(generateFilePath(orderDate));
+            }
+            else{
+                verifyManifestEntry(orderDate, orderFile);
+            }
+            return decodeOrderFile(orderFile, orderDate);
+        } catch (IOException e){
             throw new OrderPersistenceException(
                     "Could not load order data into memory.", e);
         }
-        
-        // Skip header
-        if (scanner.hasNextLine()){
-            scanner.nextLine();
-        }
-        
-        // Don't store an empty hashmap to orderStore if file doesn't have data
-        if (!scanner.hasNextLine()){
-            return;
-        }
-        
-        // Parse and store data
-        String currentLine;
-        Order currentOrder;
-        Map<Integer, Order> ordersOnDate = new HashMap<>();
-        LocalDate orderDate = LocalDate.parse(orderFileName.split("_")[1].replace(".txt", ""), 
-                DateTimeFormatter.ofPattern("MMddyyyy"));
-        while (scanner.hasNextLine()){
-            currentLine = scanner.nextLine();
-            currentOrder = unmarshallOrder(currentLine, orderDate);
-            ordersOnDate.put(currentOrder.getOrderNumber(), currentOrder);
-        }
-        orderStore.put(orderDate, ordersOnDate);
-        
-        scanner.close();
     }
 
     /**
-     * Loads all order files in Orders folder to memory
+     * Loads all order files in Orders folder to memory. If loadParallelism is
+     * greater than 1, files are read by a pool of that many threads and merged
+     * into orderStore once every file has been read.
      * @throws OrderPersistenceException 
      */
     @Override
     public void loadAllOrders() throws OrderPersistenceException {
-        
-        // Get list of .txt files starting with "Orders_" in Order folder
-        File directoryPath = new File(ORDER_FOLDER_PATH);
-        FilenameFilter textFilefilter = (File dir, String name) -> {
-            String lowercaseName = name.toLowerCase();
-            return lowercaseName.endsWith(".txt") &&
-                    name.startsWith("Orders_");
-        };
-        String[] filesList = directoryPath.list(textFilefilter);
-        
-        // Load each file
-        for (String file : filesList){
-            loadOrder(file);
+        dateLocks.lockAll();
+        try{
+            loadAllOrdersLocked();
+        } finally{
+            dateLocks.unlockAll();
         }
+        evictColdDatesIfNeeded();
     }
     
     /**
-     * Takes a String and LocalDate and converts it to an Order object
-     * @param orderAsText - String representation of Order object
-     * @param orderDate - LocalDate of order fulfillment date
-     * @return - Order object
+     * Does the work of loadAllOrders while every date lock is held
+     * @throws OrderPersistenceException 
      */
-    private Order unmarshallOrder(String orderAsText, LocalDate orderDate){
-        String[] orderFields = orderAsText.split(FIELD_DELIMITER);
+    private void loadAllOrdersLocked() throws OrderPersistenceException {
+        long startTime = System.nanoTime();
+        damagedRecordCount.set(0);
+        try{
+            recoverInterruptedCommit();
+        } catch (IOException e){
+            throw new OrderPersistenceException(
+                    "Could not recover interrupted save.", e);
+        }
+        if (shardedLayout){
+            migrateToShardedLayout();
+        }
+        List<LocalDate> orderDates = listOrderDates();
+        
+        // Use the snapshot for every date whose file hasn't changed since it was taken
+        snapshotSections.clear();
+        Map<LocalDate, OrderSnapshot.Section> snapshot;
+        try{
+            snapshot = orderSnapshot.read();
+        } catch (IOException e){
+            // Damaged snapshot, read every order file instead
+            snapshot = new HashMap<>();
+        }
+        for (LocalDate orderDate : orderDates){
+            OrderSnapshot.Section snapshotSection = snapshot.get(orderDate);
+            Path orderFile;
+            try{
+                orderFile = findOrderFile(orderDate);
+            } catch (IOException e){
+                orderFile = null;
+            }
+            if (snapshotSection != null && orderFile != null && snapshotSection.matches(orderFile)){
+                snapshotSections.put(orderDate, snapshotSection);
+            }
+        }
+        int snapshotDateCount = snapshotSections.size();
+        
+        // Group journal entries by date so they can be replayed over each file
+        unreplayedJournalEntries.clear();
+        List<OrderJournal.Entry> journalEntries;
+        try{
+            journalEntries = journal.readEntries();
+        } catch (IOException e){
+            throw new OrderPersistenceException(
+                    "Could not read order journal.", e);
+        }
+        journaledEntries.clear();
+        for (OrderJournal.Entry journalEntry : journalEntries){
+            unreplayedJournalEntries.computeIfAbsent(journalEntry.getOrderDate(), 
+                    (date) -> new ArrayList<>()).add(journalEntry);
+        }
+        rememberJournalEntries(journalEntries);
+        if (journalEnabled){
+            startJournalCompactor();
+        }
+        else if (!journalEntries.isEmpty()){
+            // Journal left behind while journaling was on, fold it into the files
+            compactJournal();
+        }
+        if (archiveAfterDays > 0){
+            startOrderArchiver();
+        }
+        
+        // In lazy mode, only remember which dates have a file
+        unloadedOrderDates.clear();
+        try{
+            orderNumberSequence.load();
+        } catch (IOException e){
+            throw new OrderPersistenceException(
+                    "Could not read order number sequence.", e);
+        }
+        observeSavedOrderNumbers();
+        if (lazyLoad){
+            try{
+                indexNeedsRebuild = !orderNumberIndex.load();
+            } catch (IOException e){
+                throw new OrderPersistenceException(
+                        "Could not read order number index.", e);
+            }
+            for (Map.Entry<LocalDate, List<OrderJournal.Entry>> entry : unreplayedJournalEntries.entrySet()){
+                orderStore.remove(entry.getKey());
+                dirtyOrderNumbers.remove(entry.getKey());
+                if (!indexNeedsRebuild){
+                    entry.getValue().forEach(this::applyToOrderNumbers);
+                }
+            }
+            for (LocalDate orderDate : orderDates){
+                orderStore.remove(orderDate);
+                dirtyOrderNumbers.remove(orderDate);
+                unloadedOrderDates.add(orderDate);
+            }
+            indexOrdersInMemory();
+            touchOrdersInMemory();
+            long elapsedMillis = (System.nanoTime() - startTime) / 1_000_000;
+            loadReport = "Found " + orderDates.size() + " order files in " 
+                    + elapsedMillis + " ms, orders will be loaded on first use";
+            return;
+        }
+        
+        // Read each file
+        int threadCount = Math.max(1, Math.min(loadParallelism, orderDates.size()));
+        Map<LocalDate, NavigableMap<Integer, Order>> loadedOrders;
+        if (threadCount == 1){
+            loadedOrders = new HashMap<>();
+            for (LocalDate orderDate : orderDates){
+                loadedOrders.put(orderDate, loadOrder(orderDate));
+            }
+        }
+        else{
+            loadedOrders = loadOrdersInParallel(orderDates, threadCount);
+        }
+        
+        // Keep entries described again for files changed outside the DAO
+        try{
+            orderManifest.save();
+        } catch (IOException e){
+            throw new OrderPersistenceException(
+                    "Could not save order manifest.", e);
+        }
         
-        int orderNumber = Integer.parseInt(orderFields[0]);
-        String customerName = orderFields[1];
-        String stateAbbreviation = orderFields[2];
-        BigDecimal taxRate = new BigDecimal(orderFields[3]);
-        String productType = orderFields[4];
-        BigDecimal area = new BigDecimal(orderFields[5]);
-        BigDecimal costPerSquareFoot = new BigDecimal(orderFields[6]);
-        BigDecimal laborCostPerSquareFoot  = new BigDecimal(orderFields[7]);
-        BigDecimal materialCost = new BigDecimal(orderFields[8]);
-        BigDecimal laborCost = new BigDecimal(orderFields[9]);
-        BigDecimal tax = new BigDecimal(orderFields[10]);
-        BigDecimal total = new BigDecimal(orderFields[11]);
+        // Replay journal over the files
+        for (Map.Entry<LocalDate, List<OrderJournal.Entry>> entry : unreplayedJournalEntries.entrySet()){
+            NavigableMap<Integer, Order> ordersOnDate = loadedOrders.computeIfAbsent(entry.getKey(), 
+                    (date) -> new TreeMap<>());
+            entry.getValue().forEach((journalEntry) -> journalEntry.applyTo(ordersOnDate));
+            if (ordersOnDate.isEmpty()){
+                orderStore.remove(entry.getKey());
+                dirtyOrderNumbers.remove(entry.getKey());
+            }
+        }
+        unreplayedJournalEntries.clear();
         
-        Product orderProduct = new Product(productType, costPerSquareFoot, laborCostPerSquareFoot);
-        StateTax orderStateTax = new StateTax(stateAbbreviation, taxRate);
+        // Merge into orderStore, skipping files without data
+        int orderCount = 0;
+        for (Map.Entry<LocalDate, NavigableMap<Integer, Order>> entry : loadedOrders.entrySet()){
+            if (!entry.getValue().isEmpty()){
+                orderStore.put(entry.getKey(), new ConcurrentSkipListMap<>(entry.getValue()));
+                dirtyOrderNumbers.remove(entry.getKey());
+                orderCount += entry.getValue().size();
+            }
+        }
         
-        Order order = new Order(orderDate, orderNumber, customerName, 
-                orderStateTax, orderProduct, area, materialCost, laborCost, tax, 
-                total);
+        // Every order is in memory, so the index is brought in line with
+        // orderStore, leaving only the entries that differ to be saved
+        try{
+            orderNumberIndex.load();
+        } catch (IOException e){
+            orderNumberIndex.clear();
+        }
+        orderNumberIndex.removeIf((orderNumber, orderDate) -> {
+            NavigableMap<Integer, Order> ordersOnDate = orderStore.get(orderDate);
+            return ordersOnDate == null || !ordersOnDate.containsKey(orderNumber);
+        });
+        indexOrdersInMemory();
+        indexNeedsRebuild = false;
+        touchOrdersInMemory();
         
-        return order;
+        long elapsedMillis = (System.nanoTime() - startTime) / 1_000_000;
+        loadReport = "Loaded " + orderCount + " orders from " + orderDates.size()
+                + " files (" + snapshotDateCount + " from snapshot) in " + elapsedMillis 
+                + " ms using " + threadCount + (threadCount == 1 ? " thread" : " threads")
+                + describeDamagedRecords();
     }
     
     /**
-     * Takes in an Order object and converts it to a String for file storage
-     * @param order - Order object
-     * @return String representing Order object
-     */
-    private String marshallOrder(Order order){
-        String orderAsText = order.getOrderNumber() + FIELD_DELIMITER;
-        orderAsText += order.getCustomerName() + FIELD_DELIMITER;
-        orderAsText += order.getStateTax().getStateAbbreviation() + FIELD_DELIMITER;
-        orderAsText += order.getStateTax().getTaxRate() + FIELD_DELIMITER;
-        orderAsText += order.getProduct().getProductType() + FIELD_DELIMITER;
-        orderAsText += order.getArea() + FIELD_DELIMITER;
-        orderAsText += order.getProduct().getCostPerSquareFoot() + FIELD_DELIMITER;
-        orderAsText += order.getProduct().getLaborCostPerSquareFoot() + FIELD_DELIMITER;
-        orderAsText += order.getMaterialCost() + FIELD_DELIMITER;
-        orderAsText += order.getLaborCost() + FIELD_DELIMITER;
-        orderAsText += order.getTax() + FIELD_DELIMITER;
-        orderAsText += order.getTotal();
-        
-        return orderAsText;
+     * Returns the dates whose order files hold orders, as listed in the manifest
+     * @return - List of order dates, excluding files with no orders
+     * @throws OrderPersistenceException 
+     */
+    private List<LocalDate> listOrderDates() throws OrderPersistenceException{
+        loadManifest();
+        return orderManifest.entries().entrySet().stream()
+                .filter((entry) -> entry.getValue().getRowCount() > 0)
+                .map(Map.Entry::getKey)
+                .collect(Collectors.toList());
     }
     
     /**
-     * Takes in an order date and generates an order filepath with .txt extension.
-     * @param orderDate - LocalDate representing order date
-     * @return - String of order filepath
+     * Loads the manifest if it hasn't been loaded yet, so a save before
+     * loadAllOrders doesn't write a manifest missing the other dates
+     * @throws OrderPersistenceException 
      */
-    private String generateFilePath(LocalDate orderDate){
-        String fileName = ORDER_FOLDER_PATH + "Orders_";
-        fileName += orderDate.format(DateTimeFormatter.ofPattern("MMddyyyy"));
-        fileName += ".txt";
-        return fileName;
+    private synchronized void ensureManifestLoaded() throws OrderPersistenceException{
+        if (!manifestLoaded){
+            loadManifest();
+        }
     }
-
+    
     /**
-     * Takes in an order date and overwrites file with in-memory order data for 
-     * that date.
-     * @param orderDate - LocalDate of orders to save.
+     * Reads the manifest and the archive indexes. Entries are trusted 
+     * without looking at the Orders folder; only dates left PENDING by an
+     * interrupted save are read again, and other dates are checked against 
+     * their file when they are read. If the manifest is missing or can't be
+     * parsed, it is rebuilt by listing the Orders folder.
      * @throws OrderPersistenceException 
      */
-    @Override
-    public void saveOrder(LocalDate orderDate) throws OrderPersistenceException {
-        
-        // Delete file if no orders
-        Map<Integer, Order> ordersOnDateMap = orderStore.get(orderDate);
-        if (ordersOnDateMap == null || ordersOnDateMap.isEmpty()){
-            File file = new File(generateFilePath(orderDate));
-            file.delete();
-            return;
+    private synchronized void loadManifest() throws OrderPersistenceException{
+        if (!new File(ORDER_FOLDER_PATH).isDirectory()){
+            throw new OrderPersistenceException(
+                    "Could not find order folder " + ORDER_FOLDER_PATH);
         }
-        
-        // Overwrite file
-        PrintWriter out;
         try{
-            out = new PrintWriter(new FileWriter(generateFilePath(orderDate)));
+            recoverInterruptedCommit();
+            orderArchive.load();
+            boolean manifestRead;
+            try{
+                manifestRead = orderManifest.load();
+            } catch (IOException e){
+                // Corrupt manifest, rebuild it from the folder
+                manifestRead = false;
+            }
+            if (manifestRead){
+                recheckPendingManifestEntries();
+            }
+            else{
+                rebuildManifest();
+            }
+            orderManifest.save();
         } catch (IOException e){
             throw new OrderPersistenceException(
-                    "Could not save order data.", e);
+                    "Could not read order manifest.", e);
         }
-        
-        // Write header
-        String header = "OrderNumber"+FIELD_DELIMITER+
-                "CustomerName"+FIELD_DELIMITER+
-                "State"+FIELD_DELIMITER+
-                "TaxRate"+FIELD_DELIMITER+
-                "ProductType"+FIELD_DELIMITER+
-                "Area"+FIELD_DELIMITER+
-                "CostPerSquareFoot"+FIELD_DELIMITER+
-                "LaborCostPerSquareFoot"+FIELD_DELIMITER+
-                "MaterialCost"+FIELD_DELIMITER+
-                "LaborCost"+FIELD_DELIMITER+
-                "Tax"+FIELD_DELIMITER+
-                "Total";
-        out.println(header);
-        out.flush();
-        
-        // Create list of orders from map
-        List<Order> ordersOnDate = ordersOnDateMap.values().stream()
-                .sorted(Comparator.comparingInt(Order::getOrderNumber))
-                .collect(Collectors.toList());
-        
-        // Write each order on new line
-        ordersOnDate.stream()
-                .map((order) -> marshallOrder(order))
-                .forEach((orderStr) -> {
-                    out.println(orderStr);
-                    out.flush();
-                });
-        
-        out.close();
+        manifestLoaded = true;
     }
-
+    
     /**
-     * Saves all orders stored in memory
-     * @throws NoOrdersOnDateException
-     * @throws OrderPersistenceException 
+     * Describes each date left PENDING in the manifest from its order file,
+     * or from the archive if it has no file, dropping dates that have neither
+     * @throws IOException 
      */
-    @Override
-    public void saveAllOrders() throws NoOrdersOnDateException, OrderPersistenceException {
-        Set<LocalDate> orderDates = orderStore.keySet();
-        for (LocalDate orderDate : orderDates){
-            saveOrder(orderDate);
+    private void recheckPendingManifestEntries() throws IOException{
+        for (Map.Entry<LocalDate, OrderManifest.Entry> entry : orderManifest.entries().entrySet()){
+            if (!entry.getValue().isPending()){
+                continue;
+            }
+            Path orderFile = findOrderFile(entry.getKey());
+            if (orderFile != null){
+                recordFiles.remove(entry.getKey());
+                orderManifest.put(entry.getKey(), describeOrderFile(entry.getKey(), orderFile));
+            }
+            else if (orderArchive.contains(entry.getKey())){
+                orderManifest.put(entry.getKey(), OrderManifest.describe(orderArchive.read(entry.getKey())));
+            }
+            else{
+                orderManifest.remove(entry.getKey());
+            }
         }
     }
-
+    
     /**
-     * Iterates over all orders in memory and returns the integer after the highest order
-     * number
-     * @return - Integer of the next available order number
+     * Recovers a missing or corrupt manifest by describing every archived
+     * date and every file in the Orders folder. A date with both an order
+     * file and an archived copy is described from its file.
+     * @throws IOException 
      */
-    @Override
-    public int getNextAvailableOrderNumber() {
-        int maxOrderNumber = 0;
-        for (Map<Integer, Order> orderMap : orderStore.values()){
-            if (orderMap.isEmpty()){
-                continue;
+    private void rebuildManifest() throws IOException{
+        orderManifest.clear();
+        for (LocalDate orderDate : orderArchive.dates()){
+            orderManifest.put(orderDate, OrderManifest.describe(orderArchive.read(orderDate)));
+        }
+        for (Map.Entry<LocalDate, Path> orderFile : findOrderFiles(LocalDate.MIN, LocalDate.MAX).entrySet()){
+            recordFiles.remove(orderFile.getKey());
+            orderManifest.put(orderFile.getKey(), describeOrderFile(orderFile.getKey(), orderFile.getValue()));
+        }
+    }
+    
+    /**
+     * Checks a date's manifest entry against the order file about to be 
+     * read, and describes the file again if it was changed outside the DAO
+     * @param orderDate - LocalDate of orders in file
+     * @param orderFile - Path of order file
+     * @throws IOException 
+     */
+    private void verifyManifestEntry(LocalDate orderDate, Path orderFile) throws IOException{
+        if (orderManifest.matches(orderDate, orderFile)){
+            return;
+        }
+        recordFiles.remove(orderDate);
+        OrderManifest.Entry entry = describeOrderFile(orderDate, orderFile);
+        orderManifest.put(orderDate, entry);
+        orderNumberSequence.observe(entry.getMaxOrderNumber());
+    }
+    
+    /**
+     * Finds the order files for a range of dates by listing the Orders folder.
+     * In the sharded layout, year and month folders outside the range are 
+     * skipped without being listed.
+     * @param fromDate - LocalDate of first day in range
+     * @param toDate - LocalDate of last day in range
+     * @return - Map from order date to order file, in date order
+     * @throws IOException 
+     */
+    private NavigableMap<LocalDate, Path> findOrderFiles(LocalDate fromDate, LocalDate toDate) throws IOException{
+        NavigableMap<LocalDate, Path> orderFiles = new TreeMap<>();
+        Path orderFolder = Paths.get(ORDER_FOLDER_PATH);
+        if (!shardedLayout){
+            addOrderFiles(orderFolder, fromDate, toDate, orderFiles);
+            return orderFiles;
+        }
+        YearMonth fromMonth = YearMonth.from(fromDate);
+        YearMonth toMonth = YearMonth.from(toDate);
+        try (DirectoryStream<Path> yearFolders = Files.newDirectoryStream(orderFolder, "[0-9][0-9][0-9][0-9]")){
+            for (Path yearFolder : yearFolders){
+                int year = Integer.parseInt(yearFolder.getFileName().toString());
+                if (year < fromDate.getYear() || year > toDate.getYear() || !Files.isDirectory(yearFolder)){
+                    continue;
+                }
+                try (DirectoryStream<Path> monthFolders = Files.newDirectoryStream(yearFolder, "[0-1][0-9]")){
+                    for (Path monthFolder : monthFolders){
+                        YearMonth month;
+                        try{
+                            month = YearMonth.of(year, Integer.parseInt(monthFolder.getFileName().toString()));
+                        } catch (DateTimeException e){
+                            continue;
+                        }
+                        if (!month.isBefore(fromMonth) && !month.isAfter(toMonth) && Files.isDirectory(monthFolder)){
+                            addOrderFiles(monthFolder, fromDate, toDate, orderFiles);
+                        }
+                    }
+                }
+            }
+        }
+        return orderFiles;
+    }
+    
+    /**
+     * Adds the order files directly inside a folder whose dates are in range.
+     * Files named Orders_ whose name isn't a date are ignored. If a date has
+     * both a text file and a record file, the newer one is added.
+     * @param folder - Path of folder to list
+     * @param fromDate - LocalDate of first day in range
+     * @param toDate - LocalDate of last day in range
+     * @param orderFiles - Map from order date to order file to add to
+     * @throws IOException 
+     */
+    private void addOrderFiles(Path folder, LocalDate fromDate, LocalDate toDate, 
+            Map<LocalDate, Path> orderFiles) throws IOException{
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(folder, ORDER_FILE_GLOB)){
+            for (Path file : files){
+                LocalDate orderDate;
+                try{
+                    orderDate = parseOrderDate(file.getFileName().toString());
+                } catch (DateTimeException | ArrayIndexOutOfBoundsException e){
+                    continue;
+                }
+                if (!orderDate.isBefore(fromDate) && !orderDate.isAfter(toDate)){
+                    Path otherFile = orderFiles.get(orderDate);
+                    orderFiles.put(orderDate, otherFile == null ? file : newerOrderFile(otherFile, file));
+                }
             }
-            int maxOrderOnDate = orderMap.values().stream()
-                    .map((order) -> order.getOrderNumber())
-                    .max(Comparator.naturalOrder()).get();
-            if (maxOrderOnDate > maxOrderNumber){
-                maxOrderNumber = maxOrderOnDate;
+        }
+    }
+    
+    /**
+     * Moves order files left at the top of the Orders folder by the flat 
+     * layout into their year and month folders. Only does anything the first
+     * time the sharded layout is used; the manifest is keyed by date and a 
+     * move keeps each file's size and modified time, so the manifest and 
+     * snapshot stay valid.
+     * @throws OrderPersistenceException 
+     */
+    private void migrateToShardedLayout() throws OrderPersistenceException{
+        try (DirectoryStream<Path> flatOrderFiles = Files.newDirectoryStream(Paths.get(ORDER_FOLDER_PATH), ORDER_FILE_GLOB)){
+            for (Path flatOrderFile : flatOrderFiles){
+                LocalDate orderDate;
+                try{
+                    orderDate = parseOrderDate(flatOrderFile.getFileName().toString());
+                } catch (DateTimeException | ArrayIndexOutOfBoundsException e){
+                    continue;
+                }
+                Path shardedFile = Paths.get(ORDER_FOLDER_PATH + generateShardPath(orderDate))
+                        .resolve(flatOrderFile.getFileName());
+                Files.createDirectories(shardedFile.getParent());
+                Files.move(flatOrderFile, shardedFile, StandardCopyOption.REPLACE_EXISTING);
             }
+        } catch (IOException e){
+            throw new OrderPersistenceException(
+                    "Could not move order files into year and month folders.", e);
+        }
+    }
+    
+    /**
+     * Reads the orders between two dates, both inclusive, straight from their
+     * files and the journal, without loading or listing the rest of the Orders
+     * folder. In the sharded layout only the year and month folders in range
+     * are listed. Archived dates in range are read from the archive. Dates in
+     * range with unsaved changes are left as they are.
+     * @param fromDate - LocalDate of first day in range
+     * @param toDate - LocalDate of last day in range
+     * @throws OrderPersistenceException 
+     */
+    @Override
+    public void loadOrdersBetween(LocalDate fromDate, LocalDate toDate) throws OrderPersistenceException{
+        if (fromDate.isAfter(toDate)){
+            throw new IllegalArgumentException("Range starts after it ends: " 
+                    + fromDate + " to " + toDate);
+        }
+        long startTime = System.nanoTime();
+        damagedRecordCount.set(0);
+        NavigableMap<LocalDate, Path> orderFiles;
+        Map<LocalDate, List<OrderJournal.Entry>> journalEntriesByDate = new HashMap<>();
+        try{
+            orderFiles = findOrderFiles(fromDate, toDate);
+            orderArchive.ensureLoaded();
+            for (OrderJournal.Entry journalEntry : journal.readEntries()){
+                LocalDate orderDate = journalEntry.getOrderDate();
+                if (!orderDate.isBefore(fromDate) && !orderDate.isAfter(toDate)){
+                    journalEntriesByDate.computeIfAbsent(orderDate, 
+                            (date) -> new ArrayList<>()).add(journalEntry);
+                }
+            }
+        } catch (IOException e){
+            throw new OrderPersistenceException(
+                    "Could not find order data between " + fromDate + " and " + toDate + ".", e);
+        }
+        
+        // Dates in memory that are no longer on disk are dropped as well
+        Set<LocalDate> orderDates = new TreeSet<>(orderFiles.keySet());
+        orderDates.addAll(journalEntriesByDate.keySet());
+        orderDates.addAll(orderArchive.dates().subSet(fromDate, true, toDate, true));
+        orderDates.addAll(orderStore.subMap(fromDate, true, toDate, true).keySet());
+        int orderCount = 0;
+        for (LocalDate orderDate : orderDates){
+            ReentrantLock lock = dateLocks.lockFor(orderDate);
+            lock.lock();
+            try{
+                if (dirtyOrderNumbers.containsKey(orderDate)){
+                    continue;
+                }
+                NavigableMap<Integer, Order> ordersOnDate;
+                try{
+                    if (orderFiles.containsKey(orderDate)){
+                        ordersOnDate = decodeOrderFile(orderFiles.get(orderDate), orderDate);
+                    }
+                    else if (orderArchive.contains(orderDate)){
+                        ordersOnDate = new OrderFileDecoder().decode(orderArchive.read(orderDate), orderDate);
+                    }
+                    else{
+                        ordersOnDate = new TreeMap<>();
+                    }
+                } catch (IOException e){
+                    throw new OrderPersistenceException(
+                            "Could not load order data into memory.", e);
+                }
+                List<OrderJournal.Entry> journalEntries = journalEntriesByDate.get(orderDate);
+                if (journalEntries != null){
+                    journalEntries.forEach((journalEntry) -> journalEntry.applyTo(ordersOnDate));
+                }
+                if (ordersOnDate.isEmpty()){
+                    orderStore.remove(orderDate);
+                    residentDates.forget(orderDate);
+                }
+                else{
+                    orderStore.put(orderDate, new ConcurrentSkipListMap<>(ordersOnDate));
+                    touchResidentDate(orderDate, ordersOnDate);
+                }
+                for (int orderNumber : ordersOnDate.keySet()){
+                    orderNumberIndex.put(orderNumber, orderDate);
+                    orderNumberSequence.observe(orderNumber);
+                }
+                orderCount += ordersOnDate.size();
+                snapshotSections.remove(orderDate);
+                unloadedOrderDates.remove(orderDate);
+                unreplayedJournalEntries.remove(orderDate);
+            } finally{
+                lock.unlock();
+            }
+        }
+        evictColdDatesIfNeeded();
+        long elapsedMillis = (System.nanoTime() - startTime) / 1_000_000;
+        loadReport = "Loaded " + orderCount + " orders from " + orderFiles.size()
+                + " files between " + fromDate + " and " + toDate + " in " + elapsedMillis + " ms"
+                + describeDamagedRecords();
+    }
+    
+    /**
+     * Reads each order file on its own task in a fixed-size thread pool
+     * @param orderDates - List of order dates to read
+     * @param threadCount - Number of threads to read with
+     * @return - Map from order date to the orders read for that date
+     * @throws OrderPersistenceException 
+     */
+    private Map<LocalDate, NavigableMap<Integer, Order>> loadOrdersInParallel(List<LocalDate> orderDates, 
+            int threadCount) throws OrderPersistenceException{
+        ExecutorService executor = Executors.newFixedThreadPool(threadCount);
+        try{
+            List<Callable<NavigableMap<Integer, Order>>> tasks = new ArrayList<>();
+            for (LocalDate orderDate : orderDates){
+                tasks.add(() -> loadOrder(orderDate));
+            }
+            List<Future<NavigableMap<Integer, Order>>> results = executor.invokeAll(tasks);
+            
+            Map<LocalDate, NavigableMap<Integer, Order>> loadedOrders = new HashMap<>();
+            for (int i = 0; i < orderDates.size(); i++){
+                loadedOrders.put(orderDates.get(i), results.get(i).get());
+            }
+            return loadedOrders;
+        } catch (InterruptedException e){
+            Thread.currentThread().interrupt();
+            throw new OrderPersistenceException(
+                    "Interrupted while loading order data.", e);
+        } catch (ExecutionException e){
+            if (e.getCause() instanceof OrderPersistenceException){
+                throw (OrderPersistenceException) e.getCause();
+            }
+            throw new OrderPersistenceException(
+                    "Could not load order data into memory.", e.getCause());
+        } finally{
+            executor.shutdownNow();
+        }
+    }
+    
+    /**
+     * Returns a summary of the most recent loadAllOrders call
+     * @return - String describing how many orders and files were loaded and
+     * how long it took, or null if orders have not been loaded
+     */
+    @Override
+    public String getLoadReport(){
+        return loadReport;
+    }
+    
+    /**
+     * Describes the damaged records skipped since the last load started, for
+     * the end of a load report
+     * @return - String noting the count, or an empty String if there were none
+     */
+    private String describeDamagedRecords(){
+        int count = damagedRecordCount.get();
+        return count == 0 ? "" : "; skipped " + count + " damaged " 
+                + (count == 1 ? "record" : "records") + ", kept in .damaged files";
+    }
+    
+    /**
+     * In lazy mode, reads the order file for a date the first time that date
+     * is touched and replays that date's journal entries over it. Orders added
+     * in memory before the file was read take priority over the ones in the file.
+     * Dates that are already loaded return without taking the date's lock.
+     * Counts a cache hit if the date was already in memory and a miss if it
+     * had to be read.
+     * @param orderDate - LocalDate of orders to load
+     * @throws OrderPersistenceException 
+     */
+    private void ensureOrdersLoaded(LocalDate orderDate) throws OrderPersistenceException{
+        if (!unloadedOrderDates.contains(orderDate) && 
+                !unreplayedJournalEntries.containsKey(orderDate)){
+            residentDates.recordHit();
+            touchResidentDate(orderDate, orderStore.get(orderDate));
+            return;
+        }
+        ReentrantLock lock = dateLocks.lockFor(orderDate);
+        lock.lock();
+        try{
+            boolean hasOrderFile = unloadedOrderDates.contains(orderDate);
+            List<OrderJournal.Entry> journalEntries = unreplayedJournalEntries.get(orderDate);
+            if (!hasOrderFile && journalEntries == null){
+                residentDates.recordHit();
+                touchResidentDate(orderDate, orderStore.get(orderDate));
+                return;
+            }
+            residentDates.recordMiss();
+            NavigableMap<Integer, Order> ordersOnDate = hasOrderFile ? loadOrder(orderDate) : new TreeMap<>();
+            if (journalEntries != null){
+                journalEntries.forEach((journalEntry) -> journalEntry.applyTo(ordersOnDate));
+            }
+            NavigableMap<Integer, Order> addedOrders = orderStore.get(orderDate);
+            if (addedOrders != null){
+                ordersOnDate.putAll(addedOrders);
+            }
+            
+            // Publish the orders before marking the date loaded, so a reader
+            // that skips the lock never sees a loaded date without its orders
+            if (!ordersOnDate.isEmpty()){
+                orderStore.put(orderDate, new ConcurrentSkipListMap<>(ordersOnDate));
+                touchResidentDate(orderDate, ordersOnDate);
+            }
+            for (int orderNumber : ordersOnDate.keySet()){
+                orderNumberIndex.put(orderNumber, orderDate);
+            }
+            unloadedOrderDates.remove(orderDate);
+            unreplayedJournalEntries.remove(orderDate);
+        } finally{
+            lock.unlock();
+        }
+    }
+    
+    /**
+     * Same as ensureOrdersLoaded, but reports an unreadable file as having no
+     * orders for lookups that can only throw NoOrdersOnDateException
+     * @param orderDate - LocalDate of orders to load
+     * @throws NoOrdersOnDateException 
+     */
+    private void ensureOrdersLoadedForRead(LocalDate orderDate) throws NoOrdersOnDateException{
+        try{
+            ensureOrdersLoaded(orderDate);
+        } catch (OrderPersistenceException e){
+            throw new NoOrdersOnDateException(generateNoOrdersOnDateExceptionMessage(orderDate), e);
+        }
+    }
+    
+    /**
+     * Returns the orders on a date, reading them first if needed. If the date
+     * is evicted between being read and being looked up, it is read again.
+     * @param orderDate - LocalDate of orders
+     * @return - Map from order number to Order object, or null if the date
+     * has no orders
+     * @throws NoOrdersOnDateException if the date's file can't be read
+     */
+    private NavigableMap<Integer, Order> getResidentOrders(LocalDate orderDate) throws NoOrdersOnDateException{
+        ensureOrdersLoadedForRead(orderDate);
+        NavigableMap<Integer, Order> ordersOnDate = orderStore.get(orderDate);
+        if (ordersOnDate == null && unloadedOrderDates.contains(orderDate)){
+            ensureOrdersLoadedForRead(orderDate);
+            ordersOnDate = orderStore.get(orderDate);
+        }
+        return ordersOnDate;
+    }
+    
+    /**
+     * Marks a date as just used for the cache's eviction order. Does nothing
+     * when there is no cache budget.
+     * @param orderDate - LocalDate of orders
+     * @param ordersOnDate - Map of orders on that date, may be null
+     */
+    private void touchResidentDate(LocalDate orderDate, NavigableMap<Integer, Order> ordersOnDate){
+        if (cacheBudgetBytes > 0 && ordersOnDate != null){
+            residentDates.touch(orderDate, ordersOnDate.size());
+        }
+    }
+    
+    /**
+     * Marks every date in orderStore as used, oldest date first, so the 
+     * oldest dates are the first to be evicted after a load
+     */
+    private void touchOrdersInMemory(){
+        residentDates.clear();
+        for (Map.Entry<LocalDate, NavigableMap<Integer, Order>> entry : orderStore.entrySet()){
+            touchResidentDate(entry.getKey(), entry.getValue());
+        }
+    }
+    
+    /**
+     * Evicts the least recently used dates before the resident window until
+     * the estimated size of the orders in memory is within the cache budget.
+     * Dates whose lock is held elsewhere are skipped, so this never waits on
+     * another thread and may be called while holding a date lock.
+     */
+    private void evictColdDatesIfNeeded(){
+        if (cacheBudgetBytes <= 0 || residentDates.totalBytes() <= cacheBudgetBytes){
+            return;
+        }
+        LocalDate firstResidentDate = LocalDate.now().minusDays(cacheResidentDays);
+        for (LocalDate orderDate : residentDates.leastRecentlyUsed(firstResidentDate)){
+            if (residentDates.totalBytes() <= cacheBudgetBytes){
+                return;
+            }
+            evictDate(orderDate);
+        }
+    }
+    
+    /**
+     * Saves a date if it has unsaved changes and drops its orders from 
+     * memory, leaving the date to be read back from its file and the journal
+     * on next use. The date stays in memory if it can't be saved.
+     * @param orderDate - LocalDate of orders to evict
+     */
+    private void evictDate(LocalDate orderDate){
+        ReentrantLock lock = dateLocks.lockFor(orderDate);
+        if (!lock.tryLock()){
+            return;
+        }
+        try{
+            if (dirtyOrderNumbers.containsKey(orderDate)){
+                saveOrder(orderDate);
+            }
+            
+            // Take the journal entries before checking for the file, so a 
+            // compaction in between can't move the date's orders out of both
+            synchronized (journal){
+                List<OrderJournal.Entry> journalEntries = journaledEntries.get(orderDate);
+                if (journalEntries != null){
+                    synchronized (journalEntries){
+                        unreplayedJournalEntries.put(orderDate, new ArrayList<>(journalEntries));
+                    }
+                }
+                if (orderArchive.contains(orderDate) || findOrderFile(orderDate) != null){
+                    unloadedOrderDates.add(orderDate);
+                }
+            }
+            
+            // Mark the date unloaded before dropping its orders, so a reader
+            // that skips the lock reloads it instead of finding nothing
+            orderStore.remove(orderDate);
+            residentDates.forget(orderDate);
+            residentDates.recordEviction();
+        } catch (IOException | OrderPersistenceException e){
+            // Date can't be flushed, keep it in memory
+            unreplayedJournalEntries.remove(orderDate);
+            unloadedOrderDates.remove(orderDate);
+        } finally{
+            lock.unlock();
+        }
+    }
+    
+    /**
+     * Reads only the order number column of an order file
+     * @param orderDate - LocalDate of order file to scan
+     * @return - Array of order numbers in file, empty if file is empty or no
+     * longer exists
+     */
+    private int[] scanOrderNumbers(LocalDate orderDate){
+        Scanner scanner;
+        try{
+            Path orderFile = findOrderFile(orderDate);
+            if (orderFile != null && isRecordFile(orderFile)){
+                return recordFileFor(orderDate).liveOrderNumbers();
+            }
+            scanner = new Scanner(new BufferedReader(new FileReader(generateFilePath(orderDate))));
+        } catch (IOException e){
+            byte[] archivedFile;
+            try{
+                archivedFile = orderArchive.read(orderDate);
+            } catch (IOException archiveException){
+                archivedFile = null;
+            }
+            if (archivedFile == null){
+                return new int[0];
+            }
+            scanner = new Scanner(new String(archivedFile, StandardCharsets.UTF_8));
+        }
+        
+        // Skip header
+        if (scanner.hasNextLine()){
+            scanner.nextLine();
+        }
+        
+        IntStream.Builder orderNumbers = IntStream.builder();
+        while (scanner.hasNextLine()){
+            String currentLine = scanner.nextLine();
+            if (!currentLine.isEmpty()){
+                orderNumbers.add(Integer.parseInt(currentLine.substring(0, currentLine.indexOf(FIELD_DELIMITER))));
+            }
+        }
+        scanner.close();
+        return orderNumbers.build().toArray();
+    }
+    
+    /**
+     * Adds every order in orderStore to the order number index
+     */
+    private void indexOrdersInMemory(){
+        for (Map.Entry<LocalDate, NavigableMap<Integer, Order>> entry : orderStore.entrySet()){
+            for (int orderNumber : entry.getValue().keySet()){
+                orderNumberIndex.put(orderNumber, entry.getKey());
+            }
+        }
+    }
+    
+    /**
+     * Records that an order on a date has changed since the date was last saved
+     * @param orderDate - LocalDate of order
+     * @param orderNumber - Integer of changed order number
+     */
+    private void markDirty(LocalDate orderDate, int orderNumber){
+        dirtyOrderNumbers.computeIfAbsent(orderDate, (date) -> ConcurrentHashMap.newKeySet()).add(orderNumber);
+    }
+    
+    /**
+     * Sets whether saveOrder appends changed orders to a journal instead of
+     * rewriting the date's file. The journal is folded into the order files
+     * in the background once it reaches journalCompactionBytes or its oldest
+     * entry reaches journalCompactionAgeSeconds. A journaled save writes
+     * only the journal; the order number sequence and index are brought up
+     * to date from it on load and saved when it is compacted.
+     * @param journalEnabled - True to journal saves, false to rewrite files
+     */
+    public void setJournalEnabled(boolean journalEnabled){
+        this.journalEnabled = journalEnabled;
+    }
+    
+    /**
+     * Sets the journal size that triggers a compaction
+     * @param journalCompactionBytes - long number of bytes
+     */
+    public void setJournalCompactionBytes(long journalCompactionBytes){
+        this.journalCompactionBytes = journalCompactionBytes;
+    }
+    
+    /**
+     * Sets how old the oldest journal entry may get before a compaction
+     * @param journalCompactionAgeSeconds - long number of seconds
+     */
+    public void setJournalCompactionAgeSeconds(long journalCompactionAgeSeconds){
+        this.journalCompactionAgeSeconds = journalCompactionAgeSeconds;
+    }
+    
+    /**
+     * Sets whether loadAllOrders only lists order files and defers reading 
+     * each file until its date is first used. Lazy loading reads each date
+     * on the thread that first uses it, so loadParallelism has no effect.
+     * @param lazyLoad - True to load dates on first use, false to load all
+     * orders up front
+     */
+    public void setLazyLoad(boolean lazyLoad){
+        this.lazyLoad = lazyLoad;
+    }
+    
+    /**
+     * Sets whether order files are kept in year and month folders, such as
+     * Orders/2021/09/Orders_09012021.txt, instead of all in the Orders folder.
+     * Files left in the Orders folder are moved into their folders by the 
+     * next loadAllOrders.
+     * @param shardedLayout - True to shard files by year and month
+     */
+    public void setShardedLayout(boolean shardedLayout){
+        this.shardedLayout = shardedLayout;
+    }
+    
+    /**
+     * Sets roughly how much memory the orders kept in memory may use. Once
+     * it is exceeded, the least recently used dates older than the resident
+     * window are saved if needed and dropped from memory.
+     * @param cacheBudgetBytes - long number of bytes, 0 to keep every date
+     * in memory
+     */
+    public void setCacheBudgetBytes(long cacheBudgetBytes){
+        this.cacheBudgetBytes = cacheBudgetBytes;
+    }
+    
+    /**
+     * Sets how many days before today the resident window starts. Dates in
+     * the window and every future date are never evicted.
+     * @param cacheResidentDays - Integer number of days
+     */
+    public void setCacheResidentDays(int cacheResidentDays){
+        this.cacheResidentDays = cacheResidentDays;
+    }
+    
+    /**
+     * Returns how many times a date's orders were found in memory
+     * @return - long number of cache hits
+     */
+    public long getCacheHits(){
+        return residentDates.getHits();
+    }
+    
+    /**
+     * Returns how many times a date's orders had to be read from its file
+     * @return - long number of cache misses
+     */
+    public long getCacheMisses(){
+        return residentDates.getMisses();
+    }
+    
+    /**
+     * Returns how many times a date was dropped from memory to stay within
+     * the cache budget
+     * @return - long number of evictions
+     */
+    public long getCacheEvictions(){
+        return residentDates.getEvictions();
+    }
+    
+    /**
+     * Sets how old a date must be before the background archiver moves its
+     * order file into the compressed archive. The archiver starts with the 
+     * next loadAllOrders.
+     * @param archiveAfterDays - Integer number of days before today, 0 to
+     * never archive
+     */
+    public void setArchiveAfterDays(int archiveAfterDays){
+        this.archiveAfterDays = archiveAfterDays;
+    }
+    
+    /**
+     * Sets whether dates are saved as fixed-width record files, such as 
+     * Orders_06012013.rec, instead of text files. Saving an edit or removal
+     * to a record file rewrites only the changed records. Dates are switched
+     * to the chosen format the next time they are fully written; both 
+     * formats can always be read.
+     * @param fixedWidthRecords - True to save record files
+     */
+    public void setFixedWidthRecords(boolean fixedWidthRecords){
+        this.fixedWidthRecords = fixedWidthRecords;
+    }
+    
+    /**
+     * Sets how far saves push order data to disk before returning. Applies
+     * to order files, the journal, and the files kept alongside them.
+     * @param durabilityMode - DurabilityMode, NO_SYNC by default
+     */
+    public void setDurabilityMode(DurabilityMode durabilityMode){
+        fileSyncer.setDurabilityMode(durabilityMode);
+    }
+    
+    /**
+     * Sets how long the first save in a group commit waits for other saves
+     * to join it before forcing their files to disk. With no window, only 
+     * saves that arrive while a force is running share the next one.
+     * @param groupCommitWindowMillis - long milliseconds, 0 by default
+     */
+    public void setGroupCommitWindowMillis(long groupCommitWindowMillis){
+        fileSyncer.setGroupCommitWindowMillis(groupCommitWindowMillis);
+    }
+    
+    /**
+     * Returns how many times order data has been forced to disk
+     * @return - long number of file and folder forces
+     */
+    public long getDiskForceCount(){
+        return fileSyncer.getForceCount();
+    }
+    
+    /**
+     * Sets the number of threads used to read order files in loadAllOrders.
+     * Only used when lazyLoad is off, since lazy loading reads no files up
+     * front.
+     * @param loadParallelism - Integer number of threads, 1 to load on the
+     * calling thread
+     */
+    public void setLoadParallelism(int loadParallelism){
+        this.loadParallelism = loadParallelism;
+    }
+    
+    /**
+     * Sets the number of dates saveAllOrders writes at the same time
+     * @param saveParallelism - Integer number of threads, 1 to save on the
+     * calling thread
+     */
+    public void setSaveParallelism(int saveParallelism){
+        this.saveParallelism = saveParallelism;
+    }
+    
+    /**
+     * Parses the order date out of an order filename such as Orders_06012013.txt
+     * or Orders_06012013.rec
+     * @param orderFileName - String of order filename
+     * @return - LocalDate of orders in that file
+     */
+    private LocalDate parseOrderDate(String orderFileName){
+        String datePart = orderFileName.split("_")[1];
+        return LocalDate.parse(datePart.substring(0, datePart.indexOf('.')), 
+                DateTimeFormatter.ofPattern("MMddyyyy"));
+    }
+    
+    /**
+     * Takes in an Order object and appends it as one line of text for file storage
+     * @param order - Order object
+     * @param out - StringBuilder to append line to
+     */
+    private void marshallOrder(Order order, StringBuilder out){
+        out.append(order.getOrderNumber()).append(FIELD_DELIMITER)
+                .append(order.getCustomerName()).append(FIELD_DELIMITER)
+                .append(order.getStateTax().getStateAbbreviation()).append(FIELD_DELIMITER)
+                .append(order.getStateTax().getTaxRate()).append(FIELD_DELIMITER)
+                .append(order.getProduct().getProductType()).append(FIELD_DELIMITER)
+                .append(order.getArea()).append(FIELD_DELIMITER)
+                .append(order.getProduct().getCostPerSquareFoot()).append(FIELD_DELIMITER)
+                .append(order.getProduct().getLaborCostPerSquareFoot()).append(FIELD_DELIMITER)
+                .append(order.getMaterialCost()).append(FIELD_DELIMITER)
+                .append(order.getLaborCost()).append(FIELD_DELIMITER)
+                .append(order.getTax()).append(FIELD_DELIMITER)
+                .append(order.getTotal());
+    }
+    
+    /**
+     * Takes in an order date and generates an order filepath with .txt extension.
+     * In the sharded layout the file sits in its year and month folders.
+     * @param orderDate - LocalDate representing order date
+     * @return - String of order filepath
+     */
+    private String generateFilePath(LocalDate orderDate){
+        if (shardedLayout){
+            return ORDER_FOLDER_PATH + generateShardPath(orderDate) + generateFileName(orderDate);
+        }
+        return ORDER_FOLDER_PATH + generateFileName(orderDate);
+    }
+    
+    /**
+     * Takes in an order date and generates the path of its record file, next
+     * to where its text file would be
+     * @param orderDate - LocalDate representing order date
+     * @return - Path of record file
+     */
+    private Path generateRecordFilePath(LocalDate orderDate){
+        String textFilePath = generateFilePath(orderDate);
+        return Paths.get(textFilePath.substring(0, textFilePath.length() - ".txt".length()) 
+                + OrderRecordFile.FILE_EXTENSION);
+    }
+    
+    /**
+     * Returns the file a date's orders are stored in. If a date has both a 
+     * record file and a text file, which only happens when a save switching
+     * formats was cut short, the newer file is the one that was saved last.
+     * @param orderDate - LocalDate representing order date
+     * @return - Path of order file, or null if the date has neither
+     * @throws IOException 
+     */
+    private Path findOrderFile(LocalDate orderDate) throws IOException{
+        Path textFile = Paths.get(generateFilePath(orderDate));
+        Path recordFile = generateRecordFilePath(orderDate);
+        if (!Files.exists(recordFile)){
+            return Files.exists(textFile) ? textFile : null;
+        }
+        return Files.exists(textFile) ? newerOrderFile(textFile, recordFile) : recordFile;
+    }
+    
+    /**
+     * Picks the more recently modified of two order files for the same date,
+     * preferring the record file on a tie
+     */
+    private Path newerOrderFile(Path firstFile, Path secondFile) throws IOException{
+        int comparison = Files.getLastModifiedTime(firstFile).compareTo(Files.getLastModifiedTime(secondFile));
+        if (comparison == 0){
+            return isRecordFile(firstFile) ? firstFile : secondFile;
+        }
+        return comparison > 0 ? firstFile : secondFile;
+    }
+    
+    private boolean isRecordFile(Path orderFile){
+        return orderFile.getFileName().toString().endsWith(OrderRecordFile.FILE_EXTENSION);
+    }
+    
+    /**
+     * Returns the record file for a date, keeping its index in memory between
+     * uses. Damaged records it skips are counted for the load report.
+     * @param orderDate - LocalDate representing order date
+     * @return - OrderRecordFile for the date, whether or not it exists
+     */
+    private OrderRecordFile recordFileFor(LocalDate orderDate){
+        return recordFiles.computeIfAbsent(orderDate, 
+                (date) -> new OrderRecordFile(generateRecordFilePath(date), 
+                        (orderNumber) -> damagedRecordCount.incrementAndGet()));
+    }
+    
+    /**
+     * Reads every order in a text or record order file
+     * @param orderFile - Path of order file
+     * @param orderDate - LocalDate of orders in file
+     * @return - Map from order number to Order object
+     * @throws IOException 
+     */
+    private NavigableMap<Integer, Order> decodeOrderFile(Path orderFile, LocalDate orderDate) throws IOException{
+        if (isRecordFile(orderFile)){
+            return recordFileFor(orderDate).readAll(orderDate);
+        }
+        return new OrderFileDecoder().decode(orderFile, orderDate);
+    }
+    
+    /**
+     * Describes a text or record order file for the manifest
+     * @param orderDate - LocalDate of orders in file
+     * @param orderFile - Path of order file
+     * @return - Manifest entry for the file
+     * @throws IOException 
+     */
+    private OrderManifest.Entry describeOrderFile(LocalDate orderDate, Path orderFile) throws IOException{
+        if (isRecordFile(orderFile)){
+            OrderRecordFile recordFile = recordFileFor(orderDate);
+            return OrderManifest.describe(orderFile, Files.readAllBytes(orderFile), 
+                    recordFile.getLiveCount(), recordFile.getMaxOrderNumber());
+        }
+        return OrderManifest.describe(orderFile);
+    }
+    
+    /**
+     * Takes in an order date and generates the year and month folders its
+     * file is sharded into, such as 2021/09/
+     * @param orderDate - LocalDate representing order date
+     * @return - String of folder path relative to the Orders folder
+     */
+    private String generateShardPath(LocalDate orderDate){
+        return orderDate.format(DateTimeFormatter.ofPattern("yyyy")) + "/" 
+                + orderDate.format(DateTimeFormatter.ofPattern("MM")) + "/";
+    }
+    
+    /**
+     * Takes in an order date and generates an order filename with .txt extension.
+     * @param orderDate - LocalDate representing order date
+     * @return - String of order filename
+     */
+    private String generateFileName(LocalDate orderDate){
+        String fileName = "Orders_";
+        fileName += orderDate.format(DateTimeFormatter.ofPattern("MMddyyyy"));
+        fileName += ".txt";
+        return fileName;
+    }
+
+    /**
+     * Takes in an order date and persists in-memory order data for that date.
+     * With the journal on, only the orders changed since the last save are
+     * appended to the journal. Otherwise the date's file is overwritten, or
+     * with fixed-width records on, only the changed records are rewritten if
+     * no orders were added. The order number sequence and index are written
+     * before the orders, so the sequence is always past every saved order 
+     * number and the index always holds it; numbers removed from this date 
+     * are dropped from the index afterwards and written out on the next save.
+     * @param orderDate - LocalDate of orders to save.
+     * @throws OrderPersistenceException 
+     */
+    @Override
+    public void saveOrder(LocalDate orderDate) throws OrderPersistenceException {
+        ReentrantLock lock = dateLocks.lockFor(orderDate);
+        lock.lock();
+        try{
+            if (fixedWidthRecords && !journalEnabled && saveRecordsInPlace(orderDate)){
+                return;
+            }
+            
+            // Merge in orders from file that haven't been loaded yet
+            ensureOrdersLoaded(orderDate);
+            
+            NavigableMap<Integer, Order> ordersOnDateMap = orderStore.get(orderDate);
+            if (!journalEnabled){
+                ensureManifestLoaded();
+            }
+            try{
+                rebuildOrderNumberIndexIfNeeded();
+                if (journalEnabled){
+                    appendToJournal(orderDate, ordersOnDateMap);
+                }
+                else{
+                    orderNumberSequence.save();
+                    orderNumberIndex.save();
+                    orderManifest.markPending(orderDate);
+                    orderManifest.save();
+                    writeOrderFile(orderDate, ordersOnDateMap);
+                    orderManifest.save();
+                }
+            } catch (IOException e){
+                throw new OrderPersistenceException(
+                        "Could not save order data.", e);
+            }
+            markSaved(orderDate, ordersOnDateMap);
+        } finally{
+            lock.unlock();
+        }
+    }
+    
+    /**
+     * Marks a date clean once its changes are saved, dropping the numbers of
+     * orders removed from it from the order number index
+     * @param orderDate - LocalDate of saved orders
+     * @param ordersOnDate - Map from order number to Order object, may be null
+     */
+    private void markSaved(LocalDate orderDate, NavigableMap<Integer, Order> ordersOnDate){
+        Set<Integer> changedOrderNumbers = dirtyOrderNumbers.remove(orderDate);
+        if (changedOrderNumbers != null){
+            for (int orderNumber : changedOrderNumbers){
+                if (ordersOnDate == null || !ordersOnDate.containsKey(orderNumber)){
+                    orderNumberIndex.remove(orderNumber);
+                }
+            }
+        }
+        saveDroppedIndexEntries();
+    }
+    
+    /**
+     * Appends the order numbers just dropped from the order number index to
+     * its log, so a crash doesn't leave them pointing at a date that no 
+     * longer has the order. The orders are already saved, so a failure here
+     * isn't reported: the entries are written with the next save, and a 
+     * lookup that finds the order missing drops its entry meanwhile. With
+     * the journal on, the removals are in the journal, and the index is 
+     * saved when the journal is compacted.
+     */
+    private void saveDroppedIndexEntries(){
+        if (journalEnabled){
+            return;
+        }
+        try{
+            orderNumberIndex.save();
+        } catch (IOException e){
+            // Written with the next save
+        }
+    }
+    
+    /**
+     * Overwrites the file for a date with the given orders. The whole file is 
+     * built in memory, written to a temp file in one pass, and then moved over
+     * the old file. With fixed-width records on, a record file is written
+     * unless an order doesn't fit in a record, and the file in the other 
+     * format is deleted once the new one is in place. The files, and any 
+     * archived copy, are deleted if there are no orders; otherwise the new
+     * file is read in place of any archived copy until the date is archived
+     * again. The date's manifest entry is updated in memory; callers mark the
+     * date pending and save the manifest around the write.
+     * @param orderDate - LocalDate of orders
+     * @param orders - Map from order number to Order object on that date,
+     * may be null
+     * @throws IOException 
+     */
+    private void writeOrderFile(LocalDate orderDate, NavigableMap<Integer, Order> orders) throws IOException{
+        
+        // Delete file if no orders
+        if (orders == null || orders.isEmpty()){
+            Files.deleteIfExists(Paths.get(generateFilePath(orderDate)));
+            Files.deleteIfExists(generateRecordFilePath(orderDate));
+            recordFiles.remove(orderDate);
+            orderArchive.remove(orderDate);
+            orderManifest.remove(orderDate);
+            return;
+        }
+        
+        // Build file contents and pick which format is replaced
+        byte[] fileBytes;
+        Path orderFile;
+        Path otherFormatFile;
+        if (usesRecordFile(orders)){
+            fileBytes = OrderRecordFile.encode(orders);
+            orderFile = generateRecordFilePath(orderDate);
+            otherFormatFile = Paths.get(generateFilePath(orderDate));
+        }
+        else{
+            fileBytes = buildOrderFileText(orders);
+            orderFile = Paths.get(generateFilePath(orderDate));
+            otherFormatFile = generateRecordFilePath(orderDate);
+        }
+        
+        // Overwrite file
+        Files.createDirectories(orderFile.getParent());
+        fileWriter.write(orderFile, ByteBuffer.wrap(fileBytes));
+        Files.deleteIfExists(otherFormatFile);
+        recordFiles.remove(orderDate);
+        snapshotSections.remove(orderDate);
+        orderManifest.put(orderDate, OrderManifest.describe(orderFile, fileBytes, orders.size(), orders.lastKey()));
+    }
+    
+    /**
+     * Returns whether orders are saved as a record file rather than a text 
+     * file: fixed-width records are on and every order fits in a record
+     */
+    private boolean usesRecordFile(NavigableMap<Integer, Order> orders){
+        return fixedWidthRecords && orders.values().stream().allMatch(OrderRecordFile::fits);
+    }
+    
+    /**
+     * Builds the contents of a text order file, one order per line after
+     * the header
+     * @param orders - Map from order number to Order object
+     * @return - Bytes of order file
+     */
+    private byte[] buildOrderFileText(NavigableMap<Integer, Order> orders){
+        StringBuilder fileContents = new StringBuilder(
+                ORDER_FILE_HEADER.length() + orders.size() * ESTIMATED_LINE_LENGTH);
+        fileContents.append(ORDER_FILE_HEADER).append(LINE_SEPARATOR);
+        for (Order order : orders.values()){
+            marshallOrder(order, fileContents);
+            fileContents.append(LINE_SEPARATOR);
+        }
+        return fileContents.toString().getBytes(StandardCharsets.UTF_8);
+    }
+    
+    /**
+     * Saves a date stored as a record file by rewriting only its changed
+     * records: edited orders are overwritten and removed orders flagged. The
+     * date's other orders don't need to be in memory. Does nothing if the 
+     * date has no record file or an order was added, since those need the 
+     * whole file written.
+     * @param orderDate - LocalDate of orders to save
+     * @return - True if the date was saved, false if it needs a full write
+     * @throws OrderPersistenceException 
+     */
+    private boolean saveRecordsInPlace(LocalDate orderDate) throws OrderPersistenceException{
+        Set<Integer> changedOrderNumbers = dirtyOrderNumbers.get(orderDate);
+        if (changedOrderNumbers == null){
+            return false;
+        }
+        try{
+            Path orderFile = findOrderFile(orderDate);
+            if (orderFile == null || !isRecordFile(orderFile)){
+                return false;
+            }
+            OrderRecordFile recordFile = recordFileFor(orderDate);
+            boolean dateLoaded = !unloadedOrderDates.contains(orderDate) 
+                    && !unreplayedJournalEntries.containsKey(orderDate);
+            NavigableMap<Integer, Order> ordersOnDate = orderStore.get(orderDate);
+            for (int orderNumber : changedOrderNumbers){
+                Order order = ordersOnDate == null ? null : ordersOnDate.get(orderNumber);
+                if (order != null && (!recordFile.hasRecord(orderNumber) || !OrderRecordFile.fits(order))){
+                    return false;
+                }
+                if (order == null && !dateLoaded){
+                    return false;
+                }
+            }
+            
+            List<Integer> removedOrderNumbers = new ArrayList<>();
+            ensureManifestLoaded();
+            rebuildOrderNumberIndexIfNeeded();
+            orderNumberSequence.save();
+            orderNumberIndex.save();
+            orderManifest.markPending(orderDate);
+            orderManifest.save();
+            for (int orderNumber : changedOrderNumbers){
+                Order order = ordersOnDate == null ? null : ordersOnDate.get(orderNumber);
+                if (order == null){
+                    recordFile.markRemoved(orderNumber);
+                    removedOrderNumbers.add(orderNumber);
+                }
+                else{
+                    recordFile.update(order);
+                }
+            }
+            fileSyncer.sync(orderFile);
+            for (int orderNumber : removedOrderNumbers){
+                orderNumberIndex.remove(orderNumber);
+            }
+            saveDroppedIndexEntries();
+            snapshotSections.remove(orderDate);
+            if (recordFile.getLiveCount() == 0){
+                writeOrderFile(orderDate, null);
+            }
+            else{
+                orderManifest.put(orderDate, describeOrderFile(orderDate, orderFile));
+            }
+            orderManifest.save();
+            dirtyOrderNumbers.remove(orderDate);
+        } catch (IOException e){
+            throw new OrderPersistenceException(
+                    "Could not save order data.", e);
+        }
+        return true;
+    }
+    
+    /**
+     * Reads one order from a date's record file without reading the rest of
+     * the date, if the date hasn't been read yet and nothing about it is 
+     * waiting in memory or the journal
+     * @param orderNumber - Integer of order number
+     * @param orderDate - LocalDate of order
+     * @return - Order object, or null if it must be found the usual way
+     */
+    private Order readUnloadedRecord(int orderNumber, LocalDate orderDate){
+        if (!unloadedOrderDates.contains(orderDate) || unreplayedJournalEntries.containsKey(orderDate)
+                || orderStore.containsKey(orderDate)){
+            return null;
+        }
+        try{
+            Path orderFile = findOrderFile(orderDate);
+            if (orderFile == null || !isRecordFile(orderFile)){
+                return null;
+            }
+            Order order = recordFileFor(orderDate).read(orderNumber, orderDate);
+            if (order != null){
+                residentDates.recordMiss();
+            }
+            return order;
+        } catch (IOException e){
+            return null;
+        }
+    }
+    
+    /**
+     * Appends one journal line per order changed on a date since it was last
+     * saved: the full order if it still exists, or its number if it was removed.
+     * Starts a compaction in the background once the journal is large enough.
+     * @param orderDate - LocalDate of orders
+     * @param ordersOnDate - Map from order number to Order object, may be null
+     * @throws IOException 
+     */
+    private void appendToJournal(LocalDate orderDate, NavigableMap<Integer, Order> ordersOnDate) throws IOException{
+        StringBuilder journalLines = new StringBuilder();
+        List<OrderJournal.Entry> journalEntries = new ArrayList<>();
+        writeJournalLines(orderDate, ordersOnDate, journalLines, journalEntries);
+        appendToJournal(journalLines, journalEntries);
+    }
+    
+    /**
+     * Appends complete journal lines, starting a compaction in the background
+     * once the journal is large enough
+     * @param journalLines - Newline-terminated journal lines
+     * @param journalEntries - List of the entries the lines hold
+     * @throws IOException 
+     */
+    private void appendToJournal(CharSequence journalLines, List<OrderJournal.Entry> journalEntries) throws IOException{
+        journal.append(journalLines);
+        rememberJournalEntries(journalEntries);
+        if (journal.size() >= journalCompactionBytes && journalCompactor != null){
+            journalCompactor.execute(this::compactJournalIfNeeded);
+        }
+    }
+    
+    /**
+     * Adds entries that are in the journal to journaledEntries, so an evicted
+     * date's entries can be replayed without reading the journal. An entry
+     * added after a compaction already folded it into its file only replays
+     * what the file holds, and is dropped by the next compaction.
+     * @param journalEntries - List of entries in the order they were appended
+     */
+    private void rememberJournalEntries(List<OrderJournal.Entry> journalEntries){
+        for (OrderJournal.Entry journalEntry : journalEntries){
+            List<OrderJournal.Entry> entriesOnDate = journaledEntries.computeIfAbsent(
+                    journalEntry.getOrderDate(), (date) -> Collections.synchronizedList(new ArrayList<>()));
+            entriesOnDate.add(journalEntry);
+        }
+    }
+    
+    /**
+     * Writes one journal line per order changed on a date since it was last
+     * saved to a buffer of pending journal lines
+     * @param orderDate - LocalDate of orders
+     * @param ordersOnDate - Map from order number to Order object, may be null
+     * @param journalLines - StringBuilder collecting lines to append
+     * @param journalEntries - List collecting the entries the lines hold
+     * @return - Integer number of lines written
+     */
+    private int writeJournalLines(LocalDate orderDate, NavigableMap<Integer, Order> ordersOnDate,
+            StringBuilder journalLines, List<OrderJournal.Entry> journalEntries){
+        Set<Integer> changedOrderNumbers = dirtyOrderNumbers.get(orderDate);
+        if (changedOrderNumbers == null){
+            return 0;
+        }
+        StringBuilder orderAsText = new StringBuilder(ESTIMATED_LINE_LENGTH);
+        for (int orderNumber : changedOrderNumbers){
+            Order order = ordersOnDate == null ? null : ordersOnDate.get(orderNumber);
+            if (order == null){
+                journal.writeDelete(orderDate, orderNumber, journalLines);
+            }
+            else{
+                orderAsText.setLength(0);
+                marshallOrder(order, orderAsText);
+                journal.writePut(orderDate, orderAsText, journalLines);
+            }
+            journalEntries.add(new OrderJournal.Entry(orderDate, orderNumber, order));
+        }
+        return changedOrderNumbers.size();
+    }
+    
+    /**
+     * Folds every journal entry into the order files, saves the order number
+     * sequence and index, and empties the journal. Works from the files and
+     * the journal only, never from orderStore, so it is safe to run on the 
+     * background compactor while orders are edited.
+     * @throws OrderPersistenceException 
+     */
+    public void compactJournal() throws OrderPersistenceException{
+        ensureManifestLoaded();
+        synchronized (journal){
+            try{
+                Map<LocalDate, NavigableMap<Integer, Order>> compactedOrders = new HashMap<>();
+                for (OrderJournal.Entry journalEntry : journal.readEntries()){
+                    LocalDate orderDate = journalEntry.getOrderDate();
+                    NavigableMap<Integer, Order> ordersOnDate = compactedOrders.get(orderDate);
+                    if (ordersOnDate == null){
+                        ordersOnDate = orderManifest.get(orderDate) != null
+                                ? loadOrder(orderDate)
+                                : new TreeMap<>();
+                        compactedOrders.put(orderDate, ordersOnDate);
+                    }
+                    journalEntry.applyTo(ordersOnDate);
+                    applyToOrderNumbers(journalEntry);
+                }
+                for (LocalDate orderDate : compactedOrders.keySet()){
+                    orderManifest.markPending(orderDate);
+                }
+                orderManifest.save();
+                for (Map.Entry<LocalDate, NavigableMap<Integer, Order>> entry : compactedOrders.entrySet()){
+                    writeOrderFile(entry.getKey(), entry.getValue());
+                }
+                orderManifest.save();
+                
+                // Saves only append journal lines, so the order numbers they
+                // carry are saved before the journal is emptied
+                orderNumberSequence.save();
+                orderNumberIndex.save();
+                journal.clear();
+                journaledEntries.clear();
+            } catch (IOException e){
+                throw new OrderPersistenceException(
+                        "Could not compact order journal.", e);
+            }
+        }
+    }
+    
+    /**
+     * Brings the order number sequence and index up to date with a journal
+     * entry, which is the only record of its order number until the journal
+     * is compacted
+     * @param journalEntry - OrderJournal.Entry to apply
+     */
+    private void applyToOrderNumbers(OrderJournal.Entry journalEntry){
+        orderNumberSequence.observe(journalEntry.getOrderNumber());
+        if (journalEntry.isRemoval()){
+            orderNumberIndex.remove(journalEntry.getOrderNumber());
+        }
+        else{
+            orderNumberIndex.put(journalEntry.getOrderNumber(), journalEntry.getOrderDate());
+        }
+    }
+    
+    /**
+     * Compacts the journal if it has reached the configured size or age. Runs
+     * on the background compactor; a failed compaction leaves the journal in 
+     * place to be retried on the next check.
+     */
+    private void compactJournalIfNeeded(){
+        try{
+            if (journal.size() >= journalCompactionBytes ||
+                    journal.oldestEntryAgeMillis() >= journalCompactionAgeSeconds * 1000){
+                compactJournal();
+            }
+        } catch (IOException | OrderPersistenceException e){
+            // Journal is still intact, try again on the next check
+        }
+    }
+    
+    /**
+     * Starts the daemon thread that checks the journal's size and age
+     */
+    private synchronized void startJournalCompactor(){
+        if (journalCompactor != null){
+            return;
+        }
+        journalCompactor = Executors.newSingleThreadScheduledExecutor((runnable) -> {
+            Thread thread = new Thread(runnable, "order-journal-compactor");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long checkIntervalSeconds = Math.max(1, journalCompactionAgeSeconds / 4);
+        journalCompactor.scheduleWithFixedDelay(this::compactJournalIfNeeded, 
+                checkIntervalSeconds, checkIntervalSeconds, TimeUnit.SECONDS);
+    }
+
+    /**
+     * Moves the order files of every date before a cutoff into their months'
+     * archives and deletes the files. Each month is done while holding its 
+     * dates' locks, and with the journal compactor held off so it can't 
+     * rewrite a file that is being archived. A crash before the files are 
+     * deleted leaves both copies, and the file is read in place of the archive.
+     * @param cutoffDate - LocalDate of first date that isn't archived
+     * @return - Integer number of dates archived
+     * @throws OrderPersistenceException 
+     */
+    public int archiveOrdersBefore(LocalDate cutoffDate) throws OrderPersistenceException{
+        ensureManifestLoaded();
+        Map<YearMonth, List<LocalDate>> datesByMonth = new TreeMap<>();
+        for (Map.Entry<LocalDate, OrderManifest.Entry> entry : orderManifest.entries().headMap(cutoffDate, false).entrySet()){
+            if (entry.getValue().getRowCount() > 0){
+                datesByMonth.computeIfAbsent(YearMonth.from(entry.getKey()), 
+                        (month) -> new ArrayList<>()).add(entry.getKey());
+            }
+        }
+        
+        int archivedDateCount = 0;
+        for (List<LocalDate> orderDates : datesByMonth.values()){
+            List<ReentrantLock> locks = dateLocks.lockDates(orderDates);
+            try{
+                synchronized (journal){
+                    Map<LocalDate, byte[]> orderFiles = new TreeMap<>();
+                    for (LocalDate orderDate : orderDates){
+                        Path orderFile = findOrderFile(orderDate);
+                        if (orderFile != null && isRecordFile(orderFile)){
+                            orderFiles.put(orderDate, buildOrderFileText(recordFileFor(orderDate).readAll(orderDate)));
+                        }
+                        else if (orderFile != null){
+                            orderFiles.put(orderDate, Files.readAllBytes(orderFile));
+                        }
+                    }
+                    if (orderFiles.isEmpty()){
+                        continue;
+                    }
+                    orderArchive.put(orderFiles);
+                    for (LocalDate orderDate : orderFiles.keySet()){
+                        Files.deleteIfExists(Paths.get(generateFilePath(orderDate)));
+                        Files.deleteIfExists(generateRecordFilePath(orderDate));
+                        recordFiles.remove(orderDate);
+                    }
+                    archivedDateCount += orderFiles.size();
+                }
+            } catch (IOException e){
+                throw new OrderPersistenceException(
+                        "Could not archive order data.", e);
+            } finally{
+                dateLocks.unlock(locks);
+            }
+        }
+        return archivedDateCount;
+    }
+    
+    /**
+     * Archives every date older than archiveAfterDays. Runs on the background
+     * archiver; a failed run leaves the remaining files in place to be 
+     * archived on the next run.
+     */
+    private void archiveAgingOrders(){
+        try{
+            archiveOrdersBefore(LocalDate.now().minusDays(archiveAfterDays));
+        } catch (OrderPersistenceException e){
+            // Files that weren't archived are still readable, try again on the next run
+        }
+    }
+    
+    /**
+     * Starts the daemon thread that archives aging dates
+     */
+    private synchronized void startOrderArchiver(){
+        if (orderArchiver != null){
+            return;
+        }
+        orderArchiver = Executors.newSingleThreadScheduledExecutor((runnable) -> {
+            Thread thread = new Thread(runnable, "order-archiver");
+            thread.setDaemon(true);
+            return thread;
+        });
+        orderArchiver.scheduleWithFixedDelay(this::archiveAgingOrders, 
+                0, ARCHIVE_CHECK_INTERVAL_HOURS, TimeUnit.HOURS);
+    }
+
+    /**
+     * Writes a binary snapshot of every saved date so the next loadAllOrders
+     * can skip parsing their order files. Dates in memory are written from
+     * memory; dates with unsaved changes are left out and will be read from
+     * their files. Dates that aren't in memory keep their section from the 
+     * previous snapshot as long as their file hasn't changed since, so 
+     * nothing is read from the order files.
+     * @throws OrderPersistenceException 
+     */
+    @Override
+    public void saveSnapshot() throws OrderPersistenceException{
+        Map<LocalDate, OrderSnapshot.Section> previousSnapshot;
+        try{
+            previousSnapshot = orderSnapshot.read();
+        } catch (IOException e){
+            // Damaged snapshot, write dates in memory only
+            previousSnapshot = new HashMap<>();
+        }
+        dateLocks.lockAll();
+        try{
+            Map<LocalDate, NavigableMap<Integer, Order>> savedOrders = new TreeMap<>();
+            Map<LocalDate, Path> orderFiles = new HashMap<>();
+            for (Map.Entry<LocalDate, NavigableMap<Integer, Order>> entry : orderStore.entrySet()){
+                if (!dirtyOrderNumbers.containsKey(entry.getKey())){
+                    savedOrders.put(entry.getKey(), entry.getValue());
+                    Path orderFile = findOrderFile(entry.getKey());
+                    if (orderFile != null){
+                        orderFiles.put(entry.getKey(), orderFile);
+                    }
+                }
+            }
+            
+            // Keep the compactor from rewriting files while their mtimes are recorded
+            synchronized (journal){
+                List<OrderSnapshot.Section> keptSections = new ArrayList<>();
+                for (OrderSnapshot.Section snapshotSection : previousSnapshot.values()){
+                    LocalDate orderDate = snapshotSection.getOrderDate();
+                    if (orderStore.containsKey(orderDate) || unreplayedJournalEntries.containsKey(orderDate)){
+                        continue;
+                    }
+                    Path orderFile = findOrderFile(orderDate);
+                    if (orderFile != null && snapshotSection.matches(orderFile)){
+                        keptSections.add(snapshotSection);
+                    }
+                }
+                orderSnapshot.write(savedOrders, orderFiles, keptSections);
+            }
+        } catch (IOException e){
+            throw new OrderPersistenceException(
+                    "Could not save order snapshot.", e);
+        } finally{
+            dateLocks.unlockAll();
+        }
+    }
+
+    /**
+     * Writes every order to one comma-separated file in the DataExport 
+     * layout, with the order date as the last column, sorted by date and 
+     * then by order number. Orders are streamed one date at a time through
+     * a large buffered writer: dates that haven't been read yet are read 
+     * straight from their order files without being kept in memory, so only
+     * one date's orders are held at a time. Unsaved changes are included. 
+     * The file is written next to exportFilePath and moved over it once 
+     * complete.
+     * @param exportFilePath - String path of file to write
+     * @return - long number of orders written
+     * @throws OrderPersistenceException if an order file can't be read or 
+     * the export can't be written
+     */
+    @Override
+    public long exportOrders(String exportFilePath) throws OrderPersistenceException{
+        NavigableSet<LocalDate> orderDates = new TreeSet<>(orderStore.keySet());
+        orderDates.addAll(unloadedOrderDates);
+        orderDates.addAll(unreplayedJournalEntries.keySet());
+        Path exportFile = Paths.get(exportFilePath);
+        Path tempFile = exportFile.resolveSibling(exportFile.getFileName() + ".tmp");
+        long rowCount = 0;
+        try{
+            try (Writer out = new BufferedWriter(new OutputStreamWriter(
+                    Files.newOutputStream(tempFile), StandardCharsets.UTF_8), EXPORT_BUFFER_SIZE)){
+                out.write(EXPORT_FILE_HEADER);
+                out.write(LINE_SEPARATOR);
+                StringBuilder line = new StringBuilder(ESTIMATED_LINE_LENGTH);
+                for (LocalDate orderDate : orderDates){
+                    String exportDate = orderDate.format(EXPORT_DATE_FORMAT);
+                    for (Order order : readOrdersForExport(orderDate).values()){
+                        line.setLength(0);
+                        marshallExportRow(order, exportDate, line);
+                        out.append(line).append(LINE_SEPARATOR);
+                        rowCount++;
+                    }
+                }
+            }
+            fileSyncer.sync(tempFile);
+            fileWriter.replace(tempFile, exportFile);
+        } catch (IOException e){
+            try{
+                Files.deleteIfExists(tempFile);
+            } catch (IOException deleteFailure){
+                e.addSuppressed(deleteFailure);
+            }
+            throw new OrderPersistenceException("Could not export orders to " + exportFilePath + ".", e);
+        }
+        return rowCount;
+    }
+    
+    /**
+     * Returns one date's orders as ensureOrdersLoaded would see them, 
+     * without adding a date that hasn't been read yet to memory
+     * @param orderDate - LocalDate of orders
+     * @return - Map from order number to Order object, empty if none
+     * @throws OrderPersistenceException 
+     */
+    private NavigableMap<Integer, Order> readOrdersForExport(LocalDate orderDate) throws OrderPersistenceException{
+        ReentrantLock lock = dateLocks.lockFor(orderDate);
+        lock.lock();
+        try{
+            NavigableMap<Integer, Order> residentOrders = orderStore.get(orderDate);
+            boolean hasOrderFile = unloadedOrderDates.contains(orderDate);
+            List<OrderJournal.Entry> journalEntries = unreplayedJournalEntries.get(orderDate);
+            if (!hasOrderFile && journalEntries == null){
+                return residentOrders == null ? new TreeMap<>() : new TreeMap<>(residentOrders);
+            }
+            NavigableMap<Integer, Order> ordersOnDate = hasOrderFile 
+                    ? readOrderFile(orderDate, snapshotSections.get(orderDate)) : new TreeMap<>();
+            if (journalEntries != null){
+                journalEntries.forEach((journalEntry) -> journalEntry.applyTo(ordersOnDate));
+            }
+            if (residentOrders != null){
+                ordersOnDate.putAll(residentOrders);
+            }
+            return ordersOnDate;
+        } finally{
+            lock.unlock();
+        }
+    }
+    
+    /**
+     * Appends an order as one comma-separated line of an export file. The 
+     * customer name is quoted if it holds a comma or quote.
+     * @param order - Order object
+     * @param exportDate - String of order date formatted for export
+     * @param out - StringBuilder to append line to
+     */
+    private void marshallExportRow(Order order, String exportDate, StringBuilder out){
+        String customerName = order.getCustomerName();
+        if (customerName.contains(EXPORT_DELIMITER) || customerName.contains("\"")){
+            customerName = "\"" + customerName.replace("\"", "\"\"") + "\"";
+        }
+        out.append(order.getOrderNumber()).append(EXPORT_DELIMITER)
+                .append(customerName).append(EXPORT_DELIMITER)
+                .append(order.getStateTax().getStateAbbreviation()).append(EXPORT_DELIMITER)
+                .append(order.getStateTax().getTaxRate()).append(EXPORT_DELIMITER)
+                .append(order.getProduct().getProductType()).append(EXPORT_DELIMITER)
+                .append(order.getArea()).append(EXPORT_DELIMITER)
+                .append(order.getProduct().getCostPerSquareFoot()).append(EXPORT_DELIMITER)
+                .append(order.getProduct().getLaborCostPerSquareFoot()).append(EXPORT_DELIMITER)
+                .append(order.getMaterialCost()).append(EXPORT_DELIMITER)
+                .append(order.getLaborCost()).append(EXPORT_DELIMITER)
+                .append(order.getTax()).append(EXPORT_DELIMITER)
+                .append(order.getTotal()).append(EXPORT_DELIMITER)
+                .append(exportDate);
+    }
+
+    /**
+     * Saves every date that has been added to, edited, or removed from since
+     * it was last loaded or saved, as one commit: after a crash, the next 
+     * load sees either every date saved or none of them. With the journal
+     * on, every change is appended as one journal transaction. Otherwise 
+     * each date's new file is staged next to its order file, up to 
+     * saveParallelism dates at the same time, and the commit log publishes
+     * them together (see OrderCommitLog). If any date can't be staged, no 
+     * date is saved and one exception is thrown naming each date that 
+     * failed, with each failure attached as a suppressed exception.
+     * @throws NoOrdersOnDateException
+     * @throws OrderPersistenceException if the orders could not be saved
+     */
+    @Override
+    public void saveAllOrders() throws NoOrdersOnDateException, OrderPersistenceException {
+        saveOrders(dirtyOrderNumbers.keySet());
+    }
+    
+    /**
+     * Saves the given dates as one commit, the same way as saveAllOrders. 
+     * Dates with no unsaved changes are skipped, and unsaved changes to 
+     * other dates are left unsaved.
+     * @param datesToSave - Collection of LocalDates to save
+     * @throws NoOrdersOnDateException
+     * @throws OrderPersistenceException if the orders could not be saved
+     */
+    @Override
+    public void saveOrders(Collection<LocalDate> datesToSave) throws NoOrdersOnDateException, OrderPersistenceException {
+        List<LocalDate> orderDates = new ArrayList<>(datesToSave.stream()
+                .filter(dirtyOrderNumbers::containsKey)
+                .collect(Collectors.toCollection(TreeSet::new)));
+        if (orderDates.isEmpty()){
+            return;
+        }
+        if (orderDates.size() == 1){
+            // One date is already saved all at once, and may be updated in place
+            try{
+                saveOrder(orderDates.get(0));
+            } catch (OrderPersistenceException e){
+                throw new OrderPersistenceException(Collections.singletonMap(orderDates.get(0), e));
+            }
+            return;
+        }
+        ensureManifestLoaded();
+        List<ReentrantLock> locks = dateLocks.lockDates(orderDates);
+        try{
+            // Dates saved by another thread before the locks were taken are already clean
+            orderDates.removeIf((orderDate) -> !dirtyOrderNumbers.containsKey(orderDate));
+            Map<LocalDate, Exception> failures = new TreeMap<>();
+            for (LocalDate orderDate : orderDates){
+                try{
+                    ensureOrdersLoaded(orderDate);
+                } catch (OrderPersistenceException e){
+                    failures.put(orderDate, e);
+                }
+            }
+            if (!failures.isEmpty()){
+                throw new OrderPersistenceException(failures);
+            }
+            rebuildOrderNumberIndexIfNeeded();
+            if (journalEnabled){
+                commitToJournal(orderDates);
+            }
+            else{
+                commitToOrderFiles(orderDates);
+            }
+            for (LocalDate orderDate : orderDates){
+                markSaved(orderDate, orderStore.get(orderDate));
+            }
+        } finally{
+            dateLocks.unlock(locks);
+        }
+    }
+    
+    /**
+     * Appends the changes to every date as one journal transaction, so a 
+     * crash partway through the append leaves none of them in the journal
+     * @param orderDates - List of dates to save, locked by the caller
+     * @throws OrderPersistenceException 
+     */
+    private void commitToJournal(List<LocalDate> orderDates) throws OrderPersistenceException{
+        StringBuilder journalLines = new StringBuilder();
+        List<OrderJournal.Entry> journalEntries = new ArrayList<>();
+        int lineCount = 0;
+        for (LocalDate orderDate : orderDates){
+            lineCount += writeJournalLines(orderDate, orderStore.get(orderDate), journalLines, journalEntries);
+        }
+        StringBuilder transaction = new StringBuilder(journalLines.length() + 16);
+        journal.writeTransaction(lineCount, transaction);
+        transaction.append(journalLines);
+        try{
+            appendToJournal(transaction, journalEntries);
+        } catch (IOException e){
+            throw new OrderPersistenceException(
+                    "Could not save order data.", e);
+        }
+    }
+    
+    /**
+     * Stages the new file of every date and publishes them all through the
+     * commit log. Staged files are rolled back if any date fails before the
+     * commit is recorded; once it is recorded, a failure or crash while 
+     * moving files into place is finished on the next save or load.
+     * @param orderDates - List of dates to save, locked by the caller
+     * @throws OrderPersistenceException 
+     */
+    private void commitToOrderFiles(List<LocalDate> orderDates) throws OrderPersistenceException{
+        synchronized (commitLog){
+            OrderCommitLog.Commit commit = new OrderCommitLog.Commit();
+            Map<LocalDate, Path> stagedFiles = new TreeMap<>();
+            try{
+                recoverInterruptedCommit();
+                
+                // Plan every file to move into place or delete
+                for (LocalDate orderDate : orderDates){
+                    NavigableMap<Integer, Order> orders = orderStore.get(orderDate);
+                    Path textFile = Paths.get(generateFilePath(orderDate));
+                    Path recordFile = generateRecordFilePath(orderDate);
+                    if (orders == null || orders.isEmpty()){
+                        commit.delete(textFile);
+                        commit.delete(recordFile);
+                        if (orderArchive.contains(orderDate)){
+                            commit.unarchive(orderDate);
+                        }
+                    }
+                    else if (usesRecordFile(orders)){
+                        stagedFiles.put(orderDate, commit.stage(recordFile));
+                        commit.delete(textFile);
+                    }
+                    else{
+                        stagedFiles.put(orderDate, commit.stage(textFile));
+                        commit.delete(recordFile);
+                    }
+                }
+                orderNumberSequence.save();
+                orderNumberIndex.save();
+                for (LocalDate orderDate : orderDates){
+                    orderManifest.markPending(orderDate);
+                }
+                orderManifest.save();
+                commitLog.prepare(commit);
+                notifyCommitStep("prepared");
+            } catch (IOException e){
+                throw new OrderPersistenceException(
+                        "Could not save order data.", e);
+            }
+            
+            // Write staged files, then record the commit
+            Map<LocalDate, OrderManifest.Entry> manifestEntries = new TreeMap<>();
+            Map<LocalDate, Exception> failures = new TreeMap<>();
+            stageOrderFiles(stagedFiles, manifestEntries, failures);
+            try{
+                if (!failures.isEmpty()){
+                    commitLog.rollBack(commit);
+                    commitLog.clear();
+                    throw new OrderPersistenceException(failures);
+                }
+                notifyCommitStep("staged");
+                commitLog.commit(commit);
+            } catch (IOException e){
+                throw new OrderPersistenceException(
+                        "Could not save order data.", e);
+            }
+            notifyCommitStep("committed");
+            
+            // Publish
+            try{
+                commitLog.apply(commit, (movedFile) -> notifyCommitStep("moved"));
+                for (LocalDate orderDate : commit.getUnarchivedDates()){
+                    orderArchive.remove(orderDate);
+                }
+                for (LocalDate orderDate : orderDates){
+                    recordFiles.remove(orderDate);
+                    snapshotSections.remove(orderDate);
+                    if (manifestEntries.containsKey(orderDate)){
+                        orderManifest.put(orderDate, manifestEntries.get(orderDate));
+                    }
+                    else{
+                        orderManifest.remove(orderDate);
+                    }
+                }
+                orderManifest.save();
+                commitLog.clear();
+            } catch (IOException e){
+                throw new OrderPersistenceException(
+                        "Could not finish saving order data; it will be finished on the next save or load.", e);
+            }
+        }
+    }
+    
+    /**
+     * Writes the staged file of each date, up to saveParallelism at the same
+     * time, collecting the exception of each date that fails instead of 
+     * stopping at the first. The orders are read from orderStore while the
+     * caller holds every date's lock.
+     * @param stagedFiles - Map from order date to the staged file to write
+     * @param manifestEntries - Map to add each staged date's manifest entry to
+     * @param failures - Map to add each failed date and its exception to
+     * @throws OrderPersistenceException if interrupted while waiting
+     */
+    private void stageOrderFiles(Map<LocalDate, Path> stagedFiles, 
+            Map<LocalDate, OrderManifest.Entry> manifestEntries,
+            Map<LocalDate, Exception> failures) throws OrderPersistenceException{
+        List<LocalDate> orderDates = new ArrayList<>(stagedFiles.keySet());
+        List<Callable<OrderManifest.Entry>> tasks = new ArrayList<>();
+        for (LocalDate orderDate : orderDates){
+            NavigableMap<Integer, Order> orders = orderStore.get(orderDate);
+            Path stagedFile = stagedFiles.get(orderDate);
+            tasks.add(() -> {
+                byte[] fileBytes = usesRecordFile(orders) 
+                        ? OrderRecordFile.encode(orders) 
+                        : buildOrderFileText(orders);
+                Files.createDirectories(stagedFile.getParent());
+                fileWriter.write(stagedFile, ByteBuffer.wrap(fileBytes));
+                return OrderManifest.describe(stagedFile, fileBytes, orders.size(), orders.lastKey());
+            });
+        }
+        int threadCount = Math.max(1, Math.min(saveParallelism, tasks.size()));
+        ExecutorService executor = Executors.newFixedThreadPool(threadCount);
+        try{
+            List<Future<OrderManifest.Entry>> results = executor.invokeAll(tasks);
+            for (int i = 0; i < orderDates.size(); i++){
+                try{
+                    manifestEntries.put(orderDates.get(i), results.get(i).get());
+                } catch (ExecutionException e){
+                    failures.put(orderDates.get(i), e.getCause() instanceof Exception 
+                            ? (Exception) e.getCause() : e);
+                }
+            }
+        } catch (InterruptedException e){
+            Thread.currentThread().interrupt();
+            throw new OrderPersistenceException(
+                    "Interrupted while saving order data.", e);
+        } finally{
+            executor.shutdownNow();
+        }
+    }
+    
+    /**
+     * Finishes or undoes a multi-date save cut short by a crash, dropping 
+     * dates it emptied from the archive. Dates it touched are still PENDING
+     * in the manifest, so their entries are rechecked on the next load.
+     * @throws IOException 
+     */
+    private void recoverInterruptedCommit() throws IOException{
+        synchronized (commitLog){
+            OrderCommitLog.Commit commit = commitLog.recover();
+            if (commit != null && !commit.getUnarchivedDates().isEmpty()){
+                orderArchive.ensureLoaded();
+                for (LocalDate orderDate : commit.getUnarchivedDates()){
+                    orderArchive.remove(orderDate);
+                }
+            }
+            commitLog.clear();
+        }
+    }
+    
+    private void notifyCommitStep(String step){
+        if (commitStepListener != null){
+            commitStepListener.accept(step);
+        }
+    }
+    
+    /**
+     * Sets a listener called at each step of a multi-date save: "prepared",
+     * "staged", "committed", and "moved" once per file moved into place.
+     * Tests throw from it to stop a save the way a crash would.
+     * @param commitStepListener - Consumer of step names, or null
+     */
+    void setCommitStepListener(Consumer<String> commitStepListener){
+        this.commitStepListener = commitStepListener;
+    }
+    
+    /**
+     * Returns the next order number without using it up
+     * @return - Integer of the next available order number
+     */
+    @Override
+    public int getNextAvailableOrderNumber() {
+        return orderNumberSequence.peek();
+    }
+    
+    /**
+     * Uses up a block of consecutive order numbers so they can be given to
+     * new orders. The sequence is persisted before the next orders are saved.
+     * @param count - Integer number of order numbers to allocate
+     * @return - Integer of first order number in block
+     */
+    @Override
+    public int allocateOrderNumbers(int count) {
+        return orderNumberSequence.allocateBlock(count);
+    }
+    
+    /**
+     * Moves the sequence past every order number in the order files and the
+     * journal, in case the sequence file is missing or was left behind the
+     * orders. The highest number in each file comes from the manifest, so
+     * no file is read. Orders added in memory were observed when added.
+     */
+    private void observeSavedOrderNumbers(){
+        for (OrderManifest.Entry manifestEntry : orderManifest.entries().values()){
+            orderNumberSequence.observe(manifestEntry.getMaxOrderNumber());
+        }
+        for (List<OrderJournal.Entry> journalEntries : unreplayedJournalEntries.values()){
+            for (OrderJournal.Entry journalEntry : journalEntries){
+                orderNumberSequence.observe(journalEntry.getOrderNumber());
+            }
+        }
+    }
+    
+    /**
+     * When the index file was missing at load, indexes every order number in
+     * unread files and in the journal. Orders already in memory were indexed
+     * at load. Only the order number column of unread files is scanned.
+     */
+    private synchronized void rebuildOrderNumberIndexIfNeeded(){
+        if (!indexNeedsRebuild){
+            return;
+        }
+        for (LocalDate orderDate : unloadedOrderDates){
+            for (int orderNumber : scanOrderNumbers(orderDate)){
+                orderNumberIndex.put(orderNumber, orderDate);
+            }
+        }
+        for (List<OrderJournal.Entry> journalEntries : unreplayedJournalEntries.values()){
+            journalEntries.forEach(this::applyToOrderNumbers);
         }
-        return maxOrderNumber+1;
+        indexOrdersInMemory();
+        indexNeedsRebuild = false;
     }
     
     /**
@@ -0,0 +1,372 @@
+/*
+ * @author Austin Wong
+ * email: austinwongdev@gmail.com
+ * date: Oct 18, 2026
+ * purpose:
+ */
+
+package com.aaw.flooring.dao;
+
+import com.aaw.flooring.model.Order;
+import com.aaw.flooring.model.Product;
+import com.aaw.flooring.model.StateTax;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+
+/**
+ * Decodes an order file straight from its bytes. Fields are found by scanning
+ * for the "::" delimiter and numbers are parsed digit by digit, so no line
+ * Strings or field arrays are created. Products and StateTaxes with the same
+ * values are shared between orders.
+ * @author Austin Wong
+ */
+class OrderFileDecoder {
+
+    // Files at least this large are memory mapped, smaller ones are read into
+    // the heap. Mapped files stay locked on some platforms until garbage
+    // collected, so mapping is only worth it for big files.
+    private static final long MAP_THRESHOLD_BYTES = 1024 * 1024;
+
+    private final List<StateTax> stateTaxes = new ArrayList<>();
+    private final List<Product> products = new ArrayList<>();
+    private byte[] scratch = new byte[64];
+
+    private ByteBuffer buffer;
+    private int position;
+    private int limit;
+    private int fieldStart;
+    private int fieldEnd;
+
+    /**
+     * Reads every order in an order file. The first line is assumed to be
+     * a header.
+     * @param orderFile - Path of order file
+     * @param orderDate - LocalDate of orders in file
+     * @return - Map from order number to Order object sorted by order number,
+     * empty if file has no data
+     * @throws IOException if the file can't be read or a line is malformed
+     */
+    NavigableMap<Integer, Order> decode(Path orderFile, LocalDate orderDate) throws IOException{
+        try (FileChannel channel = FileChannel.open(orderFile, StandardOpenOption.READ)){
+            long size = channel.size();
+            if (size > Integer.MAX_VALUE){
+                throw new IOException("Order file too large: " + orderFile);
+            }
+            if (size >= MAP_THRESHOLD_BYTES){
+                buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            }
+            else{
+                buffer = ByteBuffer.allocate((int) size);
+                while (buffer.hasRemaining() && channel.read(buffer) >= 0){
+                }
+                buffer.flip();
+            }
+        }
+        return decodeBuffer(orderDate);
+    }
+
+    /**
+     * Reads every order in the contents of an order file that isn't on disk,
+     * such as one read from the archive. The first line is assumed to be a 
+     * header.
+     * @param fileContents - Bytes of order file
+     * @param orderDate - LocalDate of orders in file
+     * @return - Map from order number to Order object sorted by order number,
+     * empty if file has no data
+     * @throws IOException if a line is malformed
+     */
+    NavigableMap<Integer, Order> decode(byte[] fileContents, LocalDate orderDate) throws IOException{
+        buffer = ByteBuffer.wrap(fileContents);
+        return decodeBuffer(orderDate);
+    }
+
+    /**
+     * Reads every order in buffer after its header line
+     */
+    private NavigableMap<Integer, Order> decodeBuffer(LocalDate orderDate) throws IOException{
+        position = 0;
+        limit = buffer.limit();
+
+        // Skip header
+        skipLine();
+
+        NavigableMap<Integer, Order> ordersOnDate = new TreeMap<>();
+        try{
+            while (position < limit){
+                if (isLineEnd(position)){
+                    skipLine();
+                    continue;
+                }
+                Order order = decodeOrder(orderDate);
+                ordersOnDate.put(order.getOrderNumber(), order);
+            }
+        } finally{
+            buffer = null;
+        }
+        return ordersOnDate;
+    }
+
+    /**
+     * Decodes a single order line that isn't part of an order file
+     * @param orderAsText - String of order fields separated by "::"
+     * @param orderDate - LocalDate of order
+     * @return - Order object
+     * @throws IOException if the line is malformed
+     */
+    Order decodeLine(String orderAsText, LocalDate orderDate) throws IOException{
+        buffer = ByteBuffer.wrap(orderAsText.getBytes(StandardCharsets.UTF_8));
+        position = 0;
+        limit = buffer.limit();
+        try{
+            return decodeOrder(orderDate);
+        } finally{
+            buffer = null;
+        }
+    }
+
+    /**
+     * Decodes the line starting at the current position and moves to the
+     * start of the next line
+     * @param orderDate - LocalDate of order
+     * @return - Order object
+     * @throws IOException if the line is malformed
+     */
+    private Order decodeOrder(LocalDate orderDate) throws IOException{
+        int lineStart = position;
+        nextField();
+        int orderNumber = parseWholeNumber(lineStart);
+        nextField();
+        String customerName = decodeString(fieldStart, fieldEnd);
+        nextField();
+        int stateStart = fieldStart;
+        int stateEnd = fieldEnd;
+        nextField();
+        BigDecimal taxRate = parseDecimal(lineStart);
+        nextField();
+        int productStart = fieldStart;
+        int productEnd = fieldEnd;
+        nextField();
+        BigDecimal area = parseDecimal(lineStart);
+        nextField();
+        BigDecimal costPerSquareFoot = parseDecimal(lineStart);
+        nextField();
+        BigDecimal laborCostPerSquareFoot = parseDecimal(lineStart);
+        nextField();
+        BigDecimal materialCost = parseDecimal(lineStart);
+        nextField();
+        BigDecimal laborCost = parseDecimal(lineStart);
+        nextField();
+        BigDecimal tax = parseDecimal(lineStart);
+        nextField();
+        BigDecimal total = parseDecimal(lineStart);
+        if (!isLineEnd(fieldEnd)){
+            throw malformedLine(lineStart);
+        }
+        skipLine();
+
+        StateTax stateTax = sharedStateTax(stateStart, stateEnd, taxRate);
+        Product product = sharedProduct(productStart, productEnd,
+                costPerSquareFoot, laborCostPerSquareFoot);
+        return new Order(orderDate, orderNumber, customerName, stateTax, product,
+                area, materialCost, laborCost, tax, total);
+    }
+
+    /**
+     * Finds the field starting at the current position and moves the position
+     * past the delimiter that follows it. The position is left at the end of
+     * the field when the field ends the line.
+     */
+    private void nextField(){
+        fieldStart = position;
+        int index = position;
+        while (index < limit){
+            byte b = buffer.get(index);
+            if (b == ':' && index + 1 < limit && buffer.get(index + 1) == ':'){
+                fieldEnd = index;
+                position = index + 2;
+                return;
+            }
+            if (b == '\n' || b == '\r'){
+                break;
+            }
+            index++;
+        }
+        fieldEnd = index;
+        position = index;
+    }
+
+    /**
+     * Parses the current field as a whole number
+     * @param lineStart - Index of start of line, for error messages
+     * @return - int value of field
+     * @throws IOException if field is not a whole number
+     */
+    private int parseWholeNumber(int lineStart) throws IOException{
+        long value = 0;
+        for (int index = fieldStart; index < fieldEnd; index++){
+            byte b = buffer.get(index);
+            if (b < '0' || b > '9' || value > Integer.MAX_VALUE / 10){
+                throw malformedLine(lineStart);
+            }
+            value = value * 10 + (b - '0');
+        }
+        if (fieldStart == fieldEnd || value > Integer.MAX_VALUE){
+            throw malformedLine(lineStart);
+        }
+        return (int) value;
+    }
+
+    /**
+     * Parses the current field as a decimal number such as "-12.50", keeping
+     * the number of digits after the decimal point as its scale. Plain 
+     * numbers of up to 18 digits are parsed from the bytes; anything else,
+     * such as "1E+2" or a longer number, is parsed by BigDecimal.
+     * @param lineStart - Index of start of line, for error messages
+     * @return - BigDecimal value of field
+     * @throws IOException if field is not a decimal number
+     */
+    private BigDecimal parseDecimal(int lineStart) throws IOException{
+        int index = fieldStart;
+        boolean negative = false;
+        if (index < fieldEnd && buffer.get(index) == '-'){
+            negative = true;
+            index++;
+        }
+        long unscaledValue = 0;
+        int digits = 0;
+        int scale = -1;
+        for (; index < fieldEnd; index++){
+            byte b = buffer.get(index);
+            if (b == '.' && scale < 0){
+                scale = 0;
+                continue;
+            }
+            if (b < '0' || b > '9' || digits >= 18){
+                return parseDecimalWithBigDecimal(lineStart);
+            }
+            unscaledValue = unscaledValue * 10 + (b - '0');
+            digits++;
+            if (scale >= 0){
+                scale++;
+            }
+        }
+        if (digits == 0){
+            throw malformedLine(lineStart);
+        }
+        return BigDecimal.valueOf(negative ? -unscaledValue : unscaledValue, Math.max(scale, 0));
+    }
+
+    private BigDecimal parseDecimalWithBigDecimal(int lineStart) throws IOException{
+        try{
+            return new BigDecimal(decodeString(fieldStart, fieldEnd));
+        } catch (NumberFormatException e){
+            throw malformedLine(lineStart);
+        }
+    }
+
+    /**
+     * Decodes a range of the buffer as a UTF-8 String
+     * @param start - Index of first byte
+     * @param end - Index one past last byte
+     * @return - String value of range
+     */
+    private String decodeString(int start, int end){
+        int length = end - start;
+        if (buffer.hasArray()){
+            return new String(buffer.array(), buffer.arrayOffset() + start,
+                    length, StandardCharsets.UTF_8);
+        }
+        if (scratch.length < length){
+            scratch = new byte[Math.max(length, scratch.length * 2)];
+        }
+        for (int i = 0; i < length; i++){
+            scratch[i] = buffer.get(start + i);
+        }
+        return new String(scratch, 0, length, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Returns a StateTax already created by this decoder with the same
+     * abbreviation and tax rate, creating one if there is none
+     * @param start - Index of first byte of state abbreviation
+     * @param end - Index one past last byte of state abbreviation
+     * @param taxRate - BigDecimal tax rate
+     * @return - StateTax object
+     */
+    private StateTax sharedStateTax(int start, int end, BigDecimal taxRate){
+        for (StateTax stateTax : stateTaxes){
+            if (stateTax.getTaxRate().equals(taxRate) &&
+                    bytesEqual(start, end, stateTax.getStateAbbreviation())){
+                return stateTax;
+            }
+        }
+        StateTax stateTax = new StateTax(decodeString(start, end), taxRate);
+        stateTaxes.add(stateTax);
+        return stateTax;
+    }
+
+    /**
+     * Returns a Product already created by this decoder with the same type
+     * and costs, creating one if there is none
+     * @param start - Index of first byte of product type
+     * @param end - Index one past last byte of product type
+     * @param costPerSquareFoot - BigDecimal material cost per square foot
+     * @param laborCostPerSquareFoot - BigDecimal labor cost per square foot
+     * @return - Product object
+     */
+    private Product sharedProduct(int start, int end, BigDecimal costPerSquareFoot,
+            BigDecimal laborCostPerSquareFoot){
+        for (Product product : products){
+            if (product.getCostPerSquareFoot().equals(costPerSquareFoot) &&
+                    product.getLaborCostPerSquareFoot().equals(laborCostPerSquareFoot) &&
+                    bytesEqual(start, end, product.getProductType())){
+                return product;
+            }
+        }
+        Product product = new Product(decodeString(start, end), costPerSquareFoot,
+                laborCostPerSquareFoot);
+        products.add(product);
+        return product;
+    }
+
+    /**
+     * Compares a range of the buffer to a String without decoding the range.
+     * Only matches Strings made of single-byte characters.
+     */
+    private boolean bytesEqual(int start, int end, String value){
+        if (end - start != value.length()){
+            return false;
+        }
+        for (int i = 0; i < value.length(); i++){
+            if (buffer.get(start + i) != value.charAt(i)){
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private boolean isLineEnd(int index){
+        return index >= limit || buffer.get(index) == '\n' || buffer.get(index) == '\r';
+    }
+
+    private void skipLine(){
+        while (position < limit && buffer.get(position) != '\n'){
+            position++;
+        }
+        position++;
+    }
+
+    private IOException malformedLine(int lineStart){
+        return new IOException("Malformed order line at byte " + lineStart);
+    }
+}
@@ -0,0 +1,280 @@
+/*
+ * @author Austin Wong
+ * email: austinwongdev@gmail.com
+ * date: Oct 18, 2026
+ * purpose:
+ */
+
+package com.aaw.flooring.dao;
+
+import com.aaw.flooring.model.Order;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Append-only log of order changes. Each saved order is one PUT line holding
+ * the full order, and each removed order is one DEL line holding its number:
+ *
+ *   PUT::06012013::1::Ada Lovelace::CA::25.00::Tile::...
+ *   DEL::06012013::1
+ *
+ * A line is only complete once its newline is written, so a line cut short
+ * by a crash is ignored on the next read. Changes to several dates that 
+ * must be kept together follow a TXN line giving how many lines belong to
+ * it, and are ignored unless every one of those lines was written:
+ *
+ *   TXN::2
+ *   PUT::06012013::1::Ada Lovelace::CA::25.00::Tile::...
+ *   DEL::06022013::2
+ * @author Austin Wong
+ */
+class OrderJournal {
+
+    private final String FIELD_DELIMITER = "::";
+    private final String PUT = "PUT";
+    private final String DEL = "DEL";
+    private final String TXN = "TXN";
+    private final DateTimeFormatter DATE_FORMAT = DateTimeFormatter.ofPattern("MMddyyyy");
+    private final Path JOURNAL_FILE;
+    private final FileSyncer fileSyncer;
+    private long oldestEntryTime = -1;
+
+    OrderJournal(Path journalFile){
+        this(journalFile, new FileSyncer());
+    }
+
+    OrderJournal(Path journalFile, FileSyncer fileSyncer){
+        this.JOURNAL_FILE = journalFile;
+        this.fileSyncer = fileSyncer;
+    }
+
+    /**
+     * One journal line: an order saved on a date, or an order number removed
+     * from a date
+     */
+    static class Entry {
+        private final LocalDate orderDate;
+        private final int orderNumber;
+        private final Order order;
+
+        Entry(LocalDate orderDate, int orderNumber, Order order){
+            this.orderDate = orderDate;
+            this.orderNumber = orderNumber;
+            this.order = order;
+        }
+
+        LocalDate getOrderDate(){
+            return orderDate;
+        }
+
+        int getOrderNumber(){
+            return orderNumber;
+        }
+
+        boolean isRemoval(){
+            return order == null;
+        }
+
+        /**
+         * Applies this entry to the orders on its date
+         * @param ordersOnDate - Map from order number to Order object
+         */
+        void applyTo(Map<Integer, Order> ordersOnDate){
+            if (order == null){
+                ordersOnDate.remove(orderNumber);
+            }
+            else{
+                ordersOnDate.put(orderNumber, order);
+            }
+        }
+    }
+
+    /**
+     * Appends a PUT line for an order to a buffer of pending journal lines
+     * @param orderDate - LocalDate of order
+     * @param orderAsText - Order fields as written in an order file, without newline
+     * @param out - StringBuilder collecting lines to append
+     */
+    void writePut(LocalDate orderDate, CharSequence orderAsText, StringBuilder out){
+        out.append(PUT).append(FIELD_DELIMITER)
+                .append(orderDate.format(DATE_FORMAT)).append(FIELD_DELIMITER)
+                .append(orderAsText).append('\n');
+    }
+
+    /**
+     * Appends a DEL line for an order number to a buffer of pending journal lines
+     * @param orderDate - LocalDate of order
+     * @param orderNumber - Integer of removed order number
+     * @param out - StringBuilder collecting lines to append
+     */
+    void writeDelete(LocalDate orderDate, int orderNumber, StringBuilder out){
+        out.append(DEL).append(FIELD_DELIMITER)
+                .append(orderDate.format(DATE_FORMAT)).append(FIELD_DELIMITER)
+                .append(orderNumber).append('\n');
+    }
+
+    /**
+     * Appends a TXN line to a buffer of pending journal lines. The given
+     * number of PUT and DEL lines written after it are only read back if
+     * all of them were written.
+     * @param lineCount - Integer number of lines in the transaction
+     * @param out - StringBuilder collecting lines to append
+     */
+    void writeTransaction(int lineCount, StringBuilder out){
+        out.append(TXN).append(FIELD_DELIMITER).append(lineCount).append('\n');
+    }
+
+    /**
+     * Appends complete lines to the end of the journal in a single write, 
+     * then syncs the journal as the durability mode requires. The sync 
+     * happens outside this journal's lock, so in group commit mode appends
+     * from other saves can join it.
+     * @param lines - Newline-terminated journal lines
+     * @throws IOException
+     */
+    void append(CharSequence lines) throws IOException{
+        if (lines.length() == 0){
+            return;
+        }
+        synchronized (this){
+            Files.write(JOURNAL_FILE, lines.toString().getBytes(StandardCharsets.UTF_8),
+                    StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+            if (oldestEntryTime < 0){
+                oldestEntryTime = System.currentTimeMillis();
+            }
+        }
+        fileSyncer.sync(JOURNAL_FILE);
+    }
+
+    /**
+     * Reads every complete line in the journal, oldest first. Anything after
+     * the last complete line or transaction was cut short by a crash; it is
+     * cut off the file so later appends start on a clean line.
+     * @return - List of journal entries, empty if there is no journal
+     * @throws IOException if the journal can't be read or a line is malformed
+     */
+    synchronized List<Entry> readEntries() throws IOException{
+        List<Entry> entries = new ArrayList<>();
+        if (!Files.exists(JOURNAL_FILE)){
+            return entries;
+        }
+        byte[] contents = Files.readAllBytes(JOURNAL_FILE);
+        OrderFileDecoder decoder = new OrderFileDecoder();
+        int lineStart = 0;
+        int completeLength = 0;
+        List<Entry> transaction = null;
+        int transactionLines = 0;
+        for (int lineEnd = 0; lineEnd < contents.length; lineEnd++){
+            if (contents[lineEnd] != '\n'){
+                continue;
+            }
+            String line = new String(contents, lineStart, lineEnd - lineStart, StandardCharsets.UTF_8);
+            lineStart = lineEnd + 1;
+            if (line.startsWith(TXN + FIELD_DELIMITER)){
+                if (transaction != null){
+                    throw new IOException("Journal transaction cut short before: " + line);
+                }
+                transaction = new ArrayList<>();
+                transactionLines = parseTransactionLineCount(line);
+            }
+            else if (line.isEmpty()){
+                // Nothing to read
+            }
+            else if (transaction != null){
+                transaction.add(parseEntry(line, decoder));
+            }
+            else{
+                entries.add(parseEntry(line, decoder));
+            }
+            if (transaction != null && transaction.size() == transactionLines){
+                entries.addAll(transaction);
+                transaction = null;
+            }
+            if (transaction == null){
+                completeLength = lineStart;
+            }
+        }
+        if (completeLength < contents.length){
+            try (FileChannel channel = FileChannel.open(JOURNAL_FILE, StandardOpenOption.WRITE)){
+                channel.truncate(completeLength);
+            }
+        }
+        if (!entries.isEmpty() && oldestEntryTime < 0){
+            oldestEntryTime = System.currentTimeMillis();
+        }
+        return entries;
+    }
+
+    /**
+     * Empties the journal once its entries are in the order files
+     * @throws IOException
+     */
+    synchronized void clear() throws IOException{
+        Files.deleteIfExists(JOURNAL_FILE);
+        oldestEntryTime = -1;
+    }
+
+    /**
+     * Returns the size of the journal file
+     * @return - long number of bytes, 0 if there is no journal
+     * @throws IOException
+     */
+    synchronized long size() throws IOException{
+        return Files.exists(JOURNAL_FILE) ? Files.size(JOURNAL_FILE) : 0;
+    }
+
+    /**
+     * Returns how long the oldest entry has been waiting to be compacted,
+     * counting entries found at startup as written at startup
+     * @return - long milliseconds, 0 if the journal is empty
+     */
+    synchronized long oldestEntryAgeMillis(){
+        return oldestEntryTime < 0 ? 0 : System.currentTimeMillis() - oldestEntryTime;
+    }
+
+    private int parseTransactionLineCount(String line) throws IOException{
+        try{
+            int lineCount = Integer.parseInt(line.substring(TXN.length() + FIELD_DELIMITER.length()));
+            if (lineCount < 0){
+                throw new IOException("Malformed journal line: " + line);
+            }
+            return lineCount;
+        } catch (NumberFormatException e){
+            throw new IOException("Malformed journal line: " + line, e);
+        }
+    }
+
+    private Entry parseEntry(String line, OrderFileDecoder decoder) throws IOException{
+        String[] prefix = line.split(FIELD_DELIMITER, 3);
+        if (prefix.length != 3){
+            throw new IOException("Malformed journal line: " + line);
+        }
+        LocalDate orderDate;
+        try{
+            orderDate = LocalDate.parse(prefix[1], DATE_FORMAT);
+        } catch (RuntimeException e){
+            throw new IOException("Malformed journal line: " + line, e);
+        }
+        if (PUT.equals(prefix[0])){
+            Order order = decoder.decodeLine(prefix[2], orderDate);
+            return new Entry(orderDate, order.getOrderNumber(), order);
+        }
+        if (DEL.equals(prefix[0])){
+            try{
+                return new Entry(orderDate, Integer.parseInt(prefix[2]), null);
+            } catch (NumberFormatException e){
+                throw new IOException("Malformed journal line: " + line, e);
+            }
+        }
+        throw new IOException("Malformed journal line: " + line);
+    }
+}
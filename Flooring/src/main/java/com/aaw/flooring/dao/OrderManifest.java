@@ -0,0 +1,403 @@
+/*
+ * @author Austin Wong
+ * email: austinwongdev@gmail.com
+ * date: Oct 18, 2026
+ * purpose:
+ */
+
+package com.aaw.flooring.dao;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.util.Collections;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.NavigableSet;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.zip.CRC32;
+
+/**
+ * Lists every order file in the Orders folder with its row count, byte size,
+ * highest order number, CRC32 and modified time, so dates can be found and 
+ * checked without opening the files:
+ *
+ *   Date::Rows::Bytes::MaxOrderNumber::Checksum::Modified
+ *   06012013::1::231::1::3735928559::1370044800000
+ *
+ * Saving appends a line for each date changed since the last save, and a 
+ * later line for a date replaces an earlier one; a REMOVED line drops the 
+ * date. Once the file holds many more lines than dates, it is rewritten 
+ * with one line per date. A line cut short by a crash is cut off on load.
+ *
+ * Before a file is written its date is saved as PENDING, and the real entry
+ * replaces it once the write is done. A PENDING date left behind by a crash
+ * is rechecked from its file on the next load.
+ * @author Austin Wong
+ */
+class OrderManifest {
+
+    private final String FIELD_DELIMITER = "::";
+    private final String HEADER = "Date::Rows::Bytes::MaxOrderNumber::Checksum::Modified";
+    private final String PENDING = "PENDING";
+    private final String REMOVED = "REMOVED";
+    private final int MIN_LINES_TO_FOLD = 64;
+    private final DateTimeFormatter DATE_FORMAT = DateTimeFormatter.ofPattern("MMddyyyy");
+    private final Path MANIFEST_FILE;
+    private final AtomicFileWriter fileWriter;
+    private final FileSyncer fileSyncer;
+    private final NavigableMap<LocalDate, Entry> entries = new ConcurrentSkipListMap<>();
+    private final NavigableSet<LocalDate> unsavedDates = new ConcurrentSkipListSet<>();
+    private volatile boolean rewriteNeeded = true;
+    private int lineCount;
+
+    OrderManifest(Path manifestFile, AtomicFileWriter fileWriter, FileSyncer fileSyncer){
+        this.MANIFEST_FILE = manifestFile;
+        this.fileWriter = fileWriter;
+        this.fileSyncer = fileSyncer;
+    }
+
+    /**
+     * What the manifest knows about one order file. A pending entry has a
+     * row count of -1 and nothing else filled in. A modified time of 0 means
+     * the file's modified time isn't known.
+     */
+    static class Entry {
+        private final int rowCount;
+        private final long byteSize;
+        private final int maxOrderNumber;
+        private final long checksum;
+        private final long lastModified;
+
+        Entry(int rowCount, long byteSize, int maxOrderNumber, long checksum){
+            this(rowCount, byteSize, maxOrderNumber, checksum, 0);
+        }
+
+        Entry(int rowCount, long byteSize, int maxOrderNumber, long checksum, long lastModified){
+            this.rowCount = rowCount;
+            this.byteSize = byteSize;
+            this.maxOrderNumber = maxOrderNumber;
+            this.checksum = checksum;
+            this.lastModified = lastModified;
+        }
+
+        int getRowCount(){
+            return rowCount;
+        }
+
+        long getByteSize(){
+            return byteSize;
+        }
+
+        int getMaxOrderNumber(){
+            return maxOrderNumber;
+        }
+
+        long getChecksum(){
+            return checksum;
+        }
+
+        long getLastModified(){
+            return lastModified;
+        }
+
+        boolean isPending(){
+            return rowCount < 0;
+        }
+    }
+
+    /**
+     * Describes an order file from its complete contents
+     * @param fileContents - Bytes of the order file, header included
+     * @param rowCount - Integer number of orders in the file
+     * @param maxOrderNumber - Integer of highest order number, 0 if none
+     * @return - Entry for the file
+     */
+    static Entry describe(byte[] fileContents, int rowCount, int maxOrderNumber){
+        CRC32 crc = new CRC32();
+        crc.update(fileContents);
+        return new Entry(rowCount, fileContents.length, maxOrderNumber, crc.getValue());
+    }
+
+    /**
+     * Describes an order file just written from its complete contents,
+     * taking its modified time from the file
+     * @param orderFile - Path of the written file
+     * @param fileContents - Bytes of the order file, header included
+     * @param rowCount - Integer number of orders in the file
+     * @param maxOrderNumber - Integer of highest order number, 0 if none
+     * @return - Entry for the file
+     * @throws IOException if the file's modified time can't be read
+     */
+    static Entry describe(Path orderFile, byte[] fileContents, int rowCount, int maxOrderNumber) throws IOException{
+        Entry entry = describe(fileContents, rowCount, maxOrderNumber);
+        return new Entry(entry.getRowCount(), entry.getByteSize(), entry.getMaxOrderNumber(), 
+                entry.getChecksum(), Files.getLastModifiedTime(orderFile).toMillis());
+    }
+
+    /**
+     * Describes an order file by reading it
+     * @param orderFile - Path of order file
+     * @return - Entry for the file, or null if it doesn't exist
+     * @throws IOException if the file can't be read or an order number is malformed
+     */
+    static Entry describe(Path orderFile) throws IOException{
+        if (!Files.exists(orderFile)){
+            return null;
+        }
+        long lastModified = Files.getLastModifiedTime(orderFile).toMillis();
+        Entry entry = describe(Files.readAllBytes(orderFile));
+        return new Entry(entry.getRowCount(), entry.getByteSize(), entry.getMaxOrderNumber(), 
+                entry.getChecksum(), lastModified);
+    }
+
+    /**
+     * Describes an order file by reading its contents, such as ones read from
+     * the archive
+     * @param fileContents - Bytes of the order file, header included
+     * @return - Entry for the file
+     * @throws IOException if an order number is malformed
+     */
+    static Entry describe(byte[] fileContents) throws IOException{
+        String text = new String(fileContents, StandardCharsets.UTF_8);
+        int rowCount = 0;
+        int maxOrderNumber = 0;
+
+        // Skip header, then read the order number at the start of each line
+        int lineStart = text.indexOf('\n') + 1;
+        while (lineStart > 0 && lineStart < text.length()){
+            int lineEnd = text.indexOf('\n', lineStart);
+            if (lineEnd < 0){
+                lineEnd = text.length();
+            }
+            int numberEnd = text.indexOf("::", lineStart);
+            if (numberEnd > lineStart && numberEnd < lineEnd){
+                try{
+                    maxOrderNumber = Math.max(maxOrderNumber,
+                            Integer.parseInt(text.substring(lineStart, numberEnd)));
+                } catch (NumberFormatException e){
+                    throw new IOException("Malformed order number: " 
+                            + text.substring(lineStart, numberEnd), e);
+                }
+                rowCount++;
+            }
+            lineStart = lineEnd + 1;
+        }
+        return describe(fileContents, rowCount, maxOrderNumber);
+    }
+
+    /**
+     * Returns the entry for a date
+     * @param orderDate - LocalDate of orders
+     * @return - Entry, or null if the date has no order file
+     */
+    Entry get(LocalDate orderDate){
+        return entries.get(orderDate);
+    }
+
+    /**
+     * Returns every date with an order file and its entry, in date order
+     * @return - Unmodifiable view of the entries
+     */
+    NavigableMap<LocalDate, Entry> entries(){
+        return Collections.unmodifiableNavigableMap(entries);
+    }
+
+    void put(LocalDate orderDate, Entry entry){
+        entries.put(orderDate, entry);
+        unsavedDates.add(orderDate);
+    }
+
+    void remove(LocalDate orderDate){
+        if (entries.remove(orderDate) != null){
+            unsavedDates.add(orderDate);
+        }
+    }
+
+    /**
+     * Marks a date as about to be written
+     * @param orderDate - LocalDate of order file
+     */
+    void markPending(LocalDate orderDate){
+        put(orderDate, new Entry(-1, 0, 0, 0));
+    }
+
+    void clear(){
+        entries.clear();
+        unsavedDates.clear();
+        rewriteNeeded = true;
+    }
+
+    /**
+     * Checks a date's entry against its order file without reading the file
+     * when its size and modified time match the entry. If only the modified
+     * time differs, the file's checksum is compared instead, and on a match
+     * the new modified time is kept for the next save.
+     * @param orderDate - LocalDate of order file
+     * @param orderFile - Path of order file
+     * @return - True if the entry describes the file, false if it is missing,
+     * pending, or describes different contents
+     * @throws IOException if the file can't be read
+     */
+    boolean matches(LocalDate orderDate, Path orderFile) throws IOException{
+        Entry entry = entries.get(orderDate);
+        if (entry == null || entry.isPending()){
+            return false;
+        }
+        BasicFileAttributes attributes = Files.readAttributes(orderFile, BasicFileAttributes.class);
+        long lastModified = attributes.lastModifiedTime().toMillis();
+        if (attributes.size() != entry.getByteSize()){
+            return false;
+        }
+        if (lastModified == entry.getLastModified()){
+            return true;
+        }
+        CRC32 crc = new CRC32();
+        crc.update(Files.readAllBytes(orderFile));
+        if (crc.getValue() != entry.getChecksum()){
+            return false;
+        }
+        put(orderDate, new Entry(entry.getRowCount(), entry.getByteSize(), 
+                entry.getMaxOrderNumber(), entry.getChecksum(), lastModified));
+        return true;
+    }
+
+    /**
+     * Replaces the entries with the contents of the manifest file. A last
+     * line without a line break was cut short by a crash and is cut off.
+     * @return - True if the file was read, false if it doesn't exist
+     * @throws IOException if the file exists but can't be read or is malformed
+     */
+    synchronized boolean load() throws IOException{
+        clear();
+        if (!Files.exists(MANIFEST_FILE)){
+            return false;
+        }
+        byte[] fileContents = Files.readAllBytes(MANIFEST_FILE);
+        int wholeLinesEnd = fileContents.length;
+        while (wholeLinesEnd > 0 && fileContents[wholeLinesEnd - 1] != '\n'){
+            wholeLinesEnd--;
+        }
+        String[] lines = new String(fileContents, 0, wholeLinesEnd, StandardCharsets.UTF_8).split("\n");
+        Map<LocalDate, Entry> loadedEntries = new TreeMap<>();
+        int loadedLineCount = 0;
+        for (int i = 1; i < lines.length; i++){
+            String line = lines[i].trim();
+            if (line.isEmpty()){
+                continue;
+            }
+            String[] fields = line.split(FIELD_DELIMITER);
+            try{
+                LocalDate orderDate = LocalDate.parse(fields[0], DATE_FORMAT);
+                if (fields.length == 2 && PENDING.equals(fields[1])){
+                    loadedEntries.put(orderDate, new Entry(-1, 0, 0, 0));
+                }
+                else if (fields.length == 2 && REMOVED.equals(fields[1])){
+                    loadedEntries.remove(orderDate);
+                }
+                else if (fields.length == 5 || fields.length == 6){
+                    loadedEntries.put(orderDate, new Entry(Integer.parseInt(fields[1]),
+                            Long.parseLong(fields[2]), Integer.parseInt(fields[3]),
+                            Long.parseLong(fields[4]), 
+                            fields.length == 6 ? Long.parseLong(fields[5]) : 0));
+                }
+                else{
+                    throw new IOException("Malformed manifest line: " + line);
+                }
+            } catch (RuntimeException e){
+                throw new IOException("Malformed manifest line: " + line, e);
+            }
+            loadedLineCount++;
+        }
+        if (wholeLinesEnd < fileContents.length){
+            try (FileChannel channel = FileChannel.open(MANIFEST_FILE, StandardOpenOption.WRITE)){
+                channel.truncate(wholeLinesEnd);
+            }
+        }
+        entries.putAll(loadedEntries);
+        lineCount = loadedLineCount;
+        rewriteNeeded = wholeLinesEnd == 0 || !lines[0].trim().equals(HEADER);
+        return true;
+    }
+
+    /**
+     * Saves the dates changed since the manifest was last loaded or saved,
+     * by appending a line for each, or by rewriting the file with one line
+     * per date if it was cleared or holds too many replaced lines
+     * @throws IOException
+     */
+    synchronized void save() throws IOException{
+        if (rewriteNeeded || lineCount + unsavedDates.size() > Math.max(MIN_LINES_TO_FOLD, entries.size() * 2)){
+            rewrite();
+            return;
+        }
+        if (unsavedDates.isEmpty()){
+            return;
+        }
+        StringBuilder lines = new StringBuilder(unsavedDates.size() * 48);
+        int appendedLineCount = 0;
+        LocalDate orderDate;
+        while ((orderDate = unsavedDates.pollFirst()) != null){
+            Entry entry = entries.get(orderDate);
+            if (entry == null){
+                lines.append(orderDate.format(DATE_FORMAT)).append(FIELD_DELIMITER).append(REMOVED).append('\n');
+            }
+            else{
+                appendLine(lines, orderDate, entry);
+            }
+            appendedLineCount++;
+        }
+        ByteBuffer contents = ByteBuffer.wrap(lines.toString().getBytes(StandardCharsets.UTF_8));
+        try (FileChannel channel = FileChannel.open(MANIFEST_FILE, StandardOpenOption.WRITE, 
+                StandardOpenOption.APPEND)){
+            while (contents.hasRemaining()){
+                channel.write(contents);
+            }
+            fileSyncer.sync(MANIFEST_FILE);
+        } catch (IOException e){
+            // Some lines may be missing, so write every entry next time
+            rewriteNeeded = true;
+            throw e;
+        }
+        lineCount += appendedLineCount;
+    }
+
+    /**
+     * Writes every entry to the manifest file, one line per date
+     */
+    private void rewrite() throws IOException{
+        unsavedDates.clear();
+        StringBuilder contents = new StringBuilder(HEADER.length() + entries.size() * 48);
+        contents.append(HEADER).append('\n');
+        for (Map.Entry<LocalDate, Entry> mapEntry : entries.entrySet()){
+            appendLine(contents, mapEntry.getKey(), mapEntry.getValue());
+        }
+        fileWriter.write(MANIFEST_FILE, ByteBuffer.wrap(contents.toString().getBytes(StandardCharsets.UTF_8)));
+        lineCount = entries.size();
+        rewriteNeeded = false;
+    }
+
+    private void appendLine(StringBuilder contents, LocalDate orderDate, Entry entry){
+        contents.append(orderDate.format(DATE_FORMAT)).append(FIELD_DELIMITER);
+        if (entry.isPending()){
+            contents.append(PENDING);
+        }
+        else{
+            contents.append(entry.getRowCount()).append(FIELD_DELIMITER)
+                    .append(entry.getByteSize()).append(FIELD_DELIMITER)
+                    .append(entry.getMaxOrderNumber()).append(FIELD_DELIMITER)
+                    .append(entry.getChecksum()).append(FIELD_DELIMITER)
+                    .append(entry.getLastModified());
+        }
+        contents.append('\n');
+    }
+}
@@ -0,0 +1,342 @@
+/*
+ * @author Austin Wong
+ * email: austinwongdev@gmail.com
+ * date: Oct 18, 2026
+ * purpose:
+ */
+
+package com.aaw.flooring.dao;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.function.BiPredicate;
+import java.util.zip.CRC32;
+
+/**
+ * Maps each order number to the date it is on, so an order can be found from
+ * its number alone. Keys and dates are stored in int arrays with open
+ * addressing instead of boxed Integers and LocalDates. Order numbers must be
+ * positive; 0 marks an empty slot.
+ *
+ * Saving appends only the entries changed since the last save to a log next
+ * to the index file, so its cost follows the number of changed orders, not
+ * the size of the index. Each log record is an order number, negated for a
+ * removal, an epoch day, and a CRC32 of the two; a record cut short by a 
+ * crash fails its checksum and ends the log. Once the log outgrows the index
+ * file, the whole index is rewritten and the log deleted.
+ * @author Austin Wong
+ */
+class OrderNumberIndex {
+
+    private static final int FILE_MAGIC = 0x464C4F49; // "FLOI"
+    private static final int EMPTY = 0;
+    private static final int MIN_CAPACITY = 16;
+    private static final int LOG_RECORD_BYTES = 12;
+    private static final long MIN_LOG_BYTES_TO_FOLD = 64 * 1024;
+
+    private final Path INDEX_FILE;
+    private final Path LOG_FILE;
+    private final AtomicFileWriter fileWriter;
+    private final FileSyncer fileSyncer;
+    private int[] orderNumbers = new int[MIN_CAPACITY];
+    private int[] epochDays = new int[MIN_CAPACITY];
+    private int size;
+    private int[] unsavedChanges = new int[MIN_CAPACITY];
+    private int unsavedChangeCount;
+    private boolean rewriteNeeded;
+    private boolean complete;
+    private long logBytes;
+
+    OrderNumberIndex(Path indexFile, AtomicFileWriter fileWriter, FileSyncer fileSyncer){
+        this.INDEX_FILE = indexFile;
+        this.LOG_FILE = indexFile.resolveSibling(indexFile.getFileName() + ".log");
+        this.fileWriter = fileWriter;
+        this.fileSyncer = fileSyncer;
+    }
+
+    /**
+     * Returns the date an order is on
+     * @param orderNumber - Integer of order number
+     * @return - LocalDate of order, or null if order number isn't indexed
+     */
+    synchronized LocalDate get(int orderNumber){
+        if (orderNumber <= 0){
+            return null;
+        }
+        int slot = findSlot(orderNumber);
+        return orderNumbers[slot] == EMPTY ? null : LocalDate.ofEpochDay(epochDays[slot]);
+    }
+
+    /**
+     * Records the date an order is on
+     * @param orderNumber - Integer of order number, must be positive
+     * @param orderDate - LocalDate of order
+     */
+    synchronized void put(int orderNumber, LocalDate orderDate){
+        if (orderNumber <= 0){
+            throw new IllegalArgumentException("Order number must be positive: " + orderNumber);
+        }
+        int epochDay = Math.toIntExact(orderDate.toEpochDay());
+        int slot = findSlot(orderNumber);
+        if (orderNumbers[slot] == EMPTY){
+            orderNumbers[slot] = orderNumber;
+            epochDays[slot] = epochDay;
+            size++;
+            recordChange(orderNumber, epochDay);
+            if (size * 4 >= orderNumbers.length * 3){
+                resize(orderNumbers.length * 2);
+            }
+        }
+        else if (epochDays[slot] != epochDay){
+            epochDays[slot] = epochDay;
+            recordChange(orderNumber, epochDay);
+        }
+    }
+
+    /**
+     * Forgets an order number. Later entries in the same probe run are shifted
+     * back so lookups never need tombstones.
+     * @param orderNumber - Integer of order number
+     */
+    synchronized void remove(int orderNumber){
+        if (orderNumber <= 0){
+            return;
+        }
+        int slot = findSlot(orderNumber);
+        if (orderNumbers[slot] == EMPTY){
+            return;
+        }
+        int mask = orderNumbers.length - 1;
+        int gap = slot;
+        int next = (gap + 1) & mask;
+        while (orderNumbers[next] != EMPTY){
+            int home = homeSlot(orderNumbers[next]);
+            // Move the entry into the gap if the gap lies between its home slot and where it is now
+            if (((next - home) & mask) >= ((next - gap) & mask)){
+                orderNumbers[gap] = orderNumbers[next];
+                epochDays[gap] = epochDays[next];
+                gap = next;
+            }
+            next = (next + 1) & mask;
+        }
+        orderNumbers[gap] = EMPTY;
+        size--;
+        recordChange(-orderNumber, 0);
+    }
+
+    /**
+     * Forgets every order number that matches a condition
+     * @param condition - BiPredicate of order number and its date, true to
+     * forget the order number
+     */
+    synchronized void removeIf(BiPredicate<Integer, LocalDate> condition){
+        int[] matchingNumbers = new int[size];
+        int matchCount = 0;
+        for (int slot = 0; slot < orderNumbers.length; slot++){
+            if (orderNumbers[slot] != EMPTY 
+                    && condition.test(orderNumbers[slot], LocalDate.ofEpochDay(epochDays[slot]))){
+                matchingNumbers[matchCount++] = orderNumbers[slot];
+            }
+        }
+        for (int i = 0; i < matchCount; i++){
+            remove(matchingNumbers[i]);
+        }
+    }
+
+    /**
+     * Forgets every order number. The next save rewrites the index file.
+     */
+    synchronized void clear(){
+        orderNumbers = new int[MIN_CAPACITY];
+        epochDays = new int[MIN_CAPACITY];
+        size = 0;
+        unsavedChangeCount = 0;
+        rewriteNeeded = true;
+        complete = true;
+    }
+
+    synchronized int size(){
+        return size;
+    }
+
+    /**
+     * Replaces the index with the contents of the index file and its log.
+     * Anything after the last whole log record is cut off the log. A log 
+     * without an index file is ignored and deleted by the next save.
+     * @return - True if the file was read, false if it doesn't exist
+     * @throws IOException if the file exists but can't be read
+     */
+    synchronized boolean load() throws IOException{
+        clear();
+        if (!Files.exists(INDEX_FILE)){
+            return false;
+        }
+        ByteBuffer contents = ByteBuffer.wrap(Files.readAllBytes(INDEX_FILE));
+        if (contents.remaining() < 8 || contents.getInt() != FILE_MAGIC){
+            throw new IOException("Malformed order number index file: " + INDEX_FILE);
+        }
+        int count = contents.getInt();
+        if (count < 0 || contents.remaining() != count * 8L){
+            throw new IOException("Malformed order number index file: " + INDEX_FILE);
+        }
+        resize(capacityFor(count));
+        for (int i = 0; i < count; i++){
+            put(contents.getInt(), LocalDate.ofEpochDay(contents.getInt()));
+        }
+        replayLog();
+        unsavedChangeCount = 0;
+        rewriteNeeded = false;
+        return true;
+    }
+
+    /**
+     * Saves the entries changed since the index was last loaded or saved,
+     * by appending them to the log, or by rewriting the index file if it 
+     * was cleared or the log has outgrown it. An index that was never 
+     * loaded or cleared only holds its own changes, so it only appends.
+     * @throws IOException
+     */
+    synchronized void save() throws IOException{
+        long foldBytes = Math.max(MIN_LOG_BYTES_TO_FOLD, 8L * size);
+        if (rewriteNeeded || (complete && logBytes + (long) unsavedChangeCount / 2 * LOG_RECORD_BYTES > foldBytes)){
+            rewrite();
+            return;
+        }
+        if (unsavedChangeCount == 0){
+            return;
+        }
+        ByteBuffer records = ByteBuffer.allocate(unsavedChangeCount / 2 * LOG_RECORD_BYTES);
+        CRC32 crc = new CRC32();
+        for (int i = 0; i < unsavedChangeCount; i += 2){
+            crc.reset();
+            crc.update(ByteBuffer.allocate(8).putInt(unsavedChanges[i]).putInt(unsavedChanges[i + 1]).flip());
+            records.putInt(unsavedChanges[i]).putInt(unsavedChanges[i + 1]).putInt((int) crc.getValue());
+        }
+        records.flip();
+        try (FileChannel channel = FileChannel.open(LOG_FILE, StandardOpenOption.CREATE, 
+                StandardOpenOption.WRITE, StandardOpenOption.APPEND)){
+            while (records.hasRemaining()){
+                channel.write(records);
+            }
+        }
+        fileSyncer.sync(LOG_FILE);
+        logBytes += records.limit();
+        unsavedChangeCount = 0;
+    }
+
+    /**
+     * Writes every entry to the index file and deletes the log
+     */
+    private void rewrite() throws IOException{
+        ByteBuffer contents = ByteBuffer.allocate(8 + size * 8);
+        contents.putInt(FILE_MAGIC).putInt(size);
+        for (int slot = 0; slot < orderNumbers.length; slot++){
+            if (orderNumbers[slot] != EMPTY){
+                contents.putInt(orderNumbers[slot]).putInt(epochDays[slot]);
+            }
+        }
+        contents.flip();
+        fileWriter.write(INDEX_FILE, contents);
+        Files.deleteIfExists(LOG_FILE);
+        logBytes = 0;
+        unsavedChangeCount = 0;
+        rewriteNeeded = false;
+    }
+
+    /**
+     * Applies every whole log record to the index, cutting off a record
+     * left torn by a crash and anything after it
+     */
+    private void replayLog() throws IOException{
+        logBytes = 0;
+        if (!Files.exists(LOG_FILE)){
+            return;
+        }
+        ByteBuffer log = ByteBuffer.wrap(Files.readAllBytes(LOG_FILE));
+        CRC32 crc = new CRC32();
+        while (log.remaining() >= LOG_RECORD_BYTES){
+            int orderNumber = log.getInt(log.position());
+            int epochDay = log.getInt(log.position() + 4);
+            crc.reset();
+            crc.update(log.duplicate().limit(log.position() + 8));
+            if ((int) crc.getValue() != log.getInt(log.position() + 8) || orderNumber == 0){
+                break;
+            }
+            if (orderNumber > 0){
+                put(orderNumber, LocalDate.ofEpochDay(epochDay));
+            }
+            else{
+                remove(-orderNumber);
+            }
+            log.position(log.position() + LOG_RECORD_BYTES);
+        }
+        logBytes = log.position();
+        if (logBytes < log.limit()){
+            try (FileChannel channel = FileChannel.open(LOG_FILE, StandardOpenOption.WRITE)){
+                channel.truncate(logBytes);
+            }
+        }
+    }
+
+    /**
+     * Remembers a changed entry to write on the next save
+     * @param orderNumber - Integer of order number, negated for a removal
+     * @param epochDay - Integer epoch day of order date, 0 for a removal
+     */
+    private void recordChange(int orderNumber, int epochDay){
+        if (rewriteNeeded){
+            return;
+        }
+        if (unsavedChangeCount + 2 > unsavedChanges.length){
+            unsavedChanges = Arrays.copyOf(unsavedChanges, unsavedChanges.length * 2);
+        }
+        unsavedChanges[unsavedChangeCount++] = orderNumber;
+        unsavedChanges[unsavedChangeCount++] = epochDay;
+    }
+
+    /**
+     * Returns the slot holding an order number, or the empty slot where it
+     * would be inserted
+     */
+    private int findSlot(int orderNumber){
+        int mask = orderNumbers.length - 1;
+        int slot = homeSlot(orderNumber);
+        while (orderNumbers[slot] != EMPTY && orderNumbers[slot] != orderNumber){
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    private int homeSlot(int orderNumber){
+        int hash = orderNumber * 0x9E3779B9;
+        return (hash ^ (hash >>> 16)) & (orderNumbers.length - 1);
+    }
+
+    private void resize(int capacity){
+        int[] oldOrderNumbers = orderNumbers;
+        int[] oldEpochDays = epochDays;
+        orderNumbers = new int[capacity];
+        epochDays = new int[capacity];
+        for (int i = 0; i < oldOrderNumbers.length; i++){
+            if (oldOrderNumbers[i] != EMPTY){
+                int slot = findSlot(oldOrderNumbers[i]);
+                orderNumbers[slot] = oldOrderNumbers[i];
+                epochDays[slot] = oldEpochDays[i];
+            }
+        }
+    }
+
+    private static int capacityFor(int count){
+        int capacity = MIN_CAPACITY;
+        while (count * 4 >= capacity * 3){
+            capacity *= 2;
+        }
+        return capacity;
+    }
+}
@@ -0,0 +1,103 @@
+/*
+ * @author Austin Wong
+ * email: austinwongdev@gmail.com
+ * date: Oct 18, 2026
+ * purpose:
+ */
+
+package com.aaw.flooring.dao;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Hands out order numbers in O(1) and keeps the next unused number in a
+ * small file, so it never has to be found by scanning every order.
+ * @author Austin Wong
+ */
+class OrderNumberSequence {
+
+    private final Path SEQUENCE_FILE;
+    private final AtomicInteger nextOrderNumber = new AtomicInteger(1);
+    private final AtomicFileWriter fileWriter;
+    private int savedOrderNumber = -1;
+
+    OrderNumberSequence(Path sequenceFile, AtomicFileWriter fileWriter){
+        this.SEQUENCE_FILE = sequenceFile;
+        this.fileWriter = fileWriter;
+    }
+
+    /**
+     * Reads the next order number from the sequence file
+     * @return - True if the file was read, false if it doesn't exist
+     * @throws IOException if the file exists but can't be read
+     */
+    synchronized boolean load() throws IOException{
+        if (!Files.exists(SEQUENCE_FILE)){
+            nextOrderNumber.set(1);
+            savedOrderNumber = -1;
+            return false;
+        }
+        String contents = new String(Files.readAllBytes(SEQUENCE_FILE), StandardCharsets.UTF_8).trim();
+        try{
+            nextOrderNumber.set(Integer.parseInt(contents));
+        } catch (NumberFormatException e){
+            throw new IOException("Malformed order number sequence file: " + contents, e);
+        }
+        savedOrderNumber = nextOrderNumber.get();
+        return true;
+    }
+
+    /**
+     * Returns the next order number without using it up
+     * @return - Integer of next order number
+     */
+    int peek(){
+        return nextOrderNumber.get();
+    }
+
+    /**
+     * Uses up a block of consecutive order numbers
+     * @param count - Integer number of order numbers to allocate
+     * @return - Integer of first order number in block
+     */
+    int allocateBlock(int count){
+        if (count < 1){
+            throw new IllegalArgumentException("Block size must be at least 1");
+        }
+        return nextOrderNumber.getAndAdd(count);
+    }
+
+    /**
+     * Moves the sequence past an order number that is already in use
+     * @param orderNumber - Integer of existing order number
+     */
+    void observe(int orderNumber){
+        nextOrderNumber.accumulateAndGet(orderNumber + 1, Math::max);
+    }
+
+    /**
+     * Writes the next order number to the sequence file if it changed since
+     * it was last loaded or saved. A sequence that was never loaded first
+     * moves past the number in the file, so the file never goes backwards.
+     * @throws IOException
+     */
+    synchronized void save() throws IOException{
+        if (savedOrderNumber < 0 && Files.exists(SEQUENCE_FILE)){
+            int nextInMemory = nextOrderNumber.get();
+            load();
+            observe(nextInMemory - 1);
+        }
+        int orderNumber = nextOrderNumber.get();
+        if (orderNumber == savedOrderNumber){
+            return;
+        }
+        fileWriter.write(SEQUENCE_FILE, ByteBuffer.wrap(
+                Integer.toString(orderNumber).getBytes(StandardCharsets.UTF_8)));
+        savedOrderNumber = orderNumber;
+    }
+}
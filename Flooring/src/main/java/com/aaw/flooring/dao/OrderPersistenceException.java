@@ -7,6 +7,10 @@
 
 package com.aaw.flooring.dao;
 
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.util.Map;
+
 /**
  *
  * @author Austin Wong
@@ -20,4 +24,42 @@ public class OrderPersistenceException extends Exception{
     public OrderPersistenceException(String message, Throwable cause){
         super(message, cause);
     }
+    
+    /**
+     * Reports every date that failed to save. The first failure is the 
+     * cause and the rest are suppressed exceptions.
+     * @param failures - Map from failed date to its exception, in date order
+     */
+    public OrderPersistenceException(Map<LocalDate, Exception> failures){
+        this(failures, null);
+    }
+    
+    /**
+     * Reports every date that failed to save, followed by a note. The first
+     * failure is the cause and the rest are suppressed exceptions.
+     * @param failures - Map from failed date to its exception, in date order
+     * @param note - String to add after the failed dates, or null
+     */
+    public OrderPersistenceException(Map<LocalDate, Exception> failures, String note){
+        super(generateFailureMessage(failures, note), failures.values().iterator().next());
+        for (Exception failure : failures.values()){
+            if (failure != getCause()){
+                addSuppressed(failure);
+            }
+        }
+    }
+    
+    private static String generateFailureMessage(Map<LocalDate, Exception> failures, String note){
+        StringBuilder message = new StringBuilder("Could not save order data for ")
+                .append(failures.size()).append(failures.size() == 1 ? " date:" : " dates:");
+        for (Map.Entry<LocalDate, Exception> failure : failures.entrySet()){
+            message.append(System.lineSeparator())
+                    .append(failure.getKey().format(DateTimeFormatter.ofPattern("M/d/yyyy")))
+                    .append(" - ").append(failure.getValue().getMessage());
+        }
+        if (note != null){
+            message.append(System.lineSeparator()).append(note);
+        }
+        return message.toString();
+    }
 }
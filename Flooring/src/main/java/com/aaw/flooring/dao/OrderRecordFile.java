@@ -0,0 +1,482 @@
+/*
+ * @author Austin Wong
+ * email: austinwongdev@gmail.com
+ * date: Oct 18, 2026
+ * purpose:
+ */
+
+package com.aaw.flooring.dao;
+
+import com.aaw.flooring.model.Order;
+import com.aaw.flooring.model.Product;
+import com.aaw.flooring.model.StateTax;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.function.IntConsumer;
+import java.util.zip.CRC32;
+
+/**
+ * Order file made of fixed-width binary records, so one order can be read or
+ * overwritten with a single positioned read or write however many orders
+ * share its date:
+ *
+ *   header: magic, version, record width, record count, live count,
+ *           highest order number
+ *   records: one per order, sorted by order number
+ *   index: order number and record slot per record, sorted by order number
+ *
+ * Each record holds the order's fields at fixed offsets, a removed flag, and
+ * a CRC32 of the record so a torn write is caught on read. A record that 
+ * fails its checksum is skipped rather than failing the whole date: it is 
+ * copied to a .damaged file next to the record file and reported once. 
+ * Removing an order only sets its flag. Adding an order means writing a new
+ * file. The index is read once per instance and kept in memory. The live 
+ * count in the header is only correct as first written; it is counted from
+ * the records instead, so an in-place change is a single record write.
+ * @author Austin Wong
+ */
+class OrderRecordFile {
+
+    static final String FILE_EXTENSION = ".rec";
+
+    private static final int FILE_MAGIC = 0x464C4F52; // "FLOR"
+    private static final int FILE_VERSION = 1;
+    private static final int HEADER_BYTES = 32;
+    private static final int RECORD_BYTES = 320;
+    private static final int NAME_BYTES = 160;
+    private static final int STATE_BYTES = 16;
+    private static final int PRODUCT_BYTES = 48;
+    private static final int FLAGS_OFFSET = 4;
+    private static final int CHECKSUM_OFFSET = RECORD_BYTES - 4;
+    private static final byte LIVE = 0;
+    private static final byte REMOVED = 1;
+    private static final byte NULL_SCALE = Byte.MIN_VALUE;
+
+    private final Path RECORD_FILE;
+    private final Path DAMAGED_FILE;
+    private final IntConsumer damagedRecordListener;
+    private final BitSet damagedSlots = new BitSet();
+    private int[] orderNumbers;
+    private int[] slots;
+    private int liveCount = -1;
+    private int maxOrderNumber;
+
+    /**
+     * @param recordFile - Path of record file
+     * @param damagedRecordListener - IntConsumer told the order number of 
+     * each damaged record, once per record
+     */
+    OrderRecordFile(Path recordFile, IntConsumer damagedRecordListener){
+        this.RECORD_FILE = recordFile;
+        this.DAMAGED_FILE = recordFile.resolveSibling(recordFile.getFileName() + ".damaged");
+        this.damagedRecordListener = damagedRecordListener;
+    }
+
+    /**
+     * Checks whether every field of an order fits in a record
+     * @param order - Order object
+     * @return - True if the order can be stored as a record
+     */
+    static boolean fits(Order order){
+        return order.getOrderNumber() > 0
+                && fits(order.getCustomerName(), NAME_BYTES)
+                && fits(order.getStateTax().getStateAbbreviation(), STATE_BYTES)
+                && fits(order.getProduct().getProductType(), PRODUCT_BYTES)
+                && fits(order.getStateTax().getTaxRate()) && fits(order.getArea())
+                && fits(order.getProduct().getCostPerSquareFoot())
+                && fits(order.getProduct().getLaborCostPerSquareFoot())
+                && fits(order.getMaterialCost()) && fits(order.getLaborCost())
+                && fits(order.getTax()) && fits(order.getTotal());
+    }
+
+    /**
+     * Builds a complete record file holding the given orders
+     * @param orders - Map from order number to Order object; every order
+     * must fit in a record
+     * @return - Bytes of the record file
+     */
+    static byte[] encode(NavigableMap<Integer, Order> orders){
+        int recordCount = orders.size();
+        ByteBuffer out = ByteBuffer.allocate(HEADER_BYTES + recordCount * (RECORD_BYTES + 8));
+        out.putInt(FILE_MAGIC).putInt(FILE_VERSION).putInt(RECORD_BYTES)
+                .putInt(recordCount).putInt(recordCount)
+                .putInt(orders.isEmpty() ? 0 : orders.lastKey());
+        out.position(HEADER_BYTES);
+        for (Order order : orders.values()){
+            out.put(encodeRecord(order, LIVE));
+        }
+        int slot = 0;
+        for (int orderNumber : orders.keySet()){
+            out.putInt(orderNumber).putInt(slot++);
+        }
+        return out.array();
+    }
+
+    boolean exists(){
+        return Files.exists(RECORD_FILE);
+    }
+
+    Path getPath(){
+        return RECORD_FILE;
+    }
+
+    /**
+     * Reads every order that hasn't been removed, skipping damaged records
+     * @param orderDate - LocalDate of orders in file
+     * @return - Map from order number to Order object sorted by order number
+     * @throws IOException if the file can't be read
+     */
+    synchronized NavigableMap<Integer, Order> readAll(LocalDate orderDate) throws IOException{
+        NavigableMap<Integer, Order> orders = new TreeMap<>();
+        try (FileChannel channel = FileChannel.open(RECORD_FILE, StandardOpenOption.READ)){
+            ByteBuffer contents = readFully(channel, 0, Math.toIntExact(channel.size()));
+            readIndex(contents);
+            for (int slot : slots){
+                ByteBuffer record = slice(contents, HEADER_BYTES + slot * RECORD_BYTES);
+                if (isLive(record, slot)){
+                    Order order = decodeRecord(record, orderDate);
+                    orders.put(order.getOrderNumber(), order);
+                }
+            }
+        }
+        liveCount = orders.size();
+        return orders;
+    }
+
+    /**
+     * Reads one order with a single positioned read
+     * @param orderNumber - Integer of order number
+     * @param orderDate - LocalDate of orders in file
+     * @return - Order object, or null if the file doesn't hold the order, it
+     * has been removed, or its record is damaged
+     * @throws IOException if the file can't be read
+     */
+    synchronized Order read(int orderNumber, LocalDate orderDate) throws IOException{
+        int slot = slotOf(orderNumber);
+        if (slot < 0){
+            return null;
+        }
+        try (FileChannel channel = FileChannel.open(RECORD_FILE, StandardOpenOption.READ)){
+            ByteBuffer record = readFully(channel, HEADER_BYTES + (long) slot * RECORD_BYTES, RECORD_BYTES);
+            return isLive(record, slot) ? decodeRecord(record, orderDate) : null;
+        }
+    }
+
+    /**
+     * Overwrites one order's record in place, bringing it back if it was removed
+     * @param order - Order object that fits in a record
+     * @return - True if written, false if the file has no record for the order
+     * @throws IOException
+     */
+    synchronized boolean update(Order order) throws IOException{
+        int slot = slotOf(order.getOrderNumber());
+        if (slot < 0){
+            return false;
+        }
+        try (FileChannel channel = FileChannel.open(RECORD_FILE, StandardOpenOption.READ, StandardOpenOption.WRITE)){
+            long position = HEADER_BYTES + (long) slot * RECORD_BYTES;
+            boolean wasLive = isLive(readFully(channel, position, RECORD_BYTES), slot);
+            writeFully(channel, position, ByteBuffer.wrap(encodeRecord(order, LIVE)));
+            damagedSlots.clear(slot);
+            if (!wasLive && liveCount >= 0){
+                liveCount++;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Sets an order's removed flag in place
+     * @param orderNumber - Integer of order number
+     * @return - True if the order was in the file and not already removed
+     * @throws IOException
+     */
+    synchronized boolean markRemoved(int orderNumber) throws IOException{
+        int slot = slotOf(orderNumber);
+        if (slot < 0){
+            return false;
+        }
+        try (FileChannel channel = FileChannel.open(RECORD_FILE, StandardOpenOption.READ, StandardOpenOption.WRITE)){
+            long position = HEADER_BYTES + (long) slot * RECORD_BYTES;
+            ByteBuffer record = readFully(channel, position, RECORD_BYTES);
+            if (record.get(FLAGS_OFFSET) != LIVE){
+                return false;
+            }
+            boolean wasLive = isLive(record, slot);
+            record.put(FLAGS_OFFSET, REMOVED);
+            record.putInt(CHECKSUM_OFFSET, checksumOf(record));
+            writeFully(channel, position, record);
+            damagedSlots.clear(slot);
+            if (wasLive && liveCount >= 0){
+                liveCount--;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Returns whether the file has a record for an order, removed or not
+     * @param orderNumber - Integer of order number
+     * @return - True if the order has a record
+     * @throws IOException
+     */
+    synchronized boolean hasRecord(int orderNumber) throws IOException{
+        return slotOf(orderNumber) >= 0;
+    }
+
+    /**
+     * Returns the number of every order that hasn't been removed, skipping
+     * damaged records
+     * @return - Array of order numbers in order
+     * @throws IOException
+     */
+    synchronized int[] liveOrderNumbers() throws IOException{
+        try (FileChannel channel = FileChannel.open(RECORD_FILE, StandardOpenOption.READ)){
+            ByteBuffer contents = readFully(channel, 0, Math.toIntExact(channel.size()));
+            readIndex(contents);
+            int[] liveNumbers = new int[orderNumbers.length];
+            int count = 0;
+            for (int i = 0; i < orderNumbers.length; i++){
+                if (isLive(slice(contents, HEADER_BYTES + slots[i] * RECORD_BYTES), slots[i])){
+                    liveNumbers[count++] = orderNumbers[i];
+                }
+            }
+            liveCount = count;
+            return Arrays.copyOf(liveNumbers, count);
+        }
+    }
+
+    /**
+     * Returns how many orders haven't been removed, counted from the records
+     * the first time it is needed
+     * @return - Integer count of live, undamaged records
+     * @throws IOException
+     */
+    synchronized int getLiveCount() throws IOException{
+        if (liveCount < 0){
+            liveOrderNumbers();
+        }
+        return liveCount;
+    }
+
+    synchronized int getMaxOrderNumber() throws IOException{
+        ensureIndexRead();
+        return maxOrderNumber;
+    }
+
+    /**
+     * Returns the record slot of an order, or -1 if it has none
+     */
+    private int slotOf(int orderNumber) throws IOException{
+        ensureIndexRead();
+        int i = Arrays.binarySearch(orderNumbers, orderNumber);
+        return i < 0 ? -1 : slots[i];
+    }
+
+    private void ensureIndexRead() throws IOException{
+        if (orderNumbers != null){
+            return;
+        }
+        try (FileChannel channel = FileChannel.open(RECORD_FILE, StandardOpenOption.READ)){
+            ByteBuffer header = readFully(channel, 0, HEADER_BYTES);
+            int recordCount = header.getInt(12);
+            long indexOffset = HEADER_BYTES + (long) recordCount * RECORD_BYTES;
+            if (recordCount < 0 || indexOffset + recordCount * 8L > channel.size()){
+                throw new IOException("Malformed record file: " + RECORD_FILE);
+            }
+            readIndex(header, readFully(channel, indexOffset, recordCount * 8));
+        }
+    }
+
+    /**
+     * Reads the header and index out of the complete file contents
+     */
+    private void readIndex(ByteBuffer contents) throws IOException{
+        if (contents.limit() < HEADER_BYTES){
+            throw new IOException("Malformed record file: " + RECORD_FILE);
+        }
+        int recordCount = contents.getInt(12);
+        long indexOffset = HEADER_BYTES + (long) recordCount * RECORD_BYTES;
+        if (recordCount < 0 || indexOffset + recordCount * 8L > contents.limit()){
+            throw new IOException("Malformed record file: " + RECORD_FILE);
+        }
+        readIndex(contents, slice(contents, (int) indexOffset, recordCount * 8));
+    }
+
+    private void readIndex(ByteBuffer header, ByteBuffer index) throws IOException{
+        if (header.getInt(0) != FILE_MAGIC || header.getInt(4) != FILE_VERSION
+                || header.getInt(8) != RECORD_BYTES){
+            throw new IOException("Unrecognized record file: " + RECORD_FILE);
+        }
+        int recordCount = header.getInt(12);
+        int[] newOrderNumbers = new int[recordCount];
+        int[] newSlots = new int[recordCount];
+        for (int i = 0; i < recordCount; i++){
+            newOrderNumbers[i] = index.getInt(i * 8);
+            newSlots[i] = index.getInt(i * 8 + 4);
+            if (newSlots[i] < 0 || newSlots[i] >= recordCount
+                    || (i > 0 && newOrderNumbers[i] <= newOrderNumbers[i - 1])){
+                throw new IOException("Malformed record file index: " + RECORD_FILE);
+            }
+        }
+        orderNumbers = newOrderNumbers;
+        slots = newSlots;
+        maxOrderNumber = header.getInt(20);
+    }
+
+    /**
+     * Returns whether a record holds an order that hasn't been removed. A 
+     * record that fails its checksum is copied to the damaged file, unless 
+     * an earlier read already copied it, and reported the first time it is
+     * found. It counts as removed.
+     */
+    private boolean isLive(ByteBuffer record, int slot) throws IOException{
+        if (record.getInt(CHECKSUM_OFFSET) == checksumOf(record)){
+            return record.get(FLAGS_OFFSET) == LIVE;
+        }
+        if (!damagedSlots.get(slot)){
+            damagedSlots.set(slot);
+            byte[] recordBytes = new byte[RECORD_BYTES];
+            record.duplicate().position(0).get(recordBytes);
+            if (!isKeptAsDamaged(recordBytes)){
+                Files.write(DAMAGED_FILE, recordBytes, StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+            }
+            damagedRecordListener.accept(record.getInt(0));
+        }
+        return false;
+    }
+
+    private boolean isKeptAsDamaged(byte[] recordBytes) throws IOException{
+        if (!Files.exists(DAMAGED_FILE)){
+            return false;
+        }
+        byte[] damagedRecords = Files.readAllBytes(DAMAGED_FILE);
+        for (int offset = 0; offset + RECORD_BYTES <= damagedRecords.length; offset += RECORD_BYTES){
+            if (Arrays.equals(damagedRecords, offset, offset + RECORD_BYTES, recordBytes, 0, RECORD_BYTES)){
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static byte[] encodeRecord(Order order, byte flags){
+        ByteBuffer record = ByteBuffer.allocate(RECORD_BYTES);
+        record.putInt(order.getOrderNumber());
+        record.put(flags);
+        putString(record, order.getCustomerName(), NAME_BYTES);
+        putString(record, order.getStateTax().getStateAbbreviation(), STATE_BYTES);
+        putString(record, order.getProduct().getProductType(), PRODUCT_BYTES);
+        putDecimal(record, order.getStateTax().getTaxRate());
+        putDecimal(record, order.getArea());
+        putDecimal(record, order.getProduct().getCostPerSquareFoot());
+        putDecimal(record, order.getProduct().getLaborCostPerSquareFoot());
+        putDecimal(record, order.getMaterialCost());
+        putDecimal(record, order.getLaborCost());
+        putDecimal(record, order.getTax());
+        putDecimal(record, order.getTotal());
+        record.putInt(CHECKSUM_OFFSET, checksumOf(record));
+        return record.array();
+    }
+
+    private Order decodeRecord(ByteBuffer record, LocalDate orderDate) throws IOException{
+        record.position(0);
+        int orderNumber = record.getInt();
+        record.get();
+        String customerName = getString(record, NAME_BYTES);
+        String stateAbbreviation = getString(record, STATE_BYTES);
+        String productType = getString(record, PRODUCT_BYTES);
+        BigDecimal taxRate = getDecimal(record);
+        BigDecimal area = getDecimal(record);
+        BigDecimal costPerSquareFoot = getDecimal(record);
+        BigDecimal laborCostPerSquareFoot = getDecimal(record);
+        return new Order(orderDate, orderNumber, customerName,
+                new StateTax(stateAbbreviation, taxRate),
+                new Product(productType, costPerSquareFoot, laborCostPerSquareFoot),
+                area, getDecimal(record), getDecimal(record), getDecimal(record), getDecimal(record));
+    }
+
+    private static boolean fits(String value, int maxBytes){
+        return value != null && value.getBytes(StandardCharsets.UTF_8).length <= maxBytes;
+    }
+
+    private static boolean fits(BigDecimal value){
+        return value == null || (value.unscaledValue().bitLength() < 64
+                && value.scale() > NULL_SCALE && value.scale() <= Byte.MAX_VALUE);
+    }
+
+    private static void putString(ByteBuffer out, String value, int maxBytes){
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.putShort((short) bytes.length);
+        int start = out.position();
+        out.put(bytes);
+        out.position(start + maxBytes);
+    }
+
+    private static String getString(ByteBuffer in, int maxBytes) throws IOException{
+        int length = in.getShort();
+        if (length < 0 || length > maxBytes){
+            throw new IOException("Malformed string in record");
+        }
+        String value = new String(in.array(), in.arrayOffset() + in.position(), length, StandardCharsets.UTF_8);
+        in.position(in.position() + maxBytes);
+        return value;
+    }
+
+    private static void putDecimal(ByteBuffer out, BigDecimal value){
+        if (value == null){
+            out.putLong(0).put(NULL_SCALE);
+        }
+        else{
+            out.putLong(value.unscaledValue().longValueExact()).put((byte) value.scale());
+        }
+    }
+
+    private static BigDecimal getDecimal(ByteBuffer in){
+        long unscaledValue = in.getLong();
+        byte scale = in.get();
+        return scale == NULL_SCALE ? null : BigDecimal.valueOf(unscaledValue, scale);
+    }
+
+    private static int checksumOf(ByteBuffer record){
+        CRC32 crc = new CRC32();
+        crc.update(record.array(), record.arrayOffset(), CHECKSUM_OFFSET);
+        return (int) crc.getValue();
+    }
+
+    private static ByteBuffer slice(ByteBuffer contents, int offset){
+        return slice(contents, offset, RECORD_BYTES);
+    }
+
+    private static ByteBuffer slice(ByteBuffer contents, int offset, int length){
+        return ByteBuffer.wrap(contents.array(), contents.arrayOffset() + offset, length).slice();
+    }
+
+    private static ByteBuffer readFully(FileChannel channel, long position, int length) throws IOException{
+        ByteBuffer buffer = ByteBuffer.allocate(length);
+        while (buffer.hasRemaining()){
+            if (channel.read(buffer, position + buffer.position()) < 0){
+                throw new IOException("Record file ended early");
+            }
+        }
+        buffer.flip();
+        return buffer;
+    }
+
+    private static void writeFully(FileChannel channel, long position, ByteBuffer contents) throws IOException{
+        contents.rewind();
+        while (contents.hasRemaining()){
+            channel.write(contents, position + contents.position());
+        }
+    }
+}
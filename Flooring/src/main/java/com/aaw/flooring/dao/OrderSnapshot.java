@@ -0,0 +1,367 @@
+/*
+ * @author Austin Wong
+ * email: austinwongdev@gmail.com
+ * date: Oct 18, 2026
+ * purpose:
+ */
+
+package com.aaw.flooring.dao;
+
+import com.aaw.flooring.model.Order;
+import com.aaw.flooring.model.Product;
+import com.aaw.flooring.model.StateTax;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.zip.CRC32;
+
+/**
+ * Binary copy of the order store, read at startup instead of parsing every
+ * order file. The file holds a header, a table of the distinct StateTaxes
+ * and Products, and one section per date:
+ *
+ *   magic, version
+ *   table length, table, table CRC32
+ *   date count
+ *   per date: epoch day, order file mtime, order file size,
+ *             section length, section, section CRC32
+ *
+ * Each section remembers the mtime and size of the order file it was taken
+ * from, so a date whose file has changed since is read from the file instead.
+ * Sections are only decoded when their date is needed.
+ * @author Austin Wong
+ */
+class OrderSnapshot {
+
+    private static final int FILE_MAGIC = 0x464C4F53; // "FLOS"
+    private static final int FILE_VERSION = 1;
+    private static final byte NULL_DECIMAL = -1;
+    private static final byte LONG_DECIMAL = 0;
+
+    private final Path SNAPSHOT_FILE;
+    private final AtomicFileWriter fileWriter;
+
+    OrderSnapshot(Path snapshotFile, AtomicFileWriter fileWriter){
+        this.SNAPSHOT_FILE = snapshotFile;
+        this.fileWriter = fileWriter;
+    }
+
+    /**
+     * Orders for one date as stored in the snapshot, not yet decoded
+     */
+    static class Section {
+        private final LocalDate orderDate;
+        private final long fileModifiedMillis;
+        private final long fileSize;
+        private final ByteBuffer contents;
+        private final int checksum;
+        private final List<StateTax> stateTaxes;
+        private final List<Product> products;
+
+        private Section(LocalDate orderDate, long fileModifiedMillis, long fileSize,
+                ByteBuffer contents, int checksum, List<StateTax> stateTaxes, List<Product> products){
+            this.orderDate = orderDate;
+            this.fileModifiedMillis = fileModifiedMillis;
+            this.fileSize = fileSize;
+            this.contents = contents;
+            this.checksum = checksum;
+            this.stateTaxes = stateTaxes;
+            this.products = products;
+        }
+
+        LocalDate getOrderDate(){
+            return orderDate;
+        }
+
+        /**
+         * Checks whether an order file is unchanged since this section was taken
+         * @param orderFile - Path of the date's order file
+         * @return - True if the file's mtime and size match the snapshot
+         */
+        boolean matches(Path orderFile){
+            try{
+                return Files.size(orderFile) == fileSize &&
+                        Files.getLastModifiedTime(orderFile).toMillis() == fileModifiedMillis;
+            } catch (IOException e){
+                return false;
+            }
+        }
+
+        /**
+         * Decodes the orders in this section
+         * @return - Map from order number to Order object sorted by order number
+         * @throws IOException if the section fails its checksum or is malformed
+         */
+        NavigableMap<Integer, Order> decode() throws IOException{
+            ByteBuffer in = contents.duplicate();
+            CRC32 crc = new CRC32();
+            crc.update(in.duplicate());
+            if ((int) crc.getValue() != checksum){
+                throw new IOException("Snapshot section for " + orderDate + " failed its checksum");
+            }
+            try{
+                NavigableMap<Integer, Order> ordersOnDate = new TreeMap<>();
+                int orderCount = in.getInt();
+                for (int i = 0; i < orderCount; i++){
+                    int orderNumber = in.getInt();
+                    String customerName = getString(in);
+                    StateTax stateTax = stateTaxes.get(in.getInt());
+                    Product product = products.get(in.getInt());
+                    ordersOnDate.put(orderNumber, new Order(orderDate, orderNumber, customerName,
+                            stateTax, product, getDecimal(in), getDecimal(in),
+                            getDecimal(in), getDecimal(in), getDecimal(in)));
+                }
+                return ordersOnDate;
+            } catch (RuntimeException e){
+                throw new IOException("Malformed snapshot section for " + orderDate, e);
+            }
+        }
+    }
+
+    /**
+     * Reads the snapshot file in one sequential read and splits it into
+     * sections without decoding any orders
+     * @return - Map from order date to section, empty if there is no snapshot
+     * @throws IOException if the file can't be read or its header or table
+     * is damaged
+     */
+    Map<LocalDate, Section> read() throws IOException{
+        Map<LocalDate, Section> sections = new HashMap<>();
+        if (!Files.exists(SNAPSHOT_FILE)){
+            return sections;
+        }
+        ByteBuffer in;
+        try (FileChannel channel = FileChannel.open(SNAPSHOT_FILE, StandardOpenOption.READ)){
+            in = ByteBuffer.allocate(Math.toIntExact(channel.size()));
+            while (in.hasRemaining()){
+                if (channel.read(in) < 0){
+                    break;
+                }
+            }
+            in.flip();
+        }
+        try{
+            if (in.getInt() != FILE_MAGIC || in.getInt() != FILE_VERSION){
+                throw new IOException("Unrecognized snapshot file: " + SNAPSHOT_FILE);
+            }
+
+            // Shared StateTaxes and Products
+            ByteBuffer table = slice(in, in.getInt());
+            if (!checksumMatches(table, in.getInt())){
+                throw new IOException("Snapshot table failed its checksum");
+            }
+            List<StateTax> stateTaxes = new ArrayList<>();
+            int stateTaxCount = table.getInt();
+            for (int i = 0; i < stateTaxCount; i++){
+                stateTaxes.add(new StateTax(getString(table), getDecimal(table)));
+            }
+            List<Product> products = new ArrayList<>();
+            int productCount = table.getInt();
+            for (int i = 0; i < productCount; i++){
+                products.add(new Product(getString(table), getDecimal(table), getDecimal(table)));
+            }
+
+            // Date sections, checked when decoded
+            int dateCount = in.getInt();
+            for (int i = 0; i < dateCount; i++){
+                LocalDate orderDate = LocalDate.ofEpochDay(in.getInt());
+                long fileModifiedMillis = in.getLong();
+                long fileSize = in.getLong();
+                ByteBuffer contents = slice(in, in.getInt());
+                sections.put(orderDate, new Section(orderDate, fileModifiedMillis, fileSize,
+                        contents, in.getInt(), stateTaxes, products));
+            }
+        } catch (RuntimeException e){
+            throw new IOException("Malformed snapshot file: " + SNAPSHOT_FILE, e);
+        }
+        return sections;
+    }
+
+    /**
+     * Replaces the snapshot with the given orders, and copies sections of
+     * the current snapshot for dates that weren't given without decoding 
+     * them. The current table goes first in the new one, so the copied 
+     * sections' table positions stay valid.
+     * @param ordersByDate - Map from order date to that date's orders
+     * @param orderFiles - Map from order date to the order file the orders
+     * were read from or saved to. Dates without a file are left out.
+     * @param keptSections - List of sections from one read of this snapshot
+     * to copy into the new one
+     * @throws IOException
+     */
+    void write(Map<LocalDate, NavigableMap<Integer, Order>> ordersByDate,
+            Map<LocalDate, Path> orderFiles, List<Section> keptSections) throws IOException{
+        Map<StateTax, Integer> stateTaxIndexes = new HashMap<>();
+        Map<Product, Integer> productIndexes = new HashMap<>();
+        if (!keptSections.isEmpty()){
+            for (StateTax stateTax : keptSections.get(0).stateTaxes){
+                stateTaxIndexes.putIfAbsent(stateTax, stateTaxIndexes.size());
+            }
+            for (Product product : keptSections.get(0).products){
+                productIndexes.putIfAbsent(product, productIndexes.size());
+            }
+        }
+        ByteArrayOutputStream sectionBytes = new ByteArrayOutputStream();
+        DataOutputStream sections = new DataOutputStream(sectionBytes);
+        ByteArrayOutputStream ordersBytes = new ByteArrayOutputStream();
+        DataOutputStream orders = new DataOutputStream(ordersBytes);
+        int dateCount = 0;
+
+        for (Map.Entry<LocalDate, NavigableMap<Integer, Order>> entry : ordersByDate.entrySet()){
+            Path orderFile = orderFiles.get(entry.getKey());
+            if (orderFile == null || !Files.exists(orderFile)){
+                continue;
+            }
+            ordersBytes.reset();
+            orders.writeInt(entry.getValue().size());
+            for (Order order : entry.getValue().values()){
+                orders.writeInt(order.getOrderNumber());
+                putString(orders, order.getCustomerName());
+                orders.writeInt(stateTaxIndexes.computeIfAbsent(order.getStateTax(),
+                        (stateTax) -> stateTaxIndexes.size()));
+                orders.writeInt(productIndexes.computeIfAbsent(order.getProduct(),
+                        (product) -> productIndexes.size()));
+                putDecimal(orders, order.getArea());
+                putDecimal(orders, order.getMaterialCost());
+                putDecimal(orders, order.getLaborCost());
+                putDecimal(orders, order.getTax());
+                putDecimal(orders, order.getTotal());
+            }
+            sections.writeInt(Math.toIntExact(entry.getKey().toEpochDay()));
+            sections.writeLong(Files.getLastModifiedTime(orderFile).toMillis());
+            sections.writeLong(Files.size(orderFile));
+            writeWithChecksum(sections, ordersBytes.toByteArray());
+            dateCount++;
+        }
+        for (Section keptSection : keptSections){
+            if (ordersByDate.containsKey(keptSection.orderDate)){
+                continue;
+            }
+            byte[] contents = new byte[keptSection.contents.remaining()];
+            keptSection.contents.duplicate().get(contents);
+            sections.writeInt(Math.toIntExact(keptSection.orderDate.toEpochDay()));
+            sections.writeLong(keptSection.fileModifiedMillis);
+            sections.writeLong(keptSection.fileSize);
+            sections.writeInt(contents.length);
+            sections.write(contents);
+            sections.writeInt(keptSection.checksum);
+            dateCount++;
+        }
+
+        // Table in index order
+        StateTax[] stateTaxes = new StateTax[stateTaxIndexes.size()];
+        stateTaxIndexes.forEach((stateTax, index) -> stateTaxes[index] = stateTax);
+        Product[] products = new Product[productIndexes.size()];
+        productIndexes.forEach((product, index) -> products[index] = product);
+        ByteArrayOutputStream tableBytes = new ByteArrayOutputStream();
+        DataOutputStream table = new DataOutputStream(tableBytes);
+        table.writeInt(stateTaxes.length);
+        for (StateTax stateTax : stateTaxes){
+            putString(table, stateTax.getStateAbbreviation());
+            putDecimal(table, stateTax.getTaxRate());
+        }
+        table.writeInt(products.length);
+        for (Product product : products){
+            putString(table, product.getProductType());
+            putDecimal(table, product.getCostPerSquareFoot());
+            putDecimal(table, product.getLaborCostPerSquareFoot());
+        }
+
+        ByteArrayOutputStream fileBytes = new ByteArrayOutputStream(sectionBytes.size() + tableBytes.size() + 32);
+        DataOutputStream file = new DataOutputStream(fileBytes);
+        file.writeInt(FILE_MAGIC);
+        file.writeInt(FILE_VERSION);
+        writeWithChecksum(file, tableBytes.toByteArray());
+        file.writeInt(dateCount);
+        sectionBytes.writeTo(file);
+        file.flush();
+        fileWriter.write(SNAPSHOT_FILE, ByteBuffer.wrap(fileBytes.toByteArray()));
+    }
+
+    private static void writeWithChecksum(DataOutputStream out, byte[] bytes) throws IOException{
+        CRC32 crc = new CRC32();
+        crc.update(bytes);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+        out.writeInt((int) crc.getValue());
+    }
+
+    private static boolean checksumMatches(ByteBuffer bytes, int checksum){
+        CRC32 crc = new CRC32();
+        crc.update(bytes.duplicate());
+        return (int) crc.getValue() == checksum;
+    }
+
+    /**
+     * Returns the next length bytes of in as their own buffer and skips past them
+     */
+    private static ByteBuffer slice(ByteBuffer in, int length){
+        ByteBuffer slice = in.duplicate();
+        slice.limit(slice.position() + length);
+        in.position(in.position() + length);
+        return slice.slice();
+    }
+
+    private static void putString(DataOutputStream out, String value) throws IOException{
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String getString(ByteBuffer in){
+        byte[] bytes = new byte[in.getInt()];
+        in.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Writes a BigDecimal as its scale and unscaled value, using a plain long
+     * for the unscaled value whenever it fits
+     */
+    private static void putDecimal(DataOutputStream out, BigDecimal value) throws IOException{
+        if (value == null){
+            out.writeByte(NULL_DECIMAL);
+            return;
+        }
+        BigInteger unscaled = value.unscaledValue();
+        if (unscaled.bitLength() < 64){
+            out.writeByte(LONG_DECIMAL);
+            out.writeLong(unscaled.longValue());
+        }
+        else{
+            byte[] bytes = unscaled.toByteArray();
+            out.writeByte(bytes.length);
+            out.write(bytes);
+        }
+        out.writeInt(value.scale());
+    }
+
+    private static BigDecimal getDecimal(ByteBuffer in){
+        byte length = in.get();
+        if (length == NULL_DECIMAL){
+            return null;
+        }
+        if (length == LONG_DECIMAL){
+            long unscaled = in.getLong();
+            return BigDecimal.valueOf(unscaled, in.getInt());
+        }
+        byte[] bytes = new byte[length];
+        in.get(bytes);
+        return new BigDecimal(new BigInteger(bytes), in.getInt());
+    }
+}
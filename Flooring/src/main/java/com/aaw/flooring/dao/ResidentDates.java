@@ -0,0 +1,111 @@
+/*
+ * @author Austin Wong
+ * email: austinwongdev@gmail.com
+ * date: Oct 18, 2026
+ * purpose:
+ */
+
+package com.aaw.flooring.dao;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Keeps track of which dates have their orders in memory, roughly how many
+ * bytes each one takes, and the order they were last used in, so the least
+ * recently used dates can be evicted once a memory budget is exceeded. Also
+ * counts cache hits, misses, and evictions.
+ * @author Austin Wong
+ */
+class ResidentDates {
+
+    private final long BYTES_PER_DATE = 256;
+    private final long BYTES_PER_ORDER = 640;
+    private final LinkedHashMap<LocalDate, Long> estimatedBytes = new LinkedHashMap<>(16, 0.75f, true);
+    private long totalBytes;
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    /**
+     * Marks a date as just used and updates its size
+     * @param orderDate - LocalDate of orders
+     * @param orderCount - Integer number of orders in memory on that date
+     */
+    synchronized void touch(LocalDate orderDate, int orderCount){
+        long bytes = BYTES_PER_DATE + orderCount * BYTES_PER_ORDER;
+        Long previousBytes = estimatedBytes.put(orderDate, bytes);
+        totalBytes += bytes - (previousBytes == null ? 0 : previousBytes);
+    }
+
+    /**
+     * Stops tracking a date whose orders are no longer in memory
+     * @param orderDate - LocalDate of orders
+     */
+    synchronized void forget(LocalDate orderDate){
+        Long previousBytes = estimatedBytes.remove(orderDate);
+        if (previousBytes != null){
+            totalBytes -= previousBytes;
+        }
+    }
+
+    synchronized void clear(){
+        estimatedBytes.clear();
+        totalBytes = 0;
+    }
+
+    /**
+     * Returns the estimated number of bytes used by every tracked date
+     * @return - long number of bytes
+     */
+    synchronized long totalBytes(){
+        return totalBytes;
+    }
+
+    /**
+     * Returns the dates that may be evicted, least recently used first. The
+     * most recently used date is never returned, so a single date larger
+     * than the budget isn't read back in on every use.
+     * @param firstResidentDate - LocalDate of first date that always stays in
+     * memory; it and every later date are left out
+     * @return - List of dates before firstResidentDate
+     */
+    synchronized List<LocalDate> leastRecentlyUsed(LocalDate firstResidentDate){
+        List<LocalDate> coldDates = new ArrayList<>();
+        int remaining = estimatedBytes.size();
+        for (Map.Entry<LocalDate, Long> entry : estimatedBytes.entrySet()){
+            if (--remaining > 0 && entry.getKey().isBefore(firstResidentDate)){
+                coldDates.add(entry.getKey());
+            }
+        }
+        return coldDates;
+    }
+
+    void recordHit(){
+        hits.increment();
+    }
+
+    void recordMiss(){
+        misses.increment();
+    }
+
+    void recordEviction(){
+        evictions.increment();
+    }
+
+    long getHits(){
+        return hits.sum();
+    }
+
+    long getMisses(){
+        return misses.sum();
+    }
+
+    long getEvictions(){
+        return evictions.sum();
+    }
+}
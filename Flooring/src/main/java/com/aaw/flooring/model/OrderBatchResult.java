@@ -0,0 +1,112 @@
+/*
+ * @author Austin Wong
+ * email: austinwongdev@gmail.com
+ * date: Oct 18, 2026
+ * purpose:
+ */
+
+package com.aaw.flooring.model;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Outcome of each request in a batch of adds, edits, or removals, in the
+ * order the requests were given, and whether the batch's changes were saved
+ * @author Austin Wong
+ */
+public class OrderBatchResult {
+
+    private final List<Item> items = new ArrayList<>();
+    private Exception saveFailure;
+
+    public enum Outcome {
+        ADDED, EDITED, UNCHANGED, REMOVED, FAILED
+    }
+
+    /**
+     * Outcome of one request
+     */
+    public static class Item {
+        private final OrderRequest request;
+        private final Outcome outcome;
+        private final Order order;
+        private final String errorMessage;
+
+        private Item(OrderRequest request, Outcome outcome, Order order, String errorMessage){
+            this.request = request;
+            this.outcome = outcome;
+            this.order = order;
+            this.errorMessage = errorMessage;
+        }
+
+        public OrderRequest getRequest(){
+            return request;
+        }
+
+        public Outcome getOutcome(){
+            return outcome;
+        }
+
+        /**
+         * Returns the added, edited, or removed order
+         * @return - Order object, or null if the request failed
+         */
+        public Order getOrder(){
+            return order;
+        }
+
+        /**
+         * Returns why the request failed
+         * @return - String error message, or null if the request succeeded
+         */
+        public String getErrorMessage(){
+            return errorMessage;
+        }
+    }
+
+    /**
+     * Records a request that was carried out
+     * @param request - OrderRequest carried out
+     * @param outcome - Outcome of request
+     * @param order - Order object added, edited, or removed
+     */
+    public void addSuccess(OrderRequest request, Outcome outcome, Order order){
+        items.add(new Item(request, outcome, order, null));
+    }
+
+    /**
+     * Records a request that couldn't be carried out
+     * @param request - OrderRequest that failed
+     * @param errorMessage - String explaining why
+     */
+    public void addFailure(OrderRequest request, String errorMessage){
+        items.add(new Item(request, Outcome.FAILED, null, errorMessage));
+    }
+
+    public List<Item> getItems(){
+        return Collections.unmodifiableList(items);
+    }
+
+    public int getSucceededCount(){
+        return (int) items.stream().filter((item) -> item.outcome != Outcome.FAILED).count();
+    }
+
+    public int getFailedCount(){
+        return items.size() - getSucceededCount();
+    }
+
+    /**
+     * Returns why the batch's changes couldn't be saved. They stay in memory
+     * and are saved with the next saveAllOrders.
+     * @return - Exception thrown by the save, or null if the changes were saved
+     */
+    public Exception getSaveFailure(){
+        return saveFailure;
+    }
+
+    public void setSaveFailure(Exception saveFailure){
+        this.saveFailure = saveFailure;
+    }
+}
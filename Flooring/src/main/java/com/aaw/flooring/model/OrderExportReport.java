@@ -0,0 +1,52 @@
+/*
+ * @author Austin Wong
+ * email: austinwongdev@gmail.com
+ * date: Oct 18, 2026
+ * purpose:
+ */
+
+package com.aaw.flooring.model;
+
+/**
+ * Summary of an order export: how many rows were written, where, and how
+ * fast
+ * @author Austin Wong
+ */
+public class OrderExportReport {
+
+    private final long rowCount;
+    private final String exportFilePath;
+    private final long elapsedNanos;
+
+    public OrderExportReport(long rowCount, String exportFilePath, long elapsedNanos){
+        this.rowCount = rowCount;
+        this.exportFilePath = exportFilePath;
+        this.elapsedNanos = elapsedNanos;
+    }
+
+    public long getRowCount(){
+        return rowCount;
+    }
+
+    public String getExportFilePath(){
+        return exportFilePath;
+    }
+
+    public long getElapsedMillis(){
+        return elapsedNanos / 1_000_000;
+    }
+
+    /**
+     * Returns how many rows were written per second
+     * @return - long rows per second, or 0 if no time was measured
+     */
+    public long getRowsPerSecond(){
+        return elapsedNanos > 0 ? rowCount * 1_000_000_000L / elapsedNanos : 0;
+    }
+
+    @Override
+    public String toString() {
+        return "Exported " + rowCount + (rowCount == 1 ? " row" : " rows") + " to " + exportFilePath
+                + " in " + getElapsedMillis() + " ms (" + getRowsPerSecond() + " rows/s)";
+    }
+}
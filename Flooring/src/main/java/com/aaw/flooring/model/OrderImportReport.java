@@ -0,0 +1,66 @@
+/*
+ * @author Austin Wong
+ * email: austinwongdev@gmail.com
+ * date: Oct 18, 2026
+ * purpose:
+ */
+
+package com.aaw.flooring.model;
+
+/**
+ * Summary of an order import: how many rows were read, imported, and
+ * rejected, and where rejected rows were written
+ * @author Austin Wong
+ */
+public class OrderImportReport {
+
+    private final long rowCount;
+    private final long importedCount;
+    private final long rejectedCount;
+    private final String errorFilePath;
+    private final long elapsedMillis;
+
+    public OrderImportReport(long rowCount, long importedCount, long rejectedCount,
+            String errorFilePath, long elapsedMillis){
+        this.rowCount = rowCount;
+        this.importedCount = importedCount;
+        this.rejectedCount = rejectedCount;
+        this.errorFilePath = errorFilePath;
+        this.elapsedMillis = elapsedMillis;
+    }
+
+    public long getRowCount(){
+        return rowCount;
+    }
+
+    public long getImportedCount(){
+        return importedCount;
+    }
+
+    public long getRejectedCount(){
+        return rejectedCount;
+    }
+
+    /**
+     * Returns the file rejected rows were written to
+     * @return - String path of error file, or null if no rows were rejected
+     */
+    public String getErrorFilePath(){
+        return errorFilePath;
+    }
+
+    public long getElapsedMillis(){
+        return elapsedMillis;
+    }
+
+    @Override
+    public String toString() {
+        String report = "Imported " + importedCount + " of " + rowCount
+                + (rowCount == 1 ? " row" : " rows") + " in " + elapsedMillis + " ms";
+        if (rejectedCount > 0){
+            report += "\nRejected " + rejectedCount + (rejectedCount == 1 ? " row" : " rows")
+                    + ", written to " + errorFilePath;
+        }
+        return report;
+    }
+}
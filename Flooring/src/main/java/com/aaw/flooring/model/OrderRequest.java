@@ -0,0 +1,92 @@
+/*
+ * @author Austin Wong
+ * email: austinwongdev@gmail.com
+ * date: Oct 18, 2026
+ * purpose:
+ */
+
+package com.aaw.flooring.model;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+/**
+ * One order to add, edit, or remove in a batch. New orders have no order
+ * number yet. Edits and removals name an existing order by number and date;
+ * an edit leaves any null field unchanged.
+ * @author Austin Wong
+ */
+public class OrderRequest {
+
+    private final int orderNumber;
+    private final LocalDate orderDate;
+    private final String customerName;
+    private final StateTax stateTax;
+    private final Product product;
+    private final BigDecimal area;
+
+    /**
+     * Requests a new order
+     * @param orderDate - LocalDate order will be fulfilled
+     * @param customerName - String name of customer
+     * @param stateTax - StateTax object for order
+     * @param product - Product object for order
+     * @param area - BigDecimal of flooring area in square feet
+     */
+    public OrderRequest(LocalDate orderDate, String customerName, StateTax stateTax,
+            Product product, BigDecimal area){
+        this(0, orderDate, customerName, stateTax, product, area);
+    }
+
+    /**
+     * Requests changes to an existing order
+     * @param orderNumber - Integer of existing order number
+     * @param orderDate - LocalDate of existing order
+     * @param customerName - String of new customer name, or null to keep it
+     * @param stateTax - New StateTax object, or null to keep it
+     * @param product - New Product object, or null to keep it
+     * @param area - BigDecimal of new flooring area, or null to keep it
+     */
+    public OrderRequest(int orderNumber, LocalDate orderDate, String customerName,
+            StateTax stateTax, Product product, BigDecimal area){
+        this.orderNumber = orderNumber;
+        this.orderDate = orderDate;
+        this.customerName = customerName;
+        this.stateTax = stateTax;
+        this.product = product;
+        this.area = area;
+    }
+
+    /**
+     * Requests removal of an existing order
+     * @param orderNumber - Integer of existing order number
+     * @param orderDate - LocalDate of existing order
+     */
+    public OrderRequest(int orderNumber, LocalDate orderDate){
+        this(orderNumber, orderDate, null, null, null, null);
+    }
+
+    public int getOrderNumber(){
+        return orderNumber;
+    }
+
+    public LocalDate getOrderDate(){
+        return orderDate;
+    }
+
+    public String getCustomerName(){
+        return customerName;
+    }
+
+    public StateTax getStateTax(){
+        return stateTax;
+    }
+
+    public Product getProduct(){
+        return product;
+    }
+
+    public BigDecimal getArea(){
+        return area;
+    }
+}
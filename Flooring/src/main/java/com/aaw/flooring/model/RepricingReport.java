@@ -0,0 +1,150 @@
+/*
+ * @author Austin Wong
+ * email: austinwongdev@gmail.com
+ * date: Oct 18, 2026
+ * purpose:
+ */
+
+package com.aaw.flooring.model;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.Collections;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+/**
+ * Summary of a repricing job: which orders were repriced or skipped, and how
+ * the total of the repriced orders changed for each state and product
+ * @author Austin Wong
+ */
+public class RepricingReport {
+
+    private int repricedOrderCount = 0;
+    private int skippedOrderCount = 0;
+    private final NavigableSet<LocalDate> repricedDates = new TreeSet<>();
+    private final Map<String, TotalChange> stateChanges = new TreeMap<>();
+    private final Map<String, TotalChange> productChanges = new TreeMap<>();
+
+    /**
+     * Sum of repriced order totals before and after repricing
+     */
+    public static class TotalChange {
+        private BigDecimal totalBefore = BigDecimal.ZERO;
+        private BigDecimal totalAfter = BigDecimal.ZERO;
+
+        private void add(BigDecimal orderTotalBefore, BigDecimal orderTotalAfter){
+            totalBefore = totalBefore.add(orderTotalBefore);
+            totalAfter = totalAfter.add(orderTotalAfter);
+        }
+
+        public BigDecimal getTotalBefore(){
+            return totalBefore;
+        }
+
+        public BigDecimal getTotalAfter(){
+            return totalAfter;
+        }
+
+        public BigDecimal getDelta(){
+            return totalAfter.subtract(totalBefore);
+        }
+    }
+
+    /**
+     * Records an order that has been repriced
+     * @param order - Order object after repricing
+     * @param totalBefore - BigDecimal of order's total before repricing
+     */
+    public void addRepricedOrder(Order order, BigDecimal totalBefore){
+        repricedOrderCount++;
+        repricedDates.add(order.getOrderDate());
+        stateChanges.computeIfAbsent(order.getStateTax().getStateAbbreviation(), (state) -> new TotalChange())
+                .add(totalBefore, order.getTotal());
+        productChanges.computeIfAbsent(order.getProduct().getProductType(), (product) -> new TotalChange())
+                .add(totalBefore, order.getTotal());
+    }
+
+    /**
+     * Records an order that couldn't be repriced because its product or
+     * state is no longer offered
+     */
+    public void addSkippedOrder(){
+        skippedOrderCount++;
+    }
+
+    /**
+     * Adds another report's orders to this one
+     * @param otherReport - RepricingReport to add
+     */
+    public void merge(RepricingReport otherReport){
+        repricedOrderCount += otherReport.repricedOrderCount;
+        skippedOrderCount += otherReport.skippedOrderCount;
+        repricedDates.addAll(otherReport.repricedDates);
+        mergeChanges(stateChanges, otherReport.stateChanges);
+        mergeChanges(productChanges, otherReport.productChanges);
+    }
+
+    private void mergeChanges(Map<String, TotalChange> changes, Map<String, TotalChange> otherChanges){
+        for (Map.Entry<String, TotalChange> otherChange : otherChanges.entrySet()){
+            changes.computeIfAbsent(otherChange.getKey(), (key) -> new TotalChange())
+                    .add(otherChange.getValue().totalBefore, otherChange.getValue().totalAfter);
+        }
+    }
+
+    public int getRepricedOrderCount(){
+        return repricedOrderCount;
+    }
+
+    public int getSkippedOrderCount(){
+        return skippedOrderCount;
+    }
+
+    public NavigableSet<LocalDate> getRepricedDates(){
+        return Collections.unmodifiableNavigableSet(repricedDates);
+    }
+
+    /**
+     * Returns total changes keyed by state abbreviation
+     * @return - Map from state abbreviation to TotalChange, sorted by state
+     */
+    public Map<String, TotalChange> getStateChanges(){
+        return Collections.unmodifiableMap(stateChanges);
+    }
+
+    /**
+     * Returns total changes keyed by product type
+     * @return - Map from product type to TotalChange, sorted by product
+     */
+    public Map<String, TotalChange> getProductChanges(){
+        return Collections.unmodifiableMap(productChanges);
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder report = new StringBuilder()
+                .append("Repriced ").append(repricedOrderCount).append(repricedOrderCount == 1 ? " order" : " orders")
+                .append(" on ").append(repricedDates.size()).append(repricedDates.size() == 1 ? " date" : " dates");
+        if (skippedOrderCount > 0){
+            report.append("\nSkipped ").append(skippedOrderCount)
+                    .append(skippedOrderCount == 1 ? " order" : " orders")
+                    .append(" whose product or state is no longer offered");
+        }
+        appendChanges(report, "State", stateChanges);
+        appendChanges(report, "Product", productChanges);
+        return report.toString();
+    }
+
+    private void appendChanges(StringBuilder report, String heading, Map<String, TotalChange> changes){
+        for (Map.Entry<String, TotalChange> change : changes.entrySet()){
+            TotalChange totalChange = change.getValue();
+            report.append("\n").append(heading).append(" ").append(change.getKey())
+                    .append(": $").append(totalChange.getTotalBefore())
+                    .append(" -> $").append(totalChange.getTotalAfter())
+                    .append(" (").append(totalChange.getDelta().signum() >= 0 ? "+" : "")
+                    .append(totalChange.getDelta()).append(")");
+        }
+    }
+}
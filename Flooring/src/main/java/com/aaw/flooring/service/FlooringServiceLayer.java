@@ -11,11 +11,17 @@ import com.aaw.flooring.dao.OrderNotFoundException;
 import com.aaw.flooring.dao.NoOrdersOnDateException;
 import com.aaw.flooring.dao.OrderPersistenceException;
 import com.aaw.flooring.model.Order;
+import com.aaw.flooring.model.OrderBatchResult;
+import com.aaw.flooring.model.OrderExportReport;
+import com.aaw.flooring.model.OrderImportReport;
+import com.aaw.flooring.model.OrderRequest;
 import com.aaw.flooring.model.Product;
+import com.aaw.flooring.model.RepricingReport;
 import com.aaw.flooring.model.StateTax;
 import java.math.BigDecimal;
 import java.time.LocalDate;
 import java.util.List;
+import java.util.stream.Stream;
 
 /**
  *
@@ -26,8 +32,12 @@ public interface FlooringServiceLayer {
     void loadAllProducts() throws OrderPersistenceException;
     void loadAllStateTaxes() throws OrderPersistenceException;
     void loadAllOrders() throws OrderPersistenceException;
+    String getOrderLoadReport();
     void saveOrder(LocalDate orderDate) throws NoOrdersOnDateException, OrderPersistenceException;
     void saveAllOrders() throws NoOrdersOnDateException, OrderPersistenceException;
+    void flushPendingSaves() throws OrderPersistenceException;
+    void checkPendingSaves() throws OrderPersistenceException;
+    void saveOrderSnapshot() throws OrderPersistenceException;
     
     Product getProduct(String productType);
     List<Product> getAllProducts();
@@ -36,14 +46,24 @@ public interface FlooringServiceLayer {
     List<StateTax> getAllStateTaxes();
     
     Order getOrder(int orderNumber, LocalDate orderDate) throws NoOrdersOnDateException, OrderNotFoundException;
+    Order getOrder(int orderNumber) throws OrderNotFoundException;
     List<Order> getAllOrdersOnDate(LocalDate orderDate) throws NoOrdersOnDateException;
+    List<Order> getOrdersBetween(LocalDate fromDate, LocalDate toDate) throws OrderPersistenceException;
+    Stream<Order> streamOrdersBetween(LocalDate fromDate, LocalDate toDate) throws OrderPersistenceException;
     Order createOrder(LocalDate orderDate, String customerName, StateTax stateTax,
             Product product, BigDecimal area);
     Order addOrder(Order order);
     Order editOrder(Order orderToEdit, String newCustomerName, StateTax newStateTax,
             Product newProduct, BigDecimal newArea);
+    Order editOrder(Order orderToEdit, Order editedOrder);
     Order removeOrder(int orderNumber, LocalDate orderDate) throws NoOrdersOnDateException, OrderNotFoundException;
+    OrderBatchResult addOrders(List<OrderRequest> requests);
+    OrderBatchResult editOrders(List<OrderRequest> requests);
+    OrderBatchResult removeOrders(List<OrderRequest> requests);
+    OrderImportReport importOrders(String importFilePath) throws OrderPersistenceException;
+    OrderExportReport exportOrders(String exportFilePath) throws OrderPersistenceException;
     Order calculateOrder(Order order);
+    RepricingReport repriceFutureOrders() throws NoOrdersOnDateException, OrderPersistenceException;
     
     BigDecimal getMinimumArea();
     boolean isValidCustomerName(String customerName);
@@ -14,12 +14,30 @@ import com.aaw.flooring.dao.OrderPersistenceException;
 import com.aaw.flooring.dao.ProductDao;
 import com.aaw.flooring.dao.StateTaxDao;
 import com.aaw.flooring.model.Order;
+import com.aaw.flooring.model.OrderBatchResult;
+import com.aaw.flooring.model.OrderExportReport;
+import com.aaw.flooring.model.OrderImportReport;
+import com.aaw.flooring.model.OrderRequest;
 import com.aaw.flooring.model.Product;
+import com.aaw.flooring.model.RepricingReport;
 import com.aaw.flooring.model.StateTax;
 import java.math.BigDecimal;
 import java.math.RoundingMode;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.time.LocalDate;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Stream;
 
 /**
  *
@@ -30,6 +48,13 @@ public class FlooringServiceLayerImpl implements FlooringServiceLayer {
     private OrderDao orderDao;
     private ProductDao productDao;
     private StateTaxDao stateTaxDao;
+    private boolean writeBehindEnabled = false;
+    private int writeBehindBacklog = 64;
+    private OrderWriteBehind writeBehind;
+    private int repricingParallelism = 1;
+    private int importParallelism = 1;
+    private int importQueueCapacity = 16;
+    private int importBatchSize = 10000;
     
     public FlooringServiceLayerImpl(OrderDao orderDao, ProductDao productDao, StateTaxDao stateTaxDao){
         this.orderDao = orderDao;
@@ -37,6 +62,65 @@ public class FlooringServiceLayerImpl implements FlooringServiceLayer {
         this.stateTaxDao = stateTaxDao;
     }
     
+    /**
+     * Sets whether saveOrder returns right away and saves the date on a 
+     * background thread. Failed background saves are reported by 
+     * checkPendingSaves and flushPendingSaves.
+     * @param writeBehindEnabled - True to save dates in the background
+     */
+    public void setWriteBehind(boolean writeBehindEnabled){
+        this.writeBehindEnabled = writeBehindEnabled;
+    }
+    
+    /**
+     * Sets how many dates may wait to be saved in the background before
+     * saveOrder waits for room
+     * @param writeBehindBacklog - Integer number of dates
+     */
+    public void setWriteBehindBacklog(int writeBehindBacklog){
+        this.writeBehindBacklog = writeBehindBacklog;
+    }
+    
+    /**
+     * Sets how many dates repriceFutureOrders reprices at the same time
+     * @param repricingParallelism - Integer number of threads
+     */
+    public void setRepricingParallelism(int repricingParallelism){
+        this.repricingParallelism = repricingParallelism;
+    }
+    
+    /**
+     * Sets how many threads importOrders uses for each of its parse, 
+     * validate, and price check steps
+     * @param importParallelism - Integer number of threads per step
+     */
+    public void setImportParallelism(int importParallelism){
+        this.importParallelism = importParallelism;
+    }
+    
+    /**
+     * Sets how many chunks of rows may wait between import steps
+     * @param importQueueCapacity - Integer number of chunks
+     */
+    public void setImportQueueCapacity(int importQueueCapacity){
+        this.importQueueCapacity = importQueueCapacity;
+    }
+    
+    /**
+     * Sets how many imported orders are added before they are saved
+     * @param importBatchSize - Integer number of orders
+     */
+    public void setImportBatchSize(int importBatchSize){
+        this.importBatchSize = importBatchSize;
+    }
+    
+    private synchronized OrderWriteBehind getWriteBehind(){
+        if (writeBehind == null){
+            writeBehind = new OrderWriteBehind(orderDao, writeBehindBacklog);
+        }
+        return writeBehind;
+    }
+    
     /**
      * Loads all products from file into memory
      * @throws OrderPersistenceException 
@@ -65,26 +149,84 @@ public class FlooringServiceLayerImpl implements FlooringServiceLayer {
     }
     
     /**
-     * Saves orders on given date to file.
+     * Returns a summary of how long the last order load took
+     * @return - String of load summary, or null if orders have not been loaded
+     */
+    @Override
+    public String getOrderLoadReport(){
+        return orderDao.getLoadReport();
+    }
+    
+    /**
+     * Saves orders on given date to file. With write-behind on, the date is
+     * queued and saved in the background instead; saving a date again before
+     * its queued save starts doesn't queue a second save.
      * @param orderDate - LocalDate of orders
      * @throws NoOrdersOnDateException
      * @throws OrderPersistenceException 
      */
     @Override
     public void saveOrder(LocalDate orderDate) throws NoOrdersOnDateException, OrderPersistenceException{
+        if (writeBehindEnabled){
+            getWriteBehind().enqueue(orderDate);
+            return;
+        }
         orderDao.saveOrder(orderDate);
     }
     
     /**
-     * Saves new, edited, and removed orders to file.
+     * Saves new, edited, and removed orders to file. Waits for any background
+     * saves first; dates whose background save failed are tried again.
      * @throws NoOrdersOnDateException
      * @throws OrderPersistenceException 
      */
     @Override
     public void saveAllOrders() throws NoOrdersOnDateException, OrderPersistenceException {
+        if (writeBehindEnabled){
+            getWriteBehind().awaitIdle();
+            getWriteBehind().takeFailures();
+        }
         orderDao.saveAllOrders();
     }
     
+    /**
+     * Waits until every date queued by saveOrder has been saved
+     * @throws OrderPersistenceException naming each date that failed to save
+     * since failures were last reported
+     */
+    @Override
+    public void flushPendingSaves() throws OrderPersistenceException {
+        if (writeBehindEnabled){
+            getWriteBehind().awaitIdle();
+            checkPendingSaves();
+        }
+    }
+    
+    /**
+     * Reports dates that failed to save in the background, without waiting
+     * for saves still queued. Each failure is only reported once.
+     * @throws OrderPersistenceException naming each date that failed to save
+     * since failures were last reported
+     */
+    @Override
+    public void checkPendingSaves() throws OrderPersistenceException {
+        if (writeBehindEnabled){
+            Map<LocalDate, Exception> failures = getWriteBehind().takeFailures();
+            if (!failures.isEmpty()){
+                throw new OrderPersistenceException(failures, "Changes will be saved again on exit.");
+            }
+        }
+    }
+    
+    /**
+     * Writes a snapshot of saved orders so the next load starts faster.
+     * @throws OrderPersistenceException 
+     */
+    @Override
+    public void saveOrderSnapshot() throws OrderPersistenceException {
+        orderDao.saveSnapshot();
+    }
+    
     
     /**
      * Returns a Product object given a product name
@@ -139,6 +281,17 @@ public class FlooringServiceLayerImpl implements FlooringServiceLayer {
         return orderDao.getOrder(orderNumber, orderDate);
     }
     
+    /**
+     * Retrieves an Order object based on order number alone
+     * @param orderNumber - Integer representing order number
+     * @return - Order object
+     * @throws OrderNotFoundException 
+     */
+    @Override
+    public Order getOrder(int orderNumber) throws OrderNotFoundException {
+        return orderDao.getOrder(orderNumber);
+    }
+    
     /**
      * Returns a list of Orders on a given date
      * @param orderDate - LocalDate of order fulfillment date
@@ -149,6 +302,32 @@ public class FlooringServiceLayerImpl implements FlooringServiceLayer {
     public List<Order> getAllOrdersOnDate(LocalDate orderDate) throws NoOrdersOnDateException {
         return orderDao.getAllOrdersOnDate(orderDate);
     }
+    
+    /**
+     * Returns a list of Orders from one date to another, both inclusive,
+     * sorted by date and then by order number
+     * @param fromDate - LocalDate of first day in range
+     * @param toDate - LocalDate of last day in range
+     * @return - List of Order objects in range, empty if there are none
+     * @throws OrderPersistenceException 
+     */
+    @Override
+    public List<Order> getOrdersBetween(LocalDate fromDate, LocalDate toDate) throws OrderPersistenceException {
+        return orderDao.getOrdersBetween(fromDate, toDate);
+    }
+    
+    /**
+     * Streams Orders from one date to another, both inclusive, sorted by date
+     * and then by order number
+     * @param fromDate - LocalDate of first day in range
+     * @param toDate - LocalDate of last day in range
+     * @return - Stream of Order objects in range
+     * @throws OrderPersistenceException 
+     */
+    @Override
+    public Stream<Order> streamOrdersBetween(LocalDate fromDate, LocalDate toDate) throws OrderPersistenceException {
+        return orderDao.streamOrdersBetween(fromDate, toDate);
+    }
 
     /**
      * Creates a new Order object, calculates its costs, 
@@ -192,6 +371,20 @@ public class FlooringServiceLayerImpl implements FlooringServiceLayer {
         return orderDao.editOrder(orderToEdit, newCustomerName, newStateTax, newProduct, newArea);
     }
     
+    /**
+     * Edits an existing order to match an edited copy, applying its fields
+     * and costs in one edit
+     * @param orderToEdit - Order object to edit
+     * @param editedOrder - Priced Order object holding the new fields and costs
+     * @return - Edited order object, null if nothing changed
+     */
+    @Override
+    public Order editOrder(Order orderToEdit, Order editedOrder) {
+        return orderDao.editOrder(orderToEdit, editedOrder.getCustomerName(), editedOrder.getStateTax(), 
+                editedOrder.getProduct(), editedOrder.getArea(), editedOrder.getMaterialCost(), 
+                editedOrder.getLaborCost(), editedOrder.getTax(), editedOrder.getTotal());
+    }
+    
     /**
      * Removes an order from memory
      * @param orderNumber - Integer representing the order number
@@ -204,6 +397,201 @@ public class FlooringServiceLayerImpl implements FlooringServiceLayer {
         return orderDao.removeOrder(orderNumber, orderDate);
     }
 
+    /**
+     * Adds a batch of new orders. Each valid request gets the next number in
+     * one block of order numbers, in request order, and is priced and added;
+     * invalid requests are reported and skipped. Every date added to is then
+     * saved once, as one commit.
+     * @param requests - List of OrderRequests for new orders
+     * @return - OrderBatchResult with the outcome of each request
+     */
+    @Override
+    public OrderBatchResult addOrders(List<OrderRequest> requests){
+        OrderBatchResult result = new OrderBatchResult();
+        List<String> errorMessages = new ArrayList<>();
+        int validCount = 0;
+        for (OrderRequest request : requests){
+            String errorMessage = validateNewOrder(request);
+            errorMessages.add(errorMessage);
+            if (errorMessage == null){
+                validCount++;
+            }
+        }
+        int nextOrderNumber = validCount > 0 ? orderDao.allocateOrderNumbers(validCount) : 0;
+        Set<LocalDate> touchedDates = new TreeSet<>();
+        for (int i = 0; i < requests.size(); i++){
+            OrderRequest request = requests.get(i);
+            if (errorMessages.get(i) != null){
+                result.addFailure(request, errorMessages.get(i));
+                continue;
+            }
+            Order order = new Order(request.getOrderDate(), nextOrderNumber++, request.getCustomerName(),
+                    request.getStateTax(), request.getProduct(), request.getArea().setScale(2, RoundingMode.HALF_UP));
+            calculateOrder(order);
+            orderDao.addOrder(order);
+            touchedDates.add(order.getOrderDate());
+            result.addSuccess(request, OrderBatchResult.Outcome.ADDED, order);
+        }
+        saveBatch(touchedDates, result);
+        return result;
+    }
+    
+    /**
+     * Edits a batch of existing orders. Null fields in a request are left
+     * unchanged. Each edited order is repriced, and every date edited is 
+     * then saved once, as one commit.
+     * @param requests - List of OrderRequests naming orders and their new fields
+     * @return - OrderBatchResult with the outcome of each request
+     */
+    @Override
+    public OrderBatchResult editOrders(List<OrderRequest> requests){
+        OrderBatchResult result = new OrderBatchResult();
+        Set<LocalDate> touchedDates = new TreeSet<>();
+        for (OrderRequest request : requests){
+            String errorMessage = validateOrderEdit(request);
+            if (errorMessage != null){
+                result.addFailure(request, errorMessage);
+                continue;
+            }
+            Order order;
+            try{
+                order = orderDao.getOrder(request.getOrderNumber(), request.getOrderDate());
+            } catch (NoOrdersOnDateException | OrderNotFoundException ex){
+                result.addFailure(request, ex.getMessage());
+                continue;
+            }
+            String newCustomerName = request.getCustomerName() != null ? request.getCustomerName() : order.getCustomerName();
+            StateTax newStateTax = request.getStateTax() != null ? request.getStateTax() : order.getStateTax();
+            Product newProduct = request.getProduct() != null ? request.getProduct() : order.getProduct();
+            BigDecimal newArea = request.getArea() != null 
+                    ? request.getArea().setScale(2, RoundingMode.HALF_UP) : order.getArea();
+            Order editedOrder = editAndPriceOrder(order, newCustomerName, newStateTax, newProduct, newArea);
+            if (editedOrder == null){
+                result.addSuccess(request, OrderBatchResult.Outcome.UNCHANGED, order);
+                continue;
+            }
+            touchedDates.add(editedOrder.getOrderDate());
+            result.addSuccess(request, OrderBatchResult.Outcome.EDITED, editedOrder);
+        }
+        saveBatch(touchedDates, result);
+        return result;
+    }
+    
+    /**
+     * Removes a batch of existing orders, then saves every date removed from
+     * once, as one commit
+     * @param requests - List of OrderRequests naming orders to remove
+     * @return - OrderBatchResult with the outcome of each request
+     */
+    @Override
+    public OrderBatchResult removeOrders(List<OrderRequest> requests){
+        OrderBatchResult result = new OrderBatchResult();
+        Set<LocalDate> touchedDates = new TreeSet<>();
+        for (OrderRequest request : requests){
+            if (request.getOrderDate() == null){
+                result.addFailure(request, "Order date is required.");
+                continue;
+            }
+            try{
+                Order removedOrder = orderDao.removeOrder(request.getOrderNumber(), request.getOrderDate());
+                touchedDates.add(request.getOrderDate());
+                result.addSuccess(request, OrderBatchResult.Outcome.REMOVED, removedOrder);
+            } catch (NoOrdersOnDateException | OrderNotFoundException ex){
+                result.addFailure(request, ex.getMessage());
+            }
+        }
+        saveBatch(touchedDates, result);
+        return result;
+    }
+    
+    /**
+     * Saves the dates changed by a batch as one commit. A failed save is
+     * recorded in the result, and the changes stay in memory to be saved
+     * with the next saveAllOrders.
+     * @param touchedDates - Set of LocalDates changed by the batch
+     * @param result - OrderBatchResult of the batch
+     */
+    private void saveBatch(Set<LocalDate> touchedDates, OrderBatchResult result){
+        try{
+            orderDao.saveOrders(touchedDates);
+        } catch (NoOrdersOnDateException | OrderPersistenceException ex){
+            result.setSaveFailure(ex);
+        }
+    }
+    
+    /**
+     * Checks that a request for a new order has every field, and that its
+     * customer name and area are valid
+     * @param request - OrderRequest for a new order
+     * @return - String explaining what is invalid, or null if it is valid
+     */
+    private String validateNewOrder(OrderRequest request){
+        if (request.getOrderDate() == null || request.getCustomerName() == null
+                || request.getStateTax() == null || request.getProduct() == null
+                || request.getArea() == null){
+            return "Order date, customer name, state, product, and area are required.";
+        }
+        return validateOrderEdit(request);
+    }
+    
+    /**
+     * Checks that the fields given in a request are valid
+     * @param request - OrderRequest for an order
+     * @return - String explaining what is invalid, or null if it is valid
+     */
+    private String validateOrderEdit(OrderRequest request){
+        if (request.getOrderDate() == null){
+            return "Order date is required.";
+        }
+        if (request.getCustomerName() != null && !isValidCustomerName(request.getCustomerName())){
+            return "Invalid customer name: " + request.getCustomerName();
+        }
+        if (request.getArea() != null && request.getArea().compareTo(getMinimumArea()) < 0){
+            return "Area must be at least " + getMinimumArea() + " ft².";
+        }
+        return null;
+    }
+    
+    /**
+     * Imports orders from a comma-separated export file, like 
+     * Backup/DataExport.txt. Rejected rows are written next to the import 
+     * file, with "_Errors" added to its name. See OrderImporter.
+     * @param importFilePath - String path of file to import
+     * @return - OrderImportReport of rows read, imported, and rejected
+     * @throws OrderPersistenceException if the file can't be read or the 
+     * imported orders can't be saved
+     */
+    @Override
+    public OrderImportReport importOrders(String importFilePath) throws OrderPersistenceException{
+        Path importFile = Paths.get(importFilePath);
+        String fileName = importFile.getFileName().toString();
+        int extensionIndex = fileName.lastIndexOf('.');
+        String errorFileName = extensionIndex > 0 
+                ? fileName.substring(0, extensionIndex) + "_Errors" + fileName.substring(extensionIndex)
+                : fileName + "_Errors";
+        OrderImporter importer = new OrderImporter(this, orderDao, importParallelism, 
+                importQueueCapacity, importBatchSize);
+        return importer.importOrders(importFile, importFile.resolveSibling(errorFileName));
+    }
+    
+    /**
+     * Writes every order to a comma-separated backup in the DataExport 
+     * layout, waiting for background saves first
+     * @param exportFilePath - String path of file to write
+     * @return - OrderExportReport of rows written and rows per second
+     * @throws OrderPersistenceException if the orders can't be read or the
+     * file can't be written
+     */
+    @Override
+    public OrderExportReport exportOrders(String exportFilePath) throws OrderPersistenceException{
+        if (writeBehindEnabled){
+            getWriteBehind().awaitIdle();
+        }
+        long startTime = System.nanoTime();
+        long rowCount = orderDao.exportOrders(exportFilePath);
+        return new OrderExportReport(rowCount, exportFilePath, System.nanoTime() - startTime);
+    }
+    
     /**
      * Calculates material cost, labor cost, tax, and total for a given order.
      * Rounds to 2 decimal places using HALF_UP rounding.
@@ -218,26 +606,115 @@ public class FlooringServiceLayerImpl implements FlooringServiceLayer {
         Product product = order.getProduct();
         StateTax stateTax = order.getStateTax();
         
-        // Calculate costs
-        BigDecimal materialCost = area.multiply(product.getCostPerSquareFoot());
-        materialCost = materialCost.setScale(2, RoundingMode.HALF_UP);
+        // Calculate costs in hundredths, falling back to BigDecimal if needed
+        OrderPricer.Prices prices = OrderPricer.price(area, product.getCostPerSquareFoot(),
+                product.getLaborCostPerSquareFoot(), stateTax.getTaxRate());
         
-        BigDecimal laborCost = area.multiply(product.getLaborCostPerSquareFoot());
-        laborCost = laborCost.setScale(2, RoundingMode.HALF_UP);
+        // Set costs in order object
+        order.setLaborCost(prices.getLaborCost());
+        order.setMaterialCost(prices.getMaterialCost());
+        order.setTax(prices.getTax());
+        order.setTotal(prices.getTotal());
         
-        BigDecimal tax = (materialCost.add(laborCost)).multiply((stateTax.getTaxRate().divide(new BigDecimal("100"), 2, RoundingMode.HALF_UP)));
-        tax = tax.setScale(2, RoundingMode.HALF_UP);
+        return order;
+    }
+    
+    /**
+     * Reloads products and state taxes from file and reprices every future 
+     * order whose product costs or tax rate no longer match them. Dates are
+     * repriced in parallel, up to repricingParallelism dates at the same 
+     * time, and then only the repriced dates are saved, as one commit. 
+     * Orders whose product or state is no longer offered are skipped. If 
+     * the save fails, the repriced orders stay in memory and are saved with
+     * the next saveAllOrders.
+     * @return - RepricingReport with the change in total for each state and
+     * product
+     * @throws NoOrdersOnDateException
+     * @throws OrderPersistenceException if the catalog can't be read or the
+     * repriced orders can't be saved
+     */
+    @Override
+    public RepricingReport repriceFutureOrders() throws NoOrdersOnDateException, OrderPersistenceException{
+        loadAllProducts();
+        loadAllStateTaxes();
         
-        BigDecimal total = materialCost.add(laborCost).add(tax);
-        total = total.setScale(2, RoundingMode.HALF_UP);
+        // Find future orders priced with outdated products or tax rates
+        RepricingReport report = new RepricingReport();
+        Map<LocalDate, List<Order>> outdatedOrders = new TreeMap<>();
+        for (Order order : orderDao.getOrdersBetween(LocalDate.now().plusDays(1), LocalDate.MAX)){
+            Product currentProduct = productDao.getProduct(order.getProduct().getProductType());
+            StateTax currentStateTax = stateTaxDao.getStateTax(order.getStateTax().getStateAbbreviation());
+            if (currentProduct == null || currentStateTax == null){
+                report.addSkippedOrder();
+            }
+            else if (!currentProduct.equals(order.getProduct()) || !currentStateTax.equals(order.getStateTax())){
+                outdatedOrders.computeIfAbsent(order.getOrderDate(), (date) -> new ArrayList<>()).add(order);
+            }
+        }
+        if (outdatedOrders.isEmpty()){
+            return report;
+        }
         
-        // Set costs in order object
-        order.setLaborCost(laborCost);
-        order.setMaterialCost(materialCost);
-        order.setTax(tax);
-        order.setTotal(total);
+        // Reprice each date on its own thread
+        List<Callable<RepricingReport>> repricingTasks = new ArrayList<>();
+        for (List<Order> ordersOnDate : outdatedOrders.values()){
+            repricingTasks.add(() -> repriceOrders(ordersOnDate));
+        }
+        ExecutorService repricingPool = Executors.newFixedThreadPool(
+                Math.max(1, Math.min(repricingParallelism, repricingTasks.size())));
+        try{
+            for (Future<RepricingReport> dateReport : repricingPool.invokeAll(repricingTasks)){
+                report.merge(dateReport.get());
+            }
+        } catch (InterruptedException e){
+            Thread.currentThread().interrupt();
+            throw new OrderPersistenceException("Interrupted while repricing orders.", e);
+        } catch (ExecutionException e){
+            throw new OrderPersistenceException("Could not reprice orders.", e.getCause());
+        } finally{
+            repricingPool.shutdown();
+        }
         
-        return order;
+        // Save only the repriced dates
+        orderDao.saveOrders(report.getRepricedDates());
+        return report;
+    }
+    
+    /**
+     * Reprices orders with the current product and state tax
+     * @param ordersToReprice - List of Order objects on one date
+     * @return - RepricingReport of these orders
+     */
+    private RepricingReport repriceOrders(List<Order> ordersToReprice){
+        RepricingReport report = new RepricingReport();
+        for (Order order : ordersToReprice){
+            BigDecimal totalBefore = order.getTotal();
+            Order repricedOrder = editAndPriceOrder(order, order.getCustomerName(),
+                    stateTaxDao.getStateTax(order.getStateTax().getStateAbbreviation()),
+                    productDao.getProduct(order.getProduct().getProductType()), order.getArea());
+            report.addRepricedOrder(repricedOrder != null ? repricedOrder : order, totalBefore);
+        }
+        return report;
+    }
+    
+    /**
+     * Prices a copy of an order with the new fields, then applies the fields
+     * and costs in one edit, so a save can't write the new fields with the 
+     * old costs
+     * @param orderToEdit - Order object to edit
+     * @param newCustomerName - String representing new customer name on order
+     * @param newStateTax - New StateTax object for order
+     * @param newProduct - New Product object for order
+     * @param newArea - BigDecimal representing new flooring area in square feet
+     * @return - Edited order object, null if nothing changed
+     */
+    private Order editAndPriceOrder(Order orderToEdit, String newCustomerName, 
+            StateTax newStateTax, Product newProduct, BigDecimal newArea){
+        Order pricedOrder = calculateOrder(new Order(orderToEdit.getOrderDate(), 
+                orderToEdit.getOrderNumber(), newCustomerName, newStateTax, newProduct, newArea));
+        return orderDao.editOrder(orderToEdit, newCustomerName, newStateTax, newProduct, newArea, 
+                pricedOrder.getMaterialCost(), pricedOrder.getLaborCost(), 
+                pricedOrder.getTax(), pricedOrder.getTotal());
     }
     
     /**
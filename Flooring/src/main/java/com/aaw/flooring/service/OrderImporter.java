@@ -0,0 +1,508 @@
+/*
+ * @author Austin Wong
+ * email: austinwongdev@gmail.com
+ * date: Oct 18, 2026
+ * purpose:
+ */
+
+package com.aaw.flooring.service;
+
+import com.aaw.flooring.dao.NoOrdersOnDateException;
+import com.aaw.flooring.dao.OrderDao;
+import com.aaw.flooring.dao.OrderNotFoundException;
+import com.aaw.flooring.dao.OrderPersistenceException;
+import com.aaw.flooring.model.Order;
+import com.aaw.flooring.model.OrderImportReport;
+import com.aaw.flooring.model.Product;
+import com.aaw.flooring.model.StateTax;
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Imports orders from a comma-separated export file, such as
+ * Backup/DataExport.txt, with a header row naming the columns. The file is
+ * streamed through five steps, each on its own threads and connected by
+ * bounded queues of row chunks, so only a few chunks are in memory at a time:
+ *
+ *   read -> parse -> validate -> price check -> write
+ *
+ * Parse, validate, and price check each run on workerCount threads; read
+ * and write run on one thread each. Orders keep the order numbers in the
+ * file, and are added and saved batchSize rows at a time. A row is rejected
+ * if it can't be parsed, has an invalid customer name or area, has costs
+ * that don't match its rates, or has an order number that is already used.
+ * Rejected rows are copied to the error file with a reason added, in the
+ * order they were rejected; the error file has the same header plus an
+ * Error column, so it can be fixed and imported again.
+ * @author Austin Wong
+ */
+class OrderImporter {
+
+    private static final String[] REQUIRED_COLUMNS = {"OrderNumber", "CustomerName", "State",
+        "TaxRate", "ProductType", "Area", "CostPerSquareFoot", "LaborCostPerSquareFoot",
+        "MaterialCost", "LaborCost", "Tax", "Total", "OrderDate"};
+    private static final String ERROR_COLUMN = "Error";
+    private static final DateTimeFormatter ORDER_DATE_FORMAT = DateTimeFormatter.ofPattern("MM-dd-yyyy");
+    private static final int CHUNK_SIZE = 512;
+
+    // Marks the end of the rows in a queue. Compared by identity.
+    private static final List<Row> END_OF_ROWS = new ArrayList<>();
+
+    private final FlooringServiceLayer service;
+    private final OrderDao orderDao;
+    private final int workerCount;
+    private final int queueCapacity;
+    private final int batchSize;
+    private final Map<String, Integer> columnIndexes = new HashMap<>();
+    private int requiredFieldCount = 0;
+    private final AtomicLong rowCount = new AtomicLong();
+    private long importedCount = 0;
+    private long rejectedCount = 0;
+    private Path errorFile;
+    private String errorHeader;
+    private BufferedWriter errorWriter;
+
+    /**
+     * One line of the import file as it moves through the steps
+     */
+    private static class Row {
+        private final long lineNumber;
+        private final String text;
+        private String[] fields;
+        private Order order;
+
+        private Row(long lineNumber, String text){
+            this.lineNumber = lineNumber;
+            this.text = text;
+        }
+    }
+
+    /**
+     * One step applied to each row
+     */
+    private interface RowStep {
+        /**
+         * @return - String reason the row is rejected, or null to pass it on
+         */
+        String apply(Row row);
+    }
+
+    OrderImporter(FlooringServiceLayer service, OrderDao orderDao, int workerCount,
+            int queueCapacity, int batchSize){
+        this.service = service;
+        this.orderDao = orderDao;
+        this.workerCount = Math.max(1, workerCount);
+        this.queueCapacity = Math.max(1, queueCapacity);
+        this.batchSize = Math.max(1, batchSize);
+    }
+
+    /**
+     * Imports every row of a file, writing rejected rows to an error file.
+     * The error file is only created if a row is rejected.
+     * @param importFile - Path of comma-separated file to import
+     * @param errorFile - Path to write rejected rows to
+     * @return - OrderImportReport of rows read, imported, and rejected
+     * @throws OrderPersistenceException if the file can't be read, the
+     * error file can't be written, or imported orders can't be saved. Orders
+     * added before the failure stay in memory and are saved with the next
+     * saveAllOrders.
+     */
+    OrderImportReport importOrders(Path importFile, Path errorFile) throws OrderPersistenceException{
+        long startTime = System.nanoTime();
+        this.errorFile = errorFile;
+        ExecutorService importPool = Executors.newFixedThreadPool(2 + 3 * workerCount);
+        try (BufferedReader reader = Files.newBufferedReader(importFile, StandardCharsets.UTF_8)){
+            readHeader(reader.readLine());
+
+            // Connect the steps with bounded queues
+            BlockingQueue<List<Row>> parseQueue = new ArrayBlockingQueue<>(queueCapacity);
+            BlockingQueue<List<Row>> validateQueue = new ArrayBlockingQueue<>(queueCapacity);
+            BlockingQueue<List<Row>> priceCheckQueue = new ArrayBlockingQueue<>(queueCapacity);
+            BlockingQueue<List<Row>> writeQueue = new ArrayBlockingQueue<>(queueCapacity);
+            CompletionService<Void> steps = new ExecutorCompletionService<>(importPool);
+            int stepCount = 0;
+            steps.submit(() -> readRows(reader, parseQueue));
+            stepCount++;
+            stepCount += submitWorkers(steps, parseQueue, validateQueue, this::parseRow);
+            stepCount += submitWorkers(steps, validateQueue, priceCheckQueue, this::validateRow);
+            stepCount += submitWorkers(steps, priceCheckQueue, writeQueue, this::checkPrices);
+            steps.submit(() -> writeOrders(writeQueue));
+            stepCount++;
+
+            // Wait for every step, stopping them all at the first failure
+            for (int i = 0; i < stepCount; i++){
+                steps.take().get();
+            }
+        } catch (IOException e){
+            throw new OrderPersistenceException("Could not read import file " + importFile + ".", e);
+        } catch (ExecutionException e){
+            if (e.getCause() instanceof OrderPersistenceException){
+                throw (OrderPersistenceException) e.getCause();
+            }
+            throw new OrderPersistenceException("Could not import orders from " + importFile + ".", e.getCause());
+        } catch (InterruptedException e){
+            Thread.currentThread().interrupt();
+            throw new OrderPersistenceException("Interrupted while importing orders.", e);
+        } finally{
+            importPool.shutdownNow();
+            closeErrorFile();
+        }
+        long elapsedMillis = (System.nanoTime() - startTime) / 1_000_000;
+        return new OrderImportReport(rowCount.get(), importedCount, rejectedCount,
+                rejectedCount > 0 ? errorFile.toString() : null, elapsedMillis);
+    }
+
+    /**
+     * Finds each required column in the header row
+     * @param header - String of first line in import file
+     * @throws OrderPersistenceException if the file is empty or a column is missing
+     */
+    private void readHeader(String header) throws OrderPersistenceException{
+        if (header == null){
+            throw new OrderPersistenceException("Import file is empty.");
+        }
+        String[] columns = splitFields(header);
+        for (int i = 0; i < columns.length; i++){
+            columnIndexes.putIfAbsent(columns[i].trim(), i);
+        }
+        List<String> missingColumns = new ArrayList<>();
+        for (String column : REQUIRED_COLUMNS){
+            if (!columnIndexes.containsKey(column)){
+                missingColumns.add(column);
+            }
+            else{
+                requiredFieldCount = Math.max(requiredFieldCount, columnIndexes.get(column) + 1);
+            }
+        }
+        if (!missingColumns.isEmpty()){
+            throw new OrderPersistenceException("Import file is missing columns: "
+                    + String.join(", ", missingColumns));
+        }
+        errorHeader = columnIndexes.containsKey(ERROR_COLUMN) ? header : header + "," + ERROR_COLUMN;
+    }
+
+    /**
+     * Reads lines into chunks and queues them to be parsed, skipping blank lines
+     */
+    private Void readRows(BufferedReader reader, BlockingQueue<List<Row>> parseQueue)
+            throws IOException, InterruptedException{
+        long lineNumber = 1;
+        List<Row> chunk = new ArrayList<>(CHUNK_SIZE);
+        String line;
+        while ((line = reader.readLine()) != null){
+            lineNumber++;
+            if (line.isBlank()){
+                continue;
+            }
+            rowCount.incrementAndGet();
+            chunk.add(new Row(lineNumber, line));
+            if (chunk.size() == CHUNK_SIZE){
+                parseQueue.put(chunk);
+                chunk = new ArrayList<>(CHUNK_SIZE);
+            }
+        }
+        if (!chunk.isEmpty()){
+            parseQueue.put(chunk);
+        }
+        parseQueue.put(END_OF_ROWS);
+        return null;
+    }
+
+    /**
+     * Starts workerCount threads applying a step to every row from one queue
+     * and passing rows that aren't rejected to the next queue
+     * @return - Integer number of workers started
+     */
+    private int submitWorkers(CompletionService<Void> steps, BlockingQueue<List<Row>> input,
+            BlockingQueue<List<Row>> output, RowStep step){
+        AtomicInteger workersLeft = new AtomicInteger(workerCount);
+        for (int i = 0; i < workerCount; i++){
+            steps.submit(() -> applyStep(input, output, step, workersLeft));
+        }
+        return workerCount;
+    }
+
+    private Void applyStep(BlockingQueue<List<Row>> input, BlockingQueue<List<Row>> output,
+            RowStep step, AtomicInteger workersLeft) throws InterruptedException, IOException{
+        while (true){
+            List<Row> chunk = input.take();
+            if (chunk == END_OF_ROWS){
+                // Leave the end marker for the other workers; the last one passes it on
+                input.put(END_OF_ROWS);
+                if (workersLeft.decrementAndGet() == 0){
+                    output.put(END_OF_ROWS);
+                }
+                return null;
+            }
+            List<Row> passedRows = new ArrayList<>(chunk.size());
+            for (Row row : chunk){
+                String rejection = step.apply(row);
+                if (rejection == null){
+                    passedRows.add(row);
+                }
+                else{
+                    reject(row, rejection);
+                }
+            }
+            if (!passedRows.isEmpty()){
+                output.put(passedRows);
+            }
+        }
+    }
+
+    /**
+     * Splits a row into fields and builds its Order
+     */
+    private String parseRow(Row row){
+        row.fields = splitFields(row.text);
+        if (row.fields.length < requiredFieldCount){
+            return "Expected " + requiredFieldCount + " fields but found " + row.fields.length;
+        }
+        try{
+            StateTax stateTax = new StateTax(field(row, "State"), decimalField(row, "TaxRate"));
+            Product product = new Product(field(row, "ProductType"),
+                    decimalField(row, "CostPerSquareFoot"), decimalField(row, "LaborCostPerSquareFoot"));
+            row.order = new Order(LocalDate.parse(field(row, "OrderDate"), ORDER_DATE_FORMAT),
+                    Integer.parseInt(field(row, "OrderNumber")), field(row, "CustomerName"),
+                    stateTax, product, decimalField(row, "Area"), decimalField(row, "MaterialCost"),
+                    decimalField(row, "LaborCost"), decimalField(row, "Tax"), decimalField(row, "Total"));
+        } catch (NumberFormatException e){
+            return "Invalid number: " + e.getMessage();
+        } catch (DateTimeParseException e){
+            return "Invalid order date: " + e.getParsedString();
+        }
+        return null;
+    }
+
+    /**
+     * Checks the fields the program would check when adding an order by hand
+     */
+    private String validateRow(Row row){
+        Order order = row.order;
+        if (order.getOrderNumber() <= 0){
+            return "Invalid order number: " + order.getOrderNumber();
+        }
+        if (!service.isValidCustomerName(order.getCustomerName())){
+            return "Invalid customer name: " + order.getCustomerName();
+        }
+        if (order.getStateTax().getStateAbbreviation().isBlank()
+                || order.getProduct().getProductType().isBlank()){
+            return "State and product type are required";
+        }
+        if (order.getArea().compareTo(service.getMinimumArea()) < 0){
+            return "Area must be at least " + service.getMinimumArea() + " ft²";
+        }
+        if (order.getStateTax().getTaxRate().signum() < 0
+                || order.getProduct().getCostPerSquareFoot().signum() < 0
+                || order.getProduct().getLaborCostPerSquareFoot().signum() < 0){
+            return "Rates may not be negative";
+        }
+        return null;
+    }
+
+    /**
+     * Checks that the row's costs are what its area and rates price to
+     */
+    private String checkPrices(Row row){
+        Order order = row.order;
+        OrderPricer.Prices prices = OrderPricer.price(order.getArea(),
+                order.getProduct().getCostPerSquareFoot(),
+                order.getProduct().getLaborCostPerSquareFoot(), order.getStateTax().getTaxRate());
+        if (order.getMaterialCost().compareTo(prices.getMaterialCost()) != 0){
+            return "MaterialCost " + order.getMaterialCost() + " should be " + prices.getMaterialCost();
+        }
+        if (order.getLaborCost().compareTo(prices.getLaborCost()) != 0){
+            return "LaborCost " + order.getLaborCost() + " should be " + prices.getLaborCost();
+        }
+        if (order.getTax().compareTo(prices.getTax()) != 0){
+            return "Tax " + order.getTax() + " should be " + prices.getTax();
+        }
+        if (order.getTotal().compareTo(prices.getTotal()) != 0){
+            return "Total " + order.getTotal() + " should be " + prices.getTotal();
+        }
+        return null;
+    }
+
+    /**
+     * Adds checked orders whose numbers aren't used yet, saving the dates
+     * added to every batchSize orders
+     */
+    private Void writeOrders(BlockingQueue<List<Row>> writeQueue)
+            throws InterruptedException, IOException, OrderPersistenceException{
+        Set<LocalDate> unsavedDates = new TreeSet<>();
+        int unsavedCount = 0;
+        while (true){
+            List<Row> chunk = writeQueue.take();
+            if (chunk == END_OF_ROWS){
+                saveDates(unsavedDates);
+                return null;
+            }
+            for (Row row : chunk){
+                if (isOrderNumberUsed(row.order.getOrderNumber())){
+                    reject(row, "Order number " + row.order.getOrderNumber() + " already exists");
+                    continue;
+                }
+                orderDao.addOrder(row.order);
+                importedCount++;
+                unsavedDates.add(row.order.getOrderDate());
+                if (++unsavedCount >= batchSize){
+                    saveDates(unsavedDates);
+                    unsavedCount = 0;
+                }
+            }
+        }
+    }
+
+    private boolean isOrderNumberUsed(int orderNumber){
+        try{
+            orderDao.getOrder(orderNumber);
+            return true;
+        } catch (OrderNotFoundException e){
+            return false;
+        }
+    }
+
+    private void saveDates(Set<LocalDate> unsavedDates) throws OrderPersistenceException{
+        try{
+            orderDao.saveOrders(unsavedDates);
+        } catch (NoOrdersOnDateException e){
+            throw new OrderPersistenceException("Could not save imported orders.", e);
+        }
+        unsavedDates.clear();
+    }
+
+    /**
+     * Copies a rejected row to the error file with the reason it was rejected
+     */
+    private synchronized void reject(Row row, String reason) throws IOException{
+        if (errorWriter == null){
+            errorWriter = Files.newBufferedWriter(errorFile, StandardCharsets.UTF_8);
+            errorWriter.write(errorHeader);
+            errorWriter.newLine();
+        }
+        String error = "Line " + row.lineNumber + ": " + reason;
+        Integer errorIndex = columnIndexes.get(ERROR_COLUMN);
+        if (errorIndex == null){
+            errorWriter.write(row.text);
+            errorWriter.write(",");
+            errorWriter.write(quoteField(error));
+        }
+        else{
+            // Replace the reason from an earlier import
+            String[] fields = splitFields(row.text);
+            if (fields.length <= errorIndex){
+                int fieldCount = fields.length;
+                fields = Arrays.copyOf(fields, errorIndex + 1);
+                Arrays.fill(fields, fieldCount, fields.length, "");
+            }
+            fields[errorIndex] = error;
+            errorWriter.write(joinFields(fields));
+        }
+        errorWriter.newLine();
+        rejectedCount++;
+    }
+
+    private synchronized void closeErrorFile() throws OrderPersistenceException{
+        if (errorWriter != null){
+            try{
+                errorWriter.close();
+            } catch (IOException e){
+                throw new OrderPersistenceException("Could not write import error file " + errorFile + ".", e);
+            }
+        }
+    }
+
+    private String field(Row row, String column){
+        return row.fields[columnIndexes.get(column)].trim();
+    }
+
+    private BigDecimal decimalField(Row row, String column){
+        String value = field(row, column);
+        try{
+            return new BigDecimal(value);
+        } catch (NumberFormatException e){
+            throw new NumberFormatException(column + " \"" + value + "\"");
+        }
+    }
+
+    /**
+     * Splits a comma-separated line. Fields may be quoted with double quotes
+     * to hold commas, with a doubled quote standing for a quote.
+     * @param line - String of one row
+     * @return - String array of fields
+     */
+    static String[] splitFields(String line){
+        List<String> fields = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < line.length(); i++){
+            char c = line.charAt(i);
+            if (quoted){
+                if (c == '"' && i + 1 < line.length() && line.charAt(i + 1) == '"'){
+                    field.append('"');
+                    i++;
+                }
+                else if (c == '"'){
+                    quoted = false;
+                }
+                else{
+                    field.append(c);
+                }
+            }
+            else if (c == '"'){
+                quoted = true;
+            }
+            else if (c == ','){
+                fields.add(field.toString());
+                field.setLength(0);
+            }
+            else{
+                field.append(c);
+            }
+        }
+        fields.add(field.toString());
+        return fields.toArray(new String[0]);
+    }
+
+    private static String joinFields(String[] fields){
+        StringBuilder line = new StringBuilder();
+        for (int i = 0; i < fields.length; i++){
+            if (i > 0){
+                line.append(',');
+            }
+            line.append(quoteField(fields[i]));
+        }
+        return line.toString();
+    }
+
+    private static String quoteField(String field){
+        if (field.indexOf(',') < 0 && field.indexOf('"') < 0){
+            return field;
+        }
+        return "\"" + field.replace("\"", "\"\"") + "\"";
+    }
+}
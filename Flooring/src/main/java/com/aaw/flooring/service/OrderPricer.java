@@ -0,0 +1,152 @@
+/*
+ * @author Austin Wong
+ * email: austinwongdev@gmail.com
+ * date: Oct 18, 2026
+ * purpose:
+ */
+
+package com.aaw.flooring.service;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+/**
+ * Calculates an order's material cost, labor cost, tax, and total. Area,
+ * per-square-foot costs, and tax rate are converted to whole hundredths in
+ * a long, and every multiply and HALF_UP rounding is done in long
+ * arithmetic, giving the same results as the BigDecimal calculation:
+ *
+ *   materialCost = round2(area * costPerSquareFoot)
+ *   laborCost    = round2(area * laborCostPerSquareFoot)
+ *   tax          = round2((materialCost + laborCost) * round2(taxRate / 100))
+ *   total        = materialCost + laborCost + tax
+ *
+ * Inputs with more than 2 decimal places, or large enough to overflow a
+ * long, are calculated with BigDecimal instead.
+ * @author Austin Wong
+ */
+class OrderPricer {
+
+    private static final BigDecimal ONE_HUNDRED = BigDecimal.valueOf(100);
+    private static final int SCALE = 2;
+
+    /**
+     * An order's calculated costs, each with 2 decimal places
+     */
+    static class Prices {
+        private final BigDecimal materialCost;
+        private final BigDecimal laborCost;
+        private final BigDecimal tax;
+        private final BigDecimal total;
+
+        Prices(BigDecimal materialCost, BigDecimal laborCost, BigDecimal tax, BigDecimal total){
+            this.materialCost = materialCost;
+            this.laborCost = laborCost;
+            this.tax = tax;
+            this.total = total;
+        }
+
+        BigDecimal getMaterialCost(){
+            return materialCost;
+        }
+
+        BigDecimal getLaborCost(){
+            return laborCost;
+        }
+
+        BigDecimal getTax(){
+            return tax;
+        }
+
+        BigDecimal getTotal(){
+            return total;
+        }
+    }
+
+    private OrderPricer(){
+    }
+
+    /**
+     * Calculates an order's costs in hundredths when every input fits,
+     * otherwise with BigDecimal
+     * @param area - BigDecimal of flooring area in square feet
+     * @param costPerSquareFoot - BigDecimal of material cost per square foot
+     * @param laborCostPerSquareFoot - BigDecimal of labor cost per square foot
+     * @param taxRate - BigDecimal of tax rate as a percentage
+     * @return - Prices of order
+     */
+    static Prices price(BigDecimal area, BigDecimal costPerSquareFoot,
+            BigDecimal laborCostPerSquareFoot, BigDecimal taxRate){
+        long areaHundredths = toHundredths(area);
+        long costHundredths = toHundredths(costPerSquareFoot);
+        long laborHundredths = toHundredths(laborCostPerSquareFoot);
+        long taxRateHundredths = toHundredths(taxRate);
+        if (areaHundredths == Long.MIN_VALUE || costHundredths == Long.MIN_VALUE
+                || laborHundredths == Long.MIN_VALUE || taxRateHundredths == Long.MIN_VALUE){
+            return priceWithBigDecimal(area, costPerSquareFoot, laborCostPerSquareFoot, taxRate);
+        }
+        try{
+            // Products of two hundredths are in ten-thousandths; round back to hundredths
+            long materialCost = roundHundredths(Math.multiplyExact(areaHundredths, costHundredths));
+            long laborCost = roundHundredths(Math.multiplyExact(areaHundredths, laborHundredths));
+            long taxFraction = roundHundredths(taxRateHundredths);
+            long subtotal = Math.addExact(materialCost, laborCost);
+            long tax = roundHundredths(Math.multiplyExact(subtotal, taxFraction));
+            long total = Math.addExact(subtotal, tax);
+            return new Prices(BigDecimal.valueOf(materialCost, SCALE), BigDecimal.valueOf(laborCost, SCALE),
+                    BigDecimal.valueOf(tax, SCALE), BigDecimal.valueOf(total, SCALE));
+        } catch (ArithmeticException e){
+            return priceWithBigDecimal(area, costPerSquareFoot, laborCostPerSquareFoot, taxRate);
+        }
+    }
+
+    /**
+     * Calculates an order's costs with BigDecimal, rounding each one to 2
+     * decimal places using HALF_UP rounding
+     * @param area - BigDecimal of flooring area in square feet
+     * @param costPerSquareFoot - BigDecimal of material cost per square foot
+     * @param laborCostPerSquareFoot - BigDecimal of labor cost per square foot
+     * @param taxRate - BigDecimal of tax rate as a percentage
+     * @return - Prices of order
+     */
+    static Prices priceWithBigDecimal(BigDecimal area, BigDecimal costPerSquareFoot,
+            BigDecimal laborCostPerSquareFoot, BigDecimal taxRate){
+        BigDecimal materialCost = area.multiply(costPerSquareFoot);
+        materialCost = materialCost.setScale(SCALE, RoundingMode.HALF_UP);
+
+        BigDecimal laborCost = area.multiply(laborCostPerSquareFoot);
+        laborCost = laborCost.setScale(SCALE, RoundingMode.HALF_UP);
+
+        BigDecimal tax = (materialCost.add(laborCost)).multiply(taxRate.divide(ONE_HUNDRED, SCALE, RoundingMode.HALF_UP));
+        tax = tax.setScale(SCALE, RoundingMode.HALF_UP);
+
+        BigDecimal total = materialCost.add(laborCost).add(tax);
+        total = total.setScale(SCALE, RoundingMode.HALF_UP);
+        return new Prices(materialCost, laborCost, tax, total);
+    }
+
+    /**
+     * Converts a value with at most 2 decimal places to whole hundredths
+     * @return - long hundredths, or Long.MIN_VALUE if the value has more
+     * decimal places or doesn't fit
+     */
+    private static long toHundredths(BigDecimal value){
+        if (value.scale() > SCALE){
+            value = value.stripTrailingZeros();
+            if (value.scale() > SCALE){
+                return Long.MIN_VALUE;
+            }
+        }
+        BigDecimal hundredths = value.movePointRight(SCALE);
+        return hundredths.unscaledValue().bitLength() > 62 ? Long.MIN_VALUE : hundredths.longValueExact();
+    }
+
+    /**
+     * Divides a value by 100, rounding half away from zero like HALF_UP
+     */
+    private static long roundHundredths(long value){
+        return value >= 0
+                ? Math.addExact(value, 50) / 100
+                : -(Math.addExact(Math.negateExact(value), 50) / 100);
+    }
+}
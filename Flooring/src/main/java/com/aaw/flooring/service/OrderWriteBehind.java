@@ -0,0 +1,138 @@
+/*
+ * @author Austin Wong
+ * email: austinwongdev@gmail.com
+ * date: Oct 18, 2026
+ * purpose:
+ */
+
+package com.aaw.flooring.service;
+
+import com.aaw.flooring.dao.OrderDao;
+import com.aaw.flooring.dao.OrderPersistenceException;
+import java.time.LocalDate;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * Saves order dates on a background thread so edits and removals don't wait
+ * on disk. Dates are queued in the order they were first requested; a date
+ * that is requested again before its save starts is only saved once, with
+ * every change made up to that point. The queue holds at most backlogLimit
+ * dates, after which requests for new dates wait for room. Failed saves are
+ * kept until they are taken, and the date stays unsaved in the DAO so the
+ * next save of that date, or saveAllOrders, tries again.
+ * @author Austin Wong
+ */
+class OrderWriteBehind {
+
+    private final OrderDao orderDao;
+    private final int backlogLimit;
+    private final Set<LocalDate> pendingDates = new LinkedHashSet<>();
+    private final Map<LocalDate, Exception> failures = new TreeMap<>();
+    private int savesInProgress = 0;
+    private Thread flusher;
+
+    OrderWriteBehind(OrderDao orderDao, int backlogLimit){
+        this.orderDao = orderDao;
+        this.backlogLimit = Math.max(1, backlogLimit);
+    }
+
+    /**
+     * Queues a date to be saved, waiting for room if the backlog is full
+     * and the date isn't already queued
+     * @param orderDate - LocalDate of orders to save
+     * @throws OrderPersistenceException if interrupted while waiting for room
+     */
+    synchronized void enqueue(LocalDate orderDate) throws OrderPersistenceException{
+        try{
+            while (pendingDates.size() >= backlogLimit && !pendingDates.contains(orderDate)){
+                wait();
+            }
+        } catch (InterruptedException e){
+            Thread.currentThread().interrupt();
+            throw new OrderPersistenceException(
+                    "Interrupted while queueing order data to save.", e);
+        }
+        pendingDates.add(orderDate);
+        startFlusherIfNeeded();
+        notifyAll();
+    }
+
+    /**
+     * Waits until every queued date has been saved or has failed
+     * @throws OrderPersistenceException if interrupted while waiting
+     */
+    synchronized void awaitIdle() throws OrderPersistenceException{
+        try{
+            while (!pendingDates.isEmpty() || savesInProgress > 0){
+                wait();
+            }
+        } catch (InterruptedException e){
+            Thread.currentThread().interrupt();
+            throw new OrderPersistenceException(
+                    "Interrupted while waiting for order data to save.", e);
+        }
+    }
+
+    /**
+     * Returns the dates that failed to save since the last call, and forgets
+     * them
+     * @return - Map from failed date to its exception, in date order
+     */
+    synchronized Map<LocalDate, Exception> takeFailures(){
+        Map<LocalDate, Exception> takenFailures = new TreeMap<>(failures);
+        failures.clear();
+        return takenFailures;
+    }
+
+    private void startFlusherIfNeeded(){
+        if (flusher == null){
+            flusher = new Thread(this::flushQueuedDates, "order-write-behind");
+            flusher.setDaemon(true);
+            flusher.start();
+        }
+    }
+
+    /**
+     * Saves queued dates one at a time, oldest first, for as long as the
+     * program runs
+     */
+    private void flushQueuedDates(){
+        while (true){
+            LocalDate orderDate;
+            synchronized (this){
+                try{
+                    while (pendingDates.isEmpty()){
+                        wait();
+                    }
+                } catch (InterruptedException e){
+                    return;
+                }
+                Iterator<LocalDate> oldestDate = pendingDates.iterator();
+                orderDate = oldestDate.next();
+                oldestDate.remove();
+                savesInProgress++;
+                notifyAll();
+            }
+            Exception failure = null;
+            try{
+                orderDao.saveOrder(orderDate);
+            } catch (Exception e){
+                failure = e;
+            }
+            synchronized (this){
+                if (failure != null){
+                    failures.put(orderDate, failure);
+                }
+                else{
+                    failures.remove(orderDate);
+                }
+                savesInProgress--;
+                notifyAll();
+            }
+        }
+    }
+}
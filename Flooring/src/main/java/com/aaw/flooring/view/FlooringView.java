@@ -8,7 +8,10 @@
 package com.aaw.flooring.view;
 
 import com.aaw.flooring.model.Order;
+import com.aaw.flooring.model.OrderExportReport;
+import com.aaw.flooring.model.OrderImportReport;
 import com.aaw.flooring.model.Product;
+import com.aaw.flooring.model.RepricingReport;
 import com.aaw.flooring.model.StateTax;
 import java.math.BigDecimal;
 import java.time.LocalDate;
@@ -37,9 +40,12 @@ public class FlooringView {
         io.print("2. Add an Order");
         io.print("3. Edit an Order");
         io.print("4. Remove an Order");
-        io.print("5. Quit");
+        io.print("5. Reprice Future Orders");
+        io.print("6. Import Orders");
+        io.print("7. Export Orders");
+        io.print("8. Quit");
         io.print("");
-        return io.readInt("Select from the above options:", 1, 5);
+        return io.readInt("Select from the above options:", 1, 8);
     }
     
     /**
@@ -143,6 +149,71 @@ public class FlooringView {
         io.pressEnterToContinue();
     }
     
+    /**
+     * Displays how long it took to load orders at startup
+     * @param loadReport - String summary of order load
+     */
+    public void displayLoadReport(String loadReport){
+        io.print(loadReport);
+        io.print("");
+    }
+    
+    public void displayRepriceOrdersBanner(){
+        io.printWithBanner("Reprice Future Orders");
+    }
+    
+    public boolean confirmRepriceOrders(){
+        return io.readYesOrNo("Reload products and taxes and reprice future orders? (Y/N)");
+    }
+    
+    /**
+     * Displays how many orders were repriced and how their totals changed
+     * @param repricingReport - RepricingReport of repricing job
+     */
+    public void displayRepricingReport(RepricingReport repricingReport){
+        io.print(repricingReport.toString());
+        io.print("");
+    }
+    
+    public void displayCancelRepriceOrdersMessage(){
+        io.print("No orders were repriced");
+        io.print("");
+    }
+    
+    public void displayImportOrdersBanner(){
+        io.printWithBanner("Import Orders");
+    }
+    
+    public String promptImportFilePath(){
+        return io.readString("Enter Import File (e.g. SampleFileData/Backup/DataExport.txt): ");
+    }
+    
+    /**
+     * Displays how many rows were imported and rejected
+     * @param importReport - OrderImportReport of import
+     */
+    public void displayImportReport(OrderImportReport importReport){
+        io.print(importReport.toString());
+        io.print("");
+    }
+    
+    public void displayExportOrdersBanner(){
+        io.printWithBanner("Export Orders");
+    }
+    
+    public String promptExportFilePath(){
+        return io.readString("Enter Export File (e.g. Backup/DataExport.txt): ");
+    }
+    
+    /**
+     * Displays how many rows were exported and how fast
+     * @param exportReport - OrderExportReport of export
+     */
+    public void displayExportReport(OrderExportReport exportReport){
+        io.print(exportReport.toString());
+        io.print("");
+    }
+    
     public void displayExitMessage(){
         io.print("Exiting...");
         io.print("");
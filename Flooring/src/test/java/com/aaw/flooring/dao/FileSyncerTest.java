@@ -0,0 +1,74 @@
+/*
+ * @author Austin Wong
+ * email: austinwongdev@gmail.com
+ * date: Oct 18, 2026
+ * purpose:
+ */
+
+package com.aaw.flooring.dao;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ *
+ * @author Austin Wong
+ */
+public class FileSyncerTest {
+
+    @Test
+    public void testSyncCountsByMode(@TempDir Path folder) throws Exception{
+        Path file = Files.write(folder.resolve("Orders_06012013.txt"), new byte[]{1, 2, 3});
+        FileSyncer fileSyncer = new FileSyncer();
+        
+        fileSyncer.sync(file);
+        assertEquals(0, fileSyncer.getForceCount(), "NO_SYNC should never force");
+        
+        fileSyncer.setDurabilityMode(DurabilityMode.FSYNC);
+        fileSyncer.sync(file);
+        fileSyncer.sync(folder);
+        assertEquals(2, fileSyncer.getForceCount(), "FSYNC should force each file and folder");
+        
+        fileSyncer.sync(folder.resolve("Deleted.txt"));
+        assertEquals(2, fileSyncer.getForceCount(), "Deleted file should be skipped");
+    }
+    
+    @Test
+    public void testGroupCommitSharesForces(@TempDir Path folder) throws Exception{
+        Path file = Files.write(folder.resolve("OrderJournal.txt"), new byte[]{1, 2, 3});
+        FileSyncer fileSyncer = new FileSyncer();
+        fileSyncer.setDurabilityMode(DurabilityMode.GROUP_COMMIT);
+        fileSyncer.setGroupCommitWindowMillis(200);
+        
+        int threadCount = 8;
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(threadCount);
+        List<Future<?>> results = new ArrayList<>();
+        for (int t = 0; t < threadCount; t++){
+            results.add(executor.submit(() -> {
+                start.await();
+                fileSyncer.sync(file);
+                return null;
+            }));
+        }
+        start.countDown();
+        for (Future<?> result : results){
+            result.get(60, TimeUnit.SECONDS);
+        }
+        executor.shutdown();
+        
+        assertTrue(fileSyncer.getForceCount() >= 1, "Group should force the file");
+        assertTrue(fileSyncer.getForceCount() < threadCount, 
+                "Syncs waiting on the same window should share a force");
+    }
+}
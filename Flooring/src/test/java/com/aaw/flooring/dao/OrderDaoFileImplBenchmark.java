@@ -0,0 +1,211 @@
+/*
+ * @author Austin Wong
+ * email: austinwongdev@gmail.com
+ * date: Oct 18, 2026
+ * purpose:
+ */
+
+package com.aaw.flooring.dao;
+
+import com.aaw.flooring.model.Order;
+import com.aaw.flooring.model.Product;
+import com.aaw.flooring.model.StateTax;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Times OrderDaoFileImpl's save paths against the ways they used to work.
+ * Not part of the default test run; run with mvn test -Pbenchmark
+ * @author Austin Wong
+ */
+public class OrderDaoFileImplBenchmark {
+    
+    private final Product product1 = new Product("Tile", new BigDecimal("3.50"), new BigDecimal("4.15"));
+    private final StateTax stateTax1 = new StateTax("CA", "California", new BigDecimal("25.00"));
+    
+    @Test
+    public void compareLockStripes(@TempDir Path orderFolder) throws Exception{
+        // Each thread adds, reads and edits orders on its own dates, in memory
+        int threadCount = 8;
+        int ordersPerThread = 5000;
+        StringBuilder report = new StringBuilder(threadCount + " threads adding, reading and editing " 
+                + ordersPerThread + " orders each:");
+        for (int lockStripes : new int[]{1, 64}){
+            long bestNanos = Long.MAX_VALUE;
+            for (int round = 0; round < 3; round++){
+                Path roundFolder = Files.createDirectory(orderFolder.resolve("stripes" + lockStripes + "-" + round));
+                OrderDaoFileImpl orderDao = new OrderDaoFileImpl(roundFolder.toString() + "/", lockStripes);
+                orderDao.loadAllOrders();
+                
+                ExecutorService executor = Executors.newFixedThreadPool(threadCount);
+                List<Future<?>> results = new ArrayList<>();
+                long startTime = System.nanoTime();
+                for (int t = 0; t < threadCount; t++){
+                    int threadNumber = t;
+                    results.add(executor.submit(() -> {
+                        for (int i = 0; i < ordersPerThread; i++){
+                            LocalDate orderDate = LocalDate.parse("2030-01-01").plusDays(threadNumber * 8 + i % 8);
+                            Order order = orderDao.createOrder(orderDate, "Customer " + threadNumber, 
+                                    stateTax1, product1, new BigDecimal("249.00"),
+                                    new BigDecimal("871.50"), new BigDecimal("1033.35"), 
+                                    new BigDecimal("476.21"), new BigDecimal("2381.06"));
+                            orderDao.addOrder(order);
+                            Order addedOrder = orderDao.getOrder(order.getOrderNumber(), orderDate);
+                            if (i % 4 == 0){
+                                orderDao.editOrder(addedOrder, "Edited Customer", stateTax1, product1, 
+                                        new BigDecimal("300.00"));
+                            }
+                        }
+                        return null;
+                    }));
+                }
+                for (Future<?> result : results){
+                    result.get(60, TimeUnit.SECONDS);
+                }
+                bestNanos = Math.min(bestNanos, System.nanoTime() - startTime);
+                executor.shutdown();
+                
+                assertEquals(threadCount * ordersPerThread, orderDao.getOrdersBetween(LocalDate.parse("2030-01-01"), 
+                        LocalDate.parse("2030-03-05")).size(), "Should keep every order with " + lockStripes + " lock(s)");
+            }
+            report.append(String.format("%n  %2d lock stripe(s): %8d orders/s", lockStripes, 
+                    threadCount * ordersPerThread * 1_000_000_000L / bestNanos));
+        }
+        System.out.println(report);
+    }
+    
+    @Test
+    public void compareOrderFileWriters(@TempDir Path orderFolder) 
+            throws OrderPersistenceException, IOException{
+        // One date with 20,000 orders
+        LocalDate orderDate = LocalDate.parse("2013-06-01");
+        OrderDaoFileImpl orderDao = new OrderDaoFileImpl(orderFolder.toString() + "/");
+        orderDao.loadAllOrders();
+        List<Order> orders = new ArrayList<>();
+        for (int i = 0; i < 20000; i++){
+            Order order = orderDao.createOrder(orderDate, "Customer " + i, 
+                    stateTax1, product1, new BigDecimal("249.00"),
+                    new BigDecimal("871.50"), new BigDecimal("1033.35"), 
+                    new BigDecimal("476.21"), new BigDecimal("2381.06"));
+            orderDao.addOrder(order);
+            orders.add(order);
+        }
+        Path orderFile = orderFolder.resolve("Orders_06012013.txt");
+        Path printWriterFile = orderFolder.resolve("PrintWriter_06012013.txt");
+        
+        // Best of several rounds, so both paths are measured after warming up
+        long printWriterNanos = Long.MAX_VALUE;
+        long bufferedNanos = Long.MAX_VALUE;
+        for (int round = 0; round < 5; round++){
+            long startTime = System.nanoTime();
+            writeWithPrintWriter(printWriterFile, orders);
+            printWriterNanos = Math.min(printWriterNanos, System.nanoTime() - startTime);
+            
+            startTime = System.nanoTime();
+            orderDao.saveOrder(orderDate);
+            bufferedNanos = Math.min(bufferedNanos, System.nanoTime() - startTime);
+        }
+        assertEquals(Files.readAllLines(printWriterFile), Files.readAllLines(orderFile), 
+                "Both paths should write the same file");
+        System.out.println("Writing " + orders.size() + " orders: PrintWriter flushing each line " 
+                + printWriterNanos / 1_000_000 + " ms, saveOrder " + bufferedNanos / 1_000_000 + " ms");
+    }
+    
+    /**
+     * Writes an order file the way saveOrder did before it built the file in
+     * one buffer: a PrintWriter over a FileWriter, flushed after every line.
+     */
+    private void writeWithPrintWriter(Path orderFile, List<Order> orders) throws IOException{
+        try (PrintWriter out = new PrintWriter(new FileWriter(orderFile.toFile()))){
+            out.println("OrderNumber::CustomerName::State::TaxRate::ProductType::Area::"
+                    + "CostPerSquareFoot::LaborCostPerSquareFoot::MaterialCost::LaborCost::Tax::Total");
+            out.flush();
+            for (Order order : orders){
+                out.println(order.getOrderNumber() + "::" + order.getCustomerName() + "::" 
+                        + order.getStateTax().getStateAbbreviation() + "::" + order.getStateTax().getTaxRate() + "::"
+                        + order.getProduct().getProductType() + "::" + order.getArea() + "::"
+                        + order.getProduct().getCostPerSquareFoot() + "::" 
+                        + order.getProduct().getLaborCostPerSquareFoot() + "::"
+                        + order.getMaterialCost() + "::" + order.getLaborCost() + "::" 
+                        + order.getTax() + "::" + order.getTotal());
+                out.flush();
+            }
+        }
+    }
+    
+    @Test
+    public void compareDurabilityModes(@TempDir Path orderFolder) throws Exception{
+        // Group commit is timed without and with a window for more saves to join
+        Object[][] configurations = {
+            {DurabilityMode.NO_SYNC, 0L}, {DurabilityMode.FSYNC, 0L}, 
+            {DurabilityMode.GROUP_COMMIT, 0L}, {DurabilityMode.GROUP_COMMIT, 2L}
+        };
+        int threadCount = 8;
+        int savesPerThread = 25;
+        StringBuilder report = new StringBuilder("Durability modes, " + threadCount + " threads saving " 
+                + savesPerThread + " times each:");
+        for (Object[] configuration : configurations){
+            DurabilityMode durabilityMode = (DurabilityMode) configuration[0];
+            long windowMillis = (Long) configuration[1];
+            Path modeFolder = Files.createDirectory(orderFolder.resolve(durabilityMode.name() + windowMillis));
+            OrderDaoFileImpl orderDao = new OrderDaoFileImpl(modeFolder.toString() + "/");
+            orderDao.setJournalEnabled(true);
+            orderDao.setDurabilityMode(durabilityMode);
+            orderDao.setGroupCommitWindowMillis(windowMillis);
+            orderDao.loadAllOrders();
+            
+            long[] latencies = new long[threadCount * savesPerThread];
+            ExecutorService executor = Executors.newFixedThreadPool(threadCount);
+            List<Future<?>> results = new ArrayList<>();
+            long startTime = System.nanoTime();
+            for (int t = 0; t < threadCount; t++){
+                int thread = t;
+                LocalDate orderDate = LocalDate.parse("2030-01-01").plusDays(t);
+                results.add(executor.submit(() -> {
+                    for (int i = 0; i < savesPerThread; i++){
+                        orderDao.addOrder(orderDao.createOrder(orderDate, "Ada Lovelace", 
+                                stateTax1, product1, new BigDecimal("249.00"),
+                                new BigDecimal("871.50"), new BigDecimal("1033.35"), 
+                                new BigDecimal("476.21"), new BigDecimal("2381.06")));
+                        long saveStart = System.nanoTime();
+                        orderDao.saveOrder(orderDate);
+                        latencies[thread * savesPerThread + i] = System.nanoTime() - saveStart;
+                    }
+                    return null;
+                }));
+            }
+            for (Future<?> result : results){
+                result.get(60, TimeUnit.SECONDS);
+            }
+            long elapsedNanos = System.nanoTime() - startTime;
+            executor.shutdown();
+            
+            OrderDao reloadedOrderDao = new OrderDaoFileImpl(modeFolder.toString() + "/");
+            reloadedOrderDao.loadAllOrders();
+            assertEquals(latencies.length, reloadedOrderDao.getOrdersBetween(LocalDate.parse("2030-01-01"), 
+                    LocalDate.parse("2030-01-08")).size(), "Should save every order with " + durabilityMode);
+            
+            Arrays.sort(latencies);
+            report.append(String.format("%n  %-12s window %d ms: %6d saves/s, p50 %6d us, p99 %6d us, %.1f forces/save",
+                    durabilityMode, windowMillis, latencies.length * 1_000_000_000L / elapsedNanos,
+                    latencies[latencies.length / 2] / 1000, latencies[latencies.length * 99 / 100] / 1000,
+                    (double) orderDao.getDiskForceCount() / latencies.length));
+        }
+        System.out.println(report);
+    }
+}
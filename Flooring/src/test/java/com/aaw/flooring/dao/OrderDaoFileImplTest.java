@@ -11,10 +11,27 @@ import com.aaw.flooring.model.StateTax;
 import java.io.FileWriter;
 import java.io.IOException;
 import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.FileTime;
 import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 import static org.junit.jupiter.api.Assertions.*;
 
 /**
@@ -120,6 +137,21 @@ public class OrderDaoFileImplTest {
         assertEquals(expectedOrder, returnedOrder, "Edits should be saved");
     }
     
+    @Test
+    public void testEditOrderWithCosts() throws OrderNotFoundException, NoOrdersOnDateException{
+        testOrderDao.addOrder(order1);
+        Order readOrder = testOrderDao.getOrder(order1.getOrderNumber(), order1.getOrderDate());
+        
+        Order returnedOrder = testOrderDao.editOrder(order1, order1.getCustomerName(), 
+                order1.getStateTax(), order1.getProduct(), order1.getArea(), 
+                new BigDecimal("1.00"), new BigDecimal("2.00"), new BigDecimal("3.00"), new BigDecimal("6.00"));
+        
+        assertNotNull(returnedOrder, "New costs alone should edit the order");
+        assertEquals(new BigDecimal("6.00"), testOrderDao.getOrder(order1.getOrderNumber(), 
+                order1.getOrderDate()).getTotal(), "Stored order should have the new costs");
+        assertEquals(order1.getTotal(), readOrder.getTotal(), "Order read before the edit should be unchanged");
+    }
+    
     @Test
     public void testRemoveOrder() throws NoOrdersOnDateException, OrderNotFoundException{
         Order expectedOrder = this.order1;
@@ -139,8 +171,9 @@ public class OrderDaoFileImplTest {
     
     @Test
     public void testSaveLoadOrder() throws OrderPersistenceException, NoOrdersOnDateException, IOException{
-        // Reset file
+        // Reset file and rescan the folder instead of trusting the manifest
         new FileWriter(TEST_FILE_PATH + "Orders_06032013.txt");
+        Files.deleteIfExists(Path.of(TEST_FILE_PATH, "OrderManifest.txt"));
         
         int orderNumber = 4;
         LocalDate orderDate = LocalDate.parse("2013-06-03");
@@ -161,6 +194,7 @@ public class OrderDaoFileImplTest {
         
         // Clean-up
         new FileWriter(TEST_FILE_PATH + "Orders_06032013.txt");
+        Files.deleteIfExists(Path.of(TEST_FILE_PATH, "OrderManifest.txt"));
     }
     
     @Test
@@ -176,6 +210,9 @@ public class OrderDaoFileImplTest {
     public void testGetNextAvailableOrderNumber() throws OrderPersistenceException, IOException{
         // Ensure there are only 3 orders, not 4
         new FileWriter(TEST_FILE_PATH + "Orders_06032013.txt");
+        // Rebuild the order number sequence and manifest from the order files
+        Files.deleteIfExists(Path.of(TEST_FILE_PATH, "OrderNumberSequence.txt"));
+        Files.deleteIfExists(Path.of(TEST_FILE_PATH, "OrderManifest.txt"));
         
         int expectedOrderNumber = 4;
         
@@ -185,4 +222,1145 @@ public class OrderDaoFileImplTest {
         assertEquals(expectedOrderNumber, returnedOrderNumber, "Order # should equal 4");
     }
     
+    @Test
+    public void testLoadAllOrdersInParallel() throws OrderPersistenceException, NoOrdersOnDateException{
+        OrderDaoFileImpl parallelOrderDao = new OrderDaoFileImpl(TEST_FILE_PATH);
+        parallelOrderDao.setLoadParallelism(4);
+        LocalDate orderDate = LocalDate.parse("2013-06-02");
+        
+        parallelOrderDao.loadAllOrders();
+        testOrderDao.loadAllOrders();
+        
+        assertEquals(testOrderDao.getAllOrdersOnDate(orderDate), 
+                parallelOrderDao.getAllOrdersOnDate(orderDate),
+                "Parallel load should read the same orders as a serial load");
+        assertNotNull(parallelOrderDao.getLoadReport(), "Should report load timing");
+    }
+    
+    @Test
+    public void testLazyLoadOrders() throws OrderPersistenceException, NoOrdersOnDateException, OrderNotFoundException{
+        OrderDaoFileImpl lazyOrderDao = new OrderDaoFileImpl(TEST_FILE_PATH);
+        lazyOrderDao.setLazyLoad(true);
+        LocalDate orderDate = LocalDate.parse("2013-06-02");
+        
+        lazyOrderDao.loadAllOrders();
+        testOrderDao.loadAllOrders();
+        
+        assertEquals(testOrderDao.getNextAvailableOrderNumber(), 
+                lazyOrderDao.getNextAvailableOrderNumber(),
+                "Lazy mode should find the same next order number without loading orders");
+        assertEquals(testOrderDao.getAllOrdersOnDate(orderDate), 
+                lazyOrderDao.getAllOrdersOnDate(orderDate),
+                "Orders should be loaded the first time their date is used");
+        assertEquals(testOrderDao.getOrder(2, orderDate), lazyOrderDao.getOrder(2, orderDate),
+                "Should return Doctor Who's order #2 on 6/2/2013");
+    }
+    
+    @Test
+    public void testSaveAllOrdersOnlyWritesChangedDates(@TempDir Path orderFolder) 
+            throws IOException, OrderPersistenceException, NoOrdersOnDateException{
+        String header = "OrderNumber::CustomerName::State::TaxRate::ProductType::Area::"
+                + "CostPerSquareFoot::LaborCostPerSquareFoot::MaterialCost::LaborCost::Tax::Total\n";
+        Path changedFile = orderFolder.resolve("Orders_06012013.txt");
+        Path unchangedFile = orderFolder.resolve("Orders_06022013.txt");
+        Files.write(changedFile, (header + "1::Ada Lovelace::CA::25.00::Tile::249.00::3.50::4.15::871.50::1033.35::476.21::2381.06\n").getBytes());
+        Files.write(unchangedFile, (header + "2::Doctor Who::WA::9.25::Wood::243.00::5.15::4.75::1251.45::1154.25::216.51::2622.21\n").getBytes());
+        OrderDao orderDao = new OrderDaoFileImpl(orderFolder.toString() + "/");
+        orderDao.loadAllOrders();
+        
+        // Change unchanged date's file behind the DAO's back
+        String unchangedFileContents = header + "3::Albert Einstein::KY::6.00::Carpet::217.00::2.25::2.10::488.25::455.70::56.64::1000.59\n";
+        Files.write(unchangedFile, unchangedFileContents.getBytes());
+        Order newOrder = new Order(LocalDate.parse("2013-06-01"), 4, "Rick Moranis", 
+                this.stateTax1, this.product1, new BigDecimal("249.00"),
+                new BigDecimal("871.50"), new BigDecimal("1033.35"), 
+                new BigDecimal("476.21"), new BigDecimal("2381.06"));
+        orderDao.addOrder(newOrder);
+        orderDao.saveAllOrders();
+        
+        assertEquals(unchangedFileContents, new String(Files.readAllBytes(unchangedFile)), 
+                "Date without changes should not be rewritten");
+        assertEquals(3, Files.readAllLines(changedFile).size(), "Changed date should be rewritten");
+    }
+    
+    @Test
+    public void testJournalReplayAndCompaction(@TempDir Path orderFolder) 
+            throws OrderPersistenceException, NoOrdersOnDateException, OrderNotFoundException{
+        LocalDate orderDate = LocalDate.parse("2013-06-01");
+        Path orderFile = orderFolder.resolve("Orders_06012013.txt");
+        OrderDaoFileImpl journalOrderDao = new OrderDaoFileImpl(orderFolder.toString() + "/");
+        journalOrderDao.setJournalEnabled(true);
+        journalOrderDao.loadAllOrders();
+        
+        journalOrderDao.addOrder(order1);
+        journalOrderDao.saveOrder(orderDate);
+        
+        assertFalse(Files.exists(orderFile), "Save should only append to the journal");
+        
+        OrderDaoFileImpl restartedOrderDao = new OrderDaoFileImpl(orderFolder.toString() + "/");
+        restartedOrderDao.setJournalEnabled(true);
+        restartedOrderDao.loadAllOrders();
+        
+        assertEquals(order1, restartedOrderDao.getOrder(1, orderDate), "Journal should be replayed on load");
+        
+        restartedOrderDao.removeOrder(1, orderDate);
+        restartedOrderDao.saveOrder(orderDate);
+        restartedOrderDao.compactJournal();
+        
+        assertFalse(Files.exists(orderFile), "Compacted date with no orders should have no file");
+        assertFalse(Files.exists(orderFolder.resolve("OrderJournal.txt")), "Compaction should empty the journal");
+    }
+    
+    @Test
+    public void testOrderNumberSequencePersisted(@TempDir Path orderFolder) 
+            throws OrderPersistenceException, NoOrdersOnDateException, IOException{
+        OrderDao orderDao = new OrderDaoFileImpl(orderFolder.toString() + "/");
+        orderDao.loadAllOrders();
+        
+        int firstInBlock = orderDao.allocateOrderNumbers(10);
+        Order order = orderDao.createOrder(LocalDate.parse("2013-06-01"), "Ada Lovelace", 
+                stateTax1, product1, new BigDecimal("249.00"),
+                new BigDecimal("871.50"), new BigDecimal("1033.35"), 
+                new BigDecimal("476.21"), new BigDecimal("2381.06"));
+        orderDao.addOrder(order);
+        orderDao.saveAllOrders();
+        
+        assertEquals(1, firstInBlock, "Block should start at order #1");
+        assertEquals(11, order.getOrderNumber(), "Next order should come after the block");
+        
+        OrderDao restartedOrderDao = new OrderDaoFileImpl(orderFolder.toString() + "/");
+        restartedOrderDao.loadAllOrders();
+        
+        assertEquals(12, restartedOrderDao.getNextAvailableOrderNumber(), 
+                "Sequence should be read from file, not rebuilt from orders");
+
+        // The sequence is written before the orders it covers
+        OrderDaoFileImpl crashingOrderDao = new OrderDaoFileImpl(orderFolder.toString() + "/");
+        crashingOrderDao.loadAllOrders();
+        for (String orderDate : new String[]{"2013-06-02", "2013-06-03"}){
+            crashingOrderDao.addOrder(crashingOrderDao.createOrder(LocalDate.parse(orderDate), "Grace Hopper",
+                    stateTax1, product1, new BigDecimal("249.00"),
+                    new BigDecimal("871.50"), new BigDecimal("1033.35"),
+                    new BigDecimal("476.21"), new BigDecimal("2381.06")));
+        }
+        crashingOrderDao.setCommitStepListener((step) -> {
+            throw new SimulatedCrash();
+        });
+        assertThrows(SimulatedCrash.class, () -> crashingOrderDao.saveAllOrders(), "Save should crash");
+        assertEquals("14", new String(Files.readAllBytes(orderFolder.resolve("OrderNumberSequence.txt"))),
+                "Sequence should be saved before the orders");
+
+        // A sequence file behind the orders is moved past them at load
+        Files.write(orderFolder.resolve("OrderNumberSequence.txt"), "2".getBytes());
+        for (boolean lazyLoad : new boolean[]{false, true}){
+            OrderDaoFileImpl behindOrderDao = new OrderDaoFileImpl(orderFolder.toString() + "/");
+            behindOrderDao.setLazyLoad(lazyLoad);
+            behindOrderDao.loadAllOrders();
+            assertEquals(12, behindOrderDao.getNextAvailableOrderNumber(),
+                    "Should not reuse a saved order number, lazy load " + lazyLoad);
+        }
+    }
+    
+    @Test
+    public void testGetOrdersBetween() throws OrderPersistenceException{
+        testOrderDao.loadAllOrders();
+        
+        List<Order> orders = testOrderDao.getOrdersBetween(LocalDate.parse("2013-06-01"), 
+                LocalDate.parse("2013-06-03"));
+        
+        assertEquals(3, orders.size(), "Should return 3 orders from 6/1 to 6/3");
+        assertEquals("Ada Lovelace", orders.get(0).getCustomerName(), "Should start with 6/1");
+        assertEquals(2, orders.get(1).getOrderNumber(), "Should sort 6/2 by order number");
+        assertEquals(3, orders.get(2).getOrderNumber(), "Should sort 6/2 by order number");
+        assertTrue(testOrderDao.getOrdersBetween(LocalDate.parse("2013-07-01"), 
+                LocalDate.parse("2013-07-31")).isEmpty(), "Should return no orders in July");
+    }
+    
+    @Test
+    public void testStreamOrdersBetweenLazyLoad() throws OrderPersistenceException{
+        OrderDaoFileImpl lazyOrderDao = new OrderDaoFileImpl(TEST_FILE_PATH);
+        lazyOrderDao.setLazyLoad(true);
+        lazyOrderDao.loadAllOrders();
+        
+        List<String> customerNames = lazyOrderDao.streamOrdersBetween(LocalDate.parse("2013-06-02"), 
+                LocalDate.parse("2013-06-04"))
+                .map(Order::getCustomerName)
+                .collect(Collectors.toList());
+        
+        assertEquals(List.of("Doctor Who", "Albert Einstein", "Rick Moranis"), customerNames, 
+                "Should load and stream orders from 6/2 to 6/4 in date order");
+        assertThrows(IllegalArgumentException.class,
+                () -> lazyOrderDao.streamOrdersBetween(LocalDate.parse("2013-06-04"), 
+                        LocalDate.parse("2013-06-02")),
+                "Should reject a range that ends before it starts");
+    }
+    
+    @Test
+    public void testConcurrentAddRemoveSave(@TempDir Path orderFolder) throws Exception{
+        // Once with one lock shared by every date, once with striped locks
+        for (int lockStripes : new int[]{1, 64}){
+            Path stripeFolder = Files.createDirectory(orderFolder.resolve("stripes" + lockStripes));
+            OrderDaoFileImpl orderDao = new OrderDaoFileImpl(stripeFolder.toString() + "/", lockStripes);
+            orderDao.loadAllOrders();
+            
+            int threadCount = 8;
+            int ordersPerThread = 100;
+            Set<Integer> keptOrderNumbers = ConcurrentHashMap.newKeySet();
+            ExecutorService executor = Executors.newFixedThreadPool(threadCount);
+            List<Future<?>> results = new ArrayList<>();
+            for (int t = 0; t < threadCount; t++){
+                int threadNumber = t;
+                results.add(executor.submit(() -> {
+                    for (int i = 0; i < ordersPerThread; i++){
+                        LocalDate orderDate = LocalDate.parse("2030-01-01").plusDays((threadNumber + i) % 5);
+                        Order order = orderDao.createOrder(orderDate, "Customer " + threadNumber, 
+                                stateTax1, product1, new BigDecimal("249.00"),
+                                new BigDecimal("871.50"), new BigDecimal("1033.35"), 
+                                new BigDecimal("476.21"), new BigDecimal("2381.06"));
+                        orderDao.addOrder(order);
+                        if (i % 3 == 0){
+                            orderDao.removeOrder(order.getOrderNumber(), orderDate);
+                        }
+                        else{
+                            keptOrderNumbers.add(order.getOrderNumber());
+                        }
+                        orderDao.saveOrder(orderDate);
+                    }
+                    return null;
+                }));
+            }
+            for (Future<?> result : results){
+                result.get(60, TimeUnit.SECONDS);
+            }
+            executor.shutdown();
+            
+            OrderDao reloadedOrderDao = new OrderDaoFileImpl(stripeFolder.toString() + "/");
+            reloadedOrderDao.loadAllOrders();
+            Set<Integer> savedOrderNumbers = reloadedOrderDao.streamOrdersBetween(
+                    LocalDate.parse("2030-01-01"), LocalDate.parse("2030-01-05"))
+                    .map(Order::getOrderNumber)
+                    .collect(Collectors.toSet());
+            
+            assertEquals(threadCount * ordersPerThread + 1, reloadedOrderDao.getNextAvailableOrderNumber(),
+                    "Every thread should get its own order numbers with " + lockStripes + " lock(s)");
+            assertEquals(keptOrderNumbers, savedOrderNumbers, 
+                    "Saved orders should match the orders kept with " + lockStripes + " lock(s)");
+        }
+    }
+    
+    @Test
+    public void testSnapshotLoad(@TempDir Path orderFolder) 
+            throws OrderPersistenceException, NoOrdersOnDateException, OrderNotFoundException, IOException{
+        String folder = orderFolder.toString() + "/";
+        OrderDao orderDao = new OrderDaoFileImpl(folder);
+        orderDao.loadAllOrders();
+        Order firstOrder = orderDao.createOrder(LocalDate.parse("2013-06-01"), "Ada Lovelace", 
+                stateTax1, product1, new BigDecimal("249.00"),
+                new BigDecimal("871.50"), new BigDecimal("1033.35"), 
+                new BigDecimal("476.21"), new BigDecimal("2381.06"));
+        Order secondOrder = orderDao.createOrder(LocalDate.parse("2013-06-02"), "Grace Hopper", 
+                stateTax1, product1, new BigDecimal("249.00"),
+                new BigDecimal("871.50"), new BigDecimal("1033.35"), 
+                new BigDecimal("476.21"), new BigDecimal("2381.06"));
+        orderDao.addOrder(firstOrder);
+        orderDao.addOrder(secondOrder);
+        orderDao.saveAllOrders();
+        orderDao.saveSnapshot();
+        
+        OrderDao snapshotOrderDao = new OrderDaoFileImpl(folder);
+        snapshotOrderDao.loadAllOrders();
+        
+        assertTrue(snapshotOrderDao.getLoadReport().contains("(2 from snapshot)"), 
+                "Should load both dates from snapshot: " + snapshotOrderDao.getLoadReport());
+        assertEquals(firstOrder, snapshotOrderDao.getOrder(firstOrder.getOrderNumber(), firstOrder.getOrderDate()),
+                "Should read Ada's order from snapshot");
+        
+        // Change one file after the snapshot was taken
+        snapshotOrderDao.editOrder(snapshotOrderDao.getOrder(secondOrder.getOrderNumber(), secondOrder.getOrderDate()), 
+                "Grace Brewster Murray Hopper", stateTax1, product1, new BigDecimal("249.00"));
+        snapshotOrderDao.saveOrder(secondOrder.getOrderDate());
+        
+        OrderDao partialSnapshotOrderDao = new OrderDaoFileImpl(folder);
+        partialSnapshotOrderDao.loadAllOrders();
+        
+        assertTrue(partialSnapshotOrderDao.getLoadReport().contains("(1 from snapshot)"), 
+                "Should read the changed date from its file: " + partialSnapshotOrderDao.getLoadReport());
+        assertEquals("Grace Brewster Murray Hopper", partialSnapshotOrderDao.getOrder(
+                secondOrder.getOrderNumber(), secondOrder.getOrderDate()).getCustomerName(),
+                "Should see the change made after the snapshot");
+        
+        // Damage the customer name in the snapshot's first section, which is for 6/1
+        Path snapshotFile = orderFolder.resolve("OrderSnapshot.dat");
+        byte[] snapshotBytes = Files.readAllBytes(snapshotFile);
+        int tableLength = ByteBuffer.wrap(snapshotBytes, 8, 4).getInt();
+        int firstSectionStart = 8 + 4 + tableLength + 4 + 4 + 4 + 8 + 8 + 4;
+        snapshotBytes[firstSectionStart + 12] ^= 0x7F;
+        Files.write(snapshotFile, snapshotBytes);
+        OrderDao damagedSnapshotOrderDao = new OrderDaoFileImpl(folder);
+        damagedSnapshotOrderDao.loadAllOrders();
+        
+        assertTrue(damagedSnapshotOrderDao.getLoadReport().contains("(1 from snapshot)"), 
+                "Should still match the damaged date's file: " + damagedSnapshotOrderDao.getLoadReport());
+        assertEquals(firstOrder, damagedSnapshotOrderDao.getOrder(firstOrder.getOrderNumber(), firstOrder.getOrderDate()),
+                "Should fall back to the order file for a damaged section");
+    }
+    
+    @Test
+    public void testSnapshotKeepsDatesNotInMemory(@TempDir Path orderFolder) 
+            throws OrderPersistenceException, NoOrdersOnDateException, OrderNotFoundException, IOException{
+        String folder = orderFolder.toString() + "/";
+        Product product2 = new Product("Wood", new BigDecimal("5.15"), new BigDecimal("4.75"));
+        StateTax stateTax2 = new StateTax("WA", "Washington", new BigDecimal("9.25"));
+        OrderDao orderDao = new OrderDaoFileImpl(folder);
+        orderDao.loadAllOrders();
+        Order firstOrder = orderDao.createOrder(LocalDate.parse("2013-06-01"), "Ada Lovelace", 
+                stateTax1, product1, new BigDecimal("249.00"),
+                new BigDecimal("871.50"), new BigDecimal("1033.35"), 
+                new BigDecimal("476.21"), new BigDecimal("2381.06"));
+        Order secondOrder = orderDao.createOrder(LocalDate.parse("2013-06-02"), "Grace Hopper", 
+                stateTax1, product2, new BigDecimal("249.00"),
+                new BigDecimal("871.50"), new BigDecimal("1033.35"), 
+                new BigDecimal("476.21"), new BigDecimal("2381.06"));
+        orderDao.addOrder(firstOrder);
+        orderDao.addOrder(secondOrder);
+        orderDao.saveAllOrders();
+        orderDao.saveSnapshot();
+        
+        // Only 6/2 is read, the snapshot has to keep 6/1 without reading it
+        OrderDaoFileImpl lazyOrderDao = new OrderDaoFileImpl(folder);
+        lazyOrderDao.setLazyLoad(true);
+        lazyOrderDao.loadAllOrders();
+        lazyOrderDao.editOrder(lazyOrderDao.getOrder(secondOrder.getOrderNumber(), secondOrder.getOrderDate()), 
+                "Grace Brewster Murray Hopper", stateTax2, product1, new BigDecimal("249.00"));
+        lazyOrderDao.saveOrder(secondOrder.getOrderDate());
+        lazyOrderDao.saveSnapshot();
+        
+        OrderDao snapshotOrderDao = new OrderDaoFileImpl(folder);
+        snapshotOrderDao.loadAllOrders();
+        
+        assertTrue(snapshotOrderDao.getLoadReport().contains("(2 from snapshot)"), 
+                "Should load both dates from snapshot: " + snapshotOrderDao.getLoadReport());
+        assertEquals(firstOrder, snapshotOrderDao.getOrder(firstOrder.getOrderNumber(), firstOrder.getOrderDate()),
+                "Should keep Ada's order from the previous snapshot");
+        Order editedOrder = snapshotOrderDao.getOrder(secondOrder.getOrderNumber(), secondOrder.getOrderDate());
+        assertEquals("Grace Brewster Murray Hopper", editedOrder.getCustomerName(),
+                "Should write the edited date from memory");
+        assertEquals(stateTax2, editedOrder.getStateTax(), "Should add the new state tax to the table");
+        assertEquals(product1, editedOrder.getProduct(), "Should keep the previous table's products");
+    }
+    
+    @Test
+    public void testManifestServesStartup(@TempDir Path orderFolder) 
+            throws OrderPersistenceException, NoOrdersOnDateException, IOException{
+        String folder = orderFolder.toString() + "/";
+        OrderDao orderDao = new OrderDaoFileImpl(folder);
+        orderDao.loadAllOrders();
+        for (String orderDate : new String[]{"2013-06-01", "2013-06-01", "2013-06-02"}){
+            orderDao.addOrder(orderDao.createOrder(LocalDate.parse(orderDate), "Ada Lovelace", 
+                    stateTax1, product1, new BigDecimal("249.00"),
+                    new BigDecimal("871.50"), new BigDecimal("1033.35"), 
+                    new BigDecimal("476.21"), new BigDecimal("2381.06")));
+        }
+        orderDao.saveAllOrders();
+        
+        List<String> manifestLines = Files.readAllLines(orderFolder.resolve("OrderManifest.txt"));
+        assertEquals(5, manifestLines.size(), "Manifest should have a header and a pending and a saved line per date");
+        assertEquals("06012013::PENDING", manifestLines.get(1), "6/1 should be pending before it is written");
+        assertTrue(manifestLines.get(3).startsWith("06012013::2::"), "6/1 should have 2 rows: " + manifestLines.get(3));
+        
+        // Without the sequence file, the next order number comes from the manifest
+        Files.delete(orderFolder.resolve("OrderNumberSequence.txt"));
+        OrderDaoFileImpl lazyOrderDao = new OrderDaoFileImpl(folder);
+        lazyOrderDao.setLazyLoad(true);
+        lazyOrderDao.loadAllOrders();
+        
+        assertEquals(4, lazyOrderDao.getNextAvailableOrderNumber(), 
+                "Should find next order number without opening order files");
+        assertThrows(NoOrdersOnDateException.class,
+                () -> lazyOrderDao.getAllOrdersOnDate(LocalDate.parse("2013-06-03")),
+                "Should throw NoOrdersOnDateException for a date missing from the manifest");
+        
+        // A date left pending by an interrupted save is rechecked from its file
+        Files.write(orderFolder.resolve("OrderManifest.txt"), 
+                (manifestLines.get(0) + "\n" + manifestLines.get(3) + "\n06022013::PENDING\n").getBytes());
+        Files.delete(orderFolder.resolve("Orders_06022013.txt"));
+        OrderDao recoveredOrderDao = new OrderDaoFileImpl(folder);
+        recoveredOrderDao.loadAllOrders();
+        
+        List<String> recoveredManifestLines = Files.readAllLines(orderFolder.resolve("OrderManifest.txt"));
+        assertEquals("06022013::REMOVED", recoveredManifestLines.get(recoveredManifestLines.size() - 1), 
+                "Pending date without a file should be dropped from the manifest");
+        assertEquals(2, recoveredOrderDao.getAllOrdersOnDate(LocalDate.parse("2013-06-01")).size(),
+                "Should still load 6/1 from the manifest");
+    }
+    
+    @Test
+    public void testManifestChecksOrderFiles(@TempDir Path orderFolder) 
+            throws OrderPersistenceException, NoOrdersOnDateException, IOException{
+        String folder = orderFolder.toString() + "/";
+        OrderDao orderDao = new OrderDaoFileImpl(folder);
+        orderDao.loadAllOrders();
+        for (String orderDate : new String[]{"2013-06-01", "2013-06-02"}){
+            orderDao.addOrder(orderDao.createOrder(LocalDate.parse(orderDate), "Ada Lovelace", 
+                    stateTax1, product1, new BigDecimal("249.00"),
+                    new BigDecimal("871.50"), new BigDecimal("1033.35"), 
+                    new BigDecimal("476.21"), new BigDecimal("2381.06")));
+        }
+        orderDao.saveAllOrders();
+        
+        // A single-date save only appends to the manifest
+        Path manifestFile = orderFolder.resolve("OrderManifest.txt");
+        String savedManifest = Files.readString(manifestFile);
+        orderDao.addOrder(orderDao.createOrder(LocalDate.parse("2013-06-01"), "Grace Hopper", 
+                stateTax1, product1, new BigDecimal("249.00"),
+                new BigDecimal("871.50"), new BigDecimal("1033.35"), 
+                new BigDecimal("476.21"), new BigDecimal("2381.06")));
+        orderDao.saveOrder(LocalDate.parse("2013-06-01"));
+        String appendedManifest = Files.readString(manifestFile);
+        assertTrue(appendedManifest.startsWith(savedManifest), "Should append to the manifest, not rewrite it");
+        assertEquals(2, appendedManifest.substring(savedManifest.length()).split("\n").length, 
+                "Should append a pending and a saved line for the date");
+        
+        // A file edited by hand is described again when its date is read, 
+        // while the manifest is trusted for the rest of the folder
+        String header = "OrderNumber::CustomerName::State::TaxRate::ProductType::Area::"
+                + "CostPerSquareFoot::LaborCostPerSquareFoot::MaterialCost::LaborCost::Tax::Total\n";
+        Files.write(orderFolder.resolve("Orders_06022013.txt"), (header 
+                + "2::Doctor Who::WA::9.25::Wood::243.00::5.15::4.75::1251.45::1154.25::216.51::2622.21\n"
+                + "5::Albert Einstein::KY::6.00::Carpet::217.00::2.25::2.10::488.25::455.70::56.64::1000.59\n").getBytes());
+        Files.write(orderFolder.resolve("Orders_06032013.txt"), (header 
+                + "7::Marie Curie::TX::4.45::Laminate::150.00::1.75::2.10::262.50::315.00::25.70::603.20\n").getBytes());
+        Files.write(manifestFile, new byte[]{'0', '6'}, StandardOpenOption.APPEND);
+        OrderDaoFileImpl lazyOrderDao = new OrderDaoFileImpl(folder);
+        lazyOrderDao.setLazyLoad(true);
+        lazyOrderDao.loadAllOrders();
+        
+        assertTrue(Files.readString(manifestFile).endsWith("\n"), "Should cut torn line off the manifest");
+        assertEquals(4, lazyOrderDao.getNextAvailableOrderNumber(), 
+                "Should not list the folder while the manifest is readable");
+        assertEquals(2, lazyOrderDao.getAllOrdersOnDate(LocalDate.parse("2013-06-02")).size(), 
+                "Should read file edited by hand");
+        assertEquals(6, lazyOrderDao.getNextAvailableOrderNumber(), 
+                "Should take next order number from file edited by hand");
+        
+        // Without a readable manifest, the folder is listed to rebuild it
+        Files.write(manifestFile, "not a manifest\n06022013::12::oops\n".getBytes());
+        OrderDaoFileImpl rebuiltOrderDao = new OrderDaoFileImpl(folder);
+        rebuiltOrderDao.setLazyLoad(true);
+        rebuiltOrderDao.loadAllOrders();
+        assertEquals(1, rebuiltOrderDao.getAllOrdersOnDate(LocalDate.parse("2013-06-03")).size(), 
+                "Should find file added by hand");
+        assertEquals(8, rebuiltOrderDao.getNextAvailableOrderNumber(), 
+                "Should take next order number from file added by hand");
+        
+        OrderDao eagerOrderDao = new OrderDaoFileImpl(folder);
+        eagerOrderDao.loadAllOrders();
+        assertEquals(2, eagerOrderDao.getAllOrdersOnDate(LocalDate.parse("2013-06-02")).size(), 
+                "Should load file edited by hand");
+        assertEquals(2, eagerOrderDao.getAllOrdersOnDate(LocalDate.parse("2013-06-01")).size(), 
+                "Should still load unchanged file");
+    }
+    
+    @Test
+    public void testShardedLayoutMigrationAndRangeLoad(@TempDir Path orderFolder) 
+            throws OrderPersistenceException, NoOrdersOnDateException, IOException{
+        String folder = orderFolder.toString() + "/";
+        OrderDao flatOrderDao = new OrderDaoFileImpl(folder);
+        flatOrderDao.loadAllOrders();
+        for (String orderDate : new String[]{"2013-06-01", "2013-07-15", "2014-01-02"}){
+            flatOrderDao.addOrder(flatOrderDao.createOrder(LocalDate.parse(orderDate), "Ada Lovelace", 
+                    stateTax1, product1, new BigDecimal("249.00"),
+                    new BigDecimal("871.50"), new BigDecimal("1033.35"), 
+                    new BigDecimal("476.21"), new BigDecimal("2381.06")));
+        }
+        flatOrderDao.saveAllOrders();
+        
+        // First sharded load moves the flat files into year and month folders
+        OrderDaoFileImpl shardedOrderDao = new OrderDaoFileImpl(folder);
+        shardedOrderDao.setShardedLayout(true);
+        shardedOrderDao.loadAllOrders();
+        
+        assertFalse(Files.exists(orderFolder.resolve("Orders_06012013.txt")), "Flat file should be moved");
+        assertTrue(Files.exists(orderFolder.resolve("2013/06/Orders_06012013.txt")), "6/1 should be in 2013/06");
+        assertTrue(Files.exists(orderFolder.resolve("2014/01/Orders_01022014.txt")), "1/2 should be in 2014/01");
+        assertEquals(3, shardedOrderDao.getOrdersBetween(LocalDate.parse("2013-01-01"), 
+                LocalDate.parse("2014-12-31")).size(), "Should load every migrated file");
+        
+        // New orders are written straight into their folders
+        shardedOrderDao.addOrder(shardedOrderDao.createOrder(LocalDate.parse("2013-06-20"), "Grace Hopper", 
+                stateTax1, product1, new BigDecimal("249.00"),
+                new BigDecimal("871.50"), new BigDecimal("1033.35"), 
+                new BigDecimal("476.21"), new BigDecimal("2381.06")));
+        shardedOrderDao.saveAllOrders();
+        assertTrue(Files.exists(orderFolder.resolve("2013/06/Orders_06202013.txt")), "6/20 should be in 2013/06");
+        
+        // A file filed under the wrong year is only found if that year's folder is listed
+        Files.copy(orderFolder.resolve("2013/06/Orders_06012013.txt"), 
+                orderFolder.resolve("2014/01/Orders_06022013.txt"));
+        OrderDaoFileImpl rangeOrderDao = new OrderDaoFileImpl(folder);
+        rangeOrderDao.setShardedLayout(true);
+        rangeOrderDao.loadOrdersBetween(LocalDate.parse("2013-06-01"), LocalDate.parse("2013-06-30"));
+        
+        List<Order> loadedOrders = rangeOrderDao.getOrdersBetween(LocalDate.parse("2013-01-01"), 
+                LocalDate.parse("2014-12-31"));
+        assertEquals(2, loadedOrders.size(), "Should only load June 2013");
+        assertEquals("Grace Hopper", loadedOrders.get(1).getCustomerName(), "Should load 6/20 second");
+        assertThrows(NoOrdersOnDateException.class,
+                () -> rangeOrderDao.getAllOrdersOnDate(LocalDate.parse("2013-06-02")),
+                "Should not list the 2014 folder for a June 2013 range");
+    }
+    
+    @Test
+    public void testCacheEvictsColdDates(@TempDir Path orderFolder) 
+            throws OrderPersistenceException, NoOrdersOnDateException, IOException{
+        String folder = orderFolder.toString() + "/";
+        OrderDao orderDao = new OrderDaoFileImpl(folder);
+        orderDao.loadAllOrders();
+        for (String orderDate : new String[]{"2013-06-01", "2013-06-02", "2013-06-03"}){
+            orderDao.addOrder(orderDao.createOrder(LocalDate.parse(orderDate), "Ada Lovelace", 
+                    stateTax1, product1, new BigDecimal("249.00"),
+                    new BigDecimal("871.50"), new BigDecimal("1033.35"), 
+                    new BigDecimal("476.21"), new BigDecimal("2381.06")));
+        }
+        orderDao.saveAllOrders();
+        
+        // Budget only fits one date with one order, oldest dates go first
+        OrderDaoFileImpl cachedOrderDao = new OrderDaoFileImpl(folder);
+        cachedOrderDao.setCacheBudgetBytes(1000);
+        cachedOrderDao.loadAllOrders();
+        assertEquals(2, cachedOrderDao.getCacheEvictions(), "Should evict 6/1 and 6/2 after load");
+        
+        assertEquals(1, cachedOrderDao.getAllOrdersOnDate(LocalDate.parse("2013-06-01")).size(), 
+                "Should read evicted date back from its file");
+        assertEquals(1, cachedOrderDao.getCacheMisses(), "Reading 6/1 back should be a miss");
+        assertEquals(3, cachedOrderDao.getCacheEvictions(), "Should evict 6/3 to make room for 6/1");
+        
+        // A changed date is saved before it is evicted
+        cachedOrderDao.addOrder(cachedOrderDao.createOrder(LocalDate.parse("2013-06-02"), "Grace Hopper", 
+                stateTax1, product1, new BigDecimal("249.00"),
+                new BigDecimal("871.50"), new BigDecimal("1033.35"), 
+                new BigDecimal("476.21"), new BigDecimal("2381.06")));
+        cachedOrderDao.getAllOrdersOnDate(LocalDate.parse("2013-06-03"));
+        assertEquals(3, Files.readAllLines(orderFolder.resolve("Orders_06022013.txt")).size(), 
+                "Evicting 6/2 should save the added order");
+        assertEquals(2, cachedOrderDao.getAllOrdersOnDate(LocalDate.parse("2013-06-02")).size(), 
+                "Should read both 6/2 orders back");
+        cachedOrderDao.getAllOrdersOnDate(LocalDate.parse("2013-06-02"));
+        assertTrue(cachedOrderDao.getCacheHits() >= 1, "Reading a date still in memory should be a hit");
+    }
+    
+    @Test
+    public void testEvictedDateKeepsJournalEntries(@TempDir Path orderFolder) 
+            throws OrderPersistenceException, NoOrdersOnDateException, IOException{
+        String folder = orderFolder.toString() + "/";
+        OrderDao orderDao = new OrderDaoFileImpl(folder);
+        orderDao.loadAllOrders();
+        for (String orderDate : new String[]{"2013-06-01", "2013-06-02", "2013-06-03"}){
+            orderDao.addOrder(orderDao.createOrder(LocalDate.parse(orderDate), "Ada Lovelace", 
+                    stateTax1, product1, new BigDecimal("249.00"),
+                    new BigDecimal("871.50"), new BigDecimal("1033.35"), 
+                    new BigDecimal("476.21"), new BigDecimal("2381.06")));
+        }
+        orderDao.saveAllOrders();
+        
+        OrderDaoFileImpl cachedOrderDao = new OrderDaoFileImpl(folder);
+        cachedOrderDao.setJournalEnabled(true);
+        cachedOrderDao.setCacheBudgetBytes(1000);
+        cachedOrderDao.loadAllOrders();
+        LocalDate orderDate = LocalDate.parse("2013-06-03");
+        cachedOrderDao.addOrder(cachedOrderDao.createOrder(orderDate, "Grace Hopper", 
+                stateTax1, product1, new BigDecimal("249.00"),
+                new BigDecimal("871.50"), new BigDecimal("1033.35"), 
+                new BigDecimal("476.21"), new BigDecimal("2381.06")));
+        cachedOrderDao.saveOrder(orderDate);
+        
+        // Eviction takes 6/3's entries from memory, not from the journal file
+        Files.write(orderFolder.resolve("OrderJournal.txt"), new byte[0]);
+        cachedOrderDao.getAllOrdersOnDate(LocalDate.parse("2013-06-01"));
+        assertEquals(3, cachedOrderDao.getCacheEvictions(), "Should evict 6/3 to make room for 6/1");
+        
+        assertEquals(2, cachedOrderDao.getAllOrdersOnDate(orderDate).size(), 
+                "Should replay the journaled order over the evicted date's file");
+    }
+    
+    @Test
+    public void testArchiveOldDates(@TempDir Path orderFolder) 
+            throws OrderPersistenceException, NoOrdersOnDateException, OrderNotFoundException, IOException{
+        String folder = orderFolder.toString() + "/";
+        OrderDaoFileImpl orderDao = new OrderDaoFileImpl(folder);
+        orderDao.loadAllOrders();
+        for (String orderDate : new String[]{"2013-06-01", "2013-06-02", "2013-06-02", "2013-07-04"}){
+            orderDao.addOrder(orderDao.createOrder(LocalDate.parse(orderDate), "Ada Lovelace", 
+                    stateTax1, product1, new BigDecimal("249.00"),
+                    new BigDecimal("871.50"), new BigDecimal("1033.35"), 
+                    new BigDecimal("476.21"), new BigDecimal("2381.06")));
+        }
+        orderDao.saveAllOrders();
+        
+        assertEquals(2, orderDao.archiveOrdersBefore(LocalDate.parse("2013-07-01")), "Should archive both June dates");
+        assertFalse(Files.exists(orderFolder.resolve("Orders_06012013.txt")), "Archived file should be deleted");
+        assertTrue(Files.exists(orderFolder.resolve("Orders_07042013.txt")), "July should be left alone");
+        Path archiveFile = orderFolder.resolve("Archive/Orders_201306.dat");
+        assertTrue(Files.exists(archiveFile), "June should have one archive");
+        
+        OrderDaoFileImpl archivedOrderDao = new OrderDaoFileImpl(folder);
+        archivedOrderDao.loadAllOrders();
+        assertEquals(2, archivedOrderDao.getAllOrdersOnDate(LocalDate.parse("2013-06-02")).size(), 
+                "Should read archived date");
+        assertEquals("Ada Lovelace", archivedOrderDao.getOrder(1).getCustomerName(), 
+                "Should find archived order by number");
+        
+        // Each date is compressed on its own, so damage to one leaves the other readable
+        byte[] archiveBytes = Files.readAllBytes(archiveFile);
+        int firstDateOffset = 12 + 2 * 24;
+        archiveBytes[firstDateOffset + 2] ^= 0x55;
+        Files.write(archiveFile, archiveBytes);
+        OrderDaoFileImpl damagedOrderDao = new OrderDaoFileImpl(folder);
+        damagedOrderDao.setLazyLoad(true);
+        damagedOrderDao.loadAllOrders();
+        assertEquals(2, damagedOrderDao.getAllOrdersOnDate(LocalDate.parse("2013-06-02")).size(), 
+                "Should read undamaged date");
+        assertThrows(NoOrdersOnDateException.class,
+                () -> damagedOrderDao.getAllOrdersOnDate(LocalDate.parse("2013-06-01")),
+                "Damaged date should fail its checksum");
+        archiveBytes[firstDateOffset + 2] ^= 0x55;
+        Files.write(archiveFile, archiveBytes);
+        
+        // Removing every order on an archived date drops it from the archive
+        archivedOrderDao.removeOrder(2, LocalDate.parse("2013-06-02"));
+        archivedOrderDao.removeOrder(3, LocalDate.parse("2013-06-02"));
+        archivedOrderDao.saveAllOrders();
+        OrderDao reloadedOrderDao = new OrderDaoFileImpl(folder);
+        reloadedOrderDao.loadAllOrders();
+        assertThrows(NoOrdersOnDateException.class,
+                () -> reloadedOrderDao.getAllOrdersOnDate(LocalDate.parse("2013-06-02")),
+                "Removed date should not come back from the archive");
+        assertEquals(1, reloadedOrderDao.getAllOrdersOnDate(LocalDate.parse("2013-06-01")).size(), 
+                "Other archived date should still load");
+    }
+    
+    @Test
+    public void testLeftoverJournalCompactedWithArchiverOn(@TempDir Path orderFolder)
+            throws OrderPersistenceException, NoOrdersOnDateException, OrderNotFoundException{
+        String folder = orderFolder.toString() + "/";
+        LocalDate orderDate = LocalDate.parse("2013-06-01");
+        OrderDaoFileImpl journalOrderDao = new OrderDaoFileImpl(folder);
+        journalOrderDao.setJournalEnabled(true);
+        journalOrderDao.loadAllOrders();
+        journalOrderDao.addOrder(order1);
+        journalOrderDao.saveOrder(orderDate);
+
+        // Journal off and archiver on: the leftover journal is still folded into the files
+        OrderDaoFileImpl archivingOrderDao = new OrderDaoFileImpl(folder);
+        archivingOrderDao.setArchiveAfterDays(36500);
+        archivingOrderDao.loadAllOrders();
+        assertFalse(Files.exists(orderFolder.resolve("OrderJournal.txt")), "Leftover journal should be compacted");
+        assertTrue(Files.exists(orderFolder.resolve("Orders_06012013.txt")), "Journal should be folded into the file");
+
+        archivingOrderDao.editOrder(archivingOrderDao.getOrder(1, orderDate), "Grace Hopper",
+                stateTax1, product1, order1.getArea());
+        archivingOrderDao.saveOrder(orderDate);
+        OrderDaoFileImpl reloadedOrderDao = new OrderDaoFileImpl(folder);
+        reloadedOrderDao.setArchiveAfterDays(36500);
+        reloadedOrderDao.loadAllOrders();
+        assertEquals("Grace Hopper", reloadedOrderDao.getOrder(1, orderDate).getCustomerName(),
+                "Old journal entry should not overwrite a later save");
+    }
+
+    @Test
+    public void testJournalNotCompactedOnLoadWithArchiverOff(@TempDir Path orderFolder)
+            throws OrderPersistenceException, NoOrdersOnDateException, OrderNotFoundException{
+        String folder = orderFolder.toString() + "/";
+        LocalDate orderDate = LocalDate.parse("2013-06-01");
+        OrderDaoFileImpl journalOrderDao = new OrderDaoFileImpl(folder);
+        journalOrderDao.setJournalEnabled(true);
+        journalOrderDao.loadAllOrders();
+        journalOrderDao.addOrder(order1);
+        journalOrderDao.saveOrder(orderDate);
+
+        // Journal on and archiver off: compaction is left to the background compactor
+        OrderDaoFileImpl restartedOrderDao = new OrderDaoFileImpl(folder);
+        restartedOrderDao.setJournalEnabled(true);
+        restartedOrderDao.loadAllOrders();
+        assertTrue(Files.exists(orderFolder.resolve("OrderJournal.txt")), "Load should not compact the journal");
+        assertFalse(Files.exists(orderFolder.resolve("Orders_06012013.txt")), "Load should not write order files");
+        assertEquals(order1, restartedOrderDao.getOrder(1, orderDate), "Journal should be replayed on load");
+    }
+
+    @Test
+    public void testFixedWidthRecordsUpdateInPlace(@TempDir Path orderFolder) 
+            throws OrderPersistenceException, NoOrdersOnDateException, OrderNotFoundException, IOException{
+        String folder = orderFolder.toString() + "/";
+        LocalDate orderDate = LocalDate.parse("2013-06-01");
+        OrderDaoFileImpl orderDao = new OrderDaoFileImpl(folder);
+        orderDao.setFixedWidthRecords(true);
+        orderDao.loadAllOrders();
+        for (String customerName : new String[]{"Ada Lovelace", "Grace Hopper", "Alan Turing"}){
+            orderDao.addOrder(orderDao.createOrder(orderDate, customerName, 
+                    stateTax1, product1, new BigDecimal("249.00"),
+                    new BigDecimal("871.50"), new BigDecimal("1033.35"), 
+                    new BigDecimal("476.21"), new BigDecimal("2381.06")));
+        }
+        orderDao.saveAllOrders();
+        Path recordFile = orderFolder.resolve("Orders_06012013.rec");
+        assertTrue(Files.exists(recordFile), "Should save record file");
+        assertFalse(Files.exists(orderFolder.resolve("Orders_06012013.txt")), "Should not save text file");
+        long recordFileSize = Files.size(recordFile);
+        
+        // Edits and removals rewrite records without changing the file size
+        orderDao.editOrder(orderDao.getOrder(2, orderDate), "Grace Brewster Hopper", 
+                stateTax1, product1, new BigDecimal("300.00"));
+        orderDao.removeOrder(3, orderDate);
+        orderDao.saveAllOrders();
+        assertEquals(recordFileSize, Files.size(recordFile), "Should update records in place");
+        
+        // A single order is read without reading the rest of the date
+        OrderDaoFileImpl lazyOrderDao = new OrderDaoFileImpl(folder);
+        lazyOrderDao.setFixedWidthRecords(true);
+        lazyOrderDao.setLazyLoad(true);
+        lazyOrderDao.loadAllOrders();
+        Order editedOrder = lazyOrderDao.getOrder(2, orderDate);
+        assertEquals("Grace Brewster Hopper", editedOrder.getCustomerName(), "Should read edited record");
+        assertEquals(new BigDecimal("300.00"), editedOrder.getArea(), "Should read edited area");
+        assertThrows(OrderNotFoundException.class, () -> lazyOrderDao.getOrder(3, orderDate),
+                "Removed record should not be read");
+        lazyOrderDao.editOrder(editedOrder, "Grace Hopper", stateTax1, product1, new BigDecimal("249.00"));
+        lazyOrderDao.saveAllOrders();
+        assertEquals(recordFileSize, Files.size(recordFile), "Should update single record in place");
+        assertEquals(2, lazyOrderDao.getAllOrdersOnDate(orderDate).size(), "Should read every live record");
+        assertEquals("Grace Hopper", lazyOrderDao.getOrder(2, orderDate).getCustomerName(), 
+                "Edit should survive reading the date");
+        
+        // Turning records off switches the date back to a text file on next save
+        OrderDaoFileImpl textOrderDao = new OrderDaoFileImpl(folder);
+        textOrderDao.loadAllOrders();
+        textOrderDao.addOrder(textOrderDao.createOrder(orderDate, "Alan Turing", 
+                stateTax1, product1, new BigDecimal("249.00"),
+                new BigDecimal("871.50"), new BigDecimal("1033.35"), 
+                new BigDecimal("476.21"), new BigDecimal("2381.06")));
+        textOrderDao.saveAllOrders();
+        assertFalse(Files.exists(recordFile), "Record file should be replaced");
+        OrderDao reloadedOrderDao = new OrderDaoFileImpl(folder);
+        reloadedOrderDao.loadAllOrders();
+        List<Order> reloadedOrders = reloadedOrderDao.getAllOrdersOnDate(orderDate);
+        assertEquals(3, reloadedOrders.size(), "Should read converted text file");
+        assertEquals("Ada Lovelace", reloadedOrders.get(0).getCustomerName(), "Should keep first order");
+        assertEquals(4, reloadedOrders.get(2).getOrderNumber(), "Should not reuse removed order number");
+    }
+    
+    @Test
+    public void testDamagedRecordSkipped(@TempDir Path orderFolder) 
+            throws OrderPersistenceException, NoOrdersOnDateException, IOException{
+        String folder = orderFolder.toString() + "/";
+        LocalDate orderDate = LocalDate.parse("2013-06-01");
+        OrderDaoFileImpl orderDao = new OrderDaoFileImpl(folder);
+        orderDao.setFixedWidthRecords(true);
+        orderDao.loadAllOrders();
+        for (String customerName : new String[]{"Ada Lovelace", "Grace Hopper", "Alan Turing"}){
+            orderDao.addOrder(orderDao.createOrder(orderDate, customerName, 
+                    stateTax1, product1, new BigDecimal("249.00"),
+                    new BigDecimal("871.50"), new BigDecimal("1033.35"), 
+                    new BigDecimal("476.21"), new BigDecimal("2381.06")));
+        }
+        orderDao.saveAllOrders();
+        
+        // Tear the second record and leave a wrong live count in the header
+        Path recordFile = orderFolder.resolve("Orders_06012013.rec");
+        byte[] recordBytes = Files.readAllBytes(recordFile);
+        recordBytes[32 + 320 + 10] ^= 0x7F;
+        ByteBuffer.wrap(recordBytes).putInt(16, 99);
+        FileTime savedTime = Files.getLastModifiedTime(recordFile);
+        Files.write(recordFile, recordBytes);
+        
+        // Same size, so make sure the edit doesn't share the save's modified time
+        Files.setLastModifiedTime(recordFile, FileTime.fromMillis(savedTime.toMillis() + 1000));
+        
+        OrderDaoFileImpl lazyOrderDao = new OrderDaoFileImpl(folder);
+        lazyOrderDao.setFixedWidthRecords(true);
+        lazyOrderDao.setLazyLoad(true);
+        lazyOrderDao.loadAllOrders();
+        assertThrows(OrderNotFoundException.class, () -> lazyOrderDao.getOrder(2, orderDate),
+                "Damaged record should not be read");
+        
+        OrderDaoFileImpl eagerOrderDao = new OrderDaoFileImpl(folder);
+        eagerOrderDao.setFixedWidthRecords(true);
+        eagerOrderDao.loadAllOrders();
+        List<Order> orders = eagerOrderDao.getAllOrdersOnDate(orderDate);
+        assertEquals(2, orders.size(), "Should read every undamaged record");
+        assertEquals("Alan Turing", orders.get(1).getCustomerName(), "Should read record after damaged one");
+        assertTrue(eagerOrderDao.getLoadReport().contains("skipped 1 damaged record"), 
+                "Should report damaged record: " + eagerOrderDao.getLoadReport());
+        assertEquals(320, Files.size(orderFolder.resolve("Orders_06012013.rec.damaged")), 
+                "Should keep damaged record");
+        assertTrue(Files.readAllLines(orderFolder.resolve("OrderManifest.txt")).stream()
+                .anyMatch((line) -> line.startsWith("06012013::2::")), 
+                "Should count live records instead of trusting the header");
+    }
+    
+    @Test
+    public void testParallelSaveReportsEveryFailedDate(@TempDir Path orderFolder) 
+            throws OrderPersistenceException, NoOrdersOnDateException, IOException{
+        String folder = orderFolder.toString() + "/";
+        OrderDaoFileImpl orderDao = new OrderDaoFileImpl(folder);
+        orderDao.setSaveParallelism(4);
+        orderDao.loadAllOrders();
+        for (String orderDate : new String[]{"2013-06-01", "2013-06-02", "2013-06-03", "2013-06-04"}){
+            orderDao.addOrder(orderDao.createOrder(LocalDate.parse(orderDate), "Ada Lovelace", 
+                    stateTax1, product1, new BigDecimal("249.00"),
+                    new BigDecimal("871.50"), new BigDecimal("1033.35"), 
+                    new BigDecimal("476.21"), new BigDecimal("2381.06")));
+        }
+        
+        // A non-empty folder where a staged file goes can't be replaced
+        Files.createDirectories(orderFolder.resolve("Orders_06022013.txt.staged/blocked"));
+        Files.createDirectories(orderFolder.resolve("Orders_06042013.txt.staged/blocked"));
+        OrderPersistenceException exception = assertThrows(OrderPersistenceException.class,
+                () -> orderDao.saveAllOrders(), "Should fail when a date can't be saved");
+        assertTrue(exception.getMessage().contains("6/2/2013"), "Should report first failed date");
+        assertTrue(exception.getMessage().contains("6/4/2013"), "Should report second failed date");
+        assertFalse(exception.getMessage().contains("6/1/2013"), "Should not report staged date");
+        assertEquals(1, exception.getSuppressed().length, "Should attach second failure");
+        assertFalse(Files.exists(orderFolder.resolve("Orders_06012013.txt")), "No date should be saved");
+        assertFalse(Files.exists(orderFolder.resolve("Orders_06012013.txt.staged")), "Staged file should be removed");
+        
+        // Every date stays unsaved and is saved once the problem is fixed
+        Files.delete(orderFolder.resolve("Orders_06022013.txt.staged/blocked"));
+        Files.delete(orderFolder.resolve("Orders_06022013.txt.staged"));
+        Files.delete(orderFolder.resolve("Orders_06042013.txt.staged/blocked"));
+        Files.delete(orderFolder.resolve("Orders_06042013.txt.staged"));
+        orderDao.saveAllOrders();
+        OrderDao reloadedOrderDao = new OrderDaoFileImpl(folder);
+        reloadedOrderDao.loadAllOrders();
+        assertEquals(4, reloadedOrderDao.getOrdersBetween(LocalDate.parse("2013-06-01"), 
+                LocalDate.parse("2013-06-04")).size(), "Should save every date after retry");
+    }
+    
+    @Test
+    public void testSaveAllOrdersCommitsAllOrNothing(@TempDir Path orderFolder) throws Exception{
+        // Crash at each step of a save, then restart from the files left behind
+        String[] crashSteps = {"prepared", "staged", "committed", "moved"};
+        for (String crashStep : crashSteps){
+            Path stepFolder = Files.createDirectory(orderFolder.resolve(crashStep));
+            String folder = stepFolder.toString() + "/";
+            OrderDaoFileImpl orderDao = new OrderDaoFileImpl(folder);
+            orderDao.loadAllOrders();
+            List<Order> orders = new ArrayList<>();
+            for (String orderDate : new String[]{"2013-06-01", "2013-06-02", "2013-06-03"}){
+                Order order = orderDao.createOrder(LocalDate.parse(orderDate), "Ada Lovelace", 
+                        stateTax1, product1, new BigDecimal("249.00"),
+                        new BigDecimal("871.50"), new BigDecimal("1033.35"), 
+                        new BigDecimal("476.21"), new BigDecimal("2381.06"));
+                orderDao.addOrder(order);
+                orders.add(order);
+            }
+            orderDao.saveAllOrders();
+            
+            // Edit two dates and empty the third in one save
+            orderDao.editOrder(orders.get(0), "Grace Hopper", stateTax1, product1, new BigDecimal("249.00"));
+            orderDao.editOrder(orders.get(1), "Grace Hopper", stateTax1, product1, new BigDecimal("249.00"));
+            orderDao.removeOrder(orders.get(2).getOrderNumber(), orders.get(2).getOrderDate());
+            orderDao.setCommitStepListener((step) -> {
+                if (step.equals(crashStep)){
+                    throw new SimulatedCrash();
+                }
+            });
+            assertThrows(SimulatedCrash.class, () -> orderDao.saveAllOrders(), "Save should crash at " + crashStep);
+            
+            OrderDaoFileImpl restartedOrderDao = new OrderDaoFileImpl(folder);
+            restartedOrderDao.loadAllOrders();
+            boolean committed = crashStep.equals("committed") || crashStep.equals("moved");
+            String expectedName = committed ? "Grace Hopper" : "Ada Lovelace";
+            for (int i = 0; i < 2; i++){
+                assertEquals(expectedName, restartedOrderDao.getOrder(orders.get(i).getOrderNumber(), 
+                        orders.get(i).getOrderDate()).getCustomerName(), 
+                        "Every edit should be kept or lost together after crash at " + crashStep);
+            }
+            if (committed){
+                assertThrows(NoOrdersOnDateException.class, 
+                        () -> restartedOrderDao.getAllOrdersOnDate(LocalDate.parse("2013-06-03")),
+                        "Emptied date should be deleted after crash at " + crashStep);
+            }
+            else{
+                assertEquals(1, restartedOrderDao.getAllOrdersOnDate(LocalDate.parse("2013-06-03")).size(),
+                        "Emptied date should be kept after crash at " + crashStep);
+            }
+            try (Stream<Path> leftovers = Files.list(stepFolder)){
+                assertEquals(0, leftovers.filter((file) -> file.toString().endsWith(".staged") 
+                        || file.getFileName().toString().equals("OrderCommit.txt")).count(),
+                        "Recovery should clean up after crash at " + crashStep);
+            }
+        }
+    }
+    
+    @Test
+    public void testSaveAllOrdersJournalTransaction(@TempDir Path orderFolder) throws Exception{
+        String folder = orderFolder.toString() + "/";
+        OrderDaoFileImpl orderDao = new OrderDaoFileImpl(folder);
+        orderDao.setJournalEnabled(true);
+        orderDao.loadAllOrders();
+        for (String orderDate : new String[]{"2013-06-01", "2013-06-02"}){
+            orderDao.addOrder(orderDao.createOrder(LocalDate.parse(orderDate), "Ada Lovelace", 
+                    stateTax1, product1, new BigDecimal("249.00"),
+                    new BigDecimal("871.50"), new BigDecimal("1033.35"), 
+                    new BigDecimal("476.21"), new BigDecimal("2381.06")));
+        }
+        orderDao.saveAllOrders();
+        
+        // Cut the last line off the transaction the way a crash mid-append would
+        Path journalFile = orderFolder.resolve("OrderJournal.txt");
+        byte[] journalBytes = Files.readAllBytes(journalFile);
+        int cutLength = journalBytes.length - 10;
+        Files.write(journalFile, Arrays.copyOf(journalBytes, cutLength));
+        
+        OrderDaoFileImpl restartedOrderDao = new OrderDaoFileImpl(folder);
+        restartedOrderDao.setJournalEnabled(true);
+        restartedOrderDao.loadAllOrders();
+        assertEquals(0, restartedOrderDao.getOrdersBetween(LocalDate.parse("2013-06-01"), 
+                LocalDate.parse("2013-06-02")).size(), "Torn transaction should be dropped whole");
+        assertEquals(0, Files.size(journalFile), "Torn transaction should be cut off the journal");
+        
+        // Later saves start on a clean line
+        restartedOrderDao.addOrder(restartedOrderDao.createOrder(LocalDate.parse("2013-06-03"), "Grace Hopper", 
+                stateTax1, product1, new BigDecimal("249.00"),
+                new BigDecimal("871.50"), new BigDecimal("1033.35"), 
+                new BigDecimal("476.21"), new BigDecimal("2381.06")));
+        restartedOrderDao.saveAllOrders();
+        OrderDaoFileImpl reloadedOrderDao = new OrderDaoFileImpl(folder);
+        reloadedOrderDao.setJournalEnabled(true);
+        reloadedOrderDao.loadAllOrders();
+        assertEquals(1, reloadedOrderDao.getAllOrdersOnDate(LocalDate.parse("2013-06-03")).size(), 
+                "Should read save made after the torn transaction");
+    }
+    
+    /**
+     * Thrown from a commit step listener to stop a save the way a crash 
+     * would, without running the save's error handling
+     */
+    private static class SimulatedCrash extends Error {
+        private static final long serialVersionUID = 1L;
+    }
+    
+    @Test
+    public void testDurabilityModes(@TempDir Path orderFolder) throws Exception{
+        long[] forceCounts = new long[DurabilityMode.values().length];
+        for (DurabilityMode durabilityMode : DurabilityMode.values()){
+            Path modeFolder = Files.createDirectory(orderFolder.resolve(durabilityMode.name()));
+            OrderDaoFileImpl orderDao = new OrderDaoFileImpl(modeFolder.toString() + "/");
+            orderDao.setJournalEnabled(true);
+            orderDao.setDurabilityMode(durabilityMode);
+            orderDao.setGroupCommitWindowMillis(5);
+            orderDao.loadAllOrders();
+            long forcesBeforeSaves = orderDao.getDiskForceCount();
+            
+            // Each thread saves its own date at the same time as the others
+            int threadCount = 8;
+            ExecutorService executor = Executors.newFixedThreadPool(threadCount);
+            List<Future<?>> results = new ArrayList<>();
+            for (int t = 0; t < threadCount; t++){
+                LocalDate orderDate = LocalDate.parse("2030-01-01").plusDays(t);
+                results.add(executor.submit(() -> {
+                    orderDao.addOrder(orderDao.createOrder(orderDate, "Ada Lovelace", 
+                            stateTax1, product1, new BigDecimal("249.00"),
+                            new BigDecimal("871.50"), new BigDecimal("1033.35"), 
+                            new BigDecimal("476.21"), new BigDecimal("2381.06")));
+                    orderDao.saveOrder(orderDate);
+                    return null;
+                }));
+            }
+            for (Future<?> result : results){
+                result.get(60, TimeUnit.SECONDS);
+            }
+            executor.shutdown();
+            forceCounts[durabilityMode.ordinal()] = orderDao.getDiskForceCount() - forcesBeforeSaves;
+            
+            OrderDao reloadedOrderDao = new OrderDaoFileImpl(modeFolder.toString() + "/");
+            reloadedOrderDao.loadAllOrders();
+            assertEquals(threadCount, reloadedOrderDao.getOrdersBetween(LocalDate.parse("2030-01-01"), 
+                    LocalDate.parse("2030-01-08")).size(), "Should save every order with " + durabilityMode);
+        }
+        assertEquals(0, forceCounts[DurabilityMode.NO_SYNC.ordinal()], "NO_SYNC should never force");
+        assertEquals(8, forceCounts[DurabilityMode.FSYNC.ordinal()], 
+                "FSYNC should force only the journal, once per save");
+        assertTrue(forceCounts[DurabilityMode.GROUP_COMMIT.ordinal()] > 0, "GROUP_COMMIT should force");
+        assertTrue(forceCounts[DurabilityMode.GROUP_COMMIT.ordinal()] < 8, 
+                "GROUP_COMMIT should share forces between concurrent saves");
+    }
+    
+    @Test
+    public void testGetOrderByOrderNumberOnly(@TempDir Path orderFolder) 
+            throws OrderPersistenceException, NoOrdersOnDateException, OrderNotFoundException, IOException{
+        OrderDao orderDao = new OrderDaoFileImpl(orderFolder.toString() + "/");
+        orderDao.loadAllOrders();
+        Order firstOrder = orderDao.createOrder(LocalDate.parse("2013-06-01"), "Ada Lovelace", 
+                stateTax1, product1, new BigDecimal("249.00"),
+                new BigDecimal("871.50"), new BigDecimal("1033.35"), 
+                new BigDecimal("476.21"), new BigDecimal("2381.06"));
+        Order secondOrder = orderDao.createOrder(LocalDate.parse("2013-06-05"), "Grace Hopper", 
+                stateTax1, product1, new BigDecimal("249.00"),
+                new BigDecimal("871.50"), new BigDecimal("1033.35"), 
+                new BigDecimal("476.21"), new BigDecimal("2381.06"));
+        orderDao.addOrder(firstOrder);
+        orderDao.addOrder(secondOrder);
+        
+        assertEquals(secondOrder, orderDao.getOrder(secondOrder.getOrderNumber()), 
+                "Should find unsaved order by number alone");
+        orderDao.saveAllOrders();
+        
+        OrderDaoFileImpl lazyOrderDao = new OrderDaoFileImpl(orderFolder.toString() + "/");
+        lazyOrderDao.setLazyLoad(true);
+        lazyOrderDao.loadAllOrders();
+        
+        assertEquals(secondOrder, lazyOrderDao.getOrder(secondOrder.getOrderNumber()), 
+                "Should find order from persisted index without reading every file");
+        
+        lazyOrderDao.removeOrder(firstOrder.getOrderNumber(), firstOrder.getOrderDate());
+        lazyOrderDao.saveOrder(firstOrder.getOrderDate());
+        
+        assertThrows(OrderNotFoundException.class,
+                () -> lazyOrderDao.getOrder(firstOrder.getOrderNumber()),
+                "Should not find removed order");
+        
+        Files.delete(orderFolder.resolve("OrderNumberIndex.dat"));
+        OrderDaoFileImpl rebuiltOrderDao = new OrderDaoFileImpl(orderFolder.toString() + "/");
+        rebuiltOrderDao.setLazyLoad(true);
+        rebuiltOrderDao.loadAllOrders();
+        
+        assertEquals(secondOrder, rebuiltOrderDao.getOrder(secondOrder.getOrderNumber()), 
+                "Should rebuild missing index from order files");
+        assertThrows(OrderNotFoundException.class,
+                () -> rebuiltOrderDao.getOrder(99),
+                "Should not find unknown order number");
+    }
+    
+    @Test
+    public void testJournaledOrderNumbersSurviveRestart(@TempDir Path orderFolder) 
+            throws OrderPersistenceException, NoOrdersOnDateException, OrderNotFoundException, IOException{
+        OrderDaoFileImpl orderDao = new OrderDaoFileImpl(orderFolder.toString() + "/");
+        orderDao.setJournalEnabled(true);
+        orderDao.loadAllOrders();
+        Order firstOrder = orderDao.createOrder(LocalDate.parse("2013-06-01"), "Ada Lovelace", 
+                stateTax1, product1, new BigDecimal("249.00"),
+                new BigDecimal("871.50"), new BigDecimal("1033.35"), 
+                new BigDecimal("476.21"), new BigDecimal("2381.06"));
+        orderDao.addOrder(firstOrder);
+        orderDao.saveOrder(firstOrder.getOrderDate());
+        orderDao.compactJournal();
+        Order secondOrder = orderDao.createOrder(LocalDate.parse("2013-06-05"), "Grace Hopper", 
+                stateTax1, product1, new BigDecimal("249.00"),
+                new BigDecimal("871.50"), new BigDecimal("1033.35"), 
+                new BigDecimal("476.21"), new BigDecimal("2381.06"));
+        orderDao.addOrder(secondOrder);
+        orderDao.saveOrder(secondOrder.getOrderDate());
+        orderDao.removeOrder(firstOrder.getOrderNumber(), firstOrder.getOrderDate());
+        orderDao.saveOrder(firstOrder.getOrderDate());
+        
+        // The journal holds the only record of the second order's number
+        OrderDaoFileImpl lazyOrderDao = new OrderDaoFileImpl(orderFolder.toString() + "/");
+        lazyOrderDao.setJournalEnabled(true);
+        lazyOrderDao.setLazyLoad(true);
+        lazyOrderDao.loadAllOrders();
+        
+        assertEquals(secondOrder, lazyOrderDao.getOrder(secondOrder.getOrderNumber()), 
+                "Should find journaled order by number alone");
+        assertThrows(OrderNotFoundException.class,
+                () -> lazyOrderDao.getOrder(firstOrder.getOrderNumber()),
+                "Should not find order removed in the journal");
+        assertEquals(secondOrder.getOrderNumber() + 1, lazyOrderDao.getNextAvailableOrderNumber(), 
+                "Should not reuse a journaled order number");
+        
+        lazyOrderDao.compactJournal();
+        OrderDaoFileImpl compactedOrderDao = new OrderDaoFileImpl(orderFolder.toString() + "/");
+        compactedOrderDao.setLazyLoad(true);
+        compactedOrderDao.loadAllOrders();
+        
+        assertEquals(secondOrder, compactedOrderDao.getOrder(secondOrder.getOrderNumber()), 
+                "Should save the order number index when the journal is compacted");
+        assertEquals(secondOrder.getOrderNumber() + 1, compactedOrderDao.getNextAvailableOrderNumber(), 
+                "Should save the order number sequence when the journal is compacted");
+    }
+    
+    @Test
+    public void testOrderNumberIndexAppendsChanges(@TempDir Path orderFolder) 
+            throws OrderPersistenceException, NoOrdersOnDateException, OrderNotFoundException, IOException{
+        OrderDao orderDao = new OrderDaoFileImpl(orderFolder.toString() + "/");
+        orderDao.loadAllOrders();
+        LocalDate orderDate = LocalDate.parse("2013-06-01");
+        Order firstOrder = orderDao.createOrder(orderDate, "Ada Lovelace", 
+                stateTax1, product1, new BigDecimal("249.00"),
+                new BigDecimal("871.50"), new BigDecimal("1033.35"), 
+                new BigDecimal("476.21"), new BigDecimal("2381.06"));
+        orderDao.addOrder(firstOrder);
+        orderDao.saveAllOrders();
+        Path indexFile = orderFolder.resolve("OrderNumberIndex.dat");
+        Path indexLog = orderFolder.resolve("OrderNumberIndex.dat.log");
+        byte[] savedIndex = Files.readAllBytes(indexFile);
+        
+        Order secondOrder = orderDao.createOrder(orderDate, "Grace Hopper", 
+                stateTax1, product1, new BigDecimal("249.00"),
+                new BigDecimal("871.50"), new BigDecimal("1033.35"), 
+                new BigDecimal("476.21"), new BigDecimal("2381.06"));
+        orderDao.addOrder(secondOrder);
+        orderDao.saveOrder(orderDate);
+        orderDao.removeOrder(firstOrder.getOrderNumber(), orderDate);
+        orderDao.saveOrder(orderDate);
+        
+        assertArrayEquals(savedIndex, Files.readAllBytes(indexFile), 
+                "Should not rewrite index file for a single-date save");
+        assertEquals(24, Files.size(indexLog), "Should append one added and one removed entry");
+        
+        OrderDaoFileImpl lazyOrderDao = new OrderDaoFileImpl(orderFolder.toString() + "/");
+        lazyOrderDao.setLazyLoad(true);
+        lazyOrderDao.loadAllOrders();
+        assertEquals(secondOrder, lazyOrderDao.getOrder(secondOrder.getOrderNumber()), 
+                "Should find order added through index log");
+        assertThrows(OrderNotFoundException.class,
+                () -> lazyOrderDao.getOrder(firstOrder.getOrderNumber()),
+                "Should not find order removed through index log");
+        
+        Files.write(indexLog, new byte[]{1, 2, 3}, StandardOpenOption.APPEND);
+        OrderDaoFileImpl reloadedOrderDao = new OrderDaoFileImpl(orderFolder.toString() + "/");
+        reloadedOrderDao.loadAllOrders();
+        reloadedOrderDao.saveOrder(orderDate);
+        
+        assertEquals(secondOrder, reloadedOrderDao.getOrder(secondOrder.getOrderNumber()), 
+                "Should read index log up to a torn record");
+        assertEquals(24, Files.size(indexLog), "Should cut torn record off index log");
+        assertArrayEquals(savedIndex, Files.readAllBytes(indexFile), 
+                "Should not rewrite index file when eager load matches it");
+    }
+    
+    
+    @Test
+    public void testExportOrdersWithoutLoadingDates(@TempDir Path orderFolder) 
+            throws IOException, OrderPersistenceException, NoOrdersOnDateException{
+        String header = "OrderNumber::CustomerName::State::TaxRate::ProductType::Area::"
+                + "CostPerSquareFoot::LaborCostPerSquareFoot::MaterialCost::LaborCost::Tax::Total\n";
+        Files.write(orderFolder.resolve("Orders_06012013.txt"), (header 
+                + "1::Ada Lovelace::CA::25.00::Tile::249.00::3.50::4.15::871.50::1033.35::476.21::2381.06\n").getBytes());
+        Files.write(orderFolder.resolve("Orders_06022013.txt"), (header 
+                + "2::Doctor Who::WA::9.25::Wood::243.00::5.15::4.75::1251.45::1154.25::216.51::2622.21\n"
+                + "3::Albert Einstein::KY::6.00::Carpet::217.00::2.25::2.10::488.25::455.70::56.64::1000.59\n").getBytes());
+        OrderDaoFileImpl lazyOrderDao = new OrderDaoFileImpl(orderFolder.toString() + "/");
+        lazyOrderDao.setLazyLoad(true);
+        lazyOrderDao.loadAllOrders();
+        
+        // Unsaved orders are exported too, with commas quoted
+        lazyOrderDao.addOrder(new Order(LocalDate.parse("2013-06-03"), 4, "Moranis, Rick", 
+                this.stateTax1, this.product1, new BigDecimal("249.00"),
+                new BigDecimal("871.50"), new BigDecimal("1033.35"), 
+                new BigDecimal("476.21"), new BigDecimal("2381.06")));
+        Path exportFile = orderFolder.resolve("DataExport.txt");
+        long rowCount = lazyOrderDao.exportOrders(exportFile.toString());
+        
+        List<String> expectedLines = new ArrayList<>(Files.readAllLines(Paths.get("../SampleFileData/Backup/DataExport.txt")));
+        expectedLines.add("4,\"Moranis, Rick\",CA,25.00,Tile,249.00,3.50,4.15,871.50,1033.35,476.21,2381.06,06-03-2013");
+        assertEquals(4, rowCount, "Every order should be exported");
+        assertEquals(expectedLines, Files.readAllLines(exportFile), "Export should match DataExport layout");
+        assertFalse(Files.exists(orderFolder.resolve("DataExport.txt.tmp")), "Temp file should be moved into place");
+        
+        // Dates read for the export weren't kept in memory
+        assertEquals(0, lazyOrderDao.getCacheMisses(), "Export shouldn't load dates");
+        lazyOrderDao.getAllOrdersOnDate(LocalDate.parse("2013-06-02"));
+        assertEquals(1, lazyOrderDao.getCacheMisses(), "First read after export should load the date");
+    }
 }
@@ -0,0 +1,91 @@
+/*
+ * @author Austin Wong
+ * email: austinwongdev@gmail.com
+ * date: Oct 18, 2026
+ * purpose:
+ */
+
+package com.aaw.flooring.dao;
+
+import com.aaw.flooring.model.Order;
+import com.aaw.flooring.model.Product;
+import com.aaw.flooring.model.StateTax;
+import java.io.BufferedReader;
+import java.io.FileReader;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Scanner;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * Times OrderFileDecoder against reading with Scanner and String.split.
+ * Not part of the default test run; run with mvn test -Pbenchmark
+ * @author Austin Wong
+ */
+public class OrderFileDecoderBenchmark {
+
+    private final String HEADER = "OrderNumber::CustomerName::State::TaxRate::ProductType::Area::"
+            + "CostPerSquareFoot::LaborCostPerSquareFoot::MaterialCost::LaborCost::Tax::Total";
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    public void compareScannerAndSplitWithDecoder() throws IOException{
+        // One date with 50,000 orders
+        Path orderFile = tempDir.resolve("Orders_01052030.txt");
+        StringBuilder contents = new StringBuilder(HEADER).append('\n');
+        for (int orderNumber = 1; orderNumber <= 50000; orderNumber++){
+            contents.append(orderNumber).append("::Customer ").append(orderNumber)
+                    .append("::CA::25.00::Tile::249.00::3.50::4.15::871.50::1033.35::476.21::2381.06\n");
+        }
+        Files.write(orderFile, contents.toString().getBytes(StandardCharsets.UTF_8));
+        LocalDate orderDate = LocalDate.parse("2030-01-05");
+
+        // Best of several rounds, so both paths are measured after warming up
+        long scannerNanos = Long.MAX_VALUE;
+        long decoderNanos = Long.MAX_VALUE;
+        for (int round = 0; round < 5; round++){
+            long startTime = System.nanoTime();
+            Map<Integer, Order> scannedOrders = readWithScannerAndSplit(orderFile, orderDate);
+            scannerNanos = Math.min(scannerNanos, System.nanoTime() - startTime);
+
+            startTime = System.nanoTime();
+            Map<Integer, Order> decodedOrders = new OrderFileDecoder().decode(orderFile, orderDate);
+            decoderNanos = Math.min(decoderNanos, System.nanoTime() - startTime);
+            assertEquals(scannedOrders, decodedOrders, "Both paths should read the same orders");
+        }
+        System.out.println("Reading 50000 orders: Scanner and split " + scannerNanos / 1_000_000 
+                + " ms, OrderFileDecoder " + decoderNanos / 1_000_000 + " ms");
+    }
+
+    /**
+     * Reads an order file the way loadOrder and unmarshallOrder did before
+     * OrderFileDecoder, as the baseline
+     */
+    private Map<Integer, Order> readWithScannerAndSplit(Path orderFile, LocalDate orderDate) throws IOException{
+        Map<Integer, Order> orders = new HashMap<>();
+        try (Scanner scanner = new Scanner(new BufferedReader(new FileReader(orderFile.toFile())))){
+            scanner.nextLine();
+            while (scanner.hasNextLine()){
+                String[] orderFields = scanner.nextLine().split("::");
+                int orderNumber = Integer.parseInt(orderFields[0]);
+                orders.put(orderNumber, new Order(orderDate, orderNumber, orderFields[1],
+                        new StateTax(orderFields[2], new BigDecimal(orderFields[3])),
+                        new Product(orderFields[4], new BigDecimal(orderFields[6]), new BigDecimal(orderFields[7])),
+                        new BigDecimal(orderFields[5]), new BigDecimal(orderFields[8]), 
+                        new BigDecimal(orderFields[9]), new BigDecimal(orderFields[10]), 
+                        new BigDecimal(orderFields[11])));
+            }
+        }
+        return orders;
+    }
+}
@@ -0,0 +1,107 @@
+/*
+ * To change this license header, choose License Headers in Project Properties.
+ * To change this template file, choose Tools | Templates
+ * and open the template in the editor.
+ */
+package com.aaw.flooring.dao;
+
+import com.aaw.flooring.model.Order;
+import com.aaw.flooring.model.Product;
+import com.aaw.flooring.model.StateTax;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.LocalDate;
+import java.util.Map;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ *
+ * @author Austin Wong
+ */
+public class OrderFileDecoderTest {
+
+    private final String HEADER = "OrderNumber::CustomerName::State::TaxRate::ProductType::Area::"
+            + "CostPerSquareFoot::LaborCostPerSquareFoot::MaterialCost::LaborCost::Tax::Total";
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    public void testDecodeOrderFile() throws IOException{
+        LocalDate orderDate = LocalDate.parse("2013-06-02");
+        Order expectedOrder = new Order(orderDate, 2, "Doctor Who",
+                new StateTax("WA", new BigDecimal("9.25")),
+                new Product("Wood", new BigDecimal("5.15"), new BigDecimal("4.75")),
+                new BigDecimal("243.00"), new BigDecimal("1251.45"),
+                new BigDecimal("1154.25"), new BigDecimal("216.51"), new BigDecimal("2622.21"));
+
+        Map<Integer, Order> orders = new OrderFileDecoder().decode(
+                Paths.get("src/test/resources/TestOrders/Orders_06022013.txt"), orderDate);
+
+        assertEquals(2, orders.size(), "Should decode 2 orders");
+        assertEquals(expectedOrder, orders.get(2), "Should decode Doctor Who's order #2");
+    }
+
+    @Test
+    public void testDecodeWindowsLineEndingsWithoutTrailingNewline() throws IOException{
+        Path orderFile = tempDir.resolve("Orders_01012030.txt");
+        Files.write(orderFile, (HEADER + "\r\n"
+                + "1::Ada Lovelace, Jr.::CA::25.00::Tile::200::3.50::4.15::700.00::830.00::382.50::1912.50\r\n"
+                + "2::Grace Hopper::CA::25.00::Tile::100.00::3.50::4.15::350.00::415.00::191.25::956.25")
+                .getBytes(StandardCharsets.UTF_8));
+
+        Map<Integer, Order> orders = new OrderFileDecoder().decode(orderFile, LocalDate.parse("2030-01-01"));
+
+        assertEquals(2, orders.size(), "Should decode 2 orders");
+        assertEquals("Ada Lovelace, Jr.", orders.get(1).getCustomerName(), "Should keep commas and periods in names");
+        assertEquals(new BigDecimal("200"), orders.get(1).getArea(), "Should keep the scale written in the file");
+        assertEquals(new BigDecimal("956.25"), orders.get(2).getTotal(), "Should read last field without a newline");
+        assertSame(orders.get(1).getProduct(), orders.get(2).getProduct(), "Identical products should be shared");
+    }
+
+    @Test
+    public void testDecodeDecimalsTooLongOrInExponentForm() throws IOException{
+        Path orderFile = tempDir.resolve("Orders_01042030.txt");
+        Files.write(orderFile, (HEADER + "\n"
+                + "1::Ada Lovelace::CA::25.00::Tile::1E+2::3.50::4.15::350.00::415.00::191.25::"
+                + "1234567890123456789.123\n").getBytes(StandardCharsets.UTF_8));
+
+        Map<Integer, Order> orders = new OrderFileDecoder().decode(orderFile, LocalDate.parse("2030-01-04"));
+
+        assertEquals(new BigDecimal("1E+2"), orders.get(1).getArea(), "Should read exponent form");
+        assertEquals(new BigDecimal("1234567890123456789.123"), orders.get(1).getTotal(), 
+                "Should read more than 18 digits");
+    }
+
+    @Test
+    public void testDecodeHeaderOnly() throws IOException{
+        Path orderFile = tempDir.resolve("Orders_01022030.txt");
+        Files.write(orderFile, (HEADER + "\n").getBytes(StandardCharsets.UTF_8));
+
+        Map<Integer, Order> orders = new OrderFileDecoder().decode(orderFile, LocalDate.parse("2030-01-02"));
+
+        assertTrue(orders.isEmpty(), "Should decode no orders");
+    }
+
+    @Test
+    public void testDecodeMalformedLine() throws IOException{
+        Path orderFile = tempDir.resolve("Orders_01032030.txt");
+        Files.write(orderFile, (HEADER + "\n"
+                + "1::Ada Lovelace::CA::25.00::Tile::abc::3.50::4.15::700.00::830.00::382.50::1912.50\n")
+                .getBytes(StandardCharsets.UTF_8));
+
+        assertThrows(IOException.class,
+                () -> new OrderFileDecoder().decode(orderFile, LocalDate.parse("2030-01-03")),
+                "Should throw IOException");
+    }
+
+}
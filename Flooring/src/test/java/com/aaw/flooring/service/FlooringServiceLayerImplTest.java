@@ -7,13 +7,23 @@ package com.aaw.flooring.service;
 
 import com.aaw.flooring.dao.OrderNotFoundException;
 import com.aaw.flooring.dao.NoOrdersOnDateException;
+import com.aaw.flooring.dao.OrderDaoFileImpl;
 import com.aaw.flooring.dao.OrderPersistenceException;
+import com.aaw.flooring.dao.ProductDaoFileImpl;
+import com.aaw.flooring.dao.StateTaxDaoFileImpl;
 import com.aaw.flooring.model.Order;
+import com.aaw.flooring.model.OrderBatchResult;
+import com.aaw.flooring.model.OrderImportReport;
+import com.aaw.flooring.model.OrderRequest;
 import com.aaw.flooring.model.Product;
+import com.aaw.flooring.model.RepricingReport;
 import com.aaw.flooring.model.StateTax;
 import java.io.FileWriter;
 import java.io.IOException;
 import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.time.LocalDate;
 import java.util.ArrayList;
 import java.util.List;
@@ -21,7 +31,9 @@ import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 import org.springframework.context.ApplicationContext;
 import org.springframework.context.support.ClassPathXmlApplicationContext;
 
@@ -62,8 +74,9 @@ public class FlooringServiceLayerImplTest {
     
     @Test
     public void testSaveAddedOrders() throws IOException, OrderNotFoundException, OrderPersistenceException, NoOrdersOnDateException{
-        // Clear file
+        // Clear file and rescan the folder instead of trusting the manifest
         new FileWriter("src/test/resources/TestOrders/Orders_06042013.txt");
+        Files.deleteIfExists(Paths.get("src/test/resources/TestOrders/OrderManifest.txt"));
         // Add order
         Product product1 = new Product("Tile", new BigDecimal("3.50"), new BigDecimal("4.15"));
         StateTax stateTax1 = new StateTax("CA", "California", new BigDecimal("25.00"));
@@ -224,4 +237,230 @@ public class FlooringServiceLayerImplTest {
         assertEquals(expectedTax, order1.getTax(), "Tax should be 216.51");
         assertEquals(expectedTotal, order1.getTotal(), "Total should be 2622.21");
     }
+    
+    @Test
+    public void testWriteBehindSavesInBackground(@TempDir Path orderFolder) 
+            throws IOException, OrderNotFoundException, OrderPersistenceException, NoOrdersOnDateException{
+        FlooringServiceLayerImpl writeBehindService = new FlooringServiceLayerImpl(
+                new OrderDaoFileImpl(orderFolder.toString() + "/"),
+                new ProductDaoFileImpl("src/test/resources/TestData/Products.txt"),
+                new StateTaxDaoFileImpl("src/test/resources/TestData/Taxes.txt"));
+        writeBehindService.setWriteBehind(true);
+        writeBehindService.setWriteBehindBacklog(1);
+        writeBehindService.loadAllOrders();
+        Product product1 = new Product("Tile", new BigDecimal("3.50"), new BigDecimal("4.15"));
+        StateTax stateTax1 = new StateTax("CA", "California", new BigDecimal("25.00"));
+        LocalDate order1Date = LocalDate.parse("2013-06-04");
+        Order order1 = writeBehindService.createOrder(order1Date, "Rick Moranis", 
+                stateTax1, product1, new BigDecimal("100.00"));
+        writeBehindService.addOrder(order1);
+        
+        // Repeated saves of a date are queued without waiting on disk
+        for (int i = 0; i < 5; i++){
+            writeBehindService.editOrder(order1, "Rick Moranis " + i, stateTax1, product1, new BigDecimal("100.00"));
+            writeBehindService.saveOrder(order1Date);
+        }
+        writeBehindService.flushPendingSaves();
+        OrderDaoFileImpl reloadedOrderDao = new OrderDaoFileImpl(orderFolder.toString() + "/");
+        reloadedOrderDao.loadAllOrders();
+        assertEquals("Rick Moranis 4", reloadedOrderDao.getOrder(order1.getOrderNumber(), order1Date).getCustomerName(),
+                "Last edit should be saved");
+        
+        // A failed background save is reported once and retried by saveAllOrders
+        LocalDate order2Date = LocalDate.parse("2013-06-05");
+        Path blockedFile = orderFolder.resolve("Orders_06052013.txt");
+        Files.createDirectories(blockedFile.resolve("blocked"));
+        writeBehindService.addOrder(writeBehindService.createOrder(order2Date, "Rick Moranis", 
+                stateTax1, product1, new BigDecimal("100.00")));
+        writeBehindService.saveOrder(order2Date);
+        OrderPersistenceException exception = assertThrows(OrderPersistenceException.class,
+                () -> writeBehindService.flushPendingSaves(), "Should report failed background save");
+        assertTrue(exception.getMessage().contains("6/5/2013"), "Should name failed date");
+        writeBehindService.checkPendingSaves();
+        Files.delete(blockedFile.resolve("blocked"));
+        Files.delete(blockedFile);
+        writeBehindService.saveAllOrders();
+        assertTrue(Files.exists(blockedFile), "Failed date should be saved on retry");
+    }
+    
+    @Test
+    public void testRepriceFutureOrders(@TempDir Path folder) 
+            throws IOException, OrderNotFoundException, OrderPersistenceException, NoOrdersOnDateException{
+        Path productFile = Files.writeString(folder.resolve("Products.txt"), 
+                "ProductType::CostPerSquareFoot::LaborCostPerSquareFoot\nCarpet::2.25::2.10\nLaminate::1.75::2.10");
+        Path taxFile = Files.writeString(folder.resolve("Taxes.txt"), 
+                "State::StateName::TaxRate\nTX::Texas::4.45\nWA::Washington::9.25");
+        Path orderFolder = Files.createDirectory(folder.resolve("Orders"));
+        FlooringServiceLayerImpl repricingService = new FlooringServiceLayerImpl(
+                new OrderDaoFileImpl(orderFolder.toString() + "/"),
+                new ProductDaoFileImpl(productFile.toString()),
+                new StateTaxDaoFileImpl(taxFile.toString()));
+        repricingService.setRepricingParallelism(2);
+        repricingService.loadAllOrders();
+        repricingService.loadAllProducts();
+        repricingService.loadAllStateTaxes();
+        Product carpet = repricingService.getProduct("Carpet");
+        Product laminate = repricingService.getProduct("Laminate");
+        StateTax texas = repricingService.getStateTax("TX");
+        StateTax washington = repricingService.getStateTax("WA");
+        LocalDate pastDate = LocalDate.parse("2013-06-04");
+        LocalDate futureDate1 = LocalDate.now().plusDays(10);
+        LocalDate futureDate2 = LocalDate.now().plusDays(20);
+        Order pastOrder = repricingService.createOrder(pastDate, "Rick Moranis", texas, carpet, new BigDecimal("100.00"));
+        Order futureOrder1 = repricingService.createOrder(futureDate1, "Rick Moranis", texas, carpet, new BigDecimal("100.00"));
+        Order futureOrder2 = repricingService.createOrder(futureDate1, "John Candy", washington, laminate, new BigDecimal("200.00"));
+        Order futureOrder3 = repricingService.createOrder(futureDate2, "John Candy", washington, laminate, new BigDecimal("150.00"));
+        Order tileOrder = repricingService.createOrder(futureDate2, "Bill Murray", texas, 
+                new Product("Tile", new BigDecimal("3.50"), new BigDecimal("4.15")), new BigDecimal("100.00"));
+        for (Order order : List.of(pastOrder, futureOrder1, futureOrder2, futureOrder3, tileOrder)){
+            repricingService.addOrder(order);
+        }
+        repricingService.saveAllOrders();
+        assertEquals(new BigDecimal("452.40"), futureOrder1.getTotal(), "Total before repricing should be 452.40");
+        
+        // Raise carpet cost and Texas tax, and leave an unrelated change unsaved
+        Files.writeString(productFile, 
+                "ProductType::CostPerSquareFoot::LaborCostPerSquareFoot\nCarpet::2.50::2.10\nLaminate::1.75::2.10");
+        Files.writeString(taxFile, "State::StateName::TaxRate\nTX::Texas::5.00\nWA::Washington::9.25");
+        Order unsavedOrder = repricingService.createOrder(futureDate2, "Dan Aykroyd", washington, laminate, new BigDecimal("100.00"));
+        repricingService.addOrder(unsavedOrder);
+        RepricingReport report = repricingService.repriceFutureOrders();
+        
+        assertEquals(1, report.getRepricedOrderCount(), "Only the future carpet order in Texas should be repriced");
+        assertEquals(1, report.getSkippedOrderCount(), "Tile order should be skipped");
+        assertEquals(List.of(futureDate1), new ArrayList<>(report.getRepricedDates()), "Only first future date should be repriced");
+        assertEquals(new BigDecimal("483.00"), repricingService.getOrder(futureOrder1.getOrderNumber(), futureDate1).getTotal(), 
+                "Total after repricing should be 483.00");
+        assertEquals(new BigDecimal("452.40"), pastOrder.getTotal(), "Past order should keep its price");
+        assertEquals(new BigDecimal("30.60"), report.getStateChanges().get("TX").getDelta(), "Texas total should rise 30.60");
+        assertEquals(new BigDecimal("30.60"), report.getProductChanges().get("Carpet").getDelta(), "Carpet total should rise 30.60");
+        assertNull(report.getStateChanges().get("WA"), "Washington orders weren't repriced");
+        
+        // Only the repriced date is written
+        OrderDaoFileImpl reloadedOrderDao = new OrderDaoFileImpl(orderFolder.toString() + "/");
+        reloadedOrderDao.loadAllOrders();
+        Order reloadedOrder = reloadedOrderDao.getOrder(futureOrder1.getOrderNumber(), futureDate1);
+        assertEquals(new BigDecimal("483.00"), reloadedOrder.getTotal(), "Repriced total should be saved");
+        assertEquals(new BigDecimal("2.50"), reloadedOrder.getProduct().getCostPerSquareFoot(), "New carpet cost should be saved");
+        assertThrows(OrderNotFoundException.class, 
+                () -> reloadedOrderDao.getOrder(unsavedOrder.getOrderNumber(), futureDate2),
+                "Unrelated changes should stay unsaved");
+    }
+    
+    @Test
+    public void testBatchOrderChanges(@TempDir Path orderFolder) 
+            throws IOException, OrderNotFoundException, OrderPersistenceException, NoOrdersOnDateException{
+        FlooringServiceLayerImpl batchService = new FlooringServiceLayerImpl(
+                new OrderDaoFileImpl(orderFolder.toString() + "/"),
+                new ProductDaoFileImpl("src/test/resources/TestData/Products.txt"),
+                new StateTaxDaoFileImpl("src/test/resources/TestData/Taxes.txt"));
+        batchService.loadAllOrders();
+        Product product1 = new Product("Tile", new BigDecimal("3.50"), new BigDecimal("4.15"));
+        StateTax stateTax1 = new StateTax("CA", "California", new BigDecimal("25.00"));
+        LocalDate firstDate = LocalDate.parse("2013-06-01");
+        
+        // Add 1000 orders over 10 dates, with two invalid requests
+        List<OrderRequest> newOrders = new ArrayList<>();
+        for (int i = 0; i < 1000; i++){
+            newOrders.add(new OrderRequest(firstDate.plusDays(i % 10), "Customer " + i, 
+                    stateTax1, product1, new BigDecimal("100")));
+            if (i == 500){
+                newOrders.add(new OrderRequest(firstDate, "Bad|Name", stateTax1, product1, new BigDecimal("100")));
+                newOrders.add(new OrderRequest(firstDate, "Small Area", stateTax1, product1, new BigDecimal("99.99")));
+            }
+        }
+        OrderBatchResult addResult = batchService.addOrders(newOrders);
+        assertNull(addResult.getSaveFailure(), "Batch should be saved");
+        assertEquals(1000, addResult.getSucceededCount(), "Valid orders should be added");
+        assertEquals(2, addResult.getFailedCount(), "Invalid orders should be reported");
+        assertEquals(OrderBatchResult.Outcome.FAILED, addResult.getItems().get(501).getOutcome(), "Results should be in request order");
+        assertNotNull(addResult.getItems().get(502).getErrorMessage(), "Failure should explain why");
+        Order firstOrder = addResult.getItems().get(0).getOrder();
+        Order lastOrder = addResult.getItems().get(1001).getOrder();
+        assertEquals(firstOrder.getOrderNumber() + 999, lastOrder.getOrderNumber(), "Numbers should come from one block");
+        assertEquals(new BigDecimal("956.25"), firstOrder.getTotal(), "Added orders should be priced");
+        assertEquals(new BigDecimal("100.00"), firstOrder.getArea(), "Area should be rounded to 2 places");
+        
+        // Edit one order, leave one unchanged, and miss one
+        List<OrderRequest> edits = List.of(
+                new OrderRequest(firstOrder.getOrderNumber(), firstDate, null, null, null, new BigDecimal("200.00")),
+                new OrderRequest(lastOrder.getOrderNumber(), lastOrder.getOrderDate(), lastOrder.getCustomerName(), null, null, null),
+                new OrderRequest(firstOrder.getOrderNumber(), firstDate.plusDays(1), "Nobody", null, null, null));
+        OrderBatchResult editResult = batchService.editOrders(edits);
+        assertEquals(OrderBatchResult.Outcome.EDITED, editResult.getItems().get(0).getOutcome(), "First order should be edited");
+        assertEquals(new BigDecimal("1912.50"), editResult.getItems().get(0).getOrder().getTotal(), "Edited order should be repriced");
+        assertEquals(OrderBatchResult.Outcome.UNCHANGED, editResult.getItems().get(1).getOutcome(), "Same fields should be unchanged");
+        assertEquals(OrderBatchResult.Outcome.FAILED, editResult.getItems().get(2).getOutcome(), "Missing order should fail");
+        
+        // Remove one order and miss one
+        OrderBatchResult removeResult = batchService.removeOrders(List.of(
+                new OrderRequest(lastOrder.getOrderNumber(), lastOrder.getOrderDate()),
+                new OrderRequest(lastOrder.getOrderNumber(), lastOrder.getOrderDate())));
+        assertEquals(OrderBatchResult.Outcome.REMOVED, removeResult.getItems().get(0).getOutcome(), "Order should be removed");
+        assertEquals(OrderBatchResult.Outcome.FAILED, removeResult.getItems().get(1).getOutcome(), "Removed order should be missing");
+        
+        // Every change was saved
+        OrderDaoFileImpl reloadedOrderDao = new OrderDaoFileImpl(orderFolder.toString() + "/");
+        reloadedOrderDao.loadAllOrders();
+        assertEquals(999, reloadedOrderDao.getOrdersBetween(firstDate, firstDate.plusDays(9)).size(), 
+                "Added orders less removed order should be saved");
+        assertEquals(new BigDecimal("1912.50"), reloadedOrderDao.getOrder(firstOrder.getOrderNumber(), firstDate).getTotal(),
+                "Edit should be saved");
+    }
+    
+    @Test
+    public void testImportOrders(@TempDir Path folder) 
+            throws IOException, OrderNotFoundException, OrderPersistenceException, NoOrdersOnDateException{
+        Path orderFolder = Files.createDirectory(folder.resolve("Orders"));
+        FlooringServiceLayerImpl importService = new FlooringServiceLayerImpl(
+                new OrderDaoFileImpl(orderFolder.toString() + "/"),
+                new ProductDaoFileImpl("src/test/resources/TestData/Products.txt"),
+                new StateTaxDaoFileImpl("src/test/resources/TestData/Taxes.txt"));
+        importService.setImportParallelism(3);
+        importService.setImportQueueCapacity(2);
+        importService.setImportBatchSize(1000);
+        importService.loadAllOrders();
+        
+        // Sample export, 3000 more valid rows, and rows that fail each step
+        List<String> lines = new ArrayList<>(Files.readAllLines(Paths.get("../SampleFileData/Backup/DataExport.txt")));
+        for (int i = 0; i < 3000; i++){
+            lines.add((100 + i) + ",Customer " + i + ",CA,25.00,Tile,100.00,3.50,4.15,350.00,415.00,191.25,956.25,06-"
+                    + String.format("%02d", 1 + i % 28) + "-2014");
+        }
+        lines.add("9001,Wrong Total,CA,25.00,Tile,100.00,3.50,4.15,350.00,415.00,191.25,956.26,06-01-2014");
+        lines.add("9002,Bad Date,CA,25.00,Tile,100.00,3.50,4.15,350.00,415.00,191.25,956.25,06-41-2014");
+        lines.add("9003,Too Few Fields");
+        lines.add("9004,Bad|Name,CA,25.00,Tile,100.00,3.50,4.15,350.00,415.00,191.25,956.25,06-01-2014");
+        lines.add("1,Duplicate Number,CA,25.00,Tile,100.00,3.50,4.15,350.00,415.00,191.25,956.25,06-01-2014");
+        lines.add("9005,\"Moranis, Rick\",CA,25.00,Tile,100.00,3.50,4.15,350.00,415.00,191.25,956.25,06-01-2014");
+        Path importFile = Files.write(folder.resolve("DataExport.txt"), lines);
+        
+        OrderImportReport report = importService.importOrders(importFile.toString());
+        assertEquals(3009, report.getRowCount(), "Every row should be read");
+        assertEquals(3004, report.getImportedCount(), "Valid rows should be imported");
+        assertEquals(5, report.getRejectedCount(), "Invalid rows should be rejected");
+        assertEquals("Moranis, Rick", importService.getOrder(9005).getCustomerName(), "Quoted commas should be kept");
+        assertEquals(new BigDecimal("2381.06"), importService.getOrder(1).getTotal(), "Order numbers should be kept");
+        
+        // Rejected rows are written with a reason, ready to be fixed and imported again
+        Path errorFile = folder.resolve("DataExport_Errors.txt");
+        assertEquals(errorFile.toString(), report.getErrorFilePath(), "Error file should be named after import file");
+        List<String> errorLines = Files.readAllLines(errorFile);
+        assertEquals(lines.get(0) + ",Error", errorLines.get(0), "Error file should have an Error column");
+        assertEquals(6, errorLines.size(), "Each rejected row should be written");
+        assertTrue(errorLines.stream().anyMatch((line) -> line.startsWith("9001,") && line.contains("Total 956.26 should be 956.25")),
+                "Price check failure should be explained");
+        assertTrue(errorLines.stream().anyMatch((line) -> line.startsWith("1,Duplicate") && line.contains("already exists")),
+                "Duplicate order number should be explained");
+        
+        // Imported orders are saved
+        OrderDaoFileImpl reloadedOrderDao = new OrderDaoFileImpl(orderFolder.toString() + "/");
+        reloadedOrderDao.loadAllOrders();
+        assertEquals(3001, reloadedOrderDao.getOrdersBetween(LocalDate.parse("2014-06-01"), LocalDate.parse("2014-06-28")).size(),
+                "Generated orders should be saved");
+        
+        // Importing again adds nothing
+        OrderImportReport repeatReport = importService.importOrders(importFile.toString());
+        assertEquals(0, repeatReport.getImportedCount(), "Imported orders shouldn't be imported twice");
+    }
 }
@@ -0,0 +1,68 @@
+/*
+ * @author Austin Wong
+ * email: austinwongdev@gmail.com
+ * date: Oct 18, 2026
+ * purpose:
+ */
+
+package com.aaw.flooring.service;
+
+import java.math.BigDecimal;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Times OrderPricer's long hundredths path against pricing with BigDecimal.
+ * Not part of the default test run; run with mvn test -Pbenchmark
+ * @author Austin Wong
+ */
+public class OrderPricerBenchmark {
+
+    private static final String[][] PRODUCT_COSTS = {
+        {"2.25", "2.10"}, {"3.50", "4.15"}, {"5.15", "4.75"}, {"5.00", "4.75"},
+        {"0.01", "0.99"}, {"0.00", "0.00"}, {"999.99", "123.45"}
+    };
+
+    private static final String[] TAX_RATES = {
+        "0.00", "4.45", "5.00", "6.25", "25.00", "0.49", "0.50", "0.51", "99.99", "100.00"
+    };
+
+    @Test
+    public void compareWithBigDecimal(){
+        // Typical orders: scale 2 areas, product costs and tax rates
+        Random random = new Random(20131001L);
+        BigDecimal[][] orders = new BigDecimal[100000][];
+        for (int i = 0; i < orders.length; i++){
+            String[] productCosts = PRODUCT_COSTS[random.nextInt(PRODUCT_COSTS.length)];
+            orders[i] = new BigDecimal[]{BigDecimal.valueOf(10000 + random.nextInt(1000000), 2),
+                new BigDecimal(productCosts[0]), new BigDecimal(productCosts[1]),
+                new BigDecimal(TAX_RATES[random.nextInt(TAX_RATES.length)])};
+        }
+
+        // Best of several rounds, so both paths are measured after warming up
+        long bigDecimalNanos = Long.MAX_VALUE;
+        long longNanos = Long.MAX_VALUE;
+        for (int round = 0; round < 7; round++){
+            long startTime = System.nanoTime();
+            long bigDecimalTotal = 0;
+            for (BigDecimal[] order : orders){
+                bigDecimalTotal += OrderPricer.priceWithBigDecimal(
+                        order[0], order[1], order[2], order[3]).getTotal().unscaledValue().longValue();
+            }
+            bigDecimalNanos = Math.min(bigDecimalNanos, System.nanoTime() - startTime);
+
+            startTime = System.nanoTime();
+            long longTotal = 0;
+            for (BigDecimal[] order : orders){
+                longTotal += OrderPricer.price(
+                        order[0], order[1], order[2], order[3]).getTotal().unscaledValue().longValue();
+            }
+            longNanos = Math.min(longNanos, System.nanoTime() - startTime);
+            assertEquals(bigDecimalTotal, longTotal, "Both paths should add up to the same total");
+        }
+        System.out.println("Pricing " + orders.length + " orders: BigDecimal " 
+                + bigDecimalNanos / orders.length + " ns/order, long hundredths " 
+                + longNanos / orders.length + " ns/order");
+    }
+}
@@ -0,0 +1,112 @@
+/*
+ * @author Austin Wong
+ * email: austinwongdev@gmail.com
+ * date: Oct 18, 2026
+ * purpose:
+ */
+
+package com.aaw.flooring.service;
+
+import java.math.BigDecimal;
+import java.util.Random;
+import java.util.function.Supplier;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ *
+ * @author Austin Wong
+ */
+public class OrderPricerTest {
+
+    private static final String[][] PRODUCT_COSTS = {
+        {"2.25", "2.10"}, {"3.50", "4.15"}, {"5.15", "4.75"}, {"5.00", "4.75"},
+        {"0.01", "0.99"}, {"0.00", "0.00"}, {"999.99", "123.45"}
+    };
+
+    private static final String[] TAX_RATES = {
+        "0.00", "4.45", "5.00", "6.25", "25.00", "0.49", "0.50", "0.51", "99.99", "100.00"
+    };
+
+    @Test
+    public void testEveryAreaMatchesBigDecimal(){
+        // Every area up to 1500.00 square feet, in hundredths
+        for (String[] productCosts : PRODUCT_COSTS){
+            BigDecimal costPerSquareFoot = new BigDecimal(productCosts[0]);
+            BigDecimal laborCostPerSquareFoot = new BigDecimal(productCosts[1]);
+            for (String taxRate : TAX_RATES){
+                for (long areaHundredths = 0; areaHundredths <= 150000; areaHundredths++){
+                    assertSamePrices(BigDecimal.valueOf(areaHundredths, 2), costPerSquareFoot,
+                            laborCostPerSquareFoot, new BigDecimal(taxRate));
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testEveryTaxRateMatchesBigDecimal(){
+        // Every tax rate from 0.00% to 100.00%, in hundredths
+        String[] areas = {"100.00", "100.01", "249.99", "1234.56", "0.01"};
+        for (String area : areas){
+            for (String[] productCosts : PRODUCT_COSTS){
+                for (long taxRateHundredths = 0; taxRateHundredths <= 10000; taxRateHundredths++){
+                    assertSamePrices(new BigDecimal(area), new BigDecimal(productCosts[0]),
+                            new BigDecimal(productCosts[1]), BigDecimal.valueOf(taxRateHundredths, 2));
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testRandomInputsMatchBigDecimal(){
+        Random random = new Random(20131001L);
+        for (int i = 0; i < 200000; i++){
+            assertSamePrices(randomValue(random), randomValue(random),
+                    randomValue(random), randomValue(random));
+        }
+    }
+
+    @Test
+    public void testUnusualInputsMatchBigDecimal(){
+        // Extra decimal places, trailing zeros, negative scales, and values too large for a long
+        String[] values = {
+            "100", "100.0", "100.000", "100.005", "0.125", "1E+3", "-3.50", "-0.005",
+            "92233720368547758.07", "92233720368547758.08", "46116860184273879.03",
+            "3037000499.97", "3037000500.00", "123456789012345678901234567890.12"
+        };
+        for (String area : values){
+            for (String cost : values){
+                for (String taxRate : values){
+                    assertSamePrices(new BigDecimal(area), new BigDecimal(cost),
+                            new BigDecimal("4.15"), new BigDecimal(taxRate));
+                }
+            }
+        }
+    }
+
+    private BigDecimal randomValue(Random random){
+        switch (random.nextInt(4)){
+            case 0:
+                // Scale 3 values are priced with BigDecimal
+                return BigDecimal.valueOf(random.nextInt(10000000), 3);
+            case 1:
+                return BigDecimal.valueOf(random.nextLong() % 100000000000L, 2);
+            default:
+                return BigDecimal.valueOf(random.nextInt(1000000), 2);
+        }
+    }
+
+    private void assertSamePrices(BigDecimal area, BigDecimal costPerSquareFoot,
+            BigDecimal laborCostPerSquareFoot, BigDecimal taxRate){
+        OrderPricer.Prices expected = OrderPricer.priceWithBigDecimal(area, costPerSquareFoot,
+                laborCostPerSquareFoot, taxRate);
+        OrderPricer.Prices actual = OrderPricer.price(area, costPerSquareFoot,
+                laborCostPerSquareFoot, taxRate);
+        Supplier<String> inputs = () -> area + " sq ft at " + costPerSquareFoot + "/"
+                + laborCostPerSquareFoot + " with " + taxRate + "% tax";
+        assertEquals(expected.getMaterialCost(), actual.getMaterialCost(), () -> "Material cost for " + inputs.get());
+        assertEquals(expected.getLaborCost(), actual.getLaborCost(), () -> "Labor cost for " + inputs.get());
+        assertEquals(expected.getTax(), actual.getTax(), () -> "Tax for " + inputs.get());
+        assertEquals(expected.getTotal(), actual.getTotal(), () -> "Total for " + inputs.get());
+    }
+}